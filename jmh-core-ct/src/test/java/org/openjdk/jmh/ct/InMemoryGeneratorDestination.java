@@ -58,6 +58,10 @@ public class InMemoryGeneratorDestination implements GeneratorDestination {
         return new ByteArrayInputStream(sw.toByteArray());
     }
 
+    public void removeResource(String resourcePath) {
+        resourceBodies.remove(resourcePath);
+    }
+
     @Override
     public Writer newClass(String className) throws IOException {
         StringWriter sw = new StringWriter();
@@ -116,4 +116,52 @@ public class MultipleSessionsTest {
         }
     }
 
+    @Test
+    public void testRemove() {
+        InMemoryGeneratorDestination dst = new InMemoryGeneratorDestination();
+
+        {
+            RFGeneratorSource src = new RFGeneratorSource();
+            BenchmarkGenerator gen = new BenchmarkGenerator();
+
+            src.processClasses(Benchmark1.class, Benchmark2.class);
+
+            gen.generate(src, dst);
+            gen.complete(src, dst);
+
+            Assert.assertFalse("First stage error", dst.hasErrors());
+
+            String[] list = dst.getResources().get(BenchmarkList.BENCHMARK_LIST.substring(1)).split("\n");
+            Assert.assertEquals("First stage should have 2 benchmarks", 2, list.length);
+        }
+
+        // Build tool discards everything generated from the removed class
+        for (String res : dst.getResources().keySet()) {
+            if (res.contains(Benchmark2.class.getName() + ".")) {
+                dst.removeResource(res);
+            }
+        }
+
+        {
+            RFGeneratorSource src = new RFGeneratorSource();
+            BenchmarkGenerator gen = new BenchmarkGenerator();
+
+            src.processClasses(Benchmark1.class);
+
+            gen.generate(src, dst);
+            gen.complete(src, dst);
+
+            Assert.assertFalse("Second stage error", dst.hasErrors());
+            boolean hasOurInfo = false;
+            for (String note : dst.getNotes()) {
+                hasOurInfo |= (note.contains("Benchmark2") && note.contains("gone"));
+            }
+            Assert.assertTrue("Should have our note: " + dst.getNotes(), hasOurInfo);
+
+            String[] list = dst.getResources().get(BenchmarkList.BENCHMARK_LIST.substring(1)).split("\n");
+            Assert.assertEquals("Second stage should have 1 benchmark", 1, list.length);
+            Assert.assertTrue(list[0].contains(Benchmark1.class.getName()));
+        }
+    }
+
 }
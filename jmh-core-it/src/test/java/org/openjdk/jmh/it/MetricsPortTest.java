@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.Collection;
+
+/**
+ * Tests if the forked VM sees the live metrics of its own benchmark.
+ */
+@State(Scope.Benchmark)
+public class MetricsPortTest {
+
+    @Param("0")
+    private int port;
+
+    @Benchmark
+    public void test() {
+        Fixtures.work();
+    }
+
+    @TearDown(Level.Iteration)
+    public void scrape() throws IOException {
+        try (InputStream is = new URL("http://127.0.0.1:" + port + "/metrics").openStream()) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                bos.write(buf, 0, read);
+            }
+            String metrics = bos.toString("UTF-8");
+            Assert.assertTrue(metrics, metrics.contains("jmh_benchmark_info{benchmark=\"" + MetricsPortTest.class.getName() + ".test\""));
+            Assert.assertTrue(metrics, metrics.contains("jmh_iteration{"));
+        }
+    }
+
+    @Test
+    public void invokeAPI() throws RunnerException, IOException {
+        int port;
+        try (ServerSocket s = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = s.getLocalPort();
+        }
+
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .warmupIterations(0)
+                .measurementIterations(2)
+                .measurementTime(TimeValue.milliseconds(100))
+                .forks(1)
+                .shouldFailOnError(true)
+                .param("port", String.valueOf(port))
+                .metricsPort(port)
+                .build();
+
+        Collection<RunResult> results = new Runner(opts).run();
+        Assert.assertEquals(1, results.size());
+
+        // endpoint is gone after the run
+        try (ServerSocket s = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            Assert.assertEquals(port, s.getLocalPort());
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.BenchmarkResultMetaData;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Tests if harness honors the JIT-quiescence warmup settings.
+ */
+public class WarmupQuietTest {
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Fork(1)
+    public void test() {
+        Fixtures.work();
+    }
+
+    @Test
+    public void invokeAPI() throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .warmupTime(TimeValue.milliseconds(100))
+                .measurementTime(TimeValue.milliseconds(100))
+                .measurementIterations(1)
+                .warmupIterations(2)
+                .warmupQuietIterations(2)
+                .warmupQuietLimit(5)
+                .build();
+
+        for (RunResult rr : new Runner(opt).run()) {
+            for (BenchmarkResult br : rr.getBenchmarkResults()) {
+                BenchmarkResultMetaData md = br.getMetadata();
+                Assert.assertNotNull(md);
+                int wi = md.getWarmupIterations();
+                Assert.assertTrue("At least two warmup iterations expected: " + wi, wi >= 2);
+                Assert.assertTrue("At most five warmup iterations expected: " + wi, wi <= 5);
+                if (md.getLastCompilationTime() != Long.MIN_VALUE) {
+                    Assert.assertTrue(md.getLastCompilationTime() >= md.getWarmupTime());
+                    Assert.assertTrue(md.getLastCompilationTime() <= md.getStopTime());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.asymm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests if harness throttles the producer stage to the consumer rate,
+ * and reports the pipeline throughput and the backlog growth.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PipelineTest {
+
+    private final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+
+    @Benchmark
+    @Group("pipeline")
+    @GroupStage(value = 0, maxBacklog = 100)
+    public void put() {
+        queue.offer(42);
+    }
+
+    @Benchmark
+    @Group("pipeline")
+    @GroupStage(1)
+    public Integer take() {
+        Blackhole.consumeCPU(100);
+        return queue.poll();
+    }
+
+    @Test
+    public void invokeAPI() throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .shouldFailOnError(true)
+                .warmupIterations(0)
+                .measurementTime(TimeValue.milliseconds(200))
+                .measurementIterations(1)
+                .forks(1)
+                .build();
+
+        for (RunResult rr : new Runner(opt).run()) {
+            Result put = rr.getSecondaryResults().get("put");
+            Result take = rr.getSecondaryResults().get("take");
+            Result pipeline = rr.getSecondaryResults().get("·pipeline");
+            Result backlog = rr.getSecondaryResults().get("·backlog.put");
+            Assert.assertNotNull("Pipeline throughput should be reported", pipeline);
+            Assert.assertNotNull("Backlog growth should be reported", backlog);
+
+            Assert.assertEquals(Math.min(put.getScore(), take.getScore()), pipeline.getScore(), 1e-9);
+            Assert.assertEquals(put.getScore() - take.getScore(), backlog.getScore(), 1e-9);
+
+            // throttled producer keeps up with the consumer, but does not outrun it
+            Assert.assertTrue("Producer outruns the consumer: " + put + " vs " + take,
+                    put.getScore() < take.getScore() * 1.1);
+        }
+    }
+
+}
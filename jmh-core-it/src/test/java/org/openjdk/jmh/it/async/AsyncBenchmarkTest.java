@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.async;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests asynchronous benchmarks: the operations complete on the foreign threads.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 2, time = 400, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1) // 0 to enable debugging
+@State(Scope.Benchmark)
+public class AsyncBenchmarkTest {
+
+    private static final int DELAY_MS = 10;
+    private static final int IN_FLIGHT = 4;
+
+    private ScheduledExecutorService executor;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newScheduledThreadPool(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "completer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @InFlightOperations(IN_FLIGHT)
+    public CompletableFuture<Integer> test() {
+        final CompletableFuture<Integer> f = new CompletableFuture<>();
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                f.complete(42);
+            }
+        }, DELAY_MS, TimeUnit.MILLISECONDS);
+        return f;
+    }
+
+    private RunResult run(Mode mode) throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .mode(mode)
+                .shouldFailOnError(true)
+                .build();
+        return new Runner(opts).runSingle();
+    }
+
+    @Test
+    public void testThroughput() throws RunnerException {
+        double score = run(Mode.Throughput).getPrimaryResult().getScore();
+
+        // blocking on every operation would yield 1 / DELAY_MS
+        double max = 1.0 * IN_FLIGHT / DELAY_MS;
+        Assert.assertTrue("Throughput: " + score, score > max / 2);
+        Assert.assertTrue("Throughput: " + score, score <= max * 1.1);
+    }
+
+    @Test
+    public void testAverageTime() throws RunnerException {
+        double score = run(Mode.AverageTime).getPrimaryResult().getScore();
+
+        // wall time per operation would be DELAY_MS / IN_FLIGHT
+        Assert.assertTrue("Average time: " + score, score >= DELAY_MS * 0.9);
+        Assert.assertTrue("Average time: " + score, score < DELAY_MS * 5);
+    }
+
+    @Test
+    public void testSampleTime() throws RunnerException {
+        RunResult rr = run(Mode.SampleTime);
+        double p50 = rr.getPrimaryResult().getStatistics().getPercentile(50);
+        long n = rr.getPrimaryResult().getSampleCount();
+
+        Assert.assertTrue("Median time: " + p50, p50 >= DELAY_MS * 0.9);
+        Assert.assertTrue("Median time: " + p50, p50 < DELAY_MS * 5);
+        Assert.assertTrue("Sample count: " + n, n > 2 * 400 / DELAY_MS);
+    }
+
+    @Test
+    public void testSingleShot() throws RunnerException {
+        double score = run(Mode.SingleShotTime).getPrimaryResult().getScore();
+        Assert.assertTrue("Single shot time: " + score, score >= DELAY_MS * 0.9);
+    }
+
+}
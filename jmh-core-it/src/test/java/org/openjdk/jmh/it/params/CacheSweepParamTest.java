@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.params;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class CacheSweepParamTest {
+
+    @State(Scope.Benchmark)
+    public static class Benchmark1 {
+        @Param("1")
+        private long size;
+
+        @Param("2")
+        private int other;
+
+        @Benchmark
+        public void test() {
+            Assert.assertTrue("size > 0", size > 0);
+            Assert.assertEquals(2, other);
+        }
+    }
+
+    @Test
+    public void sweep() throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .warmupIterations(0)
+                .measurementIterations(1)
+                .measurementTime(TimeValue.milliseconds(10))
+                .forks(0)
+                .shouldFailOnError(true)
+                .cacheSweep("size")
+                .build();
+
+        Collection<RunResult> results = new Runner(opts).run();
+
+        Set<Long> sizes = new TreeSet<>();
+        for (RunResult r : results) {
+            sizes.add(Long.valueOf(r.getParams().getParam("size")));
+        }
+
+        if (new File("/sys/devices/system/cpu/cpu0/cache").isDirectory()) {
+            // at least L1, and DRAM
+            Assert.assertTrue("sizes: " + sizes, sizes.size() >= 4);
+            Assert.assertFalse("sizes: " + sizes, sizes.contains(1L));
+        } else {
+            Assert.assertEquals("sizes: " + sizes, 1, sizes.size());
+        }
+        Assert.assertEquals(sizes.size(), results.size());
+    }
+
+    @Test
+    public void unknownParam() {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .forks(0)
+                .cacheSweep("length")
+                .build();
+
+        try {
+            new Runner(opts).run();
+            Assert.fail("Should have failed");
+        } catch (RunnerException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("\"length\""));
+        }
+    }
+
+    @Test
+    public void alsoGivenExplicitly() {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .forks(0)
+                .cacheSweep("size")
+                .param("size", "42")
+                .build();
+
+        try {
+            new Runner(opts).run();
+            Assert.fail("Should have failed");
+        } catch (RunnerException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("cannot be given with -p"));
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2014, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.FootprintProfiler;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests footprint profiler.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 1, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 2, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1) // 0 to enable debugging
+public class FootprintProfilerTest {
+
+    @State(Scope.Benchmark)
+    public static class Big {
+        byte[] data;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            data = new byte[16 * 1024 * 1024];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Small {
+        byte[] data;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            data = new byte[1024 * 1024];
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            data = null;
+        }
+    }
+
+    @Benchmark
+    public int bench(Big big, Small small) {
+        return big.data.length + small.data.length;
+    }
+
+    @Test
+    public void test() throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .addProfiler(FootprintProfiler.class)
+                .build();
+        RunResult rr = new Runner(opts).runSingle();
+
+        Map<String, Result> sr = rr.getSecondaryResults();
+        Result big = sr.get(Defaults.PREFIX + "footprint.FootprintProfilerTest.Big");
+        Result small = sr.get(Defaults.PREFIX + "footprint.FootprintProfilerTest.Small.iteration");
+        Assert.assertNotNull(big);
+        Assert.assertNotNull(small);
+
+        Assert.assertTrue("Big state footprint: " + big.getScore(), big.getScore() >= 15 * 1024 * 1024);
+        Assert.assertTrue("Small state footprint: " + small.getScore(), small.getScore() >= 512 * 1024);
+        Assert.assertTrue("Small state footprint: " + small.getScore(), small.getScore() < 4 * 1024 * 1024);
+    }
+}
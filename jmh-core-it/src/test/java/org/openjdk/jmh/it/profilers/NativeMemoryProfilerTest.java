@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.NativeMemoryProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests native memory profiler.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class NativeMemoryProfilerTest {
+
+    private final List<ByteBuffer> retained = new ArrayList<>();
+
+    @Benchmark
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 3)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(1)
+    public void allocateDirect() {
+        retained.add(ByteBuffer.allocateDirect(1024 * 1024));
+    }
+
+    @Test
+    public void test() throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(Fixtures.getTestMask(this.getClass()))
+                .addProfiler(NativeMemoryProfiler.class)
+                .build();
+
+        RunResult rr = new Runner(opts).runSingle();
+
+        Map<String, Result> sr = rr.getSecondaryResults();
+        Result direct = sr.get("·nmt.buffers.direct.growth");
+        Assert.assertNotNull(direct);
+        Assert.assertEquals(1024 * 1024, direct.getScore(), 0.1);
+
+        Result total = sr.get("·nmt.total.growth");
+        if (total == null) {
+            // NMT is not available
+            return;
+        }
+        Assert.assertTrue("Should see native growth: " + total.getScore(), total.getScore() > 0);
+
+        Result norm = sr.get("·nmt.total.norm");
+        Assert.assertNotNull(norm);
+        Assert.assertTrue("Should see native growth per op: " + norm.getScore(), norm.getScore() > 0);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.it.profilers;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.it.Fixtures;
+import org.openjdk.jmh.profile.ThreadFairnessProfiler;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests fairness results are only reported when the profiler is enabled.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 0)
+@Measurement(iterations = 2, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Threads(2)
+@Fork(1) // 0 to enable debugging
+public class ThreadFairnessProfilerTest {
+
+    @Benchmark
+    public void test() {
+        Fixtures.work();
+    }
+
+    private Map<String, Result> run(boolean profile) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.include(Fixtures.getTestMask(this.getClass()));
+        if (profile) {
+            builder.addProfiler(ThreadFairnessProfiler.class);
+        }
+        Options opts = builder.build();
+        Collection<RunResult> results = new Runner(opts).run();
+        Assert.assertEquals(1, results.size());
+        return results.iterator().next().getSecondaryResults();
+    }
+
+    @Test
+    public void testEnabled() throws RunnerException {
+        Map<String, Result> sr = run(true);
+        double fairness = sr.get(Defaults.PREFIX + "threads.fairness").getScore();
+        Assert.assertTrue("Fairness index out of range: " + fairness, fairness >= 0.5 && fairness <= 1.0);
+        Assert.assertTrue(sr.containsKey(Defaults.PREFIX + "threads.ops.min"));
+    }
+
+    @Test
+    public void testDisabled() throws RunnerException {
+        Map<String, Result> sr = run(false);
+        Assert.assertFalse(sr.containsKey(Defaults.PREFIX + "threads.fairness"));
+    }
+}
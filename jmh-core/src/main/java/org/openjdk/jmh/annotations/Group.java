@@ -52,6 +52,8 @@ import java.lang.annotation.Target;
  * <p>The group tag is used as the generated benchmark name. The result of each
  * benchmark method in isolation is recorded as secondary result named by the
  * original method name.</p>
+ *
+ * <p>{@link GroupStage} links the group methods into a producer/consumer pipeline.</p>
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>GroupStage links the {@link Group} methods into a pipeline.</p>
+ *
+ * <p>Every {@link Benchmark} method in the group should then have a distinct stage
+ * number, and every operation of a stage is assumed to hand one item over to the next
+ * stage, e.g. the producer puts one element into the queue, and the consumer takes
+ * one element out of it. The harness treats the difference in operation counts of
+ * the adjacent stages as the backlog between them. {@link Mode#Throughput} benchmarks
+ * additionally report the sustained end-to-end throughput, which is the throughput of
+ * the slowest stage, and the growth rate of every backlog. Positive growth rate means
+ * the stage outruns the next one, and its own throughput is not sustainable.</p>
+ *
+ * <p>If {@link #maxBacklog()} is set, the stage is throttled in the measurement loop:
+ * it waits before every operation until its backlog drops below the limit, so that
+ * producers run at the consumer rate, and the backlog stays bounded. The waiting time
+ * is counted in the score, the backlog is counted from zero in every iteration.
+ * Throttling is only implemented for {@link Mode#Throughput}, and the throttled
+ * benchmarks should not declare any other {@link BenchmarkMode}. If another mode is
+ * requested at run time, the stages run unthrottled.</p>
+ *
+ * <blockquote><pre>
+ * &#64;Benchmark
+ * &#64;Group("queue")
+ * &#64;GroupStage(value = 0, maxBacklog = 1024)
+ * public void put() {
+ *      queue.offer(element);
+ * }
+ *
+ * &#64;Benchmark
+ * &#64;Group("queue")
+ * &#64;GroupStage(1)
+ * public Object take() throws InterruptedException {
+ *      return queue.take();
+ * }
+ * </pre></blockquote>
+ *
+ * @see Group
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GroupStage {
+
+    /**
+     * @return stage number; stages run in the ascending order of their numbers.
+     */
+    int value();
+
+    /**
+     * @return maximum number of operations this stage can be ahead of the next one;
+     * zero, to run the stage unthrottled.
+     */
+    int maxBacklog() default 0;
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>InFlightOperations annotation sets how many asynchronous operations each
+ * benchmark thread keeps in flight.</p>
+ *
+ * <p>{@link Benchmark} methods returning {@code java.util.concurrent.CompletionStage}
+ * or {@code java.util.concurrent.CompletableFuture} are treated as asynchronous: JMH
+ * calls the method again as soon as the number of incomplete operations issued by
+ * the thread drops below this limit, and scores the completions rather than the calls.
+ * {@link Mode#Throughput} counts the operations completed within the measurement
+ * window, {@link Mode#AverageTime} and {@link Mode#SampleTime} measure the time from
+ * the call to the completion.</p>
+ *
+ * <blockquote><pre>
+ * &#64;Benchmark
+ * &#64;InFlightOperations(16)
+ * public CompletableFuture&lt;Response&gt; test() {
+ *      return client.sendAsync(request);
+ * }
+ * </pre></blockquote>
+ *
+ * <p>This annotation may be put at {@link Benchmark} method to have effect on that method
+ * only, or at the enclosing class instance to have the effect over all asynchronous
+ * {@link Benchmark} methods in the class.</p>
+ */
+@Inherited
+@Target({ElementType.METHOD,ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InFlightOperations {
+
+    /**
+     * @return Maximum number of incomplete operations per thread.
+     */
+    int value() default 1;
+
+}
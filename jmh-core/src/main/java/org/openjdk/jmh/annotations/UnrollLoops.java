@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>UnrollLoops annotation makes JMH generate the unrolled measurement loops for the
+ * {@link Mode#Throughput} and {@link Mode#AverageTime} benchmarks. The unrolled loop
+ * calls the benchmark several times between the checks for the iteration end, which
+ * lowers the loop overhead for the very short benchmarks. All calls are counted, so
+ * the operation accounting stays exact.</p>
+ *
+ * <p>The unroll factor is calibrated during warmup, and needs at least two warmup
+ * iterations: warmup iterations alternate between the plain and the unrolled loops,
+ * so each loop gets about a half of the warmup. The chosen factor is reported as the
+ * "·unroll" secondary result. The loop overhead removed by unrolling is reported as
+ * "·unroll.overhead" for reference only, and is not subtracted from the score.</p>
+ *
+ * <p>Unrolling is enabled for the annotated benchmarks by default, and can be disabled
+ * at run time with {@code -ul false}. Benchmarks without this annotation are never
+ * unrolled, and do not carry the unrolled loops.</p>
+ *
+ * <p>This annotation may be put at {@link Benchmark} method to have effect on that method
+ * only, or at the enclosing class instance to have the effect over all {@link Benchmark}
+ * methods in the class.</p>
+ */
+@Inherited
+@Target({ElementType.METHOD,ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UnrollLoops {
+
+}
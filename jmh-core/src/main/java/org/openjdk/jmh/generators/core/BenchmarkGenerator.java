@@ -29,12 +29,15 @@ import org.openjdk.jmh.infra.*;
 import org.openjdk.jmh.results.*;
 import org.openjdk.jmh.runner.*;
 import org.openjdk.jmh.runner.Defaults;
+import org.openjdk.jmh.util.FileUtils;
 import org.openjdk.jmh.util.HashMultimap;
+import org.openjdk.jmh.util.HashsetMultimap;
 import org.openjdk.jmh.util.Multimap;
 import org.openjdk.jmh.util.SampleBuffer;
 
 import java.io.*;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,6 +53,20 @@ public class BenchmarkGenerator {
 
     private static final String JMH_STUB_SUFFIX = "_jmhStub";
 
+    /**
+     * Infix for the unrolled measurement stubs. These still match the stub name
+     * patterns, and are not inlined.
+     */
+    private static final String JMH_UNROLLED_INFIX = "_unrolled";
+
+    /**
+     * Location of per-class fragments of the benchmark list and compiler hints.
+     */
+    private static final String FRAGMENTS = "META-INF/jmh/";
+    private static final String FRAGMENT_CLASSES = FRAGMENTS + "classes";
+    private static final String LIST_FRAGMENT = "list";
+    private static final String HINTS_FRAGMENT = "hints";
+
     private final Set<BenchmarkInfo> benchmarkInfos;
     private final CompilerControlPlugin compilerControl;
     private final Set<String> processedBenchmarks;
@@ -71,13 +88,19 @@ public class BenchmarkGenerator {
      */
     public void generate(GeneratorSource source, GeneratorDestination destination) {
         try {
+            for (ClassInfo clazz : source.getClasses()) {
+                session.processedClasses.add(clazz.getQualifiedName());
+            }
+
             // Build a Set of classes with a list of annotated methods
             Multimap<ClassInfo, MethodInfo> clazzes = buildAnnotatedSet(source);
 
             // Generate code for all found Classes and Methods
             for (ClassInfo clazz : clazzes.keys()) {
                 if (!processedBenchmarks.add(clazz.getQualifiedName())) continue;
+                session.processedClasses.add(clazz.getQualifiedName());
                 try {
+                    compilerControl.setOwner(clazz.getQualifiedName());
                     validateBenchmark(clazz, clazzes.get(clazz));
                     Collection<BenchmarkInfo> infos = makeBenchmarkInfo(clazz, clazzes.get(clazz));
                     for (BenchmarkInfo info : infos) {
@@ -86,6 +109,8 @@ public class BenchmarkGenerator {
                     benchmarkInfos.addAll(infos);
                 } catch (GenerationException ge) {
                     destination.printError(ge.getMessage(), ge.getElement());
+                } finally {
+                    compilerControl.setOwner(CompilerControlPlugin.GLOBAL);
                 }
             }
 
@@ -112,32 +137,20 @@ public class BenchmarkGenerator {
      * Finish generating the benchmarks.
      * Must be called at the end of generation.
      *
+     * <p>The benchmark list and compiler hints are aggregated from the per-class fragments,
+     * which are written for every class processed in this session, with that class as
+     * originating element. Incremental compilation may add or remove @Benchmark entries.
+     * New and updated entries come from the current compilation session; the entries for
+     * the other classes are restored from their fragments from the previous sessions. If
+     * the fragment for the class is gone, e.g. when the build tool had deleted the files
+     * generated from the removed class, the class is dropped.</p>
+     *
      * @param source source generator to use
      * @param destination generator destination to write the results to
      */
     public void complete(GeneratorSource source, GeneratorDestination destination) {
-        compilerControl.finish(source, destination);
-
-        // Processing completed, final round.
-        // Collect all benchmark entries here
-        Set<BenchmarkListEntry> entries = new HashSet<>();
-
-        // Try to read the benchmark entries from the previous generator sessions.
-        // Incremental compilation may add or remove @Benchmark entries. New entries
-        // are discovered and added from the current compilation session. It is harder
-        // to detect removed @Benchmark entries. To do so, we are overwriting all benchmark
-        // records that belong to a current compilation unit.
-        Multimap<String, BenchmarkListEntry> entriesByQName = new HashMultimap<>();
-        try (InputStream stream = destination.getResource(BenchmarkList.BENCHMARK_LIST.substring(1))) {
-            for (BenchmarkListEntry ble : BenchmarkList.readBenchmarkList(stream)) {
-                entries.add(ble);
-                entriesByQName.put(ble.getUserClassQName(), ble);
-            }
-        } catch (IOException e) {
-            // okay, move on
-        } catch (UnsupportedOperationException e) {
-            destination.printError("Unable to read the existing benchmark list.", e);
-        }
+        Multimap<String, BenchmarkListEntry> entries = new HashMultimap<>();
+        Multimap<String, String> hints = new HashsetMultimap<>();
 
         // Generate new benchmark entries
         for (BenchmarkInfo info : benchmarkInfos) {
@@ -169,25 +182,140 @@ public class BenchmarkGenerator {
                             group.getOperationsPerInvocation(),
                             group.getTimeout()
                     );
-
-                    if (entriesByQName.keys().contains(info.userClassQName)) {
-                        destination.printNote("Benchmark entries for " + info.userClassQName + " already exist, overwriting");
-                        entries.removeAll(entriesByQName.get(info.userClassQName));
-                        entriesByQName.remove(info.userClassQName);
-                    }
-
-                    entries.add(br);
+                    entries.put(info.userClassQName, br);
                 }
             } catch (GenerationException ge) {
                 destination.printError(ge.getMessage(), ge.getElement());
             }
         }
 
+        Multimap<String, String> newHints = compilerControl.getLines();
+        for (String owner : newHints.keys()) {
+            hints.putAll(owner, newHints.get(owner));
+        }
+
+        // Write the fragments for the classes processed in this session
+        Set<String> currentClasses = new HashSet<>(session.processedClasses);
+        currentClasses.addAll(entries.keys());
+        currentClasses.addAll(hints.keys());
+        currentClasses.remove(CompilerControlPlugin.GLOBAL);
+
+        Set<String> fragmentClasses = new TreeSet<>();
+        for (String cl : currentClasses) {
+            Collection<BenchmarkListEntry> es = entries.get(cl);
+            Collection<String> hs = hints.get(cl);
+            if (es.isEmpty() && hs.isEmpty()) {
+                continue;
+            }
+            fragmentClasses.add(cl);
+            try (OutputStream stream = BenchmarkGeneratorUtils.newResource(destination, fragment(cl, LIST_FRAGMENT), cl)) {
+                BenchmarkList.writeBenchmarkList(stream, es);
+            } catch (IOException ex) {
+                destination.printError("Error writing benchmark list fragment for " + cl, ex);
+            }
+            try (OutputStream stream = BenchmarkGeneratorUtils.newResource(destination, fragment(cl, HINTS_FRAGMENT), cl)) {
+                writeLines(stream, hs);
+            } catch (IOException ex) {
+                destination.printError("Error writing compiler hints fragment for " + cl, ex);
+            }
+        }
+
+        // Restore the entries for the classes from the previous sessions
+        Collection<String> knownClasses = null;
+        try (InputStream stream = destination.getResource(FRAGMENT_CLASSES)) {
+            knownClasses = readLines(stream);
+        } catch (IOException e) {
+            // no fragments yet
+        } catch (UnsupportedOperationException e) {
+            destination.printError("Unable to read the existing benchmark list fragments.", e);
+        }
+
+        if (knownClasses != null) {
+            for (String cl : knownClasses) {
+                if (currentClasses.contains(cl)) {
+                    if (!entries.get(cl).isEmpty()) {
+                        destination.printNote("Benchmark entries for " + cl + " already exist, overwriting");
+                    }
+                    continue;
+                }
+                try (InputStream stream = destination.getResource(fragment(cl, LIST_FRAGMENT))) {
+                    entries.putAll(cl, BenchmarkList.readBenchmarkList(stream));
+                } catch (IOException e) {
+                    destination.printNote("Benchmark entries for " + cl + " are gone, dropping");
+                    continue;
+                } catch (UnsupportedOperationException e) {
+                    destination.printError("Unable to read the existing benchmark list fragment.", e);
+                    continue;
+                }
+                try (InputStream stream = destination.getResource(fragment(cl, HINTS_FRAGMENT))) {
+                    hints.putAll(cl, readLines(stream));
+                } catch (IOException e) {
+                    // no hints
+                } catch (UnsupportedOperationException e) {
+                    destination.printError("Unable to read the existing compiler hints fragment.", e);
+                }
+                fragmentClasses.add(cl);
+            }
+        } else {
+            // No fragments from the previous sessions, but there might be the benchmark list
+            // from the older generator: retain the entries for the classes not processed now.
+            try (InputStream stream = destination.getResource(BenchmarkList.BENCHMARK_LIST.substring(1))) {
+                Set<String> overwritten = new TreeSet<>();
+                for (BenchmarkListEntry ble : BenchmarkList.readBenchmarkList(stream)) {
+                    String cl = ble.getUserClassQName();
+                    if (!currentClasses.contains(cl)) {
+                        entries.put(cl, ble);
+                    } else if (overwritten.add(cl)) {
+                        destination.printNote("Benchmark entries for " + cl + " already exist, overwriting");
+                    }
+                }
+            } catch (IOException e) {
+                // okay, move on
+            } catch (UnsupportedOperationException e) {
+                destination.printError("Unable to read the existing benchmark list.", e);
+            }
+        }
+
+        try (OutputStream stream = destination.newResource(FRAGMENT_CLASSES)) {
+            writeLines(stream, fragmentClasses);
+        } catch (IOException ex) {
+            destination.printError("Error writing benchmark list fragments", ex);
+        }
+
+        Set<BenchmarkListEntry> allEntries = new HashSet<>(entries.values());
+
         try (OutputStream stream = destination.newResource(BenchmarkList.BENCHMARK_LIST.substring(1))) {
-            BenchmarkList.writeBenchmarkList(stream, entries);
+            BenchmarkList.writeBenchmarkList(stream, allEntries);
         } catch (IOException ex) {
             destination.printError("Error writing benchmark list", ex);
         }
+
+        // Write the index for the list, so that runners do not have to parse the entire list.
+        try (OutputStream stream = destination.newResource(BenchmarkList.BENCHMARK_LIST_INDEX.substring(1))) {
+            BenchmarkList.writeBenchmarkListIndex(stream, allEntries);
+        } catch (IOException ex) {
+            destination.printError("Error writing benchmark list index", ex);
+        }
+
+        compilerControl.finish(destination, hints.values());
+    }
+
+    private static String fragment(String className, String kind) {
+        return FRAGMENTS + className + "." + kind;
+    }
+
+    private static Collection<String> readLines(InputStream stream) throws IOException {
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return FileUtils.readAllLines(reader);
+        }
+    }
+
+    private static void writeLines(OutputStream stream, Collection<String> lines) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+            for (String line : new TreeSet<>(lines)) {
+                writer.println(line);
+            }
+        }
     }
 
     /**
@@ -309,6 +437,18 @@ public class BenchmarkGenerator {
                 throw new GenerationException("The " + OperationsPerInvocation.class.getSimpleName() +
                         " needs to be greater than 0.", m);
             }
+
+            InFlightOperations ifo = BenchmarkGeneratorUtils.getAnnSuper(m, clazz, InFlightOperations.class);
+            if (ifo != null && ifo.value() < 1) {
+                throw new GenerationException("The " + InFlightOperations.class.getSimpleName() +
+                        " needs to be greater than 0.", m);
+            }
+
+            if (m.getAnnotation(InFlightOperations.class) != null && !BenchmarkGeneratorUtils.isAsync(m)) {
+                throw new GenerationException("@" + InFlightOperations.class.getSimpleName() + " annotation is only " +
+                        "applicable to asynchronous @" + Benchmark.class.getSimpleName() + " methods returning " +
+                        "CompletionStage or CompletableFuture.", m);
+            }
         }
 
         // validate @Group-s
@@ -320,6 +460,22 @@ public class BenchmarkGenerator {
                         "Did you mean @" + GroupThreads.class.getSimpleName() + " instead?",
                         m);
             }
+
+            GroupStage stage = m.getAnnotation(GroupStage.class);
+            if (stage != null) {
+                if (m.getAnnotation(Group.class) == null) {
+                    throw new GenerationException("@" + GroupStage.class.getSimpleName() + " annotation is only " +
+                            "applicable to @" + Group.class.getSimpleName() + " methods.", m);
+                }
+                if (stage.maxBacklog() < 0) {
+                    throw new GenerationException("The maximum backlog for @" + GroupStage.class.getSimpleName() +
+                            " should be non-negative.", m);
+                }
+                if (BenchmarkGeneratorUtils.isAsync(m)) {
+                    throw new GenerationException("@" + GroupStage.class.getSimpleName() + " annotation is not " +
+                            "applicable to asynchronous @" + Benchmark.class.getSimpleName() + " methods.", m);
+                }
+            }
         }
     }
 
@@ -363,6 +519,25 @@ public class BenchmarkGenerator {
                             m);
                 }
             }
+
+            if (group.isPipeline()) {
+                Set<Integer> stages = new HashSet<>();
+                for (MethodInfo m : group.methods()) {
+                    GroupStage stage = m.getAnnotation(GroupStage.class);
+                    if (stage == null) {
+                        throw new GenerationException("Either all or none of @" + Group.class.getSimpleName() +
+                                " methods should have @" + GroupStage.class.getSimpleName() + " annotation.", m);
+                    }
+                    if (!stages.add(stage.value())) {
+                        throw new GenerationException("@" + GroupStage.class.getSimpleName() + " numbers should be " +
+                                "distinct within the @" + Group.class.getSimpleName() + ".", m);
+                    }
+                    if (stage.maxBacklog() > 0 && !Collections.singleton(Mode.Throughput).equals(group.getModes())) {
+                        throw new GenerationException("The maximum backlog for @" + GroupStage.class.getSimpleName() +
+                                " is only supported in " + Mode.Throughput + " mode.", m);
+                    }
+                }
+            }
         }
     }
 
@@ -443,7 +618,7 @@ public class BenchmarkGenerator {
         states.bindMethods(classInfo, info.methodGroup);
 
         // Create file and open an outputstream
-        PrintWriter writer = new PrintWriter(destination.newClass(info.generatedClassQName), false);
+        PrintWriter writer = new PrintWriter(BenchmarkGeneratorUtils.newClass(destination, info.generatedClassQName, info.userClassQName), false);
 
         // Write package and imports
         writer.println("package " + info.generatedPackageName + ';');
@@ -453,18 +628,16 @@ public class BenchmarkGenerator {
         states.addImports(writer);
 
         // Write class header
-        writer.println("public final class " + info.generatedClassName + " {");
+        // Padding and common infrastructure fields are inherited
+        writer.println("public final class " + info.generatedClassName + " extends " + GeneratedBenchmark.class.getSimpleName() +
+                (info.methodGroup.isUnrolled() ? " implements " + GeneratedBenchmark.class.getSimpleName() + ".Unrolled" : "") + " {");
         writer.println();
 
-        // generate padding
-        Paddings.padding(writer);
-
-        writer.println(ident(1) + "int startRndMask;");
-        writer.println(ident(1) + "BenchmarkParams benchmarkParams;");
-        writer.println(ident(1) + "IterationParams iterationParams;");
-        writer.println(ident(1) + "ThreadParams threadParams;");
-        writer.println(ident(1) + "Blackhole blackhole;");
-        writer.println(ident(1) + "Control notifyControl;");
+        if (info.methodGroup.hasAsync()) {
+            writer.println(ident(1) + "AsyncWindow asyncWindow;");
+            writer.println();
+            generateAsyncIssue(writer);
+        }
 
         // write all methods
         for (Mode benchmarkKind : Mode.values()) {
@@ -508,7 +681,9 @@ public class BenchmarkGenerator {
                 Field.class, BenchmarkParams.class, IterationParams.class,
                 Blackhole.class, Control.class,
                 ScalarResult.class, AggregationPolicy.class,
-                FailureAssistException.class
+                FailureAssistException.class, StateFootprint.class,
+                Level.class, AsyncWindow.class,
+                GeneratedBenchmark.class, FixtureMutex.class
         };
 
         for (Class<?> c : imports) {
@@ -552,77 +727,36 @@ public class BenchmarkGenerator {
             subGroup++;
 
             writer.println(ident(2) + "if (threadParams.getSubgroupIndex() == " + subGroup + ") {");
+            asyncProlog(writer, 3, methodGroup, method);
             writer.println(ident(3) + "RawResults res = new RawResults();");
 
             iterationProlog(writer, 3, method, states);
 
-            // synchronize iterations prolog: announce ready
-            writer.println(ident(3) + "control.announceWarmupReady();");
-
-            // synchronize iterations prolog: catchup loop
-            writer.println(ident(3) + "while (control.warmupShouldWait) {");
-
-            invocationProlog(writer, 4, method, states, false);
-            writer.println(ident(4) + emitCall(method, states) + ';');
-            invocationEpilog(writer, 4, method, states, false);
+            warmupLoop(writer, method, states);
 
-            writer.println(ident(4) + "res.allOps++;");
-            writer.println(ident(3) + "}");
-            writer.println();
+            if (methodGroup.isPipeline()) {
+                writer.println(ident(3) + "control.pipeline.declare();");
+            }
 
             // control objects get a special treatment
             writer.println(ident(3) + "notifyControl.startMeasurement = true;");
 
             // measurement loop call
-            writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX +
-                    "(" + getStubArgs() + prefix(states.getArgList(method)) + ");");
+            unrolledStubCall(writer, benchmarkKind, methodGroup, method, states);
 
             // control objects get a special treatment
             writer.println(ident(3) + "notifyControl.stopMeasurement = true;");
 
-            // synchronize iterations epilog: announce ready
-            writer.println(ident(3) + "control.announceWarmdownReady();");
-
-            // synchronize iterations epilog: catchup loop
-            writer.println(ident(3) + "try {");
-            writer.println(ident(4) + "while (control.warmdownShouldWait) {");
-
-            invocationProlog(writer, 5, method, states, false);
-            writer.println(ident(5) + emitCall(method, states) + ';');
-            invocationEpilog(writer, 5, method, states, false);
-
-            writer.println(ident(5) + "res.allOps++;");
-            writer.println(ident(4) + "}");
-            writer.println(ident(4) + "control.preTearDown();");
-            writer.println(ident(3) + "} catch (InterruptedException ie) {");
-            writer.println(ident(4) + "control.preTearDownForce();");
-            writer.println(ident(3) + "}");
+            warmdownLoop(writer, method, states);
 
             // iteration prolog
             iterationEpilog(writer, 3, method, states);
 
-            writer.println(ident(3) + "res.allOps += res.measuredOps;");
-
-            /*
-               Adjust the operation counts:
-                  1) res.measuredOps counted the individual @Benchmark invocations. Therefore, we need
-                     to adjust for opsPerInv (pretending each @Benchmark invocation counts as $opsPerInv ops);
-                     and we need to adjust down for $batchSize (pretending we had the batched run, and $batchSize
-                     @Benchmark invocations counted as single op);
-                  2) res.allOps counted the individual @Benchmark invocations as well; the same reasoning applies.
-
-               It's prudent to make the multiplication first to get more accuracy.
-             */
-
-            writer.println(ident(3) + "int batchSize = iterationParams.getBatchSize();");
-            writer.println(ident(3) + "int opsPerInv = benchmarkParams.getOpsPerInvocation();");
-
-            writer.println(ident(3) + "res.allOps *= opsPerInv;");
-            writer.println(ident(3) + "res.allOps /= batchSize;");
-            writer.println(ident(3) + "res.measuredOps *= opsPerInv;");
-            writer.println(ident(3) + "res.measuredOps /= batchSize;");
-
-            writer.println(ident(3) + "BenchmarkTaskResult results = new BenchmarkTaskResult(res.allOps, res.measuredOps);");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                // count the completions instead of the calls
+                writer.println(ident(3) + "res.measuredOps = asyncWindow.getMeasuredOps();");
+            }
+            writer.println(ident(3) + "BenchmarkTaskResult results = invocationsResult(res, iterationParams.getBatchSize(), benchmarkParams.getOpsPerInvocation());");
             if (isSingleMethod) {
                 writer.println(ident(3) + "results.add(new ThroughputResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.measuredOps, res.getTime(), benchmarkParams.getTimeUnit()));");
             } else {
@@ -650,23 +784,35 @@ public class BenchmarkGenerator {
             compilerControl.defaultForceInline(method);
 
             writer.println(ident(1) + "public static" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName + "(" +
-                    getStubTypeArgs() + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+                    getStubTypeArgs(method) + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
             writer.println(ident(2) + "long operations = 0;");
             writer.println(ident(2) + "long realTime = 0;");
             writer.println(ident(2) + "result.startTime = System.nanoTime();");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                writer.println(ident(2) + "asyncWindow.startMeasurement(result.startTime);");
+            }
             writer.println(ident(2) + "do {");
 
+            pipelineProlog(writer, 3, methodGroup, method);
             invocationProlog(writer, 3, method, states, true);
             writer.println(ident(3) + emitCall(method, states) + ';');
             invocationEpilog(writer, 3, method, states, true);
+            pipelineEpilog(writer, 3, methodGroup, method);
 
             writer.println(ident(3) + "operations++;");
             writer.println(ident(2) + "} while(!control.isDone);");
             writer.println(ident(2) + "result.stopTime = System.nanoTime();");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                writer.println(ident(2) + "asyncWindow.stopMeasurement(result.stopTime);");
+            }
             writer.println(ident(2) + "result.realTime = realTime;");
             writer.println(ident(2) + "result.measuredOps = operations;");
             writer.println(ident(1) + "}");
             writer.println();
+
+            if (methodGroup.isUnrolled()) {
+                generateUnrolledStub(writer, benchmarkKind, methodGroup, method, states);
+            }
         }
     }
 
@@ -688,80 +834,39 @@ public class BenchmarkGenerator {
             subGroup++;
 
             writer.println(ident(2) + "if (threadParams.getSubgroupIndex() == " + subGroup + ") {");
+            asyncProlog(writer, 3, methodGroup, method);
             writer.println(ident(3) + "RawResults res = new RawResults();");
 
             iterationProlog(writer, 3, method, states);
 
-            // synchronize iterations prolog: announce ready
-            writer.println(ident(3) + "control.announceWarmupReady();");
-
-            // synchronize iterations prolog: catchup loop
-            writer.println(ident(3) + "while (control.warmupShouldWait) {");
-
-            invocationProlog(writer, 4, method, states, false);
-            writer.println(ident(4) + emitCall(method, states) + ';');
-            invocationEpilog(writer, 4, method, states, false);
-
-            writer.println(ident(4) + "res.allOps++;");
-            writer.println(ident(3) + "}");
-            writer.println();
+            warmupLoop(writer, method, states);
 
             // control objects get a special treatment
             writer.println(ident(3) + "notifyControl.startMeasurement = true;");
 
             // measurement loop call
-            writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(" + getStubArgs() + prefix(states.getArgList(method)) + ");");
+            unrolledStubCall(writer, benchmarkKind, methodGroup, method, states);
 
             // control objects get a special treatment
             writer.println(ident(3) + "notifyControl.stopMeasurement = true;");
 
-            // synchronize iterations epilog: announce ready
-            writer.println(ident(3) + "control.announceWarmdownReady();");
-
-            // synchronize iterations epilog: catchup loop
-            writer.println(ident(3) + "try {");
-            writer.println(ident(4) + "while (control.warmdownShouldWait) {");
-
-            invocationProlog(writer, 5, method, states, false);
-            writer.println(ident(5) + emitCall(method, states) + ';');
-            invocationEpilog(writer, 5, method, states, false);
-
-            writer.println(ident(5) + "res.allOps++;");
-            writer.println(ident(4) + "}");
-            writer.println(ident(4) + "control.preTearDown();");
-            writer.println(ident(3) + "} catch (InterruptedException ie) {");
-            writer.println(ident(4) + "control.preTearDownForce();");
-            writer.println(ident(3) + "}");
+            warmdownLoop(writer, method, states);
 
             iterationEpilog(writer, 3, method, states);
 
-            writer.println(ident(3) + "res.allOps += res.measuredOps;");
-
-            /*
-               Adjust the operation counts:
-                  1) res.measuredOps counted the individual @Benchmark invocations. Therefore, we need
-                     to adjust for opsPerInv (pretending each @Benchmark invocation counts as $opsPerInv ops);
-                     and we need to adjust down for $batchSize (pretending we had the batched run, and $batchSize
-                     @Benchmark invocations counted as single op)
-                  2) res.measuredOps counted the individual @Benchmark invocations as well; the same reasoning applies.
-
-               It's prudent to make the multiplication first to get more accuracy.
-             */
-
-            writer.println(ident(3) + "int batchSize = iterationParams.getBatchSize();");
-            writer.println(ident(3) + "int opsPerInv = benchmarkParams.getOpsPerInvocation();");
-
-            writer.println(ident(3) + "res.allOps *= opsPerInv;");
-            writer.println(ident(3) + "res.allOps /= batchSize;");
-            writer.println(ident(3) + "res.measuredOps *= opsPerInv;");
-            writer.println(ident(3) + "res.measuredOps /= batchSize;");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                // count the completions instead of the calls
+                writer.println(ident(3) + "res.measuredOps = asyncWindow.getMeasuredOps();");
+            }
+            writer.println(ident(3) + "BenchmarkTaskResult results = invocationsResult(res, iterationParams.getBatchSize(), benchmarkParams.getOpsPerInvocation());");
 
-            writer.println(ident(3) + "BenchmarkTaskResult results = new BenchmarkTaskResult(res.allOps, res.measuredOps);");
+            // asynchronous operations overlap, time them from issue to completion
+            String time = BenchmarkGeneratorUtils.isAsync(method) ? "asyncWindow.getMeasuredLatency()" : "res.getTime()";
             if (isSingleMethod) {
-                writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.measuredOps, res.getTime(), benchmarkParams.getTimeUnit()));");
+                writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.measuredOps, " + time + ", benchmarkParams.getTimeUnit()));");
             } else {
-                writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.PRIMARY, \"" + methodGroup.getName() + "\", res.measuredOps, res.getTime(), benchmarkParams.getTimeUnit()));");
-                writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.SECONDARY, \"" + method.getName() + "\", res.measuredOps, res.getTime(), benchmarkParams.getTimeUnit()));");
+                writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.PRIMARY, \"" + methodGroup.getName() + "\", res.measuredOps, " + time + ", benchmarkParams.getTimeUnit()));");
+                writer.println(ident(3) + "results.add(new AverageTimeResult(ResultRole.SECONDARY, \"" + method.getName() + "\", res.measuredOps, " + time + ", benchmarkParams.getTimeUnit()));");
             }
             addAuxCounters(writer, "AverageTimeResult", states, method);
 
@@ -781,10 +886,13 @@ public class BenchmarkGenerator {
             compilerControl.defaultForceInline(method);
 
             writer.println(ident(1) + "public static" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName +
-                    "(" + getStubTypeArgs() + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+                    "(" + getStubTypeArgs(method) + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
             writer.println(ident(2) + "long operations = 0;");
             writer.println(ident(2) + "long realTime = 0;");
             writer.println(ident(2) + "result.startTime = System.nanoTime();");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                writer.println(ident(2) + "asyncWindow.startMeasurement(result.startTime);");
+            }
             writer.println(ident(2) + "do {");
 
             invocationProlog(writer, 3, method, states, true);
@@ -794,36 +902,120 @@ public class BenchmarkGenerator {
             writer.println(ident(3) + "operations++;");
             writer.println(ident(2) + "} while(!control.isDone);");
             writer.println(ident(2) + "result.stopTime = System.nanoTime();");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                writer.println(ident(2) + "asyncWindow.stopMeasurement(result.stopTime);");
+            }
             writer.println(ident(2) + "result.realTime = realTime;");
             writer.println(ident(2) + "result.measuredOps = operations;");
             writer.println(ident(1) + "}");
             writer.println();
+
+            if (methodGroup.isUnrolled()) {
+                generateUnrolledStub(writer, benchmarkKind, methodGroup, method, states);
+            }
         }
     }
 
-    private String getStubArgs() {
-        return "control, res, benchmarkParams, iterationParams, threadParams, blackhole, notifyControl, startRndMask";
+    private void unrolledStubCall(PrintWriter writer, Mode benchmarkKind, MethodGroup methodGroup, MethodInfo method, StateObjectHandler states) {
+        String suffix = "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX;
+        if (!methodGroup.isUnrolled()) {
+            writer.println(ident(3) + method.getName() + suffix +
+                    "(" + getStubArgs(method) + prefix(states.getArgList(method)) + ");");
+            return;
+        }
+        writer.println(ident(3) + "if (control.unroll > 1) {");
+        writer.println(ident(4) + method.getName() + JMH_UNROLLED_INFIX + suffix +
+                "(" + getStubArgs(method) + ", control.unroll" + prefix(states.getArgList(method)) + ");");
+        writer.println(ident(3) + "} else {");
+        writer.println(ident(4) + method.getName() + suffix +
+                "(" + getStubArgs(method) + prefix(states.getArgList(method)) + ");");
+        writer.println(ident(3) + "}");
     }
 
-    private String getStubTypeArgs() {
+    /**
+     * Generates the measurement loop that calls the benchmark several times between
+     * the isDone checks. All calls are counted, so operation accounting stays exact;
+     * the loop only overshoots the iteration end by a few calls.
+     */
+    private void generateUnrolledStub(PrintWriter writer, Mode benchmarkKind, MethodGroup methodGroup, MethodInfo method, StateObjectHandler states) {
+        String methodName = method.getName() + JMH_UNROLLED_INFIX + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX;
+
+        writer.println(ident(1) + "public static" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName +
+                "(" + getStubTypeArgs(method) + ", int unroll" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+        writer.println(ident(2) + "long operations = 0;");
+        writer.println(ident(2) + "long realTime = 0;");
+        writer.println(ident(2) + "result.startTime = System.nanoTime();");
+        if (BenchmarkGeneratorUtils.isAsync(method)) {
+            writer.println(ident(2) + "asyncWindow.startMeasurement(result.startTime);");
+        }
+        writer.println(ident(2) + "do {");
+        writer.println(ident(3) + "for (int u = 0; u < unroll; u++) {");
+
+        if (benchmarkKind == Mode.Throughput) {
+            pipelineProlog(writer, 4, methodGroup, method);
+        }
+        invocationProlog(writer, 4, method, states, true);
+        writer.println(ident(4) + emitCall(method, states) + ';');
+        invocationEpilog(writer, 4, method, states, true);
+        if (benchmarkKind == Mode.Throughput) {
+            pipelineEpilog(writer, 4, methodGroup, method);
+        }
+
+        writer.println(ident(3) + "}");
+        writer.println(ident(3) + "operations += unroll;");
+        writer.println(ident(2) + "} while(!control.isDone);");
+        writer.println(ident(2) + "result.stopTime = System.nanoTime();");
+        if (BenchmarkGeneratorUtils.isAsync(method)) {
+            writer.println(ident(2) + "asyncWindow.stopMeasurement(result.stopTime);");
+        }
+        writer.println(ident(2) + "result.realTime = realTime;");
+        writer.println(ident(2) + "result.measuredOps = operations;");
+        writer.println(ident(1) + "}");
+        writer.println();
+    }
+
+    /**
+     * Throttled stages wait for the backlog to drop below the limit.
+     */
+    private void pipelineProlog(PrintWriter writer, int prefix, MethodGroup methodGroup, MethodInfo method) {
+        int maxBacklog = methodGroup.getMaxBacklog(method);
+        if (maxBacklog > 0) {
+            writer.println(ident(prefix) + "control.pipeline.await(" + getSubgroupIndex(methodGroup, method) + ", " +
+                    maxBacklog + ", control);");
+        }
+    }
+
+    /**
+     * With any stage throttled, all stages count their operations for the backlog.
+     */
+    private void pipelineEpilog(PrintWriter writer, int prefix, MethodGroup methodGroup, MethodInfo method) {
+        if (methodGroup.isThrottled()) {
+            writer.println(ident(prefix) + "control.pipeline.advance(" + getSubgroupIndex(methodGroup, method) + ");");
+        }
+    }
+
+    private int getSubgroupIndex(MethodGroup methodGroup, MethodInfo method) {
+        return new ArrayList<>(methodGroup.methods()).indexOf(method);
+    }
+
+    private String getStubArgs(MethodInfo method) {
+        return "control, res, benchmarkParams, iterationParams, threadParams, blackhole, notifyControl, startRndMask" +
+                (BenchmarkGeneratorUtils.isAsync(method) ? ", asyncWindow" : "");
+    }
+
+    private String getStubTypeArgs(MethodInfo method) {
         return "InfraControl control, RawResults result, " +
                 "BenchmarkParams benchmarkParams, IterationParams iterationParams, ThreadParams threadParams, " +
-                "Blackhole blackhole, Control notifyControl, int startRndMask";
+                "Blackhole blackhole, Control notifyControl, int startRndMask" +
+                (BenchmarkGeneratorUtils.isAsync(method) ? ", AsyncWindow asyncWindow" : "");
     }
 
     private void methodProlog(PrintWriter writer) {
-        // do nothing
-        writer.println(ident(2) + "this.benchmarkParams = control.benchmarkParams;");
-        writer.println(ident(2) + "this.iterationParams = control.iterationParams;");
-        writer.println(ident(2) + "this.threadParams    = threadParams;");
-        writer.println(ident(2) + "this.notifyControl   = control.notifyControl;");
-        writer.println(ident(2) + "if (this.blackhole == null) {");
-        writer.println(ident(3) + "this.blackhole = new Blackhole(\"Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.\");");
-        writer.println(ident(2) + "}");
+        writer.println(ident(2) + "prepare(control, threadParams);");
     }
 
     private void methodEpilog(PrintWriter writer) {
-        writer.println(ident(3) + "this.blackhole.evaporate(\"Yes, I am Stephen Hawking, and know a thing or two about black holes.\");");
+        writer.println(ident(3) + "complete();");
     }
 
     private String prefix(String argList) {
@@ -846,23 +1038,12 @@ public class BenchmarkGenerator {
             subGroup++;
 
             writer.println(ident(2) + "if (threadParams.getSubgroupIndex() == " + subGroup + ") {");
+            asyncProlog(writer, 3, methodGroup, method);
             writer.println(ident(3) + "RawResults res = new RawResults();");
 
             iterationProlog(writer, 3, method, states);
 
-            // synchronize iterations prolog: announce ready
-            writer.println(ident(3) + "control.announceWarmupReady();");
-
-            // synchronize iterations prolog: catchup loop
-            writer.println(ident(3) + "while (control.warmupShouldWait) {");
-
-            invocationProlog(writer, 4, method, states, false);
-            writer.println(ident(4) + emitCall(method, states) + ';');
-            invocationEpilog(writer, 4, method, states, false);
-
-            writer.println(ident(4) + "res.allOps++;");
-            writer.println(ident(3) + "}");
-            writer.println();
+            warmupLoop(writer, method, states);
 
             // control objects get a special treatment
             writer.println(ident(3) + "notifyControl.startMeasurement = true;");
@@ -873,47 +1054,21 @@ public class BenchmarkGenerator {
             writer.println(ident(3) + "int opsPerInv = benchmarkParams.getOpsPerInvocation();");
             writer.println(ident(3) + "SampleBuffer buffer = new SampleBuffer();");
             writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(" +
-                    getStubArgs() + ", buffer, targetSamples, opsPerInv, batchSize" + prefix(states.getArgList(method)) + ");");
+                    getStubArgs(method) + ", buffer, targetSamples, opsPerInv, batchSize" + prefix(states.getArgList(method)) + ");");
 
             // control objects get a special treatment
             writer.println(ident(3) + "notifyControl.stopMeasurement = true;");
 
-            // synchronize iterations epilog: announce ready
-            writer.println(ident(3) + "control.announceWarmdownReady();");
-
-            // synchronize iterations epilog: catchup loop
-            writer.println(ident(3) + "try {");
-            writer.println(ident(4) + "while (control.warmdownShouldWait) {");
-
-            invocationProlog(writer, 5, method, states, false);
-            writer.println(ident(5) + emitCall(method, states) + ';');
-            invocationEpilog(writer, 5, method, states, false);
-
-            writer.println(ident(5) + "res.allOps++;");
-            writer.println(ident(4) + "}");
-            writer.println(ident(4) + "control.preTearDown();");
-            writer.println(ident(3) + "} catch (InterruptedException ie) {");
-            writer.println(ident(4) + "control.preTearDownForce();");
-            writer.println(ident(3) + "}");
+            warmdownLoop(writer, method, states);
 
             iterationEpilog(writer, 3, method, states);
 
-            /*
-               Adjust the operation counts:
-                  1) res.measuredOps counted the batched @Benchmark invocations. Therefore, we need only
-                     to adjust for opsPerInv (pretending each @Benchmark invocation counts as $opsPerInv ops);
-                  2) res.allOps counted the individual @Benchmark invocations; to it needs the adjustment for $batchSize.
-
-               It's prudent to make the multiplication first to get more accuracy.
-             */
-
-            writer.println(ident(3) + "res.allOps += res.measuredOps * batchSize;");
-
-            writer.println(ident(3) + "res.allOps *= opsPerInv;");
-            writer.println(ident(3) + "res.allOps /= batchSize;");
-            writer.println(ident(3) + "res.measuredOps *= opsPerInv;");
-
-            writer.println(ident(3) + "BenchmarkTaskResult results = new BenchmarkTaskResult(res.allOps, res.measuredOps);");
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                // count the completions instead of the calls, and take their latencies
+                writer.println(ident(3) + "res.measuredOps = asyncWindow.getMeasuredOps() / batchSize;");
+                writer.println(ident(3) + "buffer.addAll(asyncWindow.getSamples());");
+            }
+            writer.println(ident(3) + "BenchmarkTaskResult results = batchesResult(res, batchSize, opsPerInv);");
             if (isSingleMethod) {
                 writer.println(ident(3) + "results.add(new SampleTimeResult(ResultRole.PRIMARY, \"" + method.getName() + "\", buffer, benchmarkParams.getTimeUnit()));");
             } else {
@@ -936,7 +1091,12 @@ public class BenchmarkGenerator {
             compilerControl.defaultForceInline(method);
 
             writer.println(ident(1) + "public static" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName + "(" +
-                    getStubTypeArgs() + ", SampleBuffer buffer, int targetSamples, long opsPerInv, int batchSize" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+                    getStubTypeArgs(method) + ", SampleBuffer buffer, int targetSamples, long opsPerInv, int batchSize" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+
+            if (BenchmarkGeneratorUtils.isAsync(method)) {
+                generateAsyncSampleTimeStub(writer, method, states);
+                continue;
+            }
 
             writer.println(ident(2) + "long realTime = 0;");
             writer.println(ident(2) + "long operations = 0;");
@@ -981,6 +1141,35 @@ public class BenchmarkGenerator {
         }
     }
 
+    /**
+     * Asynchronous operations are timed by {@link AsyncWindow} on completion, every completion
+     * is the sample. The loop only issues the operations.
+     */
+    private void generateAsyncSampleTimeStub(PrintWriter writer, MethodInfo method, StateObjectHandler states) {
+        writer.println(ident(2) + "long realTime = 0;");
+        writer.println(ident(2) + "long operations = 0;");
+        writer.println(ident(2) + "asyncWindow.startMeasurement(System.nanoTime());");
+        writer.println(ident(2) + "do {");
+
+        invocationProlog(writer, 3, method, states, true);
+
+        writer.println(ident(3) + "for (int b = 0; b < batchSize; b++) {");
+        writer.println(ident(4) + "if (control.volatileSpoiler) return;");
+        writer.println(ident(4) + "" + emitCall(method, states) + ';');
+        writer.println(ident(3) + "}");
+
+        invocationEpilog(writer, 3, method, states, true);
+
+        writer.println(ident(3) + "operations++;");
+        writer.println(ident(2) + "} while(!control.isDone);");
+        writer.println(ident(2) + "asyncWindow.stopMeasurement(System.nanoTime());");
+
+        writer.println(ident(2) + "result.realTime = realTime;");
+        writer.println(ident(2) + "result.measuredOps = operations;");
+        writer.println(ident(1) + "}");
+        writer.println();
+    }
+
     private void generateSingleShotTime(PrintWriter writer, Mode benchmarkKind, MethodGroup methodGroup, StateObjectHandler states) {
         writer.println(ident(1) + "public BenchmarkTaskResult " + methodGroup.getName() + "_" + benchmarkKind + "(InfraControl control, ThreadParams threadParams) throws Throwable {");
 
@@ -994,6 +1183,7 @@ public class BenchmarkGenerator {
             subGroup++;
 
             writer.println(ident(2) + "if (threadParams.getSubgroupIndex() == " + subGroup + ") {");
+            asyncProlog(writer, 3, methodGroup, method);
 
             iterationProlog(writer, 3, method, states);
 
@@ -1004,23 +1194,13 @@ public class BenchmarkGenerator {
             writer.println(ident(3) + "RawResults res = new RawResults();");
             writer.println(ident(3) + "int batchSize = iterationParams.getBatchSize();");
             writer.println(ident(3) + method.getName() + "_" + benchmarkKind.shortLabel() + JMH_STUB_SUFFIX + "(" +
-                    getStubArgs() + ", batchSize" + prefix(states.getArgList(method)) + ");");
+                    getStubArgs(method) + ", batchSize" + prefix(states.getArgList(method)) + ");");
 
             writer.println(ident(3) + "control.preTearDown();");
 
             iterationEpilog(writer, 3, method, states);
 
-            /*
-             * Adjust total ops:
-             *   Single shot always does single op.  Therefore, we need to adjust for $opsPerInv (pretending each @Benchmark
-             *   invocation counts as $opsPerInv ops). We *don't need* to adjust down for $batchSize, because we always have
-             *   one "op".
-             */
-
-            writer.println(ident(3) + "int opsPerInv = control.benchmarkParams.getOpsPerInvocation();");
-            writer.println(ident(3) + "long totalOps = opsPerInv;");
-
-            writer.println(ident(3) + "BenchmarkTaskResult results = new BenchmarkTaskResult(totalOps, totalOps);");
+            writer.println(ident(3) + "BenchmarkTaskResult results = singleShotResult(benchmarkParams.getOpsPerInvocation());");
             if (isSingleMethod) {
                 writer.println(ident(3) + "results.add(new SingleShotResult(ResultRole.PRIMARY, \"" + method.getName() + "\", res.getTime(), benchmarkParams.getTimeUnit()));");
             } else {
@@ -1043,7 +1223,7 @@ public class BenchmarkGenerator {
             compilerControl.defaultForceInline(method);
 
             writer.println(ident(1) + "public static" + (methodGroup.isStrictFP() ? " strictfp" : "") + " void " + methodName +
-                    "(" + getStubTypeArgs() + ", int batchSize" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
+                    "(" + getStubTypeArgs(method) + ", int batchSize" + prefix(states.getTypeArgList(method)) + ") throws Throwable {");
 
             writer.println(ident(2) + "long realTime = 0;");
             writer.println(ident(2) + "result.startTime = System.nanoTime();");
@@ -1057,6 +1237,7 @@ public class BenchmarkGenerator {
             invocationEpilog(writer, 3, method, states, true);
 
             writer.println(ident(2) + "}");
+            asyncDrain(writer, 2, method);
             writer.println(ident(2) + "result.stopTime = System.nanoTime();");
             writer.println(ident(2) + "result.realTime = realTime;");
             writer.println(ident(1) + "}");
@@ -1064,6 +1245,57 @@ public class BenchmarkGenerator {
         }
     }
 
+    private void asyncProlog(PrintWriter writer, int prefix, MethodGroup methodGroup, MethodInfo method) {
+        if (BenchmarkGeneratorUtils.isAsync(method)) {
+            writer.println(ident(prefix) + "if (asyncWindow == null) {");
+            writer.println(ident(prefix + 1) + "asyncWindow = new AsyncWindow(" + methodGroup.getInFlightOperations(method) +
+                    ", benchmarkParams.getOpsPerInvocation());");
+            writer.println(ident(prefix) + "}");
+        }
+    }
+
+    /**
+     * Synchronizes the iteration prolog: the thread announces it is ready, and then
+     * calls the benchmark until all threads are ready.
+     */
+    private void warmupLoop(PrintWriter writer, MethodInfo method, StateObjectHandler states) {
+        writer.println(ident(3) + "control.announceWarmupReady();");
+        writer.println(ident(3) + "while (control.warmupShouldWait) {");
+        invocationProlog(writer, 4, method, states, false);
+        writer.println(ident(4) + emitCall(method, states) + ';');
+        invocationEpilog(writer, 4, method, states, false);
+        writer.println(ident(4) + "res.allOps++;");
+        writer.println(ident(3) + "}");
+        writer.println();
+    }
+
+    /**
+     * Synchronizes the iteration epilog: the thread announces it is done, calls the
+     * benchmark until all threads are done, and then waits for the teardown. Interrupts
+     * anywhere in the catchup loop release the other threads without waiting.
+     */
+    private void warmdownLoop(PrintWriter writer, MethodInfo method, StateObjectHandler states) {
+        writer.println(ident(3) + "control.announceWarmdownReady();");
+        writer.println(ident(3) + "try {");
+        writer.println(ident(4) + "while (control.warmdownShouldWait) {");
+        invocationProlog(writer, 5, method, states, false);
+        writer.println(ident(5) + emitCall(method, states) + ';');
+        invocationEpilog(writer, 5, method, states, false);
+        writer.println(ident(5) + "res.allOps++;");
+        writer.println(ident(4) + "}");
+        asyncDrain(writer, 4, method);
+        writer.println(ident(4) + "control.preTearDown();");
+        writer.println(ident(3) + "} catch (InterruptedException ie) {");
+        writer.println(ident(4) + "control.preTearDownForce();");
+        writer.println(ident(3) + "}");
+    }
+
+    private void asyncDrain(PrintWriter writer, int prefix, MethodInfo method) {
+        if (BenchmarkGeneratorUtils.isAsync(method)) {
+            writer.println(ident(prefix) + "asyncWindow.drain();");
+        }
+    }
+
     private void invocationProlog(PrintWriter writer, int prefix, MethodInfo method, StateObjectHandler states, boolean pauseMeasurement) {
         if (states.hasInvocationStubs(method)) {
             for (String s : states.getInvocationSetups(method))
@@ -1107,8 +1339,35 @@ public class BenchmarkGenerator {
         writer.println(ident(prefix) + "}");
     }
 
+    /**
+     * Attaches the completion handler to the asynchronous operation. This is generated
+     * into the benchmark class, so that only the benchmarks returning
+     * CompletionStage link against it, and the harness itself does not.
+     */
+    private void generateAsyncIssue(PrintWriter writer) {
+        writer.println(ident(1) + "static void asyncIssue(final AsyncWindow window, final long issueTime, java.util.concurrent.CompletionStage<?> stage) {");
+        writer.println(ident(2) + "if (stage == null) {");
+        writer.println(ident(3) + "window.complete(issueTime, new NullPointerException(\"@Benchmark method returned null instead of CompletionStage\"));");
+        writer.println(ident(3) + "return;");
+        writer.println(ident(2) + "}");
+        writer.println(ident(2) + "stage.whenComplete(new java.util.function.BiConsumer<Object, Throwable>() {");
+        writer.println(ident(3) + "@Override");
+        writer.println(ident(3) + "public void accept(Object o, Throwable t) {");
+        writer.println(ident(4) + "if (t instanceof java.util.concurrent.CompletionException && t.getCause() != null) {");
+        writer.println(ident(5) + "t = t.getCause();");
+        writer.println(ident(4) + "}");
+        writer.println(ident(4) + "window.complete(issueTime, t);");
+        writer.println(ident(3) + "}");
+        writer.println(ident(2) + "});");
+        writer.println(ident(1) + "}");
+        writer.println();
+    }
+
     private String emitCall(MethodInfo method, StateObjectHandler states) {
-        if ("void".equalsIgnoreCase(method.getReturnType())) {
+        if (BenchmarkGeneratorUtils.isAsync(method)) {
+            // acquire() is evaluated first, and blocks until the in-flight slot is available
+            return "asyncIssue(asyncWindow, asyncWindow.acquire(), " + states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getBenchmarkArgList(method) + "))";
+        } else if ("void".equalsIgnoreCase(method.getReturnType())) {
             return states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getBenchmarkArgList(method) + ")";
         } else {
             return "blackhole.consume(" + states.getImplicit("bench").localIdentifier + "." + method.getName() + "(" + states.getBenchmarkArgList(method) + "))";
@@ -29,4 +29,10 @@ import java.util.Set;
 
 public class BenchmarkGeneratorSession {
     public final Set<String> generatedStateOverrides = new HashSet<>();
+
+    /**
+     * All classes seen by generator in this session, regardless whether they have benchmarks.
+     * The data generated for these classes in the previous sessions is superseded.
+     */
+    public final Set<String> processedClasses = new HashSet<>();
 }
@@ -30,7 +30,9 @@ import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.CompilerControl;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupStage;
 import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.InFlightOperations;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
@@ -39,10 +41,14 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.UnrollLoops;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.util.HashMultimap;
 import org.openjdk.jmh.util.Multimap;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
@@ -60,9 +66,9 @@ class BenchmarkGeneratorUtils {
     static {
         JMH_ANNOTATIONS = Arrays.asList(
                 AuxCounters.class, BenchmarkMode.class, CompilerControl.class, Fork.class,
-                Benchmark.class, Group.class, GroupThreads.class, Measurement.class,
+                Benchmark.class, Group.class, GroupStage.class, GroupThreads.class, InFlightOperations.class, Measurement.class,
                 OperationsPerInvocation.class, OutputTimeUnit.class, Param.class, Setup.class,
-                State.class, TearDown.class, Threads.class, Warmup.class
+                State.class, TearDown.class, Threads.class, UnrollLoops.class, Warmup.class
         );
 
         JMH_ANNOTATION_TARGETS = new HashMultimap<>();
@@ -78,6 +84,24 @@ class BenchmarkGeneratorUtils {
         }
     }
 
+    private static final Collection<String> ASYNC_TYPES = Arrays.asList(
+            "java.util.concurrent.CompletionStage",
+            "java.util.concurrent.CompletableFuture"
+    );
+
+    /**
+     * Checks if the method is asynchronous, i.e. returns the CompletionStage.
+     * Only the type name is available here, the user subclasses are not recognized.
+     */
+    public static boolean isAsync(MethodInfo mi) {
+        String type = mi.getReturnType();
+        int generic = type.indexOf('<');
+        if (generic != -1) {
+            type = type.substring(0, generic);
+        }
+        return ASYNC_TYPES.contains(type.trim());
+    }
+
     public static boolean checkJavaIdentifier(String id) {
         for (int i = 0; i < id.length(); i++) {
             char c = id.charAt(i);
@@ -319,4 +343,26 @@ class BenchmarkGeneratorUtils {
         }
     }
 
+    /**
+     * Opens the resource generated from the given class, telling the destination
+     * about the originating class, if it can track it.
+     */
+    static OutputStream newResource(GeneratorDestination dst, String resourcePath, String originatingClassName) throws IOException {
+        if (dst instanceof OriginatingGeneratorDestination) {
+            return ((OriginatingGeneratorDestination) dst).newResource(resourcePath, originatingClassName);
+        }
+        return dst.newResource(resourcePath);
+    }
+
+    /**
+     * Opens the class generated from the given class, telling the destination
+     * about the originating class, if it can track it.
+     */
+    static Writer newClass(GeneratorDestination dst, String className, String originatingClassName) throws IOException {
+        if (dst instanceof OriginatingGeneratorDestination) {
+            return ((OriginatingGeneratorDestination) dst).newClass(className, originatingClassName);
+        }
+        return dst.newClass(className);
+    }
+
 }
@@ -26,32 +26,46 @@ package org.openjdk.jmh.generators.core;
 
 import org.openjdk.jmh.annotations.CompilerControl;
 import org.openjdk.jmh.runner.CompilerHints;
+import org.openjdk.jmh.util.HashMultimap;
+import org.openjdk.jmh.util.HashsetMultimap;
+import org.openjdk.jmh.util.Multimap;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.TreeSet;
 
 class CompilerControlPlugin {
 
-    private final SortedSet<String> lines = new TreeSet<>();
+    /**
+     * Owner for the hints that do not belong to any particular class.
+     */
+    static final String GLOBAL = "";
 
-    private final Set<MethodInfo> defaultForceInlineMethods = new TreeSet<>(new Comparator<MethodInfo>() {
-        @Override
-        public int compare(MethodInfo o1, MethodInfo o2) {
-            return o1.getQualifiedName().compareTo(o2.getQualifiedName());
-        }
-    });
+    private final Multimap<String, String> lines = new HashsetMultimap<>();
+
+    private final Multimap<String, MethodInfo> defaultForceInlineMethods = new HashMultimap<>();
 
     private final Set<String> alwaysDontInlineMethods = new TreeSet<>();
 
+    private String currentOwner = GLOBAL;
+
+    /**
+     * Sets the class the hints are generated for. The implicit hints, e.g. the
+     * default inlining hints, are attributed to that class.
+     *
+     * @param owner class name
+     */
+    public void setOwner(String owner) {
+        currentOwner = owner;
+    }
+
     public void defaultForceInline(MethodInfo methodInfo) {
-        defaultForceInlineMethods.add(methodInfo);
+        defaultForceInlineMethods.put(currentOwner, methodInfo);
     }
 
     public void alwaysDontInline(String className, String methodName) {
@@ -67,21 +81,23 @@ class CompilerControlPlugin {
                 }
 
                 CompilerControl.Mode command = ann.value();
-                lines.add(command.command() + "," + getName(element));
+                lines.put(element.getDeclaringClass().getQualifiedName(), command.command() + "," + getName(element));
             }
 
-            for (MethodInfo element : defaultForceInlineMethods) {
-                // Skip methods annotated explicitly
-                if (element.getAnnotation(CompilerControl.class) != null) continue;
+            for (String owner : defaultForceInlineMethods.keys()) {
+                for (MethodInfo element : defaultForceInlineMethods.get(owner)) {
+                    // Skip methods annotated explicitly
+                    if (element.getAnnotation(CompilerControl.class) != null) continue;
 
-                // Skip methods in classes that are annotated explicitly
-                if (element.getDeclaringClass().getAnnotation(CompilerControl.class) != null) continue;
+                    // Skip methods in classes that are annotated explicitly
+                    if (element.getDeclaringClass().getAnnotation(CompilerControl.class) != null) continue;
 
-                lines.add(CompilerControl.Mode.INLINE.command() + "," + getName(element));
+                    lines.put(owner, CompilerControl.Mode.INLINE.command() + "," + getName(element));
+                }
             }
 
             for (String element : alwaysDontInlineMethods) {
-                lines.add(CompilerControl.Mode.DONT_INLINE.command() + "," + element);
+                lines.put(GLOBAL, CompilerControl.Mode.DONT_INLINE.command() + "," + element);
             }
 
             for (ClassInfo element : BenchmarkGeneratorUtils.getClassesAnnotatedWith(source, CompilerControl.class)) {
@@ -91,7 +107,7 @@ class CompilerControlPlugin {
                 }
 
                 CompilerControl.Mode command = ann.value();
-                lines.add(command.command() + "," + getName(element));
+                lines.put(element.getQualifiedName(), command.command() + "," + getName(element));
             }
 
         } catch (Throwable t) {
@@ -99,10 +115,17 @@ class CompilerControlPlugin {
         }
     }
 
-    public void finish(GeneratorSource source, GeneratorDestination destination) {
+    /**
+     * @return compiler hints, by the class they were generated for; see {@link #GLOBAL}
+     */
+    public Multimap<String, String> getLines() {
+        return lines;
+    }
+
+    public void finish(GeneratorDestination destination, Collection<String> allLines) {
         try (Writer w = new OutputStreamWriter(destination.newResource(CompilerHints.LIST.substring(1)), StandardCharsets.UTF_8)){
             PrintWriter writer = new PrintWriter(w);
-            for (String line : lines) {
+            for (String line : new TreeSet<>(allLines)) {
                 writer.println(line);
             }
             writer.close();
@@ -83,14 +83,71 @@ class MethodGroup implements Comparable<MethodGroup> {
         }
     }
 
+    /**
+     * @return method invocations, in the subgroup order: pipeline stages go in the
+     * stage order, other methods go in the name order
+     */
+    private List<MethodInvocation> invocations() {
+        List<MethodInvocation> result = new ArrayList<>(methods.keySet());
+        Collections.sort(result, new Comparator<MethodInvocation>() {
+            @Override
+            public int compare(MethodInvocation o1, MethodInvocation o2) {
+                return Integer.compare(getStage(o1.method), getStage(o2.method));
+            }
+        });
+        return result;
+    }
+
     public Collection<MethodInfo> methods() {
         Collection<MethodInfo> result = new ArrayList<>();
-        for (MethodInvocation m : methods.keySet()) {
+        for (MethodInvocation m : invocations()) {
             result.add(m.method);
         }
         return result;
     }
 
+    private static int getStage(MethodInfo m) {
+        GroupStage ann = m.getAnnotation(GroupStage.class);
+        return (ann != null) ? ann.value() : -1;
+    }
+
+    public boolean isPipeline() {
+        for (MethodInfo m : methods()) {
+            if (m.getAnnotation(GroupStage.class) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getMaxBacklog(MethodInfo m) {
+        GroupStage ann = m.getAnnotation(GroupStage.class);
+        return (ann != null) ? ann.maxBacklog() : 0;
+    }
+
+    public boolean isThrottled() {
+        for (MethodInfo m : methods()) {
+            if (getMaxBacklog(m) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasAsync() {
+        for (MethodInfo m : methods()) {
+            if (BenchmarkGeneratorUtils.isAsync(m)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getInFlightOperations(MethodInfo m) {
+        InFlightOperations ann = BenchmarkGeneratorUtils.getAnnSuper(m, ci, InFlightOperations.class);
+        return (ann != null) ? ann.value() : 1;
+    }
+
     public Optional<Integer> getTotalThreadCount() {
         for (Threads ann : getAll(Threads.class)) {
             return Optional.of(ann.value());
@@ -131,7 +188,7 @@ class MethodGroup implements Comparable<MethodGroup> {
     public int[] getGroupThreads() {
         int[] threads = new int[methods.size()];
         int c = 0;
-        for (MethodInvocation mi : methods.keySet()) {
+        for (MethodInvocation mi : invocations()) {
             threads[c++] = mi.threads;
         }
         return threads;
@@ -140,7 +197,7 @@ class MethodGroup implements Comparable<MethodGroup> {
     public Optional<Collection<String>> getGroupLabels() {
         if (methods.size() > 1) {
             Collection<String> labels = new ArrayList<>();
-            for (MethodInvocation mi : methods.keySet()) {
+            for (MethodInvocation mi : invocations()) {
                 labels.add(mi.method.getName());
             }
             return Optional.eitherOf(labels);
@@ -156,6 +213,13 @@ class MethodGroup implements Comparable<MethodGroup> {
         return Optional.none();
     }
 
+    /**
+     * @return true, if the unrolled measurement loops should be generated
+     */
+    public boolean isUnrolled() {
+        return !getAll(UnrollLoops.class).isEmpty();
+    }
+
     public Optional<TimeUnit> getOutputTimeUnit() {
         for (OutputTimeUnit ann : getAll(OutputTimeUnit.class)) {
             return Optional.of(ann.value());
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Generator destination that tracks the originating classes of generated files.
+ *
+ * <p>This is optional for {@link GeneratorDestination} implementations. The originating
+ * class allows incremental builds to track which generated files need to be discarded
+ * when the class changes. The destinations that do not implement this get the plain
+ * {@link GeneratorDestination#newResource(String)} and {@link GeneratorDestination#newClass(String)}
+ * calls.</p>
+ */
+public interface OriginatingGeneratorDestination extends GeneratorDestination {
+
+    /**
+     * Returns the stream for the given resource, generated from the given class.
+     * Callers are responsible for closing streams.
+     *
+     * @param resourcePath resource path
+     * @param originatingClassName fully qualified name of the class the resource is generated from
+     * @return output stream to write the resource to.
+     * @throws java.io.IOException if something wacked happens
+     */
+    OutputStream newResource(String resourcePath, String originatingClassName) throws IOException;
+
+    /**
+     * Returns the Writer for the given class, generated from the given class.
+     * Callers are responsible for closing Writers.
+     *
+     * @param className class name
+     * @param originatingClassName fully qualified name of the class this class is generated from
+     * @return writer usable to write the resource
+     * @throws IOException if something wacked happens
+     */
+    Writer newClass(String className, String originatingClassName) throws IOException;
+
+}
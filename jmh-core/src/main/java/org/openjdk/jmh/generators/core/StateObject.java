@@ -42,6 +42,7 @@ class StateObject {
 
     public final String packageName;
     public final String userType;
+    public final String displayName;
     public final String type;
     public final Scope scope;
     public final String localIdentifier;
@@ -54,6 +55,9 @@ class StateObject {
     public StateObject(Identifiers identifiers, ClassInfo info, Scope scope) {
         this.packageName = info.getPackageName() + ".generated";
         this.userType = info.getQualifiedName();
+        this.displayName = info.getPackageName().isEmpty() ?
+                userType :
+                userType.substring(info.getPackageName().length() + 1);
         this.type = identifiers.getJMHtype(info);
         this.scope = scope;
 
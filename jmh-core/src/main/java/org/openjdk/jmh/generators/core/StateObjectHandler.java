@@ -26,6 +26,7 @@ package org.openjdk.jmh.generators.core;
 
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.*;
+import org.openjdk.jmh.runner.FixtureMutex;
 import org.openjdk.jmh.util.HashMultimap;
 import org.openjdk.jmh.util.Multimap;
 import org.openjdk.jmh.util.Utils;
@@ -590,40 +591,61 @@ class StateObjectHandler {
         for (StateObject so : statesForward) {
             if (type != HelperType.SETUP) continue;
 
+            // Invocation helpers are too frequent to take footprints
+            boolean footprint = (helperLevel == Level.Iteration);
+
             if (so.scope == Scope.Thread) {
+                String indent = "";
+                if (footprint) {
+                    result.add("long " + so.localIdentifier + "_footprint = StateFootprint.beforeSetup();");
+                    result.add("try {");
+                    indent = "    ";
+                }
                 for (HelperMethodInvocation mi : so.getHelpers()) {
                     if (mi.helperLevel == helperLevel && mi.type == HelperType.SETUP) {
                         Collection<String> args = so.helperArgs.get(mi.method.getQualifiedName());
-                        result.add(so.localIdentifier + "." + mi.method.getName() + "(" + Utils.join(args, ",") + ");");
+                        result.add(indent + so.localIdentifier + "." + mi.method.getName() + "(" + Utils.join(args, ",") + ");");
                     }
                 }
+                if (footprint) {
+                    result.add("} finally {");
+                    result.add("    StateFootprint.afterSetup(\"" + so.displayName + "\", Level." + helperLevel + ", " + so.localIdentifier + "_footprint);");
+                    result.add("}");
+                }
             }
 
             if (so.scope == Scope.Benchmark || so.scope == Scope.Group) {
-                result.add("if (" + so.type + ".setup" + helperLevel + "MutexUpdater.compareAndSet(" + so.localIdentifier + ", 0, 1)) {");
+                String mutex = so.type + ".setup" + helperLevel + "MutexUpdater";
+                result.add(mutexAcquire(helperLevel, false, mutex, so));
                 result.add("    try {");
                 result.add("        if (control.isFailing) throw new FailureAssistException();");
                 result.add("        if (!" + so.localIdentifier + ".ready" + helperLevel + ") {");
+                String indent = "";
+                if (footprint) {
+                    result.add("            long " + so.localIdentifier + "_footprint = StateFootprint.beforeSetup();");
+                    result.add("            try {");
+                    indent = "    ";
+                }
                 for (HelperMethodInvocation mi : so.getHelpers()) {
                     if (mi.helperLevel == helperLevel && mi.type == HelperType.SETUP) {
                         Collection<String> args = so.helperArgs.get(mi.method.getQualifiedName());
-                        result.add("            " + so.localIdentifier + "." + mi.method.getName() + "(" + Utils.join(args, ",") + ");");
+                        result.add("            " + indent + so.localIdentifier + "." + mi.method.getName() + "(" + Utils.join(args, ",") + ");");
                     }
                 }
+                if (footprint) {
+                    result.add("            } finally {");
+                    result.add("                StateFootprint.afterSetup(\"" + so.displayName + "\", Level." + helperLevel + ", " + so.localIdentifier + "_footprint);");
+                    result.add("            }");
+                }
                 result.add("            " + so.localIdentifier + ".ready" + helperLevel + " = true;");
                 result.add("        }");
                 result.add("    } catch (Throwable t) {");
                 result.add("        control.isFailing = true;");
                 result.add("        throw t;");
                 result.add("    } finally {");
-                result.add("        " + so.type + ".setup" + helperLevel + "MutexUpdater.set(" + so.localIdentifier + ", 0);");
-                result.add("    }");
-                result.add("} else {");
-                result.add("    while (" + so.type + ".setup" + helperLevel + "MutexUpdater.get(" + so.localIdentifier + ") == 1) {");
-                result.add("        if (control.isFailing) throw new FailureAssistException();");
-                result.add("        if (Thread.interrupted()) throw new InterruptedException();");
+                result.add("        " + mutex + ".set(" + so.localIdentifier + ", 0);");
                 result.add("    }");
-                result.add("}");
+                mutexWait(result, helperLevel, mutex, so);
             }
         }
 
@@ -640,7 +662,11 @@ class StateObjectHandler {
             }
 
             if (so.scope == Scope.Benchmark || so.scope == Scope.Group) {
-                result.add("if (" + so.type + ".tear" + helperLevel + "MutexUpdater.compareAndSet(" + so.localIdentifier + ", 0, 1)) {");
+                // We don't need to actively busy-wait for Trial, it is way past the measurement window,
+                // and we would not need measurement threads anymore after this is over. Therefore, it
+                // is OK to exponentially back off.
+                String mutex = so.type + ".tear" + helperLevel + "MutexUpdater";
+                result.add(mutexAcquire(helperLevel, helperLevel == Level.Trial, mutex, so));
                 result.add("    try {");
                 result.add("        if (control.isFailing) throw new FailureAssistException();");
                 result.add("        if (" + so.localIdentifier + ".ready" + helperLevel + ") {");
@@ -656,34 +682,39 @@ class StateObjectHandler {
                 result.add("        control.isFailing = true;");
                 result.add("        throw t;");
                 result.add("    } finally {");
-                result.add("        " + so.type + ".tear" + helperLevel + "MutexUpdater.set(" + so.localIdentifier + ", 0);");
+                result.add("        " + mutex + ".set(" + so.localIdentifier + ", 0);");
                 result.add("    }");
-                result.add("} else {");
-
-                // We don't need to actively busy-wait for Trial, it is way past the measurement window,
-                // and we would not need measurement threads anymore after this is over. Therefore, it
-                // is OK to exponentially back off.
-                if (helperLevel == Level.Trial) {
-                    result.add("    long " + so.localIdentifier + "_backoff = 1;");
-                }
-
-                result.add("    while (" + so.type + ".tear" + helperLevel + "MutexUpdater.get(" + so.localIdentifier + ") == 1) {");
-
-                if (helperLevel == Level.Trial) {
-                    result.add("        TimeUnit.MILLISECONDS.sleep(" + so.localIdentifier + "_backoff);");
-                    result.add("        " + so.localIdentifier + "_backoff = Math.max(1024, " + so.localIdentifier + "_backoff * 2);");
-                }
-
-                result.add("        if (control.isFailing) throw new FailureAssistException();");
-                result.add("        if (Thread.interrupted()) throw new InterruptedException();");
-                result.add("    }");
-                result.add("}");
+                mutexWait(result, helperLevel, mutex, so);
             }
         }
 
         return result;
     }
 
+    /**
+     * Invocation helpers run within the measurement loop, and their mutexes are inlined
+     * there. Other helpers are guarded with shared {@link FixtureMutex} code.
+     */
+    private static String mutexAcquire(Level helperLevel, boolean backoff, String mutex, StateObject so) {
+        if (helperLevel == Level.Invocation) {
+            return "if (" + mutex + ".compareAndSet(" + so.localIdentifier + ", 0, 1)) {";
+        } else {
+            String method = backoff ? "acquireWithBackoff" : "acquire";
+            return "if (FixtureMutex." + method + "(control, " + mutex + ", " + so.localIdentifier + ")) {";
+        }
+    }
+
+    private static void mutexWait(List<String> result, Level helperLevel, String mutex, StateObject so) {
+        if (helperLevel == Level.Invocation) {
+            result.add("} else {");
+            result.add("    while (" + mutex + ".get(" + so.localIdentifier + ") == 1) {");
+            result.add("        if (control.isFailing) throw new FailureAssistException();");
+            result.add("        if (Thread.interrupted()) throw new InterruptedException();");
+            result.add("    }");
+        }
+        result.add("}");
+    }
+
     public boolean hasInvocationStubs(MethodInfo method) {
         return !getInvocationSetups(method).isEmpty() || !getInvocationTearDowns(method).isEmpty();
     }
@@ -735,23 +766,28 @@ class StateObjectHandler {
             result.add("        if (val != null) {");
             result.add("            return val;");
             result.add("        }");
-            result.add("        val = new " + so.type + "();");
+            result.add("        long footprint = StateFootprint.beforeSetup();");
+            result.add("        try {");
+            result.add("            val = new " + so.type + "();");
             if (!so.getParamsLabels().isEmpty()) {
-                result.add("        Field f;");
+                result.add("            Field f;");
             }
             for (String paramName : so.getParamsLabels()) {
                 for (FieldInfo paramField : so.getParam(paramName)) {
-                    result.add("        f = " + paramField.getDeclaringClass().getQualifiedName() + ".class.getDeclaredField(\"" + paramName + "\");");
-                    result.add("        f.setAccessible(true);");
-                    result.add("        f.set(val, " + so.getParamAccessor(paramField) + ");");
+                    result.add("            f = " + paramField.getDeclaringClass().getQualifiedName() + ".class.getDeclaredField(\"" + paramName + "\");");
+                    result.add("            f.setAccessible(true);");
+                    result.add("            f.set(val, " + so.getParamAccessor(paramField) + ");");
                 }
             }
             for (HelperMethodInvocation hmi : so.getHelpers()) {
                 if (hmi.helperLevel != Level.Trial) continue;
                 if (hmi.type != HelperType.SETUP) continue;
                 Collection<String> args = so.helperArgs.get(hmi.method.getQualifiedName());
-                result.add("        val." + hmi.method.getName() + "(" + Utils.join(args, ",") + ");");
+                result.add("            val." + hmi.method.getName() + "(" + Utils.join(args, ",") + ");");
             }
+            result.add("        } finally {");
+            result.add("            StateFootprint.afterSetup(\"" + so.displayName + "\", Level.Trial, footprint);");
+            result.add("        }");
             result.add("        val.ready" + Level.Trial + " = true;");
             result.add("        " + so.fieldIdentifier + " = val;");
             result.add("        } catch (Throwable t) {");
@@ -773,7 +809,9 @@ class StateObjectHandler {
             result.add("    if (control.isFailing) throw new FailureAssistException();");
             result.add("    " + so.type + " val = " + so.fieldIdentifier + ";");
             result.add("    if (val == null) {");
-            result.add("        val = new " + so.type + "();");
+            result.add("        long footprint = StateFootprint.beforeSetup();");
+            result.add("        try {");
+            result.add("            val = new " + so.type + "();");
 
             if (!so.getParamsLabels().isEmpty()) {
                 result.add("            Field f;");
@@ -789,8 +827,11 @@ class StateObjectHandler {
                 if (hmi.helperLevel != Level.Trial) continue;
                 if (hmi.type != HelperType.SETUP) continue;
                 Collection<String> args = so.helperArgs.get(hmi.method.getQualifiedName());
-                result.add("        val." + hmi.method.getName() + "(" + Utils.join(args, ",") + ");");
+                result.add("            val." + hmi.method.getName() + "(" + Utils.join(args, ",") + ");");
             }
+            result.add("        } finally {");
+            result.add("            StateFootprint.afterSetup(\"" + so.displayName + "\", Level.Trial, footprint);");
+            result.add("        }");
             result.add("        " + so.fieldIdentifier + " = val;");
             result.add("    }");
             result.add("    return val;");
@@ -816,23 +857,28 @@ class StateObjectHandler {
             result.add("        if (val != null) {");
             result.add("            return val;");
             result.add("        }");
-            result.add("        val = new " + so.type + "();");
+            result.add("        long footprint = StateFootprint.beforeSetup();");
+            result.add("        try {");
+            result.add("            val = new " + so.type + "();");
             if (!so.getParamsLabels().isEmpty()) {
-                result.add("        Field f;");
+                result.add("            Field f;");
             }
             for (String paramName : so.getParamsLabels()) {
                 for(FieldInfo paramField : so.getParam(paramName)) {
-                    result.add("        f = " + paramField.getDeclaringClass().getQualifiedName() + ".class.getDeclaredField(\"" + paramName + "\");");
-                    result.add("        f.setAccessible(true);");
-                    result.add("        f.set(val, " + so.getParamAccessor(paramField) + ");");
+                    result.add("            f = " + paramField.getDeclaringClass().getQualifiedName() + ".class.getDeclaredField(\"" + paramName + "\");");
+                    result.add("            f.setAccessible(true);");
+                    result.add("            f.set(val, " + so.getParamAccessor(paramField) + ");");
                 }
             }
             for (HelperMethodInvocation hmi : so.getHelpers()) {
                 if (hmi.helperLevel != Level.Trial) continue;
                 if (hmi.type != HelperType.SETUP) continue;
                 Collection<String> args = so.helperArgs.get(hmi.method.getQualifiedName());
-                result.add("        val." + hmi.method.getName() + "(" + Utils.join(args, ",") + ");");
+                result.add("            val." + hmi.method.getName() + "(" + Utils.join(args, ",") + ");");
             }
+            result.add("        } finally {");
+            result.add("            StateFootprint.afterSetup(\"" + so.displayName + "\", Level.Trial, footprint);");
+            result.add("        }");
             result.add("        " + "val.ready" + Level.Trial + " = true;");
             result.add("        " + so.fieldIdentifier + "_map.put(groupIdx, val);");
             result.add("        } catch (Throwable t) {");
@@ -920,7 +966,7 @@ class StateObjectHandler {
             if (!sess.generatedStateOverrides.add(so.userType)) continue;
 
             {
-                PrintWriter pw = new PrintWriter(dst.newClass(so.packageName + "." + so.type + "_B1"));
+                PrintWriter pw = new PrintWriter(BenchmarkGeneratorUtils.newClass(dst, so.packageName + "." + so.type + "_B1", so.userType));
 
                 pw.println("package " + so.packageName + ";");
 
@@ -934,7 +980,7 @@ class StateObjectHandler {
             }
 
             {
-                PrintWriter pw = new PrintWriter(dst.newClass(so.packageName + "." + so.type + "_B2"));
+                PrintWriter pw = new PrintWriter(BenchmarkGeneratorUtils.newClass(dst, so.packageName + "." + so.type + "_B2", so.userType));
 
                 pw.println("package " + so.packageName + ";");
 
@@ -972,7 +1018,7 @@ class StateObjectHandler {
             }
 
             {
-                PrintWriter pw = new PrintWriter(dst.newClass(so.packageName + "." + so.type + "_B3"));
+                PrintWriter pw = new PrintWriter(BenchmarkGeneratorUtils.newClass(dst, so.packageName + "." + so.type + "_B3", so.userType));
 
                 pw.println("package " + so.packageName + ";");
                 pw.println("public class " + so.type + "_B3 extends " + so.type + "_B2 {");
@@ -984,7 +1030,7 @@ class StateObjectHandler {
             }
 
             {
-                PrintWriter pw = new PrintWriter(dst.newClass(so.packageName + "." + so.type));
+                PrintWriter pw = new PrintWriter(BenchmarkGeneratorUtils.newClass(dst, so.packageName + "." + so.type, so.userType));
 
                 pw.println("package " + so.packageName + ";");
                 pw.println("public class " + so.type + " extends " + so.type + "_B3 {");
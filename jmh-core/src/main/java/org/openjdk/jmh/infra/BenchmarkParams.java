@@ -25,6 +25,7 @@
 package org.openjdk.jmh.infra;
 
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.runner.WorkloadParams;
 import org.openjdk.jmh.runner.options.TimeValue;
 import org.openjdk.jmh.util.Utils;
@@ -73,6 +74,26 @@ public class BenchmarkParams extends BenchmarkParamsL4 {
                            String jvm, Collection<String> jvmArgs,
                            String jdkVersion, String vmName, String vmVersion, String jmhVersion,
                            TimeValue timeout) {
+        this(benchmark, generatedTarget, synchIterations,
+                threads, threadGroups, threadGroupLabels,
+                forks, warmupForks,
+                warmup, measurement,
+                mode, params,
+                timeUnit, opsPerInvocation,
+                jvm, jvmArgs,
+                jdkVersion, vmName, vmVersion, jmhVersion,
+                timeout, ScoreEstimator.MEAN);
+    }
+
+    public BenchmarkParams(String benchmark, String generatedTarget, boolean synchIterations,
+                           int threads, int[] threadGroups, Collection<String> threadGroupLabels,
+                           int forks, int warmupForks,
+                           IterationParams warmup, IterationParams measurement,
+                           Mode mode, WorkloadParams params,
+                           TimeUnit timeUnit, int opsPerInvocation,
+                           String jvm, Collection<String> jvmArgs,
+                           String jdkVersion, String vmName, String vmVersion, String jmhVersion,
+                           TimeValue timeout, ScoreEstimator scoreEstimator) {
         super(benchmark, generatedTarget, synchIterations,
                 threads, threadGroups, threadGroupLabels,
                 forks, warmupForks,
@@ -81,7 +102,7 @@ public class BenchmarkParams extends BenchmarkParamsL4 {
                 timeUnit, opsPerInvocation,
                 jvm, jvmArgs,
                 jdkVersion, vmName, vmVersion, jmhVersion,
-                timeout);
+                timeout, scoreEstimator);
     }
 }
 
@@ -97,7 +118,7 @@ abstract class BenchmarkParamsL4 extends BenchmarkParamsL3 {
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
                              String jdkVersion, String vmName, String vmVersion, String jmhVersion,
-                             TimeValue timeout) {
+                             TimeValue timeout, ScoreEstimator scoreEstimator) {
         super(benchmark, generatedTarget, synchIterations,
                 threads, threadGroups, threadGroupLabels,
                 forks, warmupForks,
@@ -106,7 +127,7 @@ abstract class BenchmarkParamsL4 extends BenchmarkParamsL3 {
                 timeUnit, opsPerInvocation,
                 jvm, jvmArgs,
                 jdkVersion, vmName, vmVersion, jmhVersion,
-                timeout);
+                timeout, scoreEstimator);
     }
 }
 
@@ -138,7 +159,7 @@ abstract class BenchmarkParamsL3 extends BenchmarkParamsL2 {
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
                              String jdkVersion, String vmName, String vmVersion, String jmhVersion,
-                             TimeValue timeout) {
+                             TimeValue timeout, ScoreEstimator scoreEstimator) {
         super(benchmark, generatedTarget, synchIterations,
                 threads, threadGroups, threadGroupLabels,
                 forks, warmupForks,
@@ -147,7 +168,7 @@ abstract class BenchmarkParamsL3 extends BenchmarkParamsL2 {
                 timeUnit, opsPerInvocation,
                 jvm, jvmArgs,
                 jdkVersion, vmName, vmVersion, jmhVersion,
-                timeout);
+                timeout, scoreEstimator);
     }
 }
 
@@ -198,6 +219,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
     protected final String vmName;
     protected final String vmVersion;
     protected final TimeValue timeout;
+    protected final ScoreEstimator scoreEstimator;
 
     public BenchmarkParamsL2(String benchmark, String generatedTarget, boolean synchIterations,
                              int threads, int[] threadGroups, Collection<String> threadGroupLabels,
@@ -207,7 +229,7 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
                              TimeUnit timeUnit, int opsPerInvocation,
                              String jvm, Collection<String> jvmArgs,
                              String jdkVersion, String vmName, String vmVersion, String jmhVersion,
-                             TimeValue timeout) {
+                             TimeValue timeout, ScoreEstimator scoreEstimator) {
         this.benchmark = benchmark;
         this.generatedTarget = generatedTarget;
         this.synchIterations = synchIterations;
@@ -229,6 +251,14 @@ abstract class BenchmarkParamsL2 extends BenchmarkParamsL1 implements Serializab
         this.vmVersion = vmVersion;
         this.jmhVersion = jmhVersion;
         this.timeout = timeout;
+        this.scoreEstimator = scoreEstimator;
+    }
+
+    /**
+     * @return estimator for the aggregated scores
+     */
+    public ScoreEstimator getScoreEstimator() {
+        return scoreEstimator;
     }
 
     /**
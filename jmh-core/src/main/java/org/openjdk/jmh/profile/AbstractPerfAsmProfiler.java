@@ -34,8 +34,7 @@ import org.openjdk.jmh.util.*;
 
 import java.io.*;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
 
@@ -328,25 +327,14 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
         PrintWriter pw = new PrintWriter(sw);
 
         /**
-         * 2. Read out PrintAssembly output
+         * 2. Index PrintAssembly output: figure out method boundaries, and where
+         *    the address lines are, without decoding them yet.
          */
 
-        Assembly assembly = readAssembly(hsLog.file());
-        if (assembly.size() > 0) {
-            pw.printf("PrintAssembly processed: %d total address lines.%n", assembly.size());
-        } else if (skipAssembly) {
-            pw.println();
-            pw.println("PrintAssembly skipped, Java methods are not resolved.");
-            pw.println();
-        } else {
-            pw.println();
-            pw.println("ERROR: No address lines detected in assembly capture. Make sure your JDK is properly configured to");
-            pw.println("print generated assembly. The most probable cause for this failure is that hsdis is not available,");
-            pw.println("or resides at the wrong path within the JDK. Try to run the same JDK with -XX:+PrintAssembly with");
-            pw.println("a simple non-JMH program and look for warning messages. For details, see the link below:");
-            pw.println("    https://wiki.openjdk.java.net/display/HotSpot/PrintAssembly");
-            pw.println();
-        }
+        long indexStart = System.nanoTime();
+        AssemblyParser parser = new AssemblyParser(hsLog.file(), drawIntraJumps || drawInterJumps);
+        parser.index();
+        long indexTime = System.nanoTime() - indexStart;
 
         /**
          * 3. Read out perf output
@@ -368,6 +356,41 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
 
         final PerfEvents events = readEvents(skipMs, lenMs);
 
+        /**
+         * 4. Decode only the assembly regions that have the events, unless
+         *    the entire annotated log was requested.
+         */
+
+        long decodeStart = System.nanoTime();
+        Assembly assembly = parser.decode(
+                saveLog ? null : figureHotIntervals(events.getAllAddresses(), parser.getMethods()),
+                Runtime.getRuntime().availableProcessors());
+        long decodeTime = System.nanoTime() - decodeStart;
+
+        if (parser.getDecodeFailure() != null) {
+            pw.println("Unable to decode PrintAssembly log: " + parser.getDecodeFailure());
+        }
+
+        if (parser.getAddressLines() > 0) {
+            pw.printf("PrintAssembly processed: %d total address lines.%n", parser.getAddressLines());
+            pw.printf("PrintAssembly parsed in %d ms: indexed %d chunks in %d ms, decoded %d address lines in %d ms.%n",
+                    TimeUnit.NANOSECONDS.toMillis(indexTime + decodeTime),
+                    parser.getChunkCount(), TimeUnit.NANOSECONDS.toMillis(indexTime),
+                    assembly.size(), TimeUnit.NANOSECONDS.toMillis(decodeTime));
+        } else if (skipAssembly) {
+            pw.println();
+            pw.println("PrintAssembly skipped, Java methods are not resolved.");
+            pw.println();
+        } else {
+            pw.println();
+            pw.println("ERROR: No address lines detected in assembly capture. Make sure your JDK is properly configured to");
+            pw.println("print generated assembly. The most probable cause for this failure is that hsdis is not available,");
+            pw.println("or resides at the wrong path within the JDK. Try to run the same JDK with -XX:+PrintAssembly with");
+            pw.println("a simple non-JMH program and look for warning messages. For details, see the link below:");
+            pw.println("    https://wiki.openjdk.java.net/display/HotSpot/PrintAssembly");
+            pw.println();
+        }
+
         if (!events.isEmpty()) {
             pw.printf("Perf output processed (skipped %.3f seconds):%n", skipMs / 1000D);
             int cnt = 1;
@@ -384,13 +407,13 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
         }
 
         /**
-         * 4. Figure out code regions
+         * 5. Figure out code regions
          */
 
         final List<Region> regions = makeRegions(assembly, events);
 
         /**
-         * 5. Figure out interesting regions, and print them out.
+         * 6. Figure out interesting regions, and print them out.
          * We would sort the regions by the hotness of the first (main) event type.
          */
 
@@ -442,7 +465,7 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
         }
 
         /**
-         * 6. Print out the hottest regions
+         * 7. Print out the hottest regions
          */
         {
             Multiset<String> total = new HashMultiset<>();
@@ -684,7 +707,7 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
         List<Region> regions = new ArrayList<>();
 
         SortedSet<Long> allAddrs = events.getAllAddresses();
-        for (Interval intv : figureHotIntervals(allAddrs, asms)) {
+        for (Interval intv : figureHotIntervals(allAddrs, asms.methodMap)) {
             SortedSet<Long> eventfulAddrs = allAddrs.subSet(intv.src, intv.dst + 1);
 
             List<ASMLine> regionLines = asms.getLines(intv.src, intv.dst, printMargin);
@@ -717,7 +740,7 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
     }
 
 
-    private List<Interval> figureHotIntervals(SortedSet<Long> addrs, Assembly asms) {
+    private List<Interval> figureHotIntervals(SortedSet<Long> addrs, IntervalMap<MethodDesc> methods) {
         if (addrs.isEmpty()) {
             return Collections.emptyList();
         }
@@ -727,26 +750,26 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
         long lastAddr = addrs.first();
         for (long addr : addrs) {
             if (addr - lastAddr > mergeMargin) {
-                addInterval(intervals, begAddr, lastAddr, asms);
+                addInterval(intervals, begAddr, lastAddr, methods);
                 begAddr = addr;
             }
             lastAddr = addr;
         }
 
         if (begAddr != lastAddr) {
-            addInterval(intervals, begAddr, lastAddr, asms);
+            addInterval(intervals, begAddr, lastAddr, methods);
         }
 
         return intervals;
     }
 
-    private void addInterval(List<Interval> intervals, long begAddr, long lastAddr, Assembly asms) {
+    private void addInterval(List<Interval> intervals, long begAddr, long lastAddr, IntervalMap<MethodDesc> methods) {
         if (!mergeMethods || intervals.isEmpty()) {
             intervals.add(new Interval(begAddr, lastAddr));
         } else {
             Interval prev = intervals.get(intervals.size() - 1);
-            MethodDesc prevMethod = asms.getMethod(prev.src);
-            MethodDesc method = asms.getMethod(begAddr);
+            MethodDesc prevMethod = methods.get(prev.src);
+            MethodDesc method = methods.get(begAddr);
             if (prevMethod == null || method == null || !prevMethod.equals(method)) {
                 intervals.add(new Interval(begAddr, lastAddr));
             } else {
@@ -755,173 +778,6 @@ public abstract class AbstractPerfAsmProfiler implements ExternalProfiler {
         }
     }
 
-    private Collection<Collection<String>> splitAssembly(File stdOut) {
-        try (FileReader in = new FileReader(stdOut);
-             BufferedReader br = new BufferedReader(in)) {
-            Multimap<Long, String> writerToLines = new HashMultimap<>();
-            Long writerId = -1L;
-
-            Pattern pWriterThread = Pattern.compile("(.*)<writer thread='(.*)'>(.*)");
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                // Parse the writer threads IDs:
-                //    <writer thread='140703710570240'/>
-                if (line.contains("<writer thread=")) {
-                    Matcher m = pWriterThread.matcher(line);
-                    if (m.matches()) {
-                        try {
-                            writerId = Long.valueOf(m.group(2));
-                        } catch (NumberFormatException e) {
-                            // something is wrong, try to recover
-                        }
-                    }
-                    continue;
-                }
-                writerToLines.put(writerId, line);
-            }
-
-            Collection<Collection<String>> r = new ArrayList<>();
-            for (long id : writerToLines.keys()) {
-                r.add(writerToLines.get(id));
-            }
-            return r;
-        } catch (IOException e) {
-            return Collections.emptyList();
-        }
-    }
-
-    private Assembly readAssembly(File stdOut) {
-        List<ASMLine> lines = new ArrayList<>();
-        SortedMap<Long, Integer> addressMap = new TreeMap<>();
-
-        IntervalMap<MethodDesc> stubs       = new IntervalMap<>();
-        IntervalMap<MethodDesc> javaMethods = new IntervalMap<>();
-
-        Set<Interval> intervals = new HashSet<>();
-
-        for (Collection<String> cs : splitAssembly(stdOut)) {
-            String prevLine = "";
-            for (String line : cs) {
-                String trim = line.trim();
-
-                if (trim.isEmpty()) continue;
-                String[] elements = trim.split(" ");
-
-                ASMLine asmLine = new ASMLine(line);
-
-                // Handle the most frequent case first.
-                if (trim.startsWith("0x")) {
-                    // Seems to be line with address.
-                    try {
-                        Long addr = parseAddress(elements[0]);
-                        int idx = lines.size();
-                        addressMap.put(addr, idx);
-
-                        asmLine = new ASMLine(addr, line);
-
-                        if (elements.length > 1 && (drawInterJumps || drawIntraJumps)) {
-                            for (int c = 1; c < elements.length; c++) {
-                                if (elements[c].startsWith("0x")) {
-                                    try {
-                                        Long target = parseAddress(elements[c]);
-                                        intervals.add(new Interval(addr, target));
-                                    } catch (NumberFormatException e) {
-                                        // nope
-                                    }
-                                }
-                            }
-                        }
-                    } catch (NumberFormatException e) {
-                        // Nope, not the address line.
-                    }
-                }
-
-                if (prevLine.contains("--------") || line.contains("StubRoutines::")) {
-                    // Try parsing the interpreter/runtime stub:
-                    // ----------------------------------------------------------------------
-                    // invokehandle  233 invokehandle  [0x00007f631d023100, 0x00007f631d0233c0]  704 bytes
-                    // StubRoutines::catch_exception [0x00007feb43fa7b27, 0x00007feb43fa7b46[ (31 bytes)
-
-                    // JDK 13 adds another "-------" line after StubRoutines line, so we need to filter out
-                    // mismatched lines that follow it. This is why regexp is anchored at the start of the line.
-                    // Example:
-                    //
-                    // StubRoutines::updateBytesCRC32 [0x0000ffff6c819700, 0x0000ffff6c819870] (368 bytes)
-                    // --------------------------------------------------------------------------------
-                    //  0x0000ffff6c819700:   stp     x29, x30, [sp, #-16]!  <--- do not match this
-                    //  0x0000ffff6c819704:   mov     x29, sp
-                    //  0x0000ffff6c819708:   mvn     w0, w0
-
-                    Pattern pattern = Pattern.compile("^(\\S.*)( +)\\[(.+), (.+)[\\]\\[](.*)");
-                    Matcher matcher = pattern.matcher(line);
-
-                    if (matcher.matches()) {
-                        Long startAddr = parseAddress(matcher.group(3));
-                        Long endAddr = parseAddress(matcher.group(4));
-
-                        if (line.contains("StubRoutines::")) {
-                            stubs.add(MethodDesc.runtimeStub(matcher.group(1)), startAddr, endAddr);
-                        } else {
-                            stubs.add(MethodDesc.interpreter(matcher.group(1)), startAddr, endAddr);
-                        }
-                    }
-                }
-
-                if (line.contains("<nmethod")) {
-                    // <nmethod compile_id='481' compiler='C1' level='3' entry='0x00007f26f51fb640' size='1392'
-                    //   address='0x00007f26f51fb4d0' relocation_offset='296' insts_offset='368' stub_offset='976'
-                    //   scopes_data_offset='1152' scopes_pcs_offset='1208' dependencies_offset='1368' nul_chk_table_offset='1376'
-                    //   method='java/lang/reflect/Constructor getParameterTypes ()[Ljava/lang/Class;' bytes='11'
-                    //   count='258' iicount='258' stamp='8.590'/>
-
-                    Matcher matcher = Pattern.compile("(.*?)<nmethod (.*?)/>(.*?)").matcher(line);
-                    if (matcher.matches()) {
-                        String body = matcher.group(2);
-                        body = body.replaceAll("='", "=");
-                        String[] kvs = body.split("' ");
-
-                        HashMap<String, String> map = new HashMap<>();
-                        for (String kv : kvs) {
-                            String[] pair = kv.split("=");
-
-                            // Guard against "key=''"
-                            if (pair.length == 2) {
-                                map.put(pair[0], pair[1]);
-                            } else {
-                                map.put(pair[0], null);
-                            }
-                        }
-
-                        // Record the starting address for the method
-                        Long addr = parseAddress(map.get("entry"));
-
-                        javaMethods.add(
-                                MethodDesc.javaMethod(map.get("method"), map.get("compiler"), map.get("level"), map.get("compile_id")),
-                                addr,
-                                addr + Long.valueOf(map.get("size"))
-                        );
-                    }
-                }
-
-                lines.add(asmLine);
-
-                prevLine = line;
-            }
-        }
-
-        // Important to get the order right: all Java methods take precedence over interpreter/runtime stubs.
-        IntervalMap<MethodDesc> methodMap = new IntervalMap<>();
-        methodMap.merge(stubs);
-        methodMap.merge(javaMethods);
-
-        return new Assembly(lines, addressMap, methodMap, intervals);
-    }
-
-    private Long parseAddress(String address) {
-        return Long.valueOf(address.replace("0x", "").replace(":", ""), 16);
-    }
-
     static class PerfResult extends Result<PerfResult> {
         private static final long serialVersionUID = 6871141606856800453L;
 
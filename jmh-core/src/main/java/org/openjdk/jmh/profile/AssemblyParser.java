@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.profile.AbstractPerfAsmProfiler.ASMLine;
+import org.openjdk.jmh.profile.AbstractPerfAsmProfiler.Assembly;
+import org.openjdk.jmh.profile.AbstractPerfAsmProfiler.MethodDesc;
+import org.openjdk.jmh.util.Interval;
+import org.openjdk.jmh.util.IntervalMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser for the -XX:+PrintAssembly log.
+ *
+ * <p>The log can be several gigabytes large, so it is processed in two phases.
+ * The first phase streams through the memory-mapped log once, records the
+ * method boundaries, and splits the log into chunks, remembering the address
+ * range each chunk covers. The second phase decodes only the chunks that
+ * contain the requested addresses, in parallel. Only the method map and chunk
+ * index are retained for the entire log.</p>
+ */
+class AssemblyParser {
+
+    /**
+     * Target chunk size. The chunks are cut at line boundaries, so they are slightly larger.
+     */
+    static final int CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * Size of the mapped window for the indexing pass.
+     */
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final Pattern WRITER_THREAD = Pattern.compile("(.*)<writer thread='(.*)'>(.*)");
+    private static final Pattern STUB = Pattern.compile("^(\\S.*)( +)\\[(.+), (.+)[\\]\\[](.*)");
+    private static final Pattern NMETHOD = Pattern.compile("(.*?)<nmethod (.*?)/>(.*?)");
+
+    private final File file;
+    private final boolean parseJumps;
+    private final List<Chunk> chunks;
+    private final IntervalMap<MethodDesc> methodMap;
+    private long addressLines;
+    private String decodeFailure;
+
+    AssemblyParser(File file, boolean parseJumps) {
+        this.file = file;
+        this.parseJumps = parseJumps;
+        this.chunks = new ArrayList<>();
+        this.methodMap = new IntervalMap<>();
+    }
+
+    /**
+     * @return method map for the entire log; available after indexing
+     */
+    IntervalMap<MethodDesc> getMethods() {
+        return methodMap;
+    }
+
+    /**
+     * @return number of address lines in the entire log; available after indexing
+     */
+    long getAddressLines() {
+        return addressLines;
+    }
+
+    /**
+     * @return number of chunks in the index
+     */
+    int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * @return why the last decode came out empty, or null if it succeeded
+     */
+    String getDecodeFailure() {
+        return decodeFailure;
+    }
+
+    /**
+     * Indexes the log in a single streaming pass.
+     * Missing or unreadable log yields the empty index.
+     */
+    void index() {
+        IntervalMap<MethodDesc> stubs = new IntervalMap<>();
+        IntervalMap<MethodDesc> javaMethods = new IntervalMap<>();
+
+        // Lines from different writer threads are interleaved in the log.
+        // Chunks never span the writer switch, and are then grouped by writer.
+        Map<Long, List<Chunk>> chunksByWriter = new LinkedHashMap<>();
+        Map<Long, String> prevLines = new HashMap<>();
+
+        long writerId = -1L;
+        Chunk cur = null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel ch = raf.getChannel()) {
+            LineReader reader = new LineReader(ch, 0, ch.size());
+
+            while (reader.next()) {
+                long lineStart = reader.lineStart();
+
+                if (cur != null && (lineStart - cur.start) >= CHUNK_SIZE) {
+                    cur.end = lineStart;
+                    cur = null;
+                }
+
+                long addr = reader.parseAddress();
+                if (addr != -1) {
+                    // Handle the most frequent case first, without decoding the line.
+                    addressLines++;
+                    if (cur == null) {
+                        cur = newChunk(chunksByWriter, writerId, lineStart);
+                    }
+                    cur.minAddr = Math.min(cur.minAddr, addr);
+                    cur.maxAddr = Math.max(cur.maxAddr, addr);
+                    prevLines.put(writerId, "");
+                    continue;
+                }
+
+                String line = reader.line();
+                if (line.trim().isEmpty()) continue;
+
+                // Parse the writer threads IDs:
+                //    <writer thread='140703710570240'/>
+                if (line.contains("<writer thread=")) {
+                    Matcher m = WRITER_THREAD.matcher(line);
+                    if (m.matches()) {
+                        try {
+                            long newWriterId = Long.valueOf(m.group(2));
+                            if (cur != null) {
+                                cur.end = lineStart;
+                                cur = null;
+                            }
+                            writerId = newWriterId;
+                        } catch (NumberFormatException e) {
+                            // something is wrong, try to recover
+                        }
+                    }
+                    continue;
+                }
+
+                if (cur == null) {
+                    cur = newChunk(chunksByWriter, writerId, lineStart);
+                }
+
+                String prevLine = prevLines.get(writerId);
+                if ((prevLine != null && prevLine.contains("--------")) || line.contains("StubRoutines::")) {
+                    parseStub(line, stubs);
+                }
+
+                if (line.contains("<nmethod")) {
+                    parseNMethod(line, javaMethods);
+                }
+
+                prevLines.put(writerId, line);
+            }
+
+            if (cur != null) {
+                cur.end = ch.size();
+            }
+        } catch (IOException e) {
+            // no assembly available, leave the index empty
+        }
+
+        for (List<Chunk> cs : chunksByWriter.values()) {
+            chunks.addAll(cs);
+        }
+
+        // Important to get the order right: all Java methods take precedence over interpreter/runtime stubs.
+        methodMap.merge(stubs);
+        methodMap.merge(javaMethods);
+    }
+
+    private Chunk newChunk(Map<Long, List<Chunk>> chunksByWriter, long writerId, long start) {
+        List<Chunk> cs = chunksByWriter.get(writerId);
+        if (cs == null) {
+            cs = new ArrayList<>();
+            chunksByWriter.put(writerId, cs);
+        }
+        Chunk c = new Chunk(writerId, start);
+        cs.add(c);
+        return c;
+    }
+
+    private static void parseStub(String line, IntervalMap<MethodDesc> stubs) {
+        // Try parsing the interpreter/runtime stub:
+        // ----------------------------------------------------------------------
+        // invokehandle  233 invokehandle  [0x00007f631d023100, 0x00007f631d0233c0]  704 bytes
+        // StubRoutines::catch_exception [0x00007feb43fa7b27, 0x00007feb43fa7b46[ (31 bytes)
+
+        // JDK 13 adds another "-------" line after StubRoutines line, so we need to filter out
+        // mismatched lines that follow it. This is why regexp is anchored at the start of the line.
+
+        Matcher matcher = STUB.matcher(line);
+        if (matcher.matches()) {
+            try {
+                long startAddr = parseAddress(matcher.group(3));
+                long endAddr = parseAddress(matcher.group(4));
+
+                if (line.contains("StubRoutines::")) {
+                    stubs.add(MethodDesc.runtimeStub(matcher.group(1)), startAddr, endAddr);
+                } else {
+                    stubs.add(MethodDesc.interpreter(matcher.group(1)), startAddr, endAddr);
+                }
+            } catch (NumberFormatException e) {
+                // not a stub line after all
+            }
+        }
+    }
+
+    private static void parseNMethod(String line, IntervalMap<MethodDesc> javaMethods) {
+        // <nmethod compile_id='481' compiler='C1' level='3' entry='0x00007f26f51fb640' size='1392'
+        //   address='0x00007f26f51fb4d0' relocation_offset='296' insts_offset='368' stub_offset='976'
+        //   scopes_data_offset='1152' scopes_pcs_offset='1208' dependencies_offset='1368' nul_chk_table_offset='1376'
+        //   method='java/lang/reflect/Constructor getParameterTypes ()[Ljava/lang/Class;' bytes='11'
+        //   count='258' iicount='258' stamp='8.590'/>
+
+        Matcher matcher = NMETHOD.matcher(line);
+        if (matcher.matches()) {
+            String body = matcher.group(2);
+            body = body.replaceAll("='", "=");
+            String[] kvs = body.split("' ");
+
+            HashMap<String, String> map = new HashMap<>();
+            for (String kv : kvs) {
+                String[] pair = kv.split("=");
+
+                // Guard against "key=''"
+                if (pair.length == 2) {
+                    map.put(pair[0], pair[1]);
+                } else {
+                    map.put(pair[0], null);
+                }
+            }
+
+            // Record the starting address for the method
+            long addr = parseAddress(map.get("entry"));
+
+            javaMethods.add(
+                    MethodDesc.javaMethod(map.get("method"), map.get("compiler"), map.get("level"), map.get("compile_id")),
+                    addr,
+                    addr + Long.valueOf(map.get("size"))
+            );
+        }
+    }
+
+    /**
+     * Parses the hex address. Addresses are unsigned, and the upper half of
+     * the address space does not fit the positive longs.
+     *
+     * @param address address, e.g. "0xffffffff81000000:"
+     * @return address bits
+     * @throws NumberFormatException if address is not a 64-bit hex number
+     */
+    static long parseAddress(String address) {
+        String s = address.replace("0x", "").replace(":", "");
+
+        int start = 0;
+        while (start < s.length() - 1 && s.charAt(start) == '0') start++;
+        if (s.isEmpty() || s.length() - start > 16) {
+            throw new NumberFormatException("Not a 64-bit address: " + address);
+        }
+
+        long addr = 0;
+        for (int i = start; i < s.length(); i++) {
+            int d = Character.digit(s.charAt(i), 16);
+            if (d < 0) {
+                throw new NumberFormatException("Not a 64-bit address: " + address);
+            }
+            addr = (addr << 4) | d;
+        }
+        return addr;
+    }
+
+    /**
+     * Decodes the chunks covering the given address intervals, along with their neighbors
+     * from the same writer to provide the context lines.
+     *
+     * @param intervals address intervals to decode; {@code null} to decode the entire log
+     * @param threads number of decoding threads
+     * @return decoded assembly
+     */
+    Assembly decode(Collection<Interval> intervals, int threads) {
+        final List<Chunk> selected = select(intervals);
+        decodeFailure = null;
+
+        List<DecodedChunk> decoded = new ArrayList<>();
+        if (!selected.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, selected.size())), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "perfasm-parser");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 final FileChannel ch = raf.getChannel()) {
+                List<Future<DecodedChunk>> futures = new ArrayList<>();
+                for (final Chunk c : selected) {
+                    futures.add(pool.submit(new Callable<DecodedChunk>() {
+                        @Override
+                        public DecodedChunk call() throws IOException {
+                            return decodeChunk(ch, c);
+                        }
+                    }));
+                }
+                for (Future<DecodedChunk> f : futures) {
+                    decoded.add(f.get());
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!(cause instanceof IOException)) {
+                    // decoder bug, do not hide it behind the empty listing
+                    throw new IllegalStateException("Cannot decode PrintAssembly log", cause);
+                }
+                decodeFailure = cause.getMessage();
+                decoded.clear();
+            } catch (IOException e) {
+                decodeFailure = e.getMessage();
+                decoded.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                decodeFailure = "interrupted";
+                decoded.clear();
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        List<ASMLine> lines = new ArrayList<>();
+        SortedMap<Long, Integer> addressMap = new TreeMap<>();
+        Set<Interval> jumps = new HashSet<>();
+
+        for (DecodedChunk dc : decoded) {
+            for (ASMLine line : dc.lines) {
+                if (line.addr != null) {
+                    addressMap.put(line.addr, lines.size());
+                }
+                lines.add(line);
+            }
+            jumps.addAll(dc.jumps);
+        }
+
+        return new Assembly(lines, addressMap, methodMap, jumps);
+    }
+
+    private List<Chunk> select(Collection<Interval> intervals) {
+        if (intervals == null) {
+            return chunks;
+        }
+
+        boolean[] hot = new boolean[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk c = chunks.get(i);
+            if (c.minAddr > c.maxAddr) continue;
+            for (Interval intv : intervals) {
+                if (c.minAddr <= intv.dst && intv.src <= c.maxAddr) {
+                    hot[i] = true;
+                    break;
+                }
+            }
+        }
+
+        List<Chunk> result = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk c = chunks.get(i);
+            boolean prevHot = (i > 0) && hot[i - 1] && (chunks.get(i - 1).writer == c.writer);
+            boolean nextHot = (i < chunks.size() - 1) && hot[i + 1] && (chunks.get(i + 1).writer == c.writer);
+            if (hot[i] || prevHot || nextHot) {
+                result.add(c);
+            }
+        }
+        return result;
+    }
+
+    private DecodedChunk decodeChunk(FileChannel ch, Chunk c) throws IOException {
+        DecodedChunk dc = new DecodedChunk();
+        LineReader reader = new LineReader(ch, c.start, c.end);
+        while (reader.next()) {
+            String line = reader.line();
+            String trim = line.trim();
+
+            if (trim.isEmpty()) continue;
+
+            long addr = reader.parseAddress();
+            if (addr == -1) {
+                dc.lines.add(new ASMLine(line));
+                continue;
+            }
+
+            dc.lines.add(new ASMLine(addr, line));
+
+            if (parseJumps) {
+                String[] elements = trim.split(" ");
+                for (int e = 1; e < elements.length; e++) {
+                    if (elements[e].startsWith("0x")) {
+                        try {
+                            dc.jumps.add(new Interval(addr, parseAddress(elements[e])));
+                        } catch (NumberFormatException ex) {
+                            // nope
+                        }
+                    }
+                }
+            }
+        }
+        return dc;
+    }
+
+    private static class Chunk {
+        final long writer;
+        final long start;
+        long end;
+        long minAddr = Long.MAX_VALUE;
+        long maxAddr = Long.MIN_VALUE;
+
+        Chunk(long writer, long start) {
+            this.writer = writer;
+            this.start = start;
+        }
+    }
+
+    private static class DecodedChunk {
+        final List<ASMLine> lines = new ArrayList<>();
+        final List<Interval> jumps = new ArrayList<>();
+    }
+
+    /**
+     * Reads lines from the memory-mapped file region, mapping it by windows.
+     * Lines are kept as raw bytes until requested.
+     */
+    static class LineReader {
+        private final FileChannel ch;
+        private final long end;
+
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        private long pos;
+        private long lineStart;
+        private byte[] buf;
+        private int len;
+
+        LineReader(FileChannel ch, long start, long end) {
+            this.ch = ch;
+            this.end = end;
+            this.pos = start;
+            this.buf = new byte[256];
+        }
+
+        boolean next() throws IOException {
+            if (pos >= end) {
+                return false;
+            }
+
+            lineStart = pos;
+            len = 0;
+            while (pos < end) {
+                if (window == null || pos >= windowStart + window.limit()) {
+                    windowStart = pos;
+                    window = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW_SIZE, end - pos));
+                }
+                byte b = window.get((int) (pos - windowStart));
+                pos++;
+                if (b == '\n') {
+                    break;
+                }
+                if (len == buf.length) {
+                    buf = Arrays.copyOf(buf, len * 2);
+                }
+                buf[len++] = b;
+            }
+
+            if (len > 0 && buf[len - 1] == '\r') {
+                len--;
+            }
+            return true;
+        }
+
+        long lineStart() {
+            return lineStart;
+        }
+
+        String line() {
+            return new String(buf, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses the address in the address line, e.g. "  0x00007f26f51fb640: mov ...".
+         *
+         * @return parsed address, or -1 if the line is not the address line
+         */
+        long parseAddress() {
+            int i = 0;
+            while (i < len && (buf[i] == ' ' || buf[i] == '\t')) i++;
+
+            if (i + 2 >= len || buf[i] != '0' || buf[i + 1] != 'x') {
+                return -1;
+            }
+            i += 2;
+
+            long addr = 0;
+            int digits = 0;
+            for (; i < len; i++) {
+                int d = Character.digit(buf[i], 16);
+                if (d < 0) break;
+                addr = (addr << 4) | d;
+                digits++;
+            }
+
+            if (digits == 0 || digits > 16) {
+                return -1;
+            }
+
+            // The address should be followed by the colon, or end the first token.
+            if (i < len && buf[i] != ':' && buf[i] != ' ') {
+                return -1;
+            }
+            return addr;
+        }
+    }
+
+}
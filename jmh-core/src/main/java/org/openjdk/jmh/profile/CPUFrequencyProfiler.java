@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.WorkerThreads;
+import org.openjdk.jmh.runner.options.IntegerValueConverter;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Samples CPU frequencies and thermal zones from Linux sysfs during the iteration.
+ *
+ * <p>Frequencies are taken from cpufreq scaling_cur_freq of the CPUs the worker
+ * threads are currently running on, as reported by /proc. If the worker CPUs cannot
+ * be figured out, all CPUs are sampled. The iteration is flagged as throttled when
+ * the thermal throttle counters of these CPUs had advanced, or when any thermal zone
+ * had reached its passive trip point.</p>
+ */
+public class CPUFrequencyProfiler implements InternalProfiler {
+
+    private static final Pattern CPU_DIR = Pattern.compile("cpu[0-9]+");
+    private static final Pattern ZONE_DIR = Pattern.compile("thermal_zone[0-9]+");
+
+    private final File cpuRoot;
+    private final File thermalRoot;
+    private final long periodNs;
+
+    private final SortedMap<Integer, File> cpus;
+    private final List<File> zones;
+
+    private long[] throttleBefore;
+    private Sampler sampler;
+
+    public CPUFrequencyProfiler(String initLine) throws ProfilerException {
+        OptionParser parser = new OptionParser();
+        parser.formatHelpWith(new ProfilerOptionFormatter(CPUFrequencyProfiler.class.getCanonicalName()));
+
+        OptionSpec<String> optRoot = parser.accepts("root", "Root of sysfs tree to read from.")
+                .withRequiredArg().ofType(String.class).describedAs("dir").defaultsTo("/sys");
+
+        OptionSpec<Integer> optPeriod = parser.accepts("period", "Sampling period, in ms.")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int").defaultsTo(10);
+
+        OptionSet set = ProfilerUtils.parseInitLine(initLine, parser);
+
+        File root;
+        try {
+            root = new File(set.valueOf(optRoot));
+            periodNs = TimeUnit.MILLISECONDS.toNanos(set.valueOf(optPeriod));
+        } catch (OptionException e) {
+            throw new ProfilerException(e.getMessage());
+        }
+
+        cpuRoot = new File(root, "devices/system/cpu");
+        thermalRoot = new File(root, "class/thermal");
+
+        cpus = new TreeMap<>();
+        File[] cpuDirs = cpuRoot.listFiles();
+        if (cpuDirs != null) {
+            for (File d : cpuDirs) {
+                if (CPU_DIR.matcher(d.getName()).matches() && new File(d, "cpufreq/scaling_cur_freq").exists()) {
+                    cpus.put(Integer.valueOf(d.getName().substring("cpu".length())), d);
+                }
+            }
+        }
+
+        if (cpus.isEmpty()) {
+            throw new ProfilerException("No CPU frequency data under " + cpuRoot);
+        }
+
+        zones = new ArrayList<>();
+        File[] zoneDirs = thermalRoot.listFiles();
+        if (zoneDirs != null) {
+            for (File d : zoneDirs) {
+                if (ZONE_DIR.matcher(d.getName()).matches() && new File(d, "temp").exists()) {
+                    zones.add(d);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "CPU frequency and thermal throttling (Linux sysfs)";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        throttleBefore = readThrottleCounts();
+        sampler = new Sampler();
+        sampler.start();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        sampler.interrupt();
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            // do nothing, proceed
+        }
+
+        // make sure there is at least one sample
+        sampler.sample();
+
+        long[] throttleAfter = readThrottleCounts();
+        long throttleEvents = 0;
+        for (int c : sampler.seenCpus) {
+            int idx = cpuIndex(c);
+            if (throttleBefore[idx] >= 0 && throttleAfter[idx] >= 0) {
+                throttleEvents += Math.max(0, throttleAfter[idx] - throttleBefore[idx]);
+            }
+        }
+
+        boolean throttled = (throttleEvents > 0) || sampler.tripped;
+
+        List<Result> results = new ArrayList<>();
+        if (sampler.freqCount > 0) {
+            results.add(new ScalarResult(Defaults.PREFIX + "cpu.freq.avg",
+                    sampler.freqSum / sampler.freqCount / 1000, "MHz", AggregationPolicy.AVG));
+            results.add(new ScalarResult(Defaults.PREFIX + "cpu.freq.min",
+                    sampler.freqMin / 1000D, "MHz", AggregationPolicy.MIN));
+        }
+        if (sampler.tempMax != Long.MIN_VALUE) {
+            results.add(new ScalarResult(Defaults.PREFIX + "cpu.temp.max",
+                    sampler.tempMax / 1000D, "C", AggregationPolicy.MAX));
+        }
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.throttle.events",
+                throttleEvents, "#", AggregationPolicy.SUM));
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.throttled",
+                throttled ? 1 : 0, "#", AggregationPolicy.SUM));
+        return results;
+    }
+
+    private int cpuIndex(int cpu) {
+        return cpus.headMap(cpu).size();
+    }
+
+    /**
+     * Reads the sum of core and package throttle counters for every known CPU.
+     * CPUs without the counters get -1.
+     */
+    private long[] readThrottleCounts() {
+        long[] counts = new long[cpus.size()];
+        int idx = 0;
+        for (File d : cpus.values()) {
+            long core = readLong(new File(d, "thermal_throttle/core_throttle_count"));
+            long pkg = readLong(new File(d, "thermal_throttle/package_throttle_count"));
+            if (core < 0 && pkg < 0) {
+                counts[idx++] = -1;
+            } else {
+                counts[idx++] = Math.max(0, core) + Math.max(0, pkg);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Figures out the CPUs the worker threads are running on right now.
+     */
+    private Set<Integer> workerCpus() {
+        Set<Integer> result = new TreeSet<>();
+        for (long tid : WorkerThreads.getNativeWorkerIds()) {
+            if (tid < 0) {
+                continue;
+            }
+            int cpu = readLastCpu(new File("/proc/self/task/" + tid + "/stat"));
+            if (cpus.containsKey(cpu)) {
+                result.add(cpu);
+            }
+        }
+        if (result.isEmpty()) {
+            result.addAll(cpus.keySet());
+        }
+        return result;
+    }
+
+    /**
+     * Reads the "processor" field from /proc/.../stat, which is the 39-th field.
+     * The process name in the 2-nd field may contain spaces, so we count from
+     * the closing parenthesis.
+     */
+    static int readLastCpu(File stat) {
+        String line = readLine(stat);
+        if (line == null) {
+            return -1;
+        }
+        int paren = line.lastIndexOf(')');
+        if (paren < 0) {
+            return -1;
+        }
+        String[] fields = line.substring(paren + 1).trim().split("\\s+");
+        // fields[0] is the 3-rd field, "state"
+        int idx = 39 - 3;
+        if (fields.length <= idx) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fields[idx]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String readLine(File file) {
+        try {
+            Collection<String> lines = FileUtils.readAllLines(file);
+            if (!lines.isEmpty()) {
+                return lines.iterator().next().trim();
+            }
+        } catch (IOException e) {
+            // fall through
+        }
+        return null;
+    }
+
+    private static long readLong(File file) {
+        String line = readLine(file);
+        if (line == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(line);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private class Sampler extends Thread {
+        private final Set<Integer> seenCpus = new TreeSet<>();
+        private double freqSum;
+        private long freqCount;
+        private long freqMin = Long.MAX_VALUE;
+        private long tempMax = Long.MIN_VALUE;
+        private boolean tripped;
+
+        public Sampler() {
+            setName("jmh-cpufreq-sampler");
+            setPriority(Thread.MAX_PRIORITY);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.interrupted()) {
+                sample();
+                LockSupport.parkNanos(periodNs);
+            }
+        }
+
+        void sample() {
+            for (int c : workerCpus()) {
+                seenCpus.add(c);
+                long freq = readLong(new File(cpus.get(c), "cpufreq/scaling_cur_freq"));
+                if (freq > 0) {
+                    freqSum += freq;
+                    freqCount++;
+                    freqMin = Math.min(freqMin, freq);
+                }
+            }
+
+            for (File zone : zones) {
+                long temp = readLong(new File(zone, "temp"));
+                if (temp == -1) {
+                    continue;
+                }
+                tempMax = Math.max(tempMax, temp);
+                if (!tripped) {
+                    tripped = reachedPassiveTrip(zone, temp);
+                }
+            }
+        }
+
+        private boolean reachedPassiveTrip(File zone, long temp) {
+            for (int t = 0; ; t++) {
+                String type = readLine(new File(zone, "trip_point_" + t + "_type"));
+                if (type == null) {
+                    return false;
+                }
+                if (type.equals("passive")) {
+                    long trip = readLong(new File(zone, "trip_point_" + t + "_temp"));
+                    if (trip > 0 && temp >= trip) {
+                        return true;
+                    }
+                }
+            }
+        }
+    }
+
+}
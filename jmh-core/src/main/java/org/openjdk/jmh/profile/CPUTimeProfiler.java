@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.WorkerThreads;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Accounts the CPU time of the worker threads in the measured part of iteration.
+ *
+ * <p>Wall-clock scores do not tell if the workers were actually running, or were
+ * blocked, parked or preempted. This profiler reports CPU time per operation,
+ * the share of user and system time, the on-CPU utilization of the workers, and
+ * the throughput normalized by CPU time. Workers that join in the middle of
+ * measurement are not accounted, since their CPU time covers their entire history.</p>
+ */
+public class CPUTimeProfiler implements InternalProfiler {
+
+    private final ThreadMXBean bean;
+    private Window window;
+
+    public CPUTimeProfiler() throws ProfilerException {
+        bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadCpuTimeSupported()) {
+            throw new ProfilerException("Thread CPU time is not supported by this VM");
+        }
+        try {
+            if (!bean.isThreadCpuTimeEnabled()) {
+                bean.setThreadCpuTimeEnabled(true);
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            throw new ProfilerException("Cannot enable thread CPU time: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Worker CPU time vs wall time";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        window = new Window();
+        WorkerThreads.addListener(window);
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        Window w = window;
+        WorkerThreads.removeListener(w);
+        window = null;
+
+        if (!w.isComplete()) {
+            return Collections.emptyList();
+        }
+
+        IterationResultMetaData md = result.getMetadata();
+        long measuredOps = md.getMeasuredOps();
+        long[] threadOps = md.getThreadMeasuredOps();
+        int[] groups = benchmarkParams.getThreadGroups();
+        List<String> labels = new ArrayList<>(benchmarkParams.getThreadGroupLabels());
+
+        long wallNs = w.getDuration();
+
+        long cpuNs = 0;
+        long userNs = 0;
+        long workerOps = 0;
+        int workers = 0;
+        long[] threadCpu = new long[threadOps.length];
+        boolean[] threadAccounted = new boolean[threadOps.length];
+        long[] subgroupCpu = new long[groups.length];
+        long[] subgroupOps = new long[groups.length];
+        for (Map.Entry<ThreadParams, long[]> e : w.getDeltas().entrySet()) {
+            ThreadParams tp = e.getKey();
+            long cpu = e.getValue()[0];
+            long user = e.getValue()[1];
+            cpuNs += cpu;
+            userNs += user;
+            workers++;
+
+            int t = tp.getThreadIndex();
+            if (t < threadCpu.length) {
+                threadCpu[t] = cpu;
+                threadAccounted[t] = true;
+                workerOps += threadOps[t];
+            }
+
+            int sg = tp.getSubgroupIndex();
+            if (sg < subgroupCpu.length) {
+                subgroupCpu[sg] += cpu;
+                if (t < threadOps.length) {
+                    subgroupOps[sg] += threadOps[t];
+                }
+            }
+        }
+
+        if (workers == 0) {
+            return Collections.emptyList();
+        }
+
+        // Workers registered in the middle of measurement are not accounted,
+        // and so are their operations.
+        if (w.getPartialWorkers() > 0) {
+            measuredOps = workerOps;
+        }
+
+        List<Result> results = new ArrayList<>();
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.time.norm",
+                (measuredOps != 0) ? 1.0 * cpuNs / measuredOps : Double.NaN,
+                "ns/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.ops.norm",
+                (cpuNs != 0) ? 1e9 * measuredOps / cpuNs : Double.NaN,
+                "ops/cpu-s", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.user",
+                (cpuNs != 0) ? 100.0 * userNs / cpuNs : Double.NaN,
+                "%", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.sys",
+                (cpuNs != 0) ? 100.0 * (cpuNs - userNs) / cpuNs : Double.NaN,
+                "%", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "cpu.util",
+                (wallNs > 0) ? 100.0 * cpuNs / wallNs / workers : Double.NaN,
+                "%", AggregationPolicy.AVG));
+
+        if (threadOps.length > 1) {
+            for (int t = 0; t < threadCpu.length; t++) {
+                results.add(new ScalarResult(Defaults.PREFIX + "cpu.util.thread-" + t,
+                        (threadAccounted[t] && wallNs > 0) ? 100.0 * threadCpu[t] / wallNs : Double.NaN,
+                        "%", AggregationPolicy.AVG));
+            }
+        }
+
+        if (groups.length > 1) {
+            for (int sg = 0; sg < groups.length; sg++) {
+                results.add(new ScalarResult(Defaults.PREFIX + "cpu.time.norm." + labels.get(sg),
+                        (subgroupOps[sg] != 0) ? 1.0 * subgroupCpu[sg] / subgroupOps[sg] : Double.NaN,
+                        "ns/op", AggregationPolicy.AVG));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Snapshots the worker CPU and user times at the edges of measurement window.
+     */
+    private class Window extends WorkerThreads.MeasurementWindow {
+        @Override
+        protected Map<Thread, long[]> snapshot(Collection<Thread> threads) {
+            Map<Thread, long[]> result = new HashMap<>();
+            for (Thread t : threads) {
+                long cpu = bean.getThreadCpuTime(t.getId());
+                long user = bean.getThreadUserTime(t.getId());
+                result.put(t, new long[]{cpu, user});
+            }
+            return result;
+        }
+    }
+
+}
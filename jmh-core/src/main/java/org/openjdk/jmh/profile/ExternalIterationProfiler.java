@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.IterationResult;
+
+/**
+ * External profiler that is also notified about the iterations in the benchmark JVM.
+ *
+ * <p>The notifications are delivered in the host JVM, as the benchmark JVM reports
+ * the iteration start and results over the binary link. This allows profilers to
+ * sample the benchmark JVM from the outside at iteration boundaries, without running
+ * any code in the benchmark JVM. The notifications are not synchronous with the
+ * benchmark JVM, so the edges are approximate: the iteration start is reported before
+ * the iteration setup, and the result is reported after the iteration teardown.</p>
+ */
+public interface ExternalIterationProfiler extends ExternalProfiler {
+
+    /**
+     * Called when the benchmark JVM had announced the start of the iteration.
+     *
+     * @param benchmarkParams benchmark parameters
+     * @param iterationParams iteration parameters
+     * @param pid pid of the benchmark JVM
+     */
+    void iterationStarted(BenchmarkParams benchmarkParams, IterationParams iterationParams, long pid);
+
+    /**
+     * Called when the benchmark JVM had reported the iteration result.
+     *
+     * @param benchmarkParams benchmark parameters
+     * @param iterationParams iteration parameters
+     * @param result iteration result
+     * @param pid pid of the benchmark JVM
+     */
+    void iterationFinished(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result, long pid);
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.StateFootprint;
+
+import java.util.*;
+
+/**
+ * Reports the heap retained by {@link org.openjdk.jmh.annotations.State} objects
+ * after their Trial and Iteration setups. Every state setup is bracketed with
+ * forced GCs, and the used heap difference is attributed to that state.
+ *
+ * <p>Trial footprints are taken once, in the first iteration, and are
+ * reported in every iteration after that. Iteration footprints are reported
+ * for the iteration they were taken in, and only count what the setup adds on
+ * top of what the state already retains. With several instances of a state
+ * (e.g. {@link org.openjdk.jmh.annotations.Scope#Thread}), the average footprint
+ * of an instance is reported.</p>
+ */
+public class FootprintProfiler implements InternalProfiler {
+
+    private final Map<String, List<Long>> trialFootprints = new TreeMap<>();
+    private BenchmarkParams lastParams;
+
+    @Override
+    public String getDescription() {
+        return "Retained heap of @State objects (forces GC around setups)";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (lastParams != benchmarkParams) {
+            trialFootprints.clear();
+            lastParams = benchmarkParams;
+        }
+        StateFootprint.enable();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        StateFootprint.disable();
+
+        Map<String, List<Long>> iterationFootprints = new TreeMap<>();
+        for (StateFootprint.Record r : StateFootprint.drain()) {
+            Map<String, List<Long>> target = (r.getLevel() == Level.Trial) ? trialFootprints : iterationFootprints;
+            List<Long> list = target.get(r.getLabel());
+            if (list == null) {
+                list = new ArrayList<>();
+                target.put(r.getLabel(), list);
+            }
+            list.add(r.getBytes());
+        }
+
+        Collection<Result> results = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> e : trialFootprints.entrySet()) {
+            results.add(new ScalarResult(Defaults.PREFIX + "footprint." + e.getKey(),
+                    average(e.getValue()), "B", AggregationPolicy.AVG));
+        }
+        for (Map.Entry<String, List<Long>> e : iterationFootprints.entrySet()) {
+            results.add(new ScalarResult(Defaults.PREFIX + "footprint." + e.getKey() + ".iteration",
+                    average(e.getValue()), "B", AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    private static double average(List<Long> values) {
+        long sum = 0;
+        for (long v : values) {
+            sum += v;
+        }
+        return 1.0 * sum / values.size();
+    }
+
+}
@@ -24,11 +24,16 @@
  */
 package org.openjdk.jmh.profile;
 
+import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
 import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.WorkerThreads;
 import org.openjdk.jmh.util.HashMultiset;
 import org.openjdk.jmh.util.Multiset;
+import org.openjdk.jmh.util.SampleBuffer;
+import org.openjdk.jmh.util.Statistics;
 
 import javax.management.ListenerNotFoundException;
 import javax.management.Notification;
@@ -47,6 +52,7 @@ public class GCProfiler implements InternalProfiler {
     private long beforeGCCount;
     private long beforeGCTime;
     private HotspotAllocationSnapshot beforeAllocated;
+    private AllocationWindow window;
 
     public GCProfiler() throws ProfilerException {
     }
@@ -70,6 +76,9 @@ public class GCProfiler implements InternalProfiler {
         this.beforeGCTime = gcTime;
         this.beforeAllocated = VMSupport.getSnapshot();
         this.beforeTime = System.nanoTime();
+
+        window = new AllocationWindow();
+        WorkerThreads.addListener(window);
     }
 
     @Override
@@ -84,7 +93,13 @@ public class GCProfiler implements InternalProfiler {
             gcTime += bean.getCollectionTime();
         }
 
-        List<ScalarResult> results = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+
+        AllocationWindow workers = window;
+        if (workers != null) {
+            WorkerThreads.removeListener(workers);
+            window = null;
+        }
 
         if (beforeAllocated == HotspotAllocationSnapshot.EMPTY) {
             // When allocation profiling fails, make sure it is distinguishable in report
@@ -100,7 +115,10 @@ public class GCProfiler implements InternalProfiler {
                                     1.0 * allocated / 1024 / 1024 * TimeUnit.SECONDS.toNanos(1) / (afterTime - beforeTime) :
                                     Double.NaN,
                             "MB/sec", AggregationPolicy.AVG));
-            if (allocated != 0) {
+
+            if (workers != null && workers.isComplete() && VMSupport.ALLOC_AVAILABLE) {
+                addWorkerResults(results, benchmarkParams, iResult.getMetadata(), workers, allocated);
+            } else if (allocated != 0) {
                 long allOps = iResult.getMetadata().getAllOps();
                 results.add(new ScalarResult(Defaults.PREFIX + "gc.alloc.rate.norm",
                                 (allOps != 0) ?
@@ -124,6 +142,10 @@ public class GCProfiler implements InternalProfiler {
                     AggregationPolicy.SUM));
         }
 
+        if (workers != null && workers.isComplete()) {
+            addPauseResults(results, benchmarkParams, iResult, workers);
+        }
+
         Multiset<String> churn = VMSupport.getChurn();
         for (String space : churn.keys()) {
             double churnRate = (afterTime != beforeTime) ?
@@ -150,6 +172,227 @@ public class GCProfiler implements InternalProfiler {
         return results;
     }
 
+    /**
+     * Attributes the allocations made in the measured part of iteration to the
+     * worker threads, and reports the remainder as harness allocations.
+     */
+    private void addWorkerResults(List<Result> results, BenchmarkParams benchmarkParams,
+                                  IterationResultMetaData md, AllocationWindow workers, long vmAllocated) {
+        long measuredOps = md.getMeasuredOps();
+        long[] threadOps = md.getThreadMeasuredOps();
+        int[] groups = benchmarkParams.getThreadGroups();
+        List<String> labels = new ArrayList<>(benchmarkParams.getThreadGroupLabels());
+
+        long[] threadBytes = new long[threadOps.length];
+        boolean[] threadAccounted = new boolean[threadOps.length];
+        long[] subgroupBytes = new long[groups.length];
+        long[] subgroupOps = new long[groups.length];
+
+        long workerBytes = 0;
+        long workerOps = 0;
+        for (Map.Entry<ThreadParams, long[]> e : workers.getDeltas().entrySet()) {
+            ThreadParams tp = e.getKey();
+            long bytes = e.getValue()[0];
+            workerBytes += bytes;
+
+            int t = tp.getThreadIndex();
+            if (t < threadBytes.length) {
+                threadBytes[t] += bytes;
+                threadAccounted[t] = true;
+                workerOps += threadOps[t];
+            }
+
+            int sg = tp.getSubgroupIndex();
+            if (sg < subgroupBytes.length) {
+                subgroupBytes[sg] += bytes;
+                if (t < threadOps.length) {
+                    subgroupOps[sg] += threadOps[t];
+                }
+            }
+        }
+
+        // Workers registered in the middle of measurement are not accounted,
+        // and so are their operations.
+        long accountedOps = (workers.getPartialWorkers() > 0) ? workerOps : measuredOps;
+        results.add(new ScalarResult(Defaults.PREFIX + "gc.alloc.rate.norm",
+                (accountedOps != 0) ? 1.0 * workerBytes / accountedOps : Double.NaN,
+                "B/op", AggregationPolicy.AVG));
+
+        if (threadOps.length > 1) {
+            for (int t = 0; t < threadOps.length; t++) {
+                results.add(new ScalarResult(Defaults.PREFIX + "gc.alloc.rate.norm.thread-" + t,
+                        (threadAccounted[t] && threadOps[t] != 0) ? 1.0 * threadBytes[t] / threadOps[t] : Double.NaN,
+                        "B/op", AggregationPolicy.AVG));
+            }
+        }
+
+        if (groups.length > 1) {
+            for (int sg = 0; sg < groups.length; sg++) {
+                results.add(new ScalarResult(Defaults.PREFIX + "gc.alloc.rate.norm." + labels.get(sg),
+                        (subgroupOps[sg] != 0) ? 1.0 * subgroupBytes[sg] / subgroupOps[sg] : Double.NaN,
+                        "B/op", AggregationPolicy.AVG));
+            }
+        }
+
+        // Everything else allocated in iteration: setup/teardown, synchronization
+        // phases, and other threads in the VM.
+        long harnessBytes = Math.max(0, vmAllocated - workerBytes);
+        results.add(new ScalarResult(Defaults.PREFIX + "gc.alloc.rate.norm.harness",
+                (measuredOps != 0) ? 1.0 * harnessBytes / measuredOps : Double.NaN,
+                "B/op", AggregationPolicy.AVG));
+    }
+
+    /**
+     * Reports the GC pauses that happened in the measured part of iteration, and
+     * the primary score with the paused time taken out.
+     */
+    private void addPauseResults(List<Result> results, BenchmarkParams benchmarkParams,
+                                 IterationResult iResult, AllocationWindow window) {
+        long windowStart = window.getStartUptime();
+        long windowStop = window.getStopUptime();
+
+        SampleBuffer buffer = new SampleBuffer();
+        long paused = 0;
+        for (long[] pause : VMSupport.getPauses()) {
+            long start = Math.max(pause[0], windowStart);
+            long end = Math.min(pause[1], windowStop);
+            if (start <= end) {
+                buffer.add(TimeUnit.MILLISECONDS.toNanos(pause[1] - pause[0]));
+                paused += end - start;
+            }
+        }
+
+        if (buffer.count() > 0) {
+            results.add(new GCPauseResult(buffer));
+        }
+
+        double fraction = (windowStop > windowStart) ? 1.0 * paused / (windowStop - windowStart) : Double.NaN;
+        results.add(new ScalarResult(Defaults.PREFIX + "gc.pause.fraction",
+                fraction * 100, "%", AggregationPolicy.AVG));
+
+        Result primary = iResult.getPrimaryResult();
+        double adjusted;
+        switch (benchmarkParams.getMode()) {
+            case Throughput:
+                adjusted = (fraction < 1) ? primary.getScore() / (1 - fraction) : Double.NaN;
+                break;
+            case AverageTime:
+                adjusted = primary.getScore() * (1 - fraction);
+                break;
+            default:
+                adjusted = Double.NaN;
+        }
+        if (!Double.isNaN(adjusted)) {
+            results.add(new ScalarResult(Defaults.PREFIX + "gc.pause.adjusted",
+                    adjusted, primary.getScoreUnit(), AggregationPolicy.AVG));
+        }
+
+        if (benchmarkParams.getMode() == Mode.SampleTime) {
+            // Samples carry no timestamps, so estimate: every pause longer than p99
+            // stalls all workers, and could inflate at most one in-flight sample per worker.
+            Statistics samples = primary.getStatistics();
+            double p99 = samples.getPercentile(99);
+
+            long outliers = 0;
+            Iterator<Map.Entry<Double, Long>> it = samples.getRawData();
+            while (it.hasNext()) {
+                Map.Entry<Double, Long> e = it.next();
+                if (e.getKey() > p99) {
+                    outliers += e.getValue();
+                }
+            }
+
+            double msToOutput = 1.0 * TimeUnit.MILLISECONDS.toNanos(1) / benchmarkParams.getTimeUnit().toNanos(1);
+            long longPauses = 0;
+            for (long[] pause : VMSupport.getPauses()) {
+                if (pause[0] <= windowStop && pause[1] >= windowStart &&
+                        (pause[1] - pause[0]) * msToOutput > p99) {
+                    longPauses++;
+                }
+            }
+
+            results.add(new ScalarResult(Defaults.PREFIX + "gc.pause.outliers",
+                    (outliers != 0) ?
+                            100.0 * Math.min(outliers, longPauses * benchmarkParams.getThreads()) / outliers :
+                            Double.NaN,
+                    "%", AggregationPolicy.AVG));
+        }
+    }
+
+    /**
+     * Snapshots the allocated bytes of the worker threads at the edges of measurement window.
+     */
+    static class AllocationWindow extends WorkerThreads.MeasurementWindow {
+        @Override
+        protected Map<Thread, long[]> snapshot(Collection<Thread> threads) {
+            Map<Thread, long[]> result = new HashMap<>();
+            if (!VMSupport.ALLOC_AVAILABLE) {
+                return result;
+            }
+            long[] ids = new long[threads.size()];
+            int i = 0;
+            for (Thread t : threads) {
+                ids[i++] = t.getId();
+            }
+            long[] bytes = VMSupport.getAllocatedBytes(ids);
+            i = 0;
+            for (Thread t : threads) {
+                result.put(t, new long[]{bytes[i++]});
+            }
+            return result;
+        }
+    }
+
+    /**
+     * GC pause durations. The GC notifications carry the timestamps with
+     * millisecond resolution, so are these durations.
+     */
+    static class GCPauseResult extends Result<GCPauseResult> {
+        private final SampleBuffer buffer;
+
+        public GCPauseResult(SampleBuffer buffer) {
+            super(ResultRole.SECONDARY, Defaults.PREFIX + "gc.pause", buffer.getStatistics(1D / 1000000), "ms", AggregationPolicy.SUM);
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected Aggregator<GCPauseResult> getThreadAggregator() {
+            return new JoiningAggregator();
+        }
+
+        @Override
+        protected Aggregator<GCPauseResult> getIterationAggregator() {
+            return new JoiningAggregator();
+        }
+
+        @Override
+        protected Collection<? extends Result> getDerivativeResults() {
+            return Arrays.asList(
+                new ScalarDerivativeResult(Defaults.PREFIX + "gc.pause.count", statistics.getN(),             "#",  AggregationPolicy.SUM),
+                new ScalarDerivativeResult(Defaults.PREFIX + "gc.pause.avg",   statistics.getMean(),          "ms", AggregationPolicy.AVG),
+                new ScalarDerivativeResult(Defaults.PREFIX + "gc.pause.p0.50", statistics.getPercentile(50),  "ms", AggregationPolicy.AVG),
+                new ScalarDerivativeResult(Defaults.PREFIX + "gc.pause.p0.90", statistics.getPercentile(90),  "ms", AggregationPolicy.AVG),
+                new ScalarDerivativeResult(Defaults.PREFIX + "gc.pause.p0.99", statistics.getPercentile(99),  "ms", AggregationPolicy.AVG),
+                new ScalarDerivativeResult(Defaults.PREFIX + "gc.pause.p1.00", statistics.getMax(),           "ms", AggregationPolicy.MAX)
+            );
+        }
+
+        /**
+         * Always add up all the pauses into final result.
+         */
+        private static class JoiningAggregator implements Aggregator<GCPauseResult> {
+
+            @Override
+            public GCPauseResult aggregate(Collection<GCPauseResult> results) {
+                SampleBuffer buffer = new SampleBuffer();
+                for (GCPauseResult r : results) {
+                    buffer.addAll(r.buffer);
+                }
+                return new GCPauseResult(buffer);
+            }
+        }
+    }
+
     static class HotspotAllocationSnapshot {
         public final static HotspotAllocationSnapshot EMPTY = new HotspotAllocationSnapshot(new long[0], new long[0]);
 
@@ -205,6 +448,7 @@ public class GCProfiler implements InternalProfiler {
         private static final boolean CHURN_AVAILABLE;
         private static NotificationListener listener;
         private static Multiset<String> churn;
+        private static List<long[]> pauses;
 
         static {
             ALLOC_AVAILABLE = tryInitAlloc();
@@ -251,7 +495,7 @@ public class GCProfiler implements InternalProfiler {
             return false;
         }
 
-        private static long[] getAllocatedBytes(long[] threadIds) {
+        static long[] getAllocatedBytes(long[] threadIds) {
             try {
                 return (long[]) ALLOC_MX_BEAN_GETTER.invoke(ALLOC_MX_BEAN, (Object) threadIds);
             } catch (InvocationTargetException | IllegalAccessException e) {
@@ -261,6 +505,7 @@ public class GCProfiler implements InternalProfiler {
 
         private static NotificationListener newListener() {
             churn = new HashMultiset<>();
+            pauses = new ArrayList<>();
             try {
                 final Class<?> infoKlass = Class.forName("com.sun.management.GarbageCollectionNotificationInfo");
                 final Field notifNameField = infoKlass.getField("GARBAGE_COLLECTION_NOTIFICATION");
@@ -268,6 +513,9 @@ public class GCProfiler implements InternalProfiler {
                 final Method getGcInfo = infoKlass.getMethod("getGcInfo");
                 final Method getMemoryUsageBeforeGc = getGcInfo.getReturnType().getMethod("getMemoryUsageBeforeGc");
                 final Method getMemoryUsageAfterGc = getGcInfo.getReturnType().getMethod("getMemoryUsageAfterGc");
+                final Method getGcAction = infoKlass.getMethod("getGcAction");
+                final Method getStartTime = getGcInfo.getReturnType().getMethod("getStartTime");
+                final Method getEndTime = getGcInfo.getReturnType().getMethod("getEndTime");
 
                 return new NotificationListener() {
                     @Override
@@ -287,6 +535,16 @@ public class GCProfiler implements InternalProfiler {
                                         churn.add(name, c);
                                     }
                                 }
+
+                                // Concurrent collectors report their cycles as well, these are not pauses
+                                String action = (String) getGcAction.invoke(info);
+                                if (!action.contains("cycle")) {
+                                    long start = (Long) getStartTime.invoke(gcInfo);
+                                    long end = (Long) getEndTime.invoke(gcInfo);
+                                    synchronized (VMSupport.class) {
+                                        pauses.add(new long[]{start, end});
+                                    }
+                                }
                             }
                         } catch (IllegalAccessException | InvocationTargetException e) {
                             // Do nothing, counters would not get populated
@@ -346,6 +604,13 @@ public class GCProfiler implements InternalProfiler {
         public static synchronized Multiset<String> getChurn() {
             return (churn != null) ? churn : new HashMultiset<String>();
         }
+
+        /**
+         * @return GC pauses as {start, end} pairs, in ms of JVM uptime
+         */
+        public static synchronized List<long[]> getPauses() {
+            return (pauses != null) ? new ArrayList<>(pauses) : Collections.<long[]>emptyList();
+        }
     }
 
 }
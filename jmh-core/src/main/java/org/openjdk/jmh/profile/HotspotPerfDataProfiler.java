@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.util.HotspotPerfData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Reads HotSpot performance counters of the benchmark JVM from the host JVM.
+ *
+ * <p>This profiler maps the hsperfdata_&lt;user&gt;/&lt;pid&gt; file of the
+ * benchmark JVM in the host JVM, and decodes the counters at the iteration boundaries, as
+ * reported by the benchmark JVM over the binary link. Nothing runs in the benchmark
+ * JVM, and no internal APIs are used, so this works on any HotSpot version that
+ * keeps the shared perf data enabled (which is the default).</p>
+ *
+ * <p>Monotonic counters are reported as the average increment per measurement
+ * iteration. Tick counters are converted to milliseconds. If the perf data of
+ * the benchmark JVM cannot be read, the reason is reported in the results.</p>
+ */
+public class HotspotPerfDataProfiler implements ExternalIterationProfiler {
+
+    private final String dir;
+    private final Pattern filter;
+
+    private ByteBuffer buffer;
+    private String failure;
+    private Map<String, HotspotPerfData.Counter> before;
+    private final Map<String, Long> sums = new TreeMap<>();
+    private final Map<String, Integer> units = new HashMap<>();
+    private long frequency;
+    private int iterations;
+
+    public HotspotPerfDataProfiler(String initLine) throws ProfilerException {
+        OptionParser parser = new OptionParser();
+        parser.formatHelpWith(new ProfilerOptionFormatter(HotspotPerfDataProfiler.class.getCanonicalName()));
+
+        OptionSpec<String> optDir = parser.accepts("dir", "Directory with hsperfdata_<user> directories. " +
+                "HotSpot uses /tmp on most Unix-like systems, and user temp directory on Windows.")
+                .withRequiredArg().ofType(String.class).describedAs("dir").defaultsTo(HotspotPerfData.defaultDirectory());
+
+        OptionSpec<String> optCounters = parser.accepts("counters", "Regular expression to select the counters to report.")
+                .withRequiredArg().ofType(String.class).describedAs("regexp")
+                .defaultsTo("(sun\\.gc\\.collector|sun\\.ci|java\\.ci|sun\\.cls|java\\.cls|sun\\.rt\\.safepoint).*");
+
+        OptionSet set = ProfilerUtils.parseInitLine(initLine, parser);
+
+        try {
+            dir = set.valueOf(optDir);
+            filter = Pattern.compile(set.valueOf(optCounters));
+        } catch (OptionException | PatternSyntaxException e) {
+            throw new ProfilerException(e.getMessage());
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "HotSpot counters, read from hsperfdata of benchmark JVM";
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized void beforeTrial(BenchmarkParams benchmarkParams) {
+        buffer = null;
+        failure = null;
+        before = null;
+        sums.clear();
+        units.clear();
+        frequency = 0;
+        iterations = 0;
+    }
+
+    @Override
+    public synchronized void iterationStarted(BenchmarkParams benchmarkParams, IterationParams iterationParams, long pid) {
+        if (iterationParams.getType() != IterationType.MEASUREMENT) {
+            return;
+        }
+        before = snapshot(pid);
+    }
+
+    @Override
+    public synchronized void iterationFinished(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result, long pid) {
+        if (iterationParams.getType() != IterationType.MEASUREMENT || before == null) {
+            return;
+        }
+        Map<String, HotspotPerfData.Counter> after = snapshot(pid);
+        if (after == null) {
+            return;
+        }
+
+        for (Map.Entry<String, HotspotPerfData.Counter> e : after.entrySet()) {
+            String name = e.getKey();
+            HotspotPerfData.Counter c = e.getValue();
+            if (name.equals(HotspotPerfData.FREQUENCY_COUNTER)) {
+                frequency = c.getValue();
+            }
+            if (c.getVariability() != HotspotPerfData.VARIABILITY_MONOTONIC || !filter.matcher(name).matches()) {
+                continue;
+            }
+            HotspotPerfData.Counter prev = before.get(name);
+            long delta = c.getValue() - ((prev != null) ? prev.getValue() : 0);
+            Long sum = sums.get(name);
+            sums.put(name, ((sum != null) ? sum : 0) + delta);
+            units.put(name, c.getUnits());
+        }
+        iterations++;
+        before = null;
+    }
+
+    @Override
+    public synchronized Collection<? extends Result> afterTrial(BenchmarkResult br, long pid, File stdOut, File stdErr) {
+        buffer = null;
+
+        if (failure != null) {
+            return Collections.singleton(new FailureResult(failure));
+        }
+
+        if (iterations == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, Long> e : sums.entrySet()) {
+            double value = 1.0 * e.getValue() / iterations;
+            String unit;
+            switch (units.get(e.getKey())) {
+                case HotspotPerfData.UNITS_TICKS:
+                    if (frequency == 0) {
+                        continue;
+                    }
+                    value = value * 1000 / frequency;
+                    unit = "ms";
+                    break;
+                case HotspotPerfData.UNITS_BYTES:
+                    unit = "bytes";
+                    break;
+                case HotspotPerfData.UNITS_EVENTS:
+                    unit = "#";
+                    break;
+                default:
+                    unit = "?";
+            }
+            results.add(new ScalarResult(Defaults.PREFIX + e.getKey(), value, unit, AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    private Map<String, HotspotPerfData.Counter> snapshot(long pid) {
+        if (failure != null) {
+            return null;
+        }
+        File file = HotspotPerfData.file(dir, pid);
+        if (buffer == null) {
+            try {
+                buffer = HotspotPerfData.map(file);
+            } catch (IOException e) {
+                failure = "Cannot read " + file + ": " + e.getMessage();
+                return null;
+            }
+        }
+        Map<String, HotspotPerfData.Counter> counters = HotspotPerfData.decode(buffer);
+        if (counters == null) {
+            failure = "Unknown perf data format in " + file;
+        }
+        return counters;
+    }
+
+    /**
+     * Carries the reason the counters are not available.
+     */
+    static class FailureResult extends Result<FailureResult> {
+        private static final long serialVersionUID = 3263125734413349117L;
+
+        private final String reason;
+
+        public FailureResult(String reason) {
+            super(ResultRole.SECONDARY, Defaults.PREFIX + "hsperfdata", of(Double.NaN), "---", AggregationPolicy.AVG);
+            this.reason = reason;
+        }
+
+        @Override
+        protected Aggregator<FailureResult> getThreadAggregator() {
+            return new FailureResultAggregator();
+        }
+
+        @Override
+        protected Aggregator<FailureResult> getIterationAggregator() {
+            return new FailureResultAggregator();
+        }
+
+        @Override
+        public String toString() {
+            return "not available";
+        }
+
+        @Override
+        public String extendedInfo() {
+            return "HotSpot perf data is not available: " + reason + "\n";
+        }
+    }
+
+    static class FailureResultAggregator implements Aggregator<FailureResult> {
+        @Override
+        public FailureResult aggregate(Collection<FailureResult> results) {
+            // the reason is the same for all forks, report it once
+            return results.iterator().next();
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.WorkerThreads;
+import org.openjdk.jmh.runner.options.IntegerValueConverter;
+import org.openjdk.jmh.util.HashMultiset;
+import org.openjdk.jmh.util.Multiset;
+import org.openjdk.jmh.util.Multisets;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the lock contention of the worker threads in the measured part of iteration.
+ *
+ * <p>Enables the thread contention monitoring, and reports how many times, and for how
+ * long the workers were blocked on monitors and waited for notification or unpark,
+ * normalized per operation. With @Group benchmarks, these are also reported for every
+ * subgroup. Workers that join in the middle of measurement are not accounted, since
+ * their counters cover their entire history. Additionally, the workers are sampled to
+ * find the most contended locks, and the threads that own them.</p>
+ */
+public class LockContentionProfiler implements InternalProfiler {
+
+    private final ThreadMXBean bean;
+    private final long periodMsec;
+    private final int topLocks;
+
+    private Window window;
+    private Sampler sampler;
+
+    public LockContentionProfiler(String initLine) throws ProfilerException {
+        OptionParser parser = new OptionParser();
+        parser.formatHelpWith(new ProfilerOptionFormatter(LockContentionProfiler.class.getCanonicalName()));
+
+        OptionSpec<Integer> optPeriod = parser.accepts("period", "Lock sampling period, in ms.")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int").defaultsTo(10);
+
+        OptionSpec<Integer> optTop = parser.accepts("top", "Number of top contended locks to show.")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int").defaultsTo(10);
+
+        OptionSet set = ProfilerUtils.parseInitLine(initLine, parser);
+
+        try {
+            periodMsec = set.valueOf(optPeriod);
+            topLocks = set.valueOf(optTop);
+        } catch (OptionException e) {
+            throw new ProfilerException(e.getMessage());
+        }
+
+        bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadContentionMonitoringSupported()) {
+            throw new ProfilerException("Thread contention monitoring is not supported by this VM");
+        }
+        try {
+            bean.setThreadContentionMonitoringEnabled(true);
+        } catch (SecurityException e) {
+            throw new ProfilerException("Cannot enable thread contention monitoring: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Lock contention of worker threads";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        window = new Window();
+        WorkerThreads.addListener(window);
+        sampler = new Sampler(window);
+        sampler.start();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        sampler.interrupt();
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            // do nothing, proceed
+        }
+
+        Window w = window;
+        WorkerThreads.removeListener(w);
+        window = null;
+
+        if (!w.isComplete()) {
+            return Collections.emptyList();
+        }
+
+        IterationResultMetaData md = result.getMetadata();
+        long[] threadOps = md.getThreadMeasuredOps();
+        int[] groups = benchmarkParams.getThreadGroups();
+        List<String> labels = new ArrayList<>(benchmarkParams.getThreadGroupLabels());
+
+        // [subgroup][blocked count, blocked time, waited count, waited time, ops]
+        long[] total = new long[5];
+        long[][] subgroups = new long[groups.length][5];
+        for (Map.Entry<ThreadParams, long[]> e : w.getDeltas().entrySet()) {
+            ThreadParams tp = e.getKey();
+            long[] c = e.getValue();
+            int t = tp.getThreadIndex();
+            long ops = (t < threadOps.length) ? threadOps[t] : 0;
+
+            int sg = tp.getSubgroupIndex();
+            for (int i = 0; i < 4; i++) {
+                total[i] += c[i];
+                if (sg < groups.length) {
+                    subgroups[sg][i] += c[i];
+                }
+            }
+            total[4] += ops;
+            if (sg < groups.length) {
+                subgroups[sg][4] += ops;
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        addResults(results, "", total);
+        if (groups.length > 1) {
+            for (int sg = 0; sg < groups.length; sg++) {
+                addResults(results, "." + labels.get(sg), subgroups[sg]);
+            }
+        }
+        results.add(new ContentionResult(sampler.locks, sampler.owners, sampler.samples, topLocks));
+        return results;
+    }
+
+    private static void addResults(List<Result> results, String suffix, long[] c) {
+        long ops = c[4];
+        results.add(new ScalarResult(Defaults.PREFIX + "contention.blocked.count.norm" + suffix,
+                (ops != 0) ? 1.0 * c[0] / ops : Double.NaN, "#/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "contention.blocked.time.norm" + suffix,
+                (ops != 0) ? 1.0 * TimeUnit.MILLISECONDS.toNanos(c[1]) / ops : Double.NaN, "ns/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "contention.waited.count.norm" + suffix,
+                (ops != 0) ? 1.0 * c[2] / ops : Double.NaN, "#/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "contention.waited.time.norm" + suffix,
+                (ops != 0) ? 1.0 * TimeUnit.MILLISECONDS.toNanos(c[3]) / ops : Double.NaN, "ns/op", AggregationPolicy.AVG));
+    }
+
+    /**
+     * Snapshots the worker contention counters at the edges of measurement window:
+     * blocked count, blocked time, waited count and waited time.
+     */
+    private class Window extends WorkerThreads.MeasurementWindow {
+        @Override
+        protected Map<Thread, long[]> snapshot(Collection<Thread> threads) {
+            Map<Thread, long[]> result = new HashMap<>();
+            for (Thread t : threads) {
+                ThreadInfo info = bean.getThreadInfo(t.getId());
+                if (info != null) {
+                    result.put(t, new long[]{
+                            info.getBlockedCount(), info.getBlockedTime(),
+                            info.getWaitedCount(), info.getWaitedTime()});
+                }
+            }
+            return result;
+        }
+    }
+
+    private class Sampler extends Thread {
+        private final Window window;
+        private final Multiset<String> locks = new HashMultiset<>();
+        private final Map<String, Multiset<String>> owners = new HashMap<>();
+        private long samples;
+
+        public Sampler(Window window) {
+            this.window = window;
+            setName("jmh-contention-sampler");
+            setPriority(Thread.MAX_PRIORITY);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.interrupted()) {
+                if (window.isMeasuring()) {
+                    sample();
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(periodMsec);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void sample() {
+            samples++;
+            for (ThreadInfo info : bean.getThreadInfo(WorkerThreads.getWorkerIds(), 0)) {
+                if (info == null) {
+                    continue;
+                }
+                LockInfo lock = info.getLockInfo();
+                if (lock == null) {
+                    continue;
+                }
+                Thread.State state = info.getThreadState();
+                if (state != Thread.State.BLOCKED && info.getLockOwnerName() == null) {
+                    // Waiting on the lock nobody owns: this is not contention,
+                    // but e.g. waiting for notification, or for the condition.
+                    continue;
+                }
+
+                String name = lock.toString();
+                locks.add(name);
+
+                Multiset<String> ms = owners.get(name);
+                if (ms == null) {
+                    ms = new HashMultiset<>();
+                    owners.put(name, ms);
+                }
+                String owner = info.getLockOwnerName();
+                ms.add((owner != null) ? owner : "<unknown>");
+            }
+        }
+    }
+
+    public static class ContentionResult extends Result<ContentionResult> {
+        private static final long serialVersionUID = -2914325185364567413L;
+
+        private final Multiset<String> locks;
+        private final Map<String, Multiset<String>> owners;
+        private final long samples;
+        private final int topLocks;
+
+        public ContentionResult(Multiset<String> locks, Map<String, Multiset<String>> owners, long samples, int topLocks) {
+            super(ResultRole.SECONDARY, Defaults.PREFIX + "contention", of(Double.NaN), "---", AggregationPolicy.AVG);
+            this.locks = locks;
+            this.owners = owners;
+            this.samples = samples;
+            this.topLocks = topLocks;
+        }
+
+        @Override
+        protected Aggregator<ContentionResult> getThreadAggregator() {
+            return new ContentionResultAggregator();
+        }
+
+        @Override
+        protected Aggregator<ContentionResult> getIterationAggregator() {
+            return new ContentionResultAggregator();
+        }
+
+        @Override
+        public String toString() {
+            return "<delayed till summary>";
+        }
+
+        @Override
+        public String extendedInfo() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("Lock contention profiler:\n\n");
+            builder.append(String.format("Samples: %d, contended worker samples: %d%n%n", samples, locks.size()));
+
+            if (locks.isEmpty()) {
+                builder.append("No contended locks found.\n");
+                return builder.toString();
+            }
+
+            builder.append(StackProfiler.dottedLine("Top contended locks"));
+            for (String lock : Multisets.countHighest(locks, topLocks)) {
+                builder.append(String.format("%5.1f%% %s%n", locks.count(lock) * 100.0 / locks.size(), lock));
+
+                Multiset<String> lockOwners = owners.get(lock);
+                if (lockOwners != null) {
+                    for (String owner : Multisets.countHighest(lockOwners, 3)) {
+                        builder.append(String.format("%7s %5.1f%% owned by %s%n", "",
+                                lockOwners.count(owner) * 100.0 / lockOwners.size(), owner));
+                    }
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    public static class ContentionResultAggregator implements Aggregator<ContentionResult> {
+        @Override
+        public ContentionResult aggregate(Collection<ContentionResult> results) {
+            Multiset<String> locks = new HashMultiset<>();
+            Map<String, Multiset<String>> owners = new HashMap<>();
+            long samples = 0;
+            int topLocks = 0;
+            for (ContentionResult r : results) {
+                for (String lock : r.locks.keys()) {
+                    locks.add(lock, r.locks.count(lock));
+                }
+                for (Map.Entry<String, Multiset<String>> e : r.owners.entrySet()) {
+                    Multiset<String> ms = owners.get(e.getKey());
+                    if (ms == null) {
+                        ms = new HashMultiset<>();
+                        owners.put(e.getKey(), ms);
+                    }
+                    for (String owner : e.getValue().keys()) {
+                        ms.add(owner, e.getValue().count(owner));
+                    }
+                }
+                samples += r.samples;
+                topLocks = r.topLocks;
+            }
+            return new ContentionResult(locks, owners, samples, topLocks);
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.IterationType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reports the native memory growth of the benchmark JVM.
+ *
+ * <p>The benchmark JVM is started with Native Memory Tracking enabled. The profiler
+ * takes the NMT baseline right before the measurement iteration starts, and the
+ * summary diff right after it ends, invoking {@code VM.native_memory} through the
+ * DiagnosticCommand MBean of the benchmark JVM itself. Unlike attaching with jcmd,
+ * this takes no extra threads or attach machinery in the benchmark JVM, and the
+ * window matches the iteration, so the growth is also normalized by the number of
+ * benchmark operations. The diff is taken after the iteration teardown, so the
+ * native memory allocated by the Iteration fixtures is counted. Native memory
+ * tracking itself adds the per-allocation overhead in the benchmark JVM, which may
+ * affect the performance.</p>
+ *
+ * <p>The profiler also reports the memory used by direct and mapped buffer pools,
+ * as seen by {@link BufferPoolMXBean}, over the same window.</p>
+ */
+public class NativeMemoryProfiler implements ExternalProfiler, InternalProfiler {
+
+    private static final Pattern TOTAL =
+            Pattern.compile("^Total:\\s+reserved=\\d+KB(?:\\s+[+-]\\d+KB)?,\\s*committed=\\d+KB(?:\\s+([+-]\\d+)KB)?.*");
+
+    private static final Pattern CATEGORY =
+            Pattern.compile("^-\\s*(.+?)\\s+\\(reserved=\\d+KB(?:\\s+[+-]\\d+KB)?,\\s*committed=\\d+KB(?:\\s+([+-]\\d+)KB)?.*");
+
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+
+    private final MBeanServer server;
+    private final ObjectName diagnostics;
+
+    private boolean failed;
+    private boolean baselined;
+
+    private List<BufferPoolMXBean> pools;
+    private long[] poolBefore;
+
+    public NativeMemoryProfiler() throws ProfilerException {
+        server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            diagnostics = new ObjectName(DIAGNOSTIC_COMMAND);
+        } catch (MalformedObjectNameException e) {
+            throw new ProfilerException(e);
+        }
+        if (!server.isRegistered(diagnostics)) {
+            throw new ProfilerException("DiagnosticCommand MBean is not available in this VM");
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Native memory growth, via Native Memory Tracking and buffer pools";
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        return Collections.singletonList("-XX:NativeMemoryTracking=summary");
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams benchmarkParams) {
+        // do nothing
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkResult br, long pid, File stdOut, File stdErr) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (pools == null) {
+            pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+            poolBefore = new long[pools.size()];
+        }
+
+        baselined = false;
+        if (iterationParams.getType() == IterationType.MEASUREMENT && !failed) {
+            baselined = (nmt("baseline") != null);
+        }
+
+        for (int i = 0; i < pools.size(); i++) {
+            poolBefore[i] = pools.get(i).getMemoryUsed();
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        long allOps = result.getMetadata().getAllOps();
+
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < pools.size(); i++) {
+            BufferPoolMXBean pool = pools.get(i);
+            long used = pool.getMemoryUsed();
+            long delta = used - poolBefore[i];
+            String label = Defaults.PREFIX + "nmt.buffers." + categoryName(pool.getName());
+            results.add(new ScalarResult(label + ".used", used, "B", AggregationPolicy.MAX));
+            results.add(new ScalarResult(label + ".count", pool.getCount(), "#", AggregationPolicy.MAX));
+            results.add(new ScalarResult(label + ".growth", delta, "B", AggregationPolicy.AVG));
+            if (allOps > 0) {
+                results.add(new ScalarResult(label + ".norm", 1.0 * delta / allOps, "B/op", AggregationPolicy.AVG));
+            }
+        }
+
+        if (baselined) {
+            baselined = false;
+            String out = nmt("summary.diff", "scale=KB");
+            if (out != null) {
+                Map<String, Long> diff = parseDiff(Arrays.asList(out.split("\\r?\\n")));
+                if (diff.isEmpty()) {
+                    fail("Cannot parse NMT diff: " + out);
+                }
+                for (Map.Entry<String, Long> e : diff.entrySet()) {
+                    long kb = e.getValue();
+                    String label = Defaults.PREFIX + "nmt." + e.getKey();
+                    results.add(new ScalarResult(label + ".growth", kb, "KB", AggregationPolicy.AVG));
+                    if (allOps > 0) {
+                        results.add(new ScalarResult(label + ".norm", 1024.0 * kb / allOps, "B/op", AggregationPolicy.AVG));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code VM.native_memory} with the arguments in this VM.
+     *
+     * @return command output, or null if the command had failed
+     */
+    private String nmt(String... args) {
+        try {
+            String out = (String) server.invoke(diagnostics, "vmNativeMemory",
+                    new Object[]{args}, new String[]{String[].class.getName()});
+            if (out == null || out.contains("Native memory tracking is not enabled")) {
+                fail(out);
+                return null;
+            }
+            return out;
+        } catch (JMException e) {
+            fail(e.getMessage());
+            return null;
+        }
+    }
+
+    private void fail(String msg) {
+        if (!failed) {
+            failed = true;
+            System.out.println("Native memory tracking data is not available: " + msg);
+        }
+    }
+
+    /**
+     * Parses the output of {@code VM.native_memory summary.diff scale=KB}.
+     *
+     * @param lines output lines
+     * @return committed memory growth per category, in KB; the overall growth is under "total"
+     */
+    static Map<String, Long> parseDiff(Collection<String> lines) {
+        Map<String, Long> result = new TreeMap<>();
+        for (String line : lines) {
+            String l = line.trim();
+            Matcher total = TOTAL.matcher(l);
+            if (total.matches()) {
+                result.put("total", delta(total.group(1)));
+                continue;
+            }
+            Matcher cat = CATEGORY.matcher(l);
+            if (cat.matches()) {
+                String name = categoryName(cat.group(1));
+                Long prev = result.get(name);
+                result.put(name, ((prev != null) ? prev : 0) + delta(cat.group(2)));
+            }
+        }
+        return result;
+    }
+
+    private static long delta(String s) {
+        if (s == null) {
+            return 0;
+        }
+        return Long.parseLong(s.startsWith("+") ? s.substring(1) : s);
+    }
+
+    static String categoryName(String name) {
+        return name.trim().toLowerCase().replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+}
@@ -166,13 +166,20 @@ public class ProfilerFactory {
         BUILT_IN = new TreeMap<>();
         BUILT_IN.put("cl",       ClassloaderProfiler.class);
         BUILT_IN.put("comp",     CompilerProfiler.class);
+        BUILT_IN.put("contention", LockContentionProfiler.class);
+        BUILT_IN.put("cpufreq",  CPUFrequencyProfiler.class);
+        BUILT_IN.put("cputime",  CPUTimeProfiler.class);
+        BUILT_IN.put("fairness", ThreadFairnessProfiler.class);
+        BUILT_IN.put("footprint", FootprintProfiler.class);
         BUILT_IN.put("gc",       GCProfiler.class);
         BUILT_IN.put("hs_cl",    HotspotClassloadingProfiler.class);
         BUILT_IN.put("hs_comp",  HotspotCompilationProfiler.class);
         BUILT_IN.put("hs_gc",    HotspotMemoryProfiler.class);
+        BUILT_IN.put("hs_perf",  HotspotPerfDataProfiler.class);
         BUILT_IN.put("hs_rt",    HotspotRuntimeProfiler.class);
         BUILT_IN.put("hs_thr",   HotspotThreadProfiler.class);
         BUILT_IN.put("stack",    StackProfiler.class);
+        BUILT_IN.put("nmt",      NativeMemoryProfiler.class);
         BUILT_IN.put("perf",     LinuxPerfProfiler.class);
         BUILT_IN.put("perfnorm", LinuxPerfNormProfiler.class);
         BUILT_IN.put("perfasm",  LinuxPerfAsmProfiler.class);
@@ -180,6 +187,7 @@ public class ProfilerFactory {
         BUILT_IN.put("dtraceasm", DTraceAsmProfiler.class);
         BUILT_IN.put("pauses",   PausesProfiler.class);
         BUILT_IN.put("safepoints", SafepointsProfiler.class);
+        BUILT_IN.put("sched",    SchedulerNoiseProfiler.class);
     }
 
     private static List<Class<? extends Profiler>> getDiscoveredProfilers() {
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.WorkerThreads;
+import org.openjdk.jmh.runner.options.IntegerValueConverter;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Snapshots the Linux scheduler counters from /proc around every iteration.
+ *
+ * <p>Reports the voluntary and involuntary context switches of the benchmark VM
+ * and of every worker thread, CPU steal time, run queue length, load average and
+ * the interrupt counts. Worker context switches are counted in the measurement
+ * window only. The iteration is marked as interfered with when the steal
+ * time is above the threshold, when there are more runnable tasks than CPUs, or when
+ * the workers were preempted more often than the threshold allows. Such iterations
+ * have "·sched.interfered" set to 1.</p>
+ */
+public class SchedulerNoiseProfiler implements InternalProfiler {
+
+    private final File root;
+    private final double stealThreshold;
+    private final double preemptThreshold;
+
+    private Snapshot before;
+    private Window window;
+
+    public SchedulerNoiseProfiler(String initLine) throws ProfilerException {
+        OptionParser parser = new OptionParser();
+        parser.formatHelpWith(new ProfilerOptionFormatter(SchedulerNoiseProfiler.class.getCanonicalName()));
+
+        OptionSpec<String> optRoot = parser.accepts("root", "Root of procfs tree to read from.")
+                .withRequiredArg().ofType(String.class).describedAs("dir").defaultsTo("/proc");
+
+        OptionSpec<Double> optSteal = parser.accepts("steal", "Steal time threshold, in percent of CPU time, " +
+                "above which the iteration is considered interfered with.")
+                .withRequiredArg().ofType(Double.class).describedAs("double").defaultsTo(1.0);
+
+        OptionSpec<Integer> optPreempt = parser.accepts("preempt", "Involuntary context switches per worker per second, " +
+                "above which the iteration is considered interfered with.")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int").defaultsTo(100);
+
+        OptionSet set = ProfilerUtils.parseInitLine(initLine, parser);
+
+        try {
+            root = new File(set.valueOf(optRoot));
+            stealThreshold = set.valueOf(optSteal);
+            preemptThreshold = set.valueOf(optPreempt);
+        } catch (OptionException e) {
+            throw new ProfilerException(e.getMessage());
+        }
+
+        if (!new File(root, "stat").canRead() || !new File(root, "self").isDirectory()) {
+            throw new ProfilerException("No procfs at " + root);
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "OS scheduler noise (Linux /proc)";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        before = new Snapshot(root);
+        window = new Window();
+        WorkerThreads.addListener(window);
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        Snapshot after = new Snapshot(root);
+
+        Window w = window;
+        WorkerThreads.removeListener(w);
+        window = null;
+
+        // Threads may come and go between the snapshots.
+        long volCs = Math.max(0, after.volCs - before.volCs);
+        long involCs = Math.max(0, after.involCs - before.involCs);
+        long cpuTotal = after.cpuTotal - before.cpuTotal;
+        double steal = (cpuTotal > 0) ? 100.0 * (after.cpuSteal - before.cpuSteal) / cpuTotal : Double.NaN;
+        long runnable = Math.max(before.runnable, after.runnable);
+        long interrupts = after.interrupts - before.interrupts;
+
+        List<Result> results = new ArrayList<>();
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.cs.vol", volCs, "#", AggregationPolicy.SUM));
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.cs.invol", involCs, "#", AggregationPolicy.SUM));
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.steal", steal, "%", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.runnable", runnable, "#", AggregationPolicy.MAX));
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.loadavg", after.loadAvg, "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.interrupts", interrupts, "#", AggregationPolicy.SUM));
+
+        // Worker preemptions are only counted in the measurement window:
+        // workers are registered after this profiler had started the iteration.
+        double maxPreemptRate = 0;
+        double seconds = w.getDuration() / 1e9;
+        if (w.isComplete() && seconds > 0) {
+            for (Map.Entry<ThreadParams, long[]> e : w.getDeltas().entrySet()) {
+                long cs = e.getValue()[0];
+                results.add(new ScalarResult(Defaults.PREFIX + "sched.cs.invol.thread-" + e.getKey().getThreadIndex(),
+                        cs, "#", AggregationPolicy.SUM));
+                maxPreemptRate = Math.max(maxPreemptRate, cs / seconds);
+            }
+        }
+
+        boolean interfered = (steal > stealThreshold) ||
+                (after.cpus > 0 && runnable > after.cpus) ||
+                (maxPreemptRate > preemptThreshold);
+
+        results.add(new ScalarResult(Defaults.PREFIX + "sched.interfered", interfered ? 1 : 0, "#", AggregationPolicy.SUM));
+        return results;
+    }
+
+    static Map<String, Long> readStatus(File file) {
+        Map<String, Long> map = new HashMap<>();
+        for (String line : readLines(file)) {
+            int idx = line.indexOf(':');
+            if (idx < 0) {
+                continue;
+            }
+            try {
+                map.put(line.substring(0, idx).trim(), Long.parseLong(line.substring(idx + 1).trim()));
+            } catch (NumberFormatException e) {
+                // not a counter
+            }
+        }
+        if (!map.containsKey("voluntary_ctxt_switches")) {
+            map.put("voluntary_ctxt_switches", -1L);
+        }
+        if (!map.containsKey("nonvoluntary_ctxt_switches")) {
+            map.put("nonvoluntary_ctxt_switches", -1L);
+        }
+        return map;
+    }
+
+    private static Collection<String> readLines(File file) {
+        try {
+            return FileUtils.readAllLines(file);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Sums up the per-CPU counts in /proc/interrupts.
+     */
+    static long readInterrupts(File file) {
+        long sum = 0;
+        for (String line : readLines(file)) {
+            int idx = line.indexOf(':');
+            if (idx < 0) {
+                // header
+                continue;
+            }
+            for (String s : line.substring(idx + 1).trim().split("\\s+")) {
+                try {
+                    sum += Long.parseLong(s);
+                } catch (NumberFormatException e) {
+                    // description follows the counts
+                    break;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Snapshots the worker involuntary context switches at the edges of measurement window.
+     */
+    private class Window extends WorkerThreads.MeasurementWindow {
+        @Override
+        protected Map<Thread, long[]> snapshot(Collection<Thread> threads) {
+            Map<Thread, long[]> result = new HashMap<>();
+            for (Thread t : threads) {
+                long tid = WorkerThreads.getNativeId(t);
+                if (tid >= 0) {
+                    long cs = readStatus(new File(root, "self/task/" + tid + "/status")).get("nonvoluntary_ctxt_switches");
+                    result.put(t, new long[]{cs});
+                }
+            }
+            return result;
+        }
+    }
+
+    static class Snapshot {
+        long cpuTotal;
+        long cpuSteal;
+        int cpus;
+        long runnable;
+        double loadAvg;
+        long volCs;
+        long involCs;
+        long interrupts;
+
+        Snapshot(File root) {
+            for (String line : readLines(new File(root, "stat"))) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].equals("cpu")) {
+                    // user nice system idle iowait irq softirq steal guest guest_nice;
+                    // guest times are already accounted in user and nice.
+                    for (int f = 1; f < Math.min(fields.length, 9); f++) {
+                        cpuTotal += Long.parseLong(fields[f]);
+                    }
+                    if (fields.length > 8) {
+                        cpuSteal = Long.parseLong(fields[8]);
+                    }
+                } else if (fields[0].startsWith("cpu")) {
+                    cpus++;
+                } else if (fields[0].equals("procs_running") && fields.length > 1) {
+                    runnable = Long.parseLong(fields[1]);
+                }
+            }
+
+            Collection<String> loadavg = readLines(new File(root, "loadavg"));
+            if (!loadavg.isEmpty()) {
+                loadAvg = Double.parseDouble(loadavg.iterator().next().trim().split("\\s+")[0]);
+            } else {
+                loadAvg = Double.NaN;
+            }
+
+            // Process status only counts the switches of the main thread,
+            // sum up over all threads instead.
+            File[] tasks = new File(root, "self/task").listFiles();
+            if (tasks == null || tasks.length == 0) {
+                tasks = new File[] { new File(root, "self") };
+            }
+            for (File task : tasks) {
+                Map<String, Long> status = readStatus(new File(task, "status"));
+                volCs += Math.max(0, status.get("voluntary_ctxt_switches"));
+                involCs += Math.max(0, status.get("nonvoluntary_ctxt_switches"));
+            }
+
+            interrupts = readInterrupts(new File(root, "interrupts"));
+        }
+    }
+
+}
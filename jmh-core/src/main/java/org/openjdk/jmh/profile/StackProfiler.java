@@ -31,39 +31,45 @@ import joptsimple.OptionSpec;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.IterationParams;
 import org.openjdk.jmh.results.*;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.WorkerThreads;
 import org.openjdk.jmh.runner.options.IntegerValueConverter;
+import org.openjdk.jmh.util.FileUtils;
 import org.openjdk.jmh.util.HashMultiset;
 import org.openjdk.jmh.util.Multiset;
 import org.openjdk.jmh.util.Multisets;
+import org.openjdk.jmh.util.Utils;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Very basic and naive stack profiler.
+ *
+ * <p>Only the benchmark worker threads are sampled, see {@link WorkerThreads}.
+ * The sampling period is adapted to keep the sampling cost within the configured
+ * overhead budget.</p>
  */
 public class StackProfiler implements InternalProfiler {
 
-    /**
-     * Threads to ignore (known system and harness threads)
-     */
-    private static final String[] IGNORED_THREADS = {
-            "Finalizer",
-            "Signal Dispatcher",
-            "Reference Handler",
-            "main",
-            "Sampling Thread",
-            "Attach Listener"
-    };
-
     private final int stackLines;
     private final int topStacks;
     private final int periodMsec;
+    private final int maxDepth;
+    private final double overheadBudget;
     private final boolean sampleLine;
     private final Set<String> excludePackageNames;
+    private final boolean saveCollapsed;
+    private final String saveCollapsedTo;
+
+    private final Map<Thread.State, Multiset<String>> collapsedStacks;
+    private int measurementIterations;
 
     public StackProfiler(String initLine) throws ProfilerException {
         OptionParser parser = new OptionParser();
@@ -82,6 +88,15 @@ public class StackProfiler implements InternalProfiler {
                 "Smaller values improve accuracy, at the expense of more profiling overhead.")
                 .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int").defaultsTo(10);
 
+        OptionSpec<Integer> optMaxDepth = parser.accepts("depth", "Maximum number of stack frames to capture in each " +
+                "sample. Deeper stacks are truncated at the outermost frames.")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int").defaultsTo(1024);
+
+        OptionSpec<Double> optOverhead = parser.accepts("overhead", "Sampling overhead budget, in percent of the " +
+                "sampling period. If capturing the stacks takes longer than this, the sampling period is extended " +
+                "until the overhead fits the budget again.")
+                .withRequiredArg().ofType(Double.class).describedAs("%").defaultsTo(1.0);
+
         OptionSpec<Boolean> optDetailLine = parser.accepts("detailLine", "Record detailed source line info. " +
                 "This adds the line numbers to the recorded stack traces.")
                 .withRequiredArg().ofType(Boolean.class).describedAs("bool").defaultsTo(false);
@@ -97,6 +112,14 @@ public class StackProfiler implements InternalProfiler {
                 .withRequiredArg().withValuesSeparatedBy(",").ofType(String.class).describedAs("package+")
                 .defaultsTo("java.", "javax.", "sun.", "sunw.", "com.sun.", "org.openjdk.jmh.");
 
+        OptionSpec<Boolean> optSaveCollapsed = parser.accepts("saveCollapsed", "Save the full sampled stacks in " +
+                "collapsed format, one file per fork and thread state. These files can be fed to flame graph tools directly.")
+                .withRequiredArg().ofType(Boolean.class).describedAs("bool").defaultsTo(false);
+
+        OptionSpec<String> optSaveCollapsedTo = parser.accepts("saveCollapsedTo", "Override the collapsed stacks " +
+                "location. This will use the unique file name per test, fork and thread state.")
+                .withRequiredArg().ofType(String.class).describedAs("dir").defaultsTo(".");
+
         OptionSet set = ProfilerUtils.parseInitLine(initLine, parser);
 
         try {
@@ -104,6 +127,15 @@ public class StackProfiler implements InternalProfiler {
             periodMsec = set.valueOf(optSamplePeriod);
             topStacks = set.valueOf(optTopStacks);
             stackLines = set.valueOf(optStackLines);
+            maxDepth = set.valueOf(optMaxDepth);
+            saveCollapsed = set.valueOf(optSaveCollapsed);
+            saveCollapsedTo = set.valueOf(optSaveCollapsedTo);
+
+            double overhead = set.valueOf(optOverhead);
+            if (overhead <= 0 || overhead > 100) {
+                throw new ProfilerException("Overhead budget should be within (0; 100] percent: " + overhead);
+            }
+            overheadBudget = overhead / 100;
 
             boolean excludePackages = set.valueOf(optExclude);
             excludePackageNames = excludePackages ?
@@ -112,6 +144,8 @@ public class StackProfiler implements InternalProfiler {
         } catch (OptionException e) {
             throw new ProfilerException(e.getMessage());
         }
+
+        collapsedStacks = new EnumMap<>(Thread.State.class);
     }
 
     private volatile SamplingTask samplingTask;
@@ -125,7 +159,57 @@ public class StackProfiler implements InternalProfiler {
     @Override
     public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
         samplingTask.stop();
-        return Collections.singleton(new StackResult(samplingTask.stacks, topStacks));
+
+        SortedSet<String> collapsedFiles = new TreeSet<>();
+        if (saveCollapsed && iterationParams.getType() == IterationType.MEASUREMENT) {
+            for (Map.Entry<Thread.State, Multiset<String>> e : samplingTask.collapsed.entrySet()) {
+                Multiset<String> sum = collapsedStacks.get(e.getKey());
+                if (sum == null) {
+                    sum = new HashMultiset<>();
+                    collapsedStacks.put(e.getKey(), sum);
+                }
+                for (String stack : e.getValue().keys()) {
+                    sum.add(stack, e.getValue().count(stack));
+                }
+            }
+
+            for (Map.Entry<Thread.State, Multiset<String>> e : collapsedStacks.entrySet()) {
+                if (!e.getValue().isEmpty()) {
+                    collapsedFiles.add(collapsedFile(benchmarkParams, e.getKey()).getPath());
+                }
+            }
+            if (++measurementIterations == iterationParams.getCount()) {
+                writeCollapsed(benchmarkParams);
+            }
+        }
+
+        return Collections.singleton(new StackResult(samplingTask.stacks, topStacks,
+                samplingTask.samples, samplingTask.sampledTime, periodMsec, collapsedFiles));
+    }
+
+    private void writeCollapsed(BenchmarkParams benchmarkParams) {
+        for (Map.Entry<Thread.State, Multiset<String>> e : collapsedStacks.entrySet()) {
+            Multiset<String> stacks = e.getValue();
+            if (stacks.isEmpty()) continue;
+
+            List<String> lines = new ArrayList<>();
+            for (String stack : stacks.keys()) {
+                lines.add(stack + " " + stacks.count(stack));
+            }
+            Collections.sort(lines);
+
+            File file = collapsedFile(benchmarkParams, e.getKey());
+            try {
+                FileUtils.writeLines(file, lines);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Unable to save collapsed stacks to " + file, ex);
+            }
+        }
+        collapsedStacks.clear();
+    }
+
+    private File collapsedFile(BenchmarkParams benchmarkParams, Thread.State state) {
+        return new File(saveCollapsedTo, benchmarkParams.id() + "-fork" + Utils.getPid() + "-" + state + ".collapsed");
     }
 
     @Override
@@ -133,15 +217,46 @@ public class StackProfiler implements InternalProfiler {
         return "Simple and naive Java stack profiler";
     }
 
+    /**
+     * Formats the stack in collapsed form: frames from the outermost to the
+     * innermost one, separated with semicolons.
+     *
+     * @param stack stack trace, innermost frame first
+     * @param sampleLine whether to add line numbers
+     * @return collapsed stack line
+     */
+    static String collapse(StackTraceElement[] stack, boolean sampleLine) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = stack.length - 1; i >= 0; i--) {
+            StackTraceElement l = stack[i];
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(l.getClassName()).append('.').append(l.getMethodName());
+            if (sampleLine) {
+                sb.append(':').append(l.getLineNumber());
+            }
+        }
+        if (sb.length() == 0) {
+            sb.append("<empty>");
+        }
+        return sb.toString();
+    }
+
     public class SamplingTask implements Runnable {
 
         private final Thread thread;
         private final Map<Thread.State, Multiset<StackRecord>> stacks;
+        private final Map<Thread.State, Multiset<String>> collapsed;
+        private volatile long samples;
+        private volatile long sampledTime;
 
         public SamplingTask() {
             stacks = new EnumMap<>(Thread.State.class);
+            collapsed = new EnumMap<>(Thread.State.class);
             for (Thread.State s : Thread.State.values()) {
                 stacks.put(s, new HashMultiset<StackRecord>());
+                collapsed.put(s, new HashMultiset<String>());
             }
             thread = new Thread(this);
             thread.setName("Sampling Thread");
@@ -149,54 +264,78 @@ public class StackProfiler implements InternalProfiler {
 
         @Override
         public void run() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
 
-            while (!Thread.interrupted()) {
-                ThreadInfo[] infos = ManagementFactory.getThreadMXBean().dumpAllThreads(false, false);
-
-                info:
-                for (ThreadInfo info : infos) {
+            final long minPeriod = TimeUnit.MILLISECONDS.toNanos(periodMsec);
+            long period = minPeriod;
+            double avgCost = 0;
 
-                    // filter out ignored threads
-                    for (String ignore : IGNORED_THREADS) {
-                        if (info.getThreadName().equalsIgnoreCase(ignore)) {
-                            continue info;
-                        }
-                    }
-
-                    //   - Discard everything that matches excluded patterns from the top of the stack
-                    //   - Get the remaining number of stack lines and build the stack record
+            long startTime = System.nanoTime();
 
-                    StackTraceElement[] stack = info.getStackTrace();
-                    List<String> lines = new ArrayList<>();
+            while (!Thread.interrupted()) {
+                long[] ids = WorkerThreads.getWorkerIds();
 
-                    for (StackTraceElement l : stack) {
-                        String className = l.getClassName();
-                        if (!isExcluded(className)) {
-                            lines.add(className + '.' + l.getMethodName()
-                                    + (sampleLine ? ":" + l.getLineNumber() : ""));
+                if (ids.length > 0) {
+                    long sampleStart = System.nanoTime();
+                    ThreadInfo[] infos = bean.getThreadInfo(ids, maxDepth);
+                    long cost = System.nanoTime() - sampleStart;
 
-                            if (lines.size() >= stackLines) {
-                                break;
-                            }
-                        }
+                    for (ThreadInfo info : infos) {
+                        // thread had terminated
+                        if (info == null) continue;
+                        record(info);
                     }
-
-                    if (lines.isEmpty()) {
-                        lines.add("<stack is empty, everything is filtered?>");
+                    samples++;
+                    sampledTime = System.nanoTime() - startTime;
+
+                    // Capturing the stacks brings the workers to a stop, stretch the sampling
+                    // period until the average sampling cost fits the overhead budget.
+                    // The very first sample is usually much slower, do not account it.
+                    if (samples > 1) {
+                        avgCost = (avgCost == 0) ? cost : (avgCost * 0.9 + cost * 0.1);
+                        period = Math.max(minPeriod, (long) (avgCost / overheadBudget));
                     }
-
-                    Thread.State state = info.getThreadState();
-                    stacks.get(state).add(new StackRecord(lines));
                 }
 
                 try {
-                    TimeUnit.MILLISECONDS.sleep(periodMsec);
+                    TimeUnit.NANOSECONDS.sleep(period);
                 } catch (InterruptedException e) {
                     return;
                 }
             }
         }
 
+        private void record(ThreadInfo info) {
+            //   - Discard everything that matches excluded patterns from the top of the stack
+            //   - Get the remaining number of stack lines and build the stack record
+
+            StackTraceElement[] stack = info.getStackTrace();
+            List<String> lines = new ArrayList<>();
+
+            for (StackTraceElement l : stack) {
+                String className = l.getClassName();
+                if (!isExcluded(className)) {
+                    lines.add(className + '.' + l.getMethodName()
+                            + (sampleLine ? ":" + l.getLineNumber() : ""));
+
+                    if (lines.size() >= stackLines) {
+                        break;
+                    }
+                }
+            }
+
+            if (lines.isEmpty()) {
+                lines.add("<stack is empty, everything is filtered?>");
+            }
+
+            Thread.State state = info.getThreadState();
+            stacks.get(state).add(new StackRecord(lines));
+
+            if (saveCollapsed) {
+                collapsed.get(state).add(collapse(stack, sampleLine));
+            }
+        }
+
         public void start() {
             thread.start();
         }
@@ -250,11 +389,24 @@ public class StackProfiler implements InternalProfiler {
 
         private final Map<Thread.State, Multiset<StackRecord>> stacks;
         private final int topStacks;
+        private final long samples;
+        private final long sampledTime;
+        private final int periodMsec;
+        private final SortedSet<String> collapsedFiles;
 
         public StackResult(Map<Thread.State, Multiset<StackRecord>> stacks, int topStacks) {
+            this(stacks, topStacks, 0, 0, 0, new TreeSet<String>());
+        }
+
+        public StackResult(Map<Thread.State, Multiset<StackRecord>> stacks, int topStacks,
+                           long samples, long sampledTime, int periodMsec, SortedSet<String> collapsedFiles) {
             super(ResultRole.SECONDARY, Defaults.PREFIX + "stack", of(Double.NaN), "---", AggregationPolicy.AVG);
             this.stacks = stacks;
             this.topStacks = topStacks;
+            this.samples = samples;
+            this.sampledTime = sampledTime;
+            this.periodMsec = periodMsec;
+            this.collapsedFiles = collapsedFiles;
         }
 
         @Override
@@ -298,6 +450,18 @@ public class StackProfiler implements InternalProfiler {
             StringBuilder builder = new StringBuilder();
             builder.append("Stack profiler:\n\n");
 
+            if (samples > 0) {
+                builder.append(String.format("Samples: %d, effective sampling period: %.3f ms (requested %d ms)%n",
+                        samples, 1.0D * sampledTime / samples / TimeUnit.MILLISECONDS.toNanos(1), periodMsec));
+                if (!collapsedFiles.isEmpty()) {
+                    builder.append("Collapsed stacks saved to:\n");
+                    for (String file : collapsedFiles) {
+                        builder.append("  ").append(file).append("\n");
+                    }
+                }
+                builder.append("\n");
+            }
+
             builder.append(dottedLine("Thread state distributions"));
             for (Thread.State state : sortedStates) {
                 if (isSignificant(stacks.get(state).size(), totalSize)) {
@@ -379,6 +543,10 @@ public class StackProfiler implements InternalProfiler {
         @Override
         public StackResult aggregate(Collection<StackResult> results) {
             int topStacks = 0;
+            long samples = 0;
+            long sampledTime = 0;
+            int periodMsec = 0;
+            SortedSet<String> collapsedFiles = new TreeSet<>();
             Map<Thread.State, Multiset<StackRecord>> sum = new EnumMap<>(Thread.State.class);
             for (StackResult r : results) {
                 for (Map.Entry<Thread.State, Multiset<StackRecord>> entry : r.stacks.entrySet()) {
@@ -391,8 +559,12 @@ public class StackProfiler implements InternalProfiler {
                     }
                 }
                 topStacks = r.topStacks;
+                samples += r.samples;
+                sampledTime += r.sampledTime;
+                periodMsec = r.periodMsec;
+                collapsedFiles.addAll(r.collapsedFiles);
             }
-            return new StackResult(sum, topStacks);
+            return new StackResult(sum, topStacks, samples, sampledTime, periodMsec, collapsedFiles);
         }
     }
 
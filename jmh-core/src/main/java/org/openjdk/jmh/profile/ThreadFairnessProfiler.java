@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Distribution of the measured operations across the worker threads.
+ *
+ * <p>The primary result sums the operations over all threads, and therefore
+ * the benchmark that starves half of its threads looks the same as the fair one.
+ * These secondary results report the min, max and coefficient of variation of
+ * per-thread operation counts, along with Jain's fairness index, which is 1.0
+ * when all threads did the same amount of work, and 1/N when a single thread
+ * did all the work. With @Group benchmarks, the same metrics are reported for
+ * every subgroup. Single-shot mode is not reported, since every thread runs the
+ * same fixed batch there.</p>
+ */
+public class ThreadFairnessProfiler implements InternalProfiler {
+
+    @Override
+    public String getDescription() {
+        return "Distribution of operations across worker threads";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        // do nothing
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        if (benchmarkParams.getMode() == Mode.SingleShotTime) {
+            return Collections.emptyList();
+        }
+        int[] groups = benchmarkParams.getThreadGroups();
+        List<String> labels = new ArrayList<>(benchmarkParams.getThreadGroupLabels());
+        return results(result.getMetadata().getThreadMeasuredOps(), groups, labels);
+    }
+
+    static List<Result> results(long[] threadOps, int[] groups, List<String> labels) {
+        List<Result> results = new ArrayList<>();
+        if (threadOps.length < 2) {
+            return results;
+        }
+
+        addResults(results, "", threadOps);
+
+        if (groups.length > 1 && labels.size() == groups.length) {
+            List<List<Long>> subgroupOps = new ArrayList<>();
+            for (int sg = 0; sg < groups.length; sg++) {
+                subgroupOps.add(new ArrayList<Long>());
+            }
+            // threads are distributed over the groups in order, subgroup by subgroup
+            int groupThreads = 0;
+            for (int g : groups) {
+                groupThreads += g;
+            }
+            for (int t = 0; t < threadOps.length; t++) {
+                int gt = t % groupThreads;
+                int sg = 0;
+                while (gt >= groups[sg]) {
+                    gt -= groups[sg];
+                    sg++;
+                }
+                subgroupOps.get(sg).add(threadOps[t]);
+            }
+
+            for (int sg = 0; sg < groups.length; sg++) {
+                List<Long> ops = subgroupOps.get(sg);
+                if (ops.size() < 2) {
+                    continue;
+                }
+                long[] arr = new long[ops.size()];
+                for (int i = 0; i < arr.length; i++) {
+                    arr[i] = ops.get(i);
+                }
+                addResults(results, "." + labels.get(sg), arr);
+            }
+        }
+
+        return results;
+    }
+
+    private static void addResults(List<Result> results, String suffix, long[] ops) {
+        int n = ops.length;
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        double sum = 0;
+        double sumSq = 0;
+        for (long op : ops) {
+            min = Math.min(min, op);
+            max = Math.max(max, op);
+            sum += op;
+            sumSq += 1.0 * op * op;
+        }
+
+        double mean = sum / n;
+        double var = Math.max(0, sumSq / n - mean * mean);
+        double cv = (mean != 0) ? 100.0 * Math.sqrt(var) / mean : Double.NaN;
+        double jain = (sumSq != 0) ? (sum * sum) / (n * sumSq) : Double.NaN;
+
+        results.add(new ScalarResult(Defaults.PREFIX + "threads.ops.min" + suffix, min, "ops", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "threads.ops.max" + suffix, max, "ops", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "threads.ops.cv" + suffix, cv, "%", AggregationPolicy.AVG));
+        results.add(new ScalarResult(Defaults.PREFIX + "threads.fairness" + suffix, jain, "index", AggregationPolicy.AVG));
+    }
+
+}
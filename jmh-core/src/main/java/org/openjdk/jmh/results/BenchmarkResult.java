@@ -89,12 +89,20 @@ public class BenchmarkResult implements Serializable {
         }
 
         if (aggregator != null) {
-            return aggregator.aggregate(aggrs);
+            return estimated(aggregator.aggregate(aggrs));
         } else {
             throw new IllegalStateException("No aggregator for primary result");
         }
     }
 
+    private Result estimated(Result r) {
+        ScoreEstimator estimator = (params != null) ? params.getScoreEstimator() : null;
+        if (estimator != null && estimator != ScoreEstimator.MEAN) {
+            r.setScoreEstimator(estimator);
+        }
+        return r;
+    }
+
     public Map<String, Result> getSecondaryResults() {
         // label -> collection of results
         Multimap<String, Result> allSecondary = new HashMultimap<>();
@@ -135,7 +143,7 @@ public class BenchmarkResult implements Serializable {
 
             // Note: should not use "results" here since the contents was just updated by "put" above
             Result aggregate = aggregator.aggregate(allSecondary.get(label));
-            answers.put(label, aggregate);
+            answers.put(label, estimated(aggregate));
         }
 
         for (String label : benchmarkResults.keys()) {
@@ -148,7 +156,7 @@ public class BenchmarkResult implements Serializable {
                 }
             }
             if (aggregator != null) {
-                answers.put(label, aggregator.aggregate(results));
+                answers.put(label, estimated(aggregator.aggregate(results)));
             }
         }
 
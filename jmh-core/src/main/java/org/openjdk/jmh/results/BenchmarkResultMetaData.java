@@ -34,14 +34,23 @@ public class BenchmarkResultMetaData implements Serializable {
     private final long stopTime;
     private final long warmupOps;
     private final long measurementOps;
+    private final int warmupIterations;
+    private final long lastCompilationTime;
 
     public BenchmarkResultMetaData(long warmupTime, long measurementTime, long stopTime, long warmupOps, long measurementOps) {
+        this(warmupTime, measurementTime, stopTime, warmupOps, measurementOps, -1, Long.MIN_VALUE);
+    }
+
+    public BenchmarkResultMetaData(long warmupTime, long measurementTime, long stopTime, long warmupOps, long measurementOps,
+                                   int warmupIterations, long lastCompilationTime) {
         this.startTime = Long.MIN_VALUE;
         this.warmupTime = warmupTime;
         this.measurementTime = measurementTime;
         this.stopTime = stopTime;
         this.warmupOps = warmupOps;
         this.measurementOps = measurementOps;
+        this.warmupIterations = warmupIterations;
+        this.lastCompilationTime = lastCompilationTime;
     }
 
     public long getStartTime() {
@@ -71,6 +80,24 @@ public class BenchmarkResultMetaData implements Serializable {
         return warmupOps;
     }
 
+    /**
+     * @return number of warmup iterations actually done; -1, if unknown
+     */
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * Returns the time of the last iteration with JIT activity, in the same time base
+     * as {@link #getWarmupTime()} and {@link #getMeasurementTime()}. JIT activity is only
+     * tracked when warmup waits for JIT to be quiet.
+     *
+     * @return last compilation time; {@link Long#MIN_VALUE}, if not tracked, or there was no activity
+     */
+    public long getLastCompilationTime() {
+        return lastCompilationTime;
+    }
+
     public void adjustStart(long startTime) {
         this.startTime = startTime;
     }
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Modes of the per-fork primary scores.
+ *
+ * <p>JIT decisions may differ between forks, and the forks then settle in several
+ * distinct performance modes. Averaging these modes together yields a score that no
+ * fork has actually exhibited, with a huge error. This class clusters the forks by
+ * their primary scores, so that modes can be reported separately.</p>
+ *
+ * <p>Forks are sorted by score, and split where the gap between the adjacent forks is
+ * large in all respects that can be judged: relative to the score itself, relative
+ * to the iteration-to-iteration noise within the forks, and relative to the other
+ * gaps between the forks.</p>
+ */
+public class ForkModes {
+
+    /**
+     * Minimal gap between modes, relative to the median fork score.
+     */
+    static final double MIN_RELATIVE_GAP = 0.05;
+
+    /**
+     * Minimal gap between modes, in pooled within-fork standard deviations.
+     */
+    static final double MIN_NOISE_GAP = 3.0;
+
+    /**
+     * Minimal gap between modes, relative to the median of other gaps.
+     */
+    static final double MIN_GAP_RATIO = 4.0;
+
+    private final List<ForkMode> modes;
+    private final int forks;
+
+    private ForkModes(List<ForkMode> modes, int forks) {
+        this.modes = modes;
+        this.forks = forks;
+    }
+
+    /**
+     * Clusters the forks.
+     *
+     * @param params benchmark params
+     * @param forkResults per-fork results, in fork order
+     * @return fork modes
+     */
+    public static ForkModes of(BenchmarkParams params, Collection<BenchmarkResult> forkResults) {
+        final List<BenchmarkResult> results = new ArrayList<>(forkResults);
+        int n = results.size();
+
+        final double[] scores = new double[n];
+        Integer[] order = new Integer[n];
+        double sumVar = 0;
+        int varCount = 0;
+        for (int f = 0; f < n; f++) {
+            BenchmarkResult br = results.get(f);
+            scores[f] = br.getPrimaryResult().getScore();
+            order[f] = f;
+
+            double var = iterationVariance(br);
+            if (!Double.isNaN(var)) {
+                sumVar += var;
+                varCount++;
+            }
+        }
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(scores[o1], scores[o2]);
+            }
+        });
+
+        double noise = (varCount > 0) ? Math.sqrt(sumVar / varCount) : Double.NaN;
+
+        List<ForkMode> modes = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && isBreak(scores, order, i, noise)) {
+                modes.add(mode(params, results, current));
+                current = new ArrayList<>();
+            }
+            current.add(order[i]);
+        }
+        if (!current.isEmpty()) {
+            modes.add(mode(params, results, current));
+        }
+
+        return new ForkModes(Collections.unmodifiableList(modes), n);
+    }
+
+    private static double iterationVariance(BenchmarkResult br) {
+        Collection<IterationResult> irs = br.getIterationResults();
+        if (irs.size() < 2) {
+            return Double.NaN;
+        }
+
+        double sum = 0;
+        for (IterationResult ir : irs) {
+            sum += ir.getPrimaryResult().getScore();
+        }
+        double mean = sum / irs.size();
+
+        double sq = 0;
+        for (IterationResult ir : irs) {
+            double d = ir.getPrimaryResult().getScore() - mean;
+            sq += d * d;
+        }
+        return sq / (irs.size() - 1);
+    }
+
+    /**
+     * Decides if there is a mode break between order[idx - 1] and order[idx].
+     */
+    private static boolean isBreak(double[] scores, Integer[] order, int idx, double noise) {
+        int n = order.length;
+        double gap = scores[order[idx]] - scores[order[idx - 1]];
+
+        double median = scores[order[n / 2]];
+        if (n % 2 == 0) {
+            median = (median + scores[order[n / 2 - 1]]) / 2;
+        }
+        if (gap <= MIN_RELATIVE_GAP * Math.abs(median)) {
+            return false;
+        }
+
+        boolean judged = false;
+
+        if (!Double.isNaN(noise)) {
+            if (gap <= MIN_NOISE_GAP * noise) {
+                return false;
+            }
+            judged = true;
+        }
+
+        if (n > 2) {
+            double[] others = new double[n - 2];
+            int c = 0;
+            for (int i = 1; i < n; i++) {
+                if (i != idx) {
+                    others[c++] = scores[order[i]] - scores[order[i - 1]];
+                }
+            }
+            Arrays.sort(others);
+            double medianGap = (others.length % 2 == 1) ?
+                    others[others.length / 2] :
+                    (others[others.length / 2 - 1] + others[others.length / 2]) / 2;
+            if (gap <= MIN_GAP_RATIO * medianGap) {
+                return false;
+            }
+            judged = true;
+        }
+
+        // Two single-iteration forks: nothing to compare the gap against.
+        return judged;
+    }
+
+    private static ForkMode mode(BenchmarkParams params, List<BenchmarkResult> results, List<Integer> forkIdx) {
+        Collections.sort(forkIdx);
+        List<BenchmarkResult> sub = new ArrayList<>();
+        for (int f : forkIdx) {
+            sub.add(results.get(f));
+        }
+        return new ForkMode(new RunResult(params, sub).getPrimaryResult(), forkIdx);
+    }
+
+    /**
+     * @return modes, in the ascending order of their scores
+     */
+    public List<ForkMode> getModes() {
+        return modes;
+    }
+
+    /**
+     * @return true, if forks split into more than one mode
+     */
+    public boolean isMultiModal() {
+        return modes.size() > 1;
+    }
+
+    /**
+     * Returns the forks that are alone in their mode, while the other forks
+     * agree with each other.
+     *
+     * @return outlier fork indices, 0-based, in fork order
+     */
+    public List<Integer> getOutlierForks() {
+        List<Integer> outliers = new ArrayList<>();
+        if (forks < 3) {
+            return outliers;
+        }
+
+        boolean hasMajor = false;
+        for (ForkMode m : modes) {
+            hasMajor |= m.getForks().size() > 1;
+        }
+        if (hasMajor) {
+            for (ForkMode m : modes) {
+                if (m.getForks().size() == 1) {
+                    outliers.add(m.getForks().get(0));
+                }
+            }
+        }
+        Collections.sort(outliers);
+        return outliers;
+    }
+
+    /**
+     * @param minForks minimal number of forks in every mode
+     * @return true, if every mode has at least minForks forks
+     */
+    public boolean hasForksPerMode(int minForks) {
+        for (ForkMode m : modes) {
+            if (m.getForks().size() < minForks) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Single mode of the forks.
+     */
+    public static class ForkMode {
+        private final Result result;
+        private final List<Integer> forks;
+
+        ForkMode(Result result, List<Integer> forks) {
+            this.result = result;
+            this.forks = Collections.unmodifiableList(forks);
+        }
+
+        /**
+         * @return primary result, aggregated over the forks in this mode
+         */
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * @return fork indices, 0-based, in fork order
+         */
+        public List<Integer> getForks() {
+            return forks;
+        }
+    }
+
+}
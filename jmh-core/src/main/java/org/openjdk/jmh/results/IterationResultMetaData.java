@@ -25,15 +25,32 @@
 package org.openjdk.jmh.results;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 public class IterationResultMetaData implements Serializable {
 
     private final long allOps;
     private final long measuredOps;
+    private final long[] threadMeasuredOps;
 
     public IterationResultMetaData(long allOps, long measuredOps) {
+        this(allOps, measuredOps, new long[0]);
+    }
+
+    public IterationResultMetaData(long allOps, long measuredOps, long[] threadMeasuredOps) {
         this.allOps = allOps;
         this.measuredOps = measuredOps;
+        this.threadMeasuredOps = Arrays.copyOf(threadMeasuredOps, threadMeasuredOps.length);
+    }
+
+    /**
+     * Measured ops done by each worker thread.
+     *
+     * @return measured ops, indexed by {@link org.openjdk.jmh.infra.ThreadParams#getThreadIndex()};
+     *         empty array if not available
+     */
+    public long[] getThreadMeasuredOps() {
+        return Arrays.copyOf(threadMeasuredOps, threadMeasuredOps.length);
     }
 
     public long getMeasuredOps() {
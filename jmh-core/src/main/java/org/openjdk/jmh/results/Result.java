@@ -48,6 +48,16 @@ public abstract class Result<T extends Result<T>> implements Serializable {
     protected final Statistics statistics;
     protected final AggregationPolicy policy;
 
+    /**
+     * Estimator for the aggregated results; null when policy alone defines the score.
+     */
+    private ScoreEstimator estimator;
+
+    /**
+     * Cached estimate: {score, lower bound, upper bound}; the estimators may resample heavily.
+     */
+    private transient volatile double[] estimate;
+
     public Result(ResultRole role, String label, Statistics s, String unit, AggregationPolicy policy) {
         this.role = role;
         this.label = DEDUP.dedup(label);
@@ -107,7 +117,7 @@ public abstract class Result<T extends Result<T>> implements Serializable {
     public double getScore() {
         switch (policy) {
             case AVG:
-                return statistics.getMean();
+                return (estimator != null) ? estimate()[0] : statistics.getMean();
             case SUM:
                 return statistics.getSum();
             case MAX:
@@ -127,6 +137,10 @@ public abstract class Result<T extends Result<T>> implements Serializable {
     public double getScoreError() {
         switch (policy) {
             case AVG:
+                if (estimator != null) {
+                    double[] e = estimate();
+                    return (e[2] - e[1]) / 2;
+                }
                 return statistics.getMeanErrorAt(0.999);
             case SUM:
             case MIN:
@@ -145,6 +159,10 @@ public abstract class Result<T extends Result<T>> implements Serializable {
     public double[] getScoreConfidence() {
         switch (policy) {
             case AVG:
+                if (estimator != null) {
+                    double[] e = estimate();
+                    return new double[] {e[1], e[2]};
+                }
                 return statistics.getConfidenceIntervalAt(0.999);
             case MAX:
             case MIN:
@@ -156,6 +174,38 @@ public abstract class Result<T extends Result<T>> implements Serializable {
         }
     }
 
+    /**
+     * The estimator used for the score and its error.
+     * @return score estimator; null if the score is not estimated, e.g. it is the sum or the extreme value
+     * @see #getScore()
+     * @see #getScoreError()
+     */
+    public ScoreEstimator getScoreEstimator() {
+        if (policy != AggregationPolicy.AVG) {
+            return null;
+        }
+        return (estimator != null) ? estimator : ScoreEstimator.MEAN;
+    }
+
+    /**
+     * Sets the estimator for the aggregated result.
+     * @param estimator estimator to use
+     */
+    void setScoreEstimator(ScoreEstimator estimator) {
+        this.estimator = estimator;
+        this.estimate = null;
+    }
+
+    private double[] estimate() {
+        double[] e = estimate;
+        if (e == null) {
+            double[] interval = estimator.interval(statistics, 0.999);
+            e = new double[] {estimator.score(statistics), interval[0], interval[1]};
+            estimate = e;
+        }
+        return e;
+    }
+
     /**
      * Get number of samples in the current result.
      * @return number of samples
@@ -231,14 +281,16 @@ public abstract class Result<T extends Result<T>> implements Serializable {
                     ScoreFormatter.format(getScore()),
                     ScoreFormatter.formatError((interval[1] - interval[0]) / 2),
                     getScoreUnit(), policy));
+            ScoreEstimator est = getScoreEstimator();
             pw.println(String.format("  (min, avg, max) = (%s, %s, %s), stdev = %s%n" +
-                    "  CI (99.9%%): [%s, %s] (assumes normal distribution)",
+                    "  CI (99.9%%): [%s, %s] (%s)",
                     ScoreFormatter.format(stats.getMin()),
                     ScoreFormatter.format(stats.getMean()),
                     ScoreFormatter.format(stats.getMax()),
                     ScoreFormatter.formatError(stats.getStandardDeviation()),
                     ScoreFormatter.format(interval[0]),
-                    ScoreFormatter.format(interval[1]))
+                    ScoreFormatter.format(interval[1]),
+                    (est == null || est == ScoreEstimator.MEAN) ? "assumes normal distribution" : est.description())
             );
         } else {
             pw.println(String.format("  %s %s", ScoreFormatter.format(stats.getMean()), getScoreUnit()));
@@ -88,6 +88,16 @@ public class RunResult implements Serializable {
         return result;
     }
 
+    /**
+     * Clusters the forks by their primary scores.
+     *
+     * @return fork modes
+     * @see ForkModes
+     */
+    public ForkModes getForkModes() {
+        return ForkModes.of(params, benchmarkResults);
+    }
+
     public BenchmarkParams getParams() {
         return params;
     }
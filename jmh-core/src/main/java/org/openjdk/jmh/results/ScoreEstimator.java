@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.openjdk.jmh.util.RobustStatistics;
+import org.openjdk.jmh.util.Statistics;
+
+/**
+ * Estimator for the score and its confidence interval, used for the results
+ * aggregated over iterations.
+ *
+ * <p>The estimator is selected with {@code -se <label>}; the default is
+ * {@link #MEAN}, which assumes normally distributed scores.</p>
+ */
+public enum ScoreEstimator {
+
+    /**
+     * Mean, with Student's t interval.
+     */
+    MEAN("mean", "mean, Student's t interval") {
+        @Override
+        public double score(Statistics s) {
+            return s.getMean();
+        }
+
+        @Override
+        public double[] interval(Statistics s, double confidence) {
+            return s.getConfidenceIntervalAt(confidence);
+        }
+    },
+
+    /**
+     * Mean, with bootstrap percentile interval.
+     */
+    BOOTSTRAP("bootstrap", "mean, bootstrap percentile interval") {
+        @Override
+        public double score(Statistics s) {
+            return s.getMean();
+        }
+
+        @Override
+        public double[] interval(Statistics s, double confidence) {
+            return RobustStatistics.getBootstrapMeanIntervalAt(s, confidence, RobustStatistics.BOOTSTRAP_ROUNDS);
+        }
+    },
+
+    /**
+     * Median, with distribution-free order statistics interval.
+     */
+    MEDIAN("median", "median, order statistics interval") {
+        @Override
+        public double score(Statistics s) {
+            return s.getPercentile(50);
+        }
+
+        @Override
+        public double[] interval(Statistics s, double confidence) {
+            return RobustStatistics.getMedianIntervalAt(s, confidence);
+        }
+    },
+
+    /**
+     * Hodges-Lehmann estimate, with Walsh averages interval.
+     */
+    HODGES_LEHMANN("hl", "Hodges-Lehmann estimate, Walsh averages interval") {
+        @Override
+        public double score(Statistics s) {
+            return RobustStatistics.getHodgesLehmann(s);
+        }
+
+        @Override
+        public double[] interval(Statistics s, double confidence) {
+            return RobustStatistics.getHodgesLehmannIntervalAt(s, confidence);
+        }
+    },
+
+    /**
+     * 10% trimmed mean, with Yuen's interval.
+     */
+    TRIMMED("trimmed", "10% trimmed mean, Yuen's interval") {
+        @Override
+        public double score(Statistics s) {
+            return RobustStatistics.getTrimmedMean(s, TRIM);
+        }
+
+        @Override
+        public double[] interval(Statistics s, double confidence) {
+            return RobustStatistics.getTrimmedMeanIntervalAt(s, TRIM, confidence);
+        }
+    },
+
+    ;
+
+    private static final double TRIM = 0.1;
+
+    private final String label;
+    private final String description;
+
+    ScoreEstimator(String label, String description) {
+        this.label = label;
+        this.description = description;
+    }
+
+    /**
+     * @param s statistics
+     * @return score estimate
+     */
+    public abstract double score(Statistics s);
+
+    /**
+     * @param s statistics
+     * @param confidence confidence level
+     * @return confidence interval for the score; NaNs if not available
+     */
+    public abstract double[] interval(Statistics s, double confidence);
+
+    /**
+     * @return short label, as accepted by {@link #fromLabel(String)}
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * @return human-readable description
+     */
+    public String description() {
+        return description;
+    }
+
+    public static ScoreEstimator fromLabel(String label) {
+        for (ScoreEstimator e : values()) {
+            if (e.label.equalsIgnoreCase(label)) {
+                return e;
+            }
+        }
+        throw new IllegalArgumentException("Unknown score estimator: " + label + ", known estimators: " + labels());
+    }
+
+    /**
+     * @return comma-separated list of known labels
+     */
+    public static String labels() {
+        StringBuilder sb = new StringBuilder();
+        for (ScoreEstimator e : values()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(e.label);
+        }
+        return sb.toString();
+    }
+
+}
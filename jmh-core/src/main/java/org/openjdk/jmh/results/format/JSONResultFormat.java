@@ -26,6 +26,7 @@ package org.openjdk.jmh.results.format;
 
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.ForkModes;
 import org.openjdk.jmh.results.IterationResult;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
@@ -37,6 +38,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 class JSONResultFormat implements ResultFormat {
@@ -100,9 +102,18 @@ class JSONResultFormat implements ResultFormat {
             pw.println("\"score\" : " + emit(primaryResult.getScore()) + ",");
             pw.println("\"scoreError\" : " + emit(primaryResult.getScoreError()) + ",");
             pw.println("\"scoreConfidence\" : " + emit(primaryResult.getScoreConfidence()) + ",");
+            if (primaryResult.getScoreEstimator() != null) {
+                pw.println("\"scoreEstimator\" : \"" + primaryResult.getScoreEstimator().label() + "\",");
+            }
             pw.println(emitPercentiles(primaryResult.getStatistics()));
             pw.println("\"scoreUnit\" : \"" + primaryResult.getScoreUnit() + "\",");
 
+            ForkModes modes = runResult.getForkModes();
+            if (modes.isMultiModal()) {
+                pw.println("\"forkModes\" :");
+                pw.println(emitForkModes(modes) + ",");
+            }
+
             switch (params.getMode()) {
                 case SampleTime:
                     pw.println("\"rawDataHistogram\" :");
@@ -125,6 +136,9 @@ class JSONResultFormat implements ResultFormat {
                 sb.append("\"score\" : ").append(emit(result.getScore())).append(",");
                 sb.append("\"scoreError\" : ").append(emit(result.getScoreError())).append(",");
                 sb.append("\"scoreConfidence\" : ").append(emit(result.getScoreConfidence())).append(",");
+                if (result.getScoreEstimator() != null) {
+                    sb.append("\"scoreEstimator\" : \"").append(result.getScoreEstimator().label()).append("\",");
+                }
                 sb.append(emitPercentiles(result.getStatistics()));
                 sb.append("\"scoreUnit\" : \"").append(result.getScoreUnit()).append("\",");
                 sb.append("\"rawData\" : ");
@@ -182,6 +196,30 @@ class JSONResultFormat implements ResultFormat {
         return sb.toString();
     }
 
+    private String emitForkModes(ForkModes modes) {
+        List<Integer> outliers = modes.getOutlierForks();
+        Collection<String> entries = new ArrayList<>();
+        for (ForkModes.ForkMode mode : modes.getModes()) {
+            Result r = mode.getResult();
+            Collection<String> forks = new ArrayList<>();
+            for (int f : mode.getForks()) {
+                forks.add(String.valueOf(f));
+            }
+            boolean outlier = mode.getForks().size() == 1 && outliers.contains(mode.getForks().get(0));
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("{");
+            sb.append("\"score\" : ").append(emit(r.getScore())).append(",");
+            sb.append("\"scoreError\" : ").append(emit(r.getScoreError())).append(",");
+            sb.append("\"scoreConfidence\" : ").append(emit(r.getScoreConfidence())).append(",");
+            sb.append("\"forks\" : ").append(printMultiple(forks, "[", "]")).append(",");
+            sb.append("\"outlier\" : ").append(outlier);
+            sb.append("}");
+            entries.add(sb.toString());
+        }
+        return printMultiple(entries, "[", "]");
+    }
+
     private String emitParams(BenchmarkParams params) {
         StringBuilder sb = new StringBuilder();
         boolean isFirst = true;
@@ -27,6 +27,7 @@ package org.openjdk.jmh.results.format;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.util.ClassUtils;
 import org.openjdk.jmh.util.ScoreFormatter;
 
@@ -85,7 +86,7 @@ class LaTeXResultFormat implements ResultFormat {
             }
         }
 
-        printFooter();
+        printFooter(ResultFormatFactory.nonDefaultEstimator(results));
     }
 
     private void printHeader(SortedSet<String> params, boolean singleUnit, String unit) {
@@ -102,8 +103,11 @@ class LaTeXResultFormat implements ResultFormat {
         out.print("\\hline\n");
     }
 
-    private void printFooter() {
+    private void printFooter(ScoreEstimator estimator) {
         out.print("\\end{tabular}");
+        if (estimator != null) {
+            out.print("\n% Score and error use " + estimator.description() + ".\n");
+        }
     }
 
     private void printLine(String label, BenchmarkParams benchParams, SortedSet<String> params,
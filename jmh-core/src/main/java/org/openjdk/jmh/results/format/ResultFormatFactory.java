@@ -24,7 +24,9 @@
  */
 package org.openjdk.jmh.results.format;
 
+import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScoreEstimator;
 
 import java.io.IOException;
 import java.io.PrintStream;
@@ -88,4 +90,23 @@ public class ResultFormatFactory {
         }
     }
 
+    /**
+     * Finds the non-default estimator used for the results, so that human-readable
+     * formats can mention it. Default estimator is implied, and stays silent.
+     *
+     * @param results results to scan
+     * @return non-default estimator, or null if all results use the default one
+     */
+    static ScoreEstimator nonDefaultEstimator(Collection<RunResult> results) {
+        for (RunResult rr : results) {
+            Result r = rr.getPrimaryResult();
+            if (r == null) continue;
+            ScoreEstimator e = r.getScoreEstimator();
+            if (e != null && e != ScoreEstimator.MEAN) {
+                return e;
+            }
+        }
+        return null;
+    }
+
 }
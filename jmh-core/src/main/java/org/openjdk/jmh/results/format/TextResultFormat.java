@@ -27,6 +27,7 @@ package org.openjdk.jmh.results.format;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.util.ClassUtils;
 import org.openjdk.jmh.util.ScoreFormatter;
 
@@ -189,5 +190,10 @@ class TextResultFormat implements ResultFormat {
             }
         }
 
+        ScoreEstimator estimator = ResultFormatFactory.nonDefaultEstimator(runResults);
+        if (estimator != null) {
+            out.println();
+            out.println("Score and Error use " + estimator.description() + ".");
+        }
     }
 }
@@ -27,6 +27,7 @@ package org.openjdk.jmh.results.format;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.results.Result;
 import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ScoreEstimator;
 
 import java.io.PrintStream;
 import java.util.Collection;
@@ -53,7 +54,7 @@ class XSVResultFormat implements ResultFormat {
             params.addAll(res.getParams().getParamsKeys());
         }
 
-        printHeader(params);
+        printHeader(params, ResultFormatFactory.nonDefaultEstimator(results));
 
         for (RunResult rr : results) {
             BenchmarkParams benchParams = rr.getParams();
@@ -68,7 +69,7 @@ class XSVResultFormat implements ResultFormat {
         }
     }
 
-    private void printHeader(SortedSet<String> params) {
+    private void printHeader(SortedSet<String> params, ScoreEstimator estimator) {
         out.print("\"Benchmark\"");
         out.print(delimiter);
         out.print("\"Mode\"");
@@ -79,7 +80,11 @@ class XSVResultFormat implements ResultFormat {
         out.print(delimiter);
         out.print("\"Score\"");
         out.print(delimiter);
-        out.printf("\"Score Error (%.1f%%)\"", 99.9);
+        if (estimator == null) {
+            out.printf("\"Score Error (%.1f%%)\"", 99.9);
+        } else {
+            out.printf("\"Score Error (%.1f%%, %s)\"", 99.9, estimator.label());
+        }
         out.print(delimiter);
         out.print("\"Unit\"");
         for (String k : params) {
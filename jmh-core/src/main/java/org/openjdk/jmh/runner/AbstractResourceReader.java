@@ -63,44 +63,59 @@ class AbstractResourceReader {
         }
 
         if (resource != null) {
-            Enumeration<URL> urls;
+            List<Reader> readers = new ArrayList<>();
+            URL url = null;
             try {
-                urls = getClass().getClassLoader().getResources(
-                        resource.startsWith("/")
-                                ? resource.substring(1)
-                                : resource
-                );
+                for (URL u : getResourceURLs()) {
+                    url = u;
+                    readers.add(open(url));
+                }
             } catch (IOException e) {
-                throw new RuntimeException("ERROR: While obtaining resource: " + resource, e);
-            }
-
-            if (urls.hasMoreElements()) {
-                List<Reader> readers = new ArrayList<>();
-                URL url = null;
-                try {
-                    while (urls.hasMoreElements()) {
-                        url = urls.nextElement();
-                        InputStream stream = url.openStream();
-                        readers.add(new InputStreamReader(stream, StandardCharsets.UTF_8));
-                    }
-                } catch (IOException e) {
-                    for (Reader r : readers) {
-                        try {
-                            r.close();
-                        } catch (IOException e1) {
-                            // ignore
-                        }
+                for (Reader r : readers) {
+                    try {
+                        r.close();
+                    } catch (IOException e1) {
+                        // ignore
                     }
-                    throw new RuntimeException("ERROR: While opening resource: " + url, e);
                 }
-                return readers;
-            } else {
-                throw new RuntimeException("ERROR: Unable to find the resource: " + resource);
+                throw new RuntimeException("ERROR: While opening resource: " + url, e);
             }
+            return readers;
         }
 
         throw new IllegalStateException();
     }
 
+    /**
+     * Lists all the URLs for the resource, if reading from the resource.
+     *
+     * @return URLs, or null, if not reading from the resource
+     */
+    protected List<URL> getResourceURLs() {
+        if (resource == null) {
+            return null;
+        }
+
+        Enumeration<URL> urls;
+        try {
+            urls = getClass().getClassLoader().getResources(
+                    resource.startsWith("/")
+                            ? resource.substring(1)
+                            : resource
+            );
+        } catch (IOException e) {
+            throw new RuntimeException("ERROR: While obtaining resource: " + resource, e);
+        }
+
+        if (!urls.hasMoreElements()) {
+            throw new RuntimeException("ERROR: Unable to find the resource: " + resource);
+        }
+        return Collections.list(urls);
+    }
+
+    protected static Reader open(URL url) throws IOException {
+        return new InputStreamReader(url.openStream(), StandardCharsets.UTF_8);
+    }
+
 
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.util.SampleBuffer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the asynchronous operations of a single benchmark thread in flight,
+ * and accounts for their completions.
+ *
+ * <p>The completions may happen on the foreign threads, at any time. Every
+ * completion is timestamped, and only the completions that happened within the
+ * measurement window are counted, regardless of when the completion handler
+ * actually runs. {@link #drain()} waits for all the outstanding operations to
+ * complete, after which the counters are final.</p>
+ *
+ * <p>This class is used by the generated code, and is not the public API. The
+ * completion handlers are attached by the generated code itself, so that the harness
+ * does not depend on {@code java.util.concurrent.CompletionStage}, and still links
+ * on the runtimes that do not have it.</p>
+ */
+public final class AsyncWindow {
+
+    private final int inFlight;
+    private final int opsPerInv;
+    private final Semaphore slots;
+
+    private volatile long windowStart;
+    private volatile long windowStop;
+
+    private final AtomicLong completed;
+    private final AtomicLong latency;
+    private SampleBuffer samples;
+
+    private volatile Throwable failure;
+
+    public AsyncWindow(int inFlight, int opsPerInv) {
+        this.inFlight = inFlight;
+        this.opsPerInv = opsPerInv;
+        this.slots = new Semaphore(inFlight);
+        this.completed = new AtomicLong();
+        this.latency = new AtomicLong();
+        this.samples = new SampleBuffer();
+        this.windowStart = Long.MAX_VALUE;
+        this.windowStop = Long.MAX_VALUE;
+    }
+
+    /**
+     * Waits for the free slot to issue the operation.
+     * @return issue timestamp
+     * @throws Throwable if any previous operation had failed
+     */
+    public long acquire() throws Throwable {
+        checkFailure();
+        slots.acquire();
+        return System.nanoTime();
+    }
+
+    /**
+     * Accounts for the completed operation, and frees its slot.
+     * @param issueTime issue timestamp, as returned by {@link #acquire()}
+     * @param t operation failure, or null if operation had succeeded
+     */
+    public void complete(long issueTime, Throwable t) {
+        long now = System.nanoTime();
+        if (t != null) {
+            if (failure == null) {
+                failure = t;
+            }
+        } else if (now >= windowStart && now < windowStop) {
+            long lat = now - issueTime;
+            completed.incrementAndGet();
+            latency.addAndGet(lat);
+            synchronized (this) {
+                samples.add(lat / opsPerInv);
+            }
+        }
+        slots.release();
+    }
+
+    private void checkFailure() throws Throwable {
+        Throwable t = failure;
+        if (t != null) {
+            throw t;
+        }
+    }
+
+    /**
+     * Opens the measurement window, and resets the counters.
+     * @param startTime window start timestamp
+     */
+    public void startMeasurement(long startTime) {
+        windowStart = Long.MAX_VALUE;
+        completed.set(0);
+        latency.set(0);
+        synchronized (this) {
+            samples = new SampleBuffer();
+        }
+        windowStop = Long.MAX_VALUE;
+        windowStart = startTime;
+    }
+
+    /**
+     * Closes the measurement window.
+     * Operations completing after this timestamp are not counted.
+     * @param stopTime window stop timestamp
+     */
+    public void stopMeasurement(long stopTime) {
+        windowStop = stopTime;
+    }
+
+    /**
+     * Waits for all outstanding operations to complete.
+     * @throws Throwable if any operation had failed
+     */
+    public void drain() throws Throwable {
+        slots.acquire(inFlight);
+        slots.release(inFlight);
+        checkFailure();
+    }
+
+    /**
+     * @return number of operations completed within the measurement window
+     */
+    public long getMeasuredOps() {
+        return completed.get();
+    }
+
+    /**
+     * @return total latency of operations completed within the measurement window, in nanoseconds
+     */
+    public long getMeasuredLatency() {
+        return latency.get();
+    }
+
+    /**
+     * @return latencies of operations completed within the measurement window
+     */
+    public synchronized SampleBuffer getSamples() {
+        return samples;
+    }
+
+}
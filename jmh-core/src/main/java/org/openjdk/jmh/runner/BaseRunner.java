@@ -31,6 +31,7 @@ import org.openjdk.jmh.results.BenchmarkResult;
 import org.openjdk.jmh.results.BenchmarkResultMetaData;
 import org.openjdk.jmh.results.IterationResult;
 import org.openjdk.jmh.runner.format.OutputFormat;
+import org.openjdk.jmh.runner.format.RunProgressListener;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.util.Multimap;
 import org.openjdk.jmh.util.TreeMultimap;
@@ -164,6 +165,10 @@ abstract class BaseRunner {
         benchmarkStart = current;
     }
 
+    protected void etaExtraFork(BenchmarkParams params) {
+        projectedTotalTime += estimateTimeSingleFork(params);
+    }
+
     protected void etaBeforeBenchmarks(Collection<ActionPlan> plans) {
         projectedTotalTime = 0;
         for (ActionPlan plan : plans) {
@@ -205,6 +210,10 @@ abstract class BaseRunner {
         }
 
         out.println(String.format("# Run progress: %.2f%% complete, ETA %s", partsDone * 100, formatDuration(totalETA)));
+
+        if (out instanceof RunProgressListener) {
+            ((RunProgressListener) out).runProgress(partsDone, totalETA);
+        }
     }
 
     protected void etaAfterBenchmarks() {
@@ -249,9 +258,36 @@ abstract class BaseRunner {
         long allWarmup = 0;
         long allMeasurement = 0;
 
+        int quietIterations = options.getWarmupQuietIterations().orElse(Defaults.WARMUP_QUIET_ITERATIONS);
+        int quietLimit = options.getWarmupQuietLimit().orElse(Defaults.WARMUP_QUIET_LIMIT);
+
+        CompilationActivity jit = null;
+        if (quietIterations > 0) {
+            jit = new CompilationActivity();
+            if (!jit.isAvailable()) {
+                out.println("# Warmup: cannot track JIT activity in this VM, doing the fixed number of warmup iterations");
+                jit = null;
+            }
+        }
+
+        LoopUnroll unroll = null;
+        if (options.shouldUnrollLoops().orElse(handler.hasUnrolledLoops())) {
+            if (!handler.hasUnrolledLoops()) {
+                out.println("# Unroll: benchmark is not annotated with @UnrollLoops, not unrolling");
+            } else if (LoopUnroll.isSupported(benchParams.getMode())) {
+                unroll = new LoopUnroll(benchParams);
+            } else {
+                out.println("# Unroll: " + benchParams.getMode() + " mode does not unroll measurement loops");
+            }
+        }
+
+        long lastCompilationTime = Long.MIN_VALUE;
+        int warmupCount = 0;
+        int quietCount = 0;
+
         // warmup
         IterationParams wp = benchParams.getWarmup();
-        for (int i = 1; i <= wp.getCount(); i++) {
+        for (int i = 1; i <= wp.getCount() || (jit != null && quietCount < quietIterations && i <= quietLimit); i++) {
             // will run system gc if we should
             if (runSystemGC()) {
                 out.verbosePrintln("System.gc() executed");
@@ -259,10 +295,45 @@ abstract class BaseRunner {
 
             out.iteration(benchParams, wp, i);
             boolean isLastIteration = (benchParams.getMeasurement().getCount() == 0);
-            IterationResult ir = handler.runIteration(benchParams, wp, isLastIteration);
+            int factor = (unroll != null) ? unroll.nextWarmup() : 1;
+            IterationResult ir = handler.runIteration(benchParams, wp, isLastIteration, factor);
             out.iterationResult(benchParams, wp, i, ir);
 
+            if (unroll != null) {
+                unroll.accept(factor, ir);
+            }
+
             allWarmup += ir.getMetadata().getAllOps();
+            warmupCount = i;
+
+            if (jit != null) {
+                if (jit.hadActivity()) {
+                    lastCompilationTime = System.currentTimeMillis();
+                    quietCount = 0;
+                } else {
+                    quietCount++;
+                }
+            }
+        }
+
+        if (jit != null) {
+            if (quietCount >= quietIterations) {
+                out.println("# Warmup: JIT is quiet for " + quietCount + " iterations, after " + warmupCount + " warmup iterations");
+            } else {
+                out.println("# Warmup: JIT is still active after " + warmupCount + " warmup iterations, warmup limit reached");
+            }
+        }
+
+        int measurementUnroll = 1;
+        if (unroll != null) {
+            if (!unroll.isCalibrated()) {
+                out.println("# Unroll: need at least two warmup iterations to calibrate, not unrolling");
+                unroll = null;
+            } else {
+                measurementUnroll = unroll.getFactor();
+                out.println(String.format("# Unroll: %d calls per iteration end check, loop overhead correction is %.3f ns/call (%.3f ns/call in plain loop)",
+                        measurementUnroll, unroll.getOverhead(), unroll.getPlainNanos()));
+            }
         }
 
         long measurementTime = System.currentTimeMillis();
@@ -279,11 +350,18 @@ abstract class BaseRunner {
             out.iteration(benchParams, mp, i);
 
             boolean isLastIteration = (i == mp.getCount());
-            IterationResult ir = handler.runIteration(benchParams, mp, isLastIteration);
+            IterationResult ir = handler.runIteration(benchParams, mp, isLastIteration, measurementUnroll);
+            if (unroll != null) {
+                ir.addResults(unroll.getResults());
+            }
             out.iterationResult(benchParams, mp, i, ir);
 
             allMeasurement += ir.getMetadata().getAllOps();
 
+            if (jit != null && jit.hadActivity()) {
+                lastCompilationTime = System.currentTimeMillis();
+            }
+
             if (acceptor != null) {
                 acceptor.accept(ir);
             }
@@ -293,7 +371,8 @@ abstract class BaseRunner {
 
         BenchmarkResultMetaData md = new BenchmarkResultMetaData(
                 warmupTime, measurementTime, stopTime,
-                allWarmup, allMeasurement);
+                allWarmup, allMeasurement,
+                warmupCount, lastCompilationTime);
 
         if (acceptor != null) {
             acceptor.acceptMeta(md);
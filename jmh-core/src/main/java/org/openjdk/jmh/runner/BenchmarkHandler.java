@@ -24,6 +24,7 @@
  */
 package org.openjdk.jmh.runner;
 
+import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Control;
 import org.openjdk.jmh.infra.IterationParams;
@@ -61,6 +62,7 @@ class BenchmarkHandler {
     private final List<InternalProfiler> profilersRev;
 
     private final Method method;
+    private final boolean unrolled;
 
     public BenchmarkHandler(OutputFormat out, Options options, BenchmarkParams executionParams) {
         String target = executionParams.generatedBenchmark();
@@ -68,6 +70,7 @@ class BenchmarkHandler {
         final Class<?> clazz = ClassUtils.loadClass(target.substring(0, lastDot));
 
         this.method = BenchmarkHandler.findBenchmarkMethod(clazz, target.substring(lastDot + 1));
+        this.unrolled = GeneratedBenchmark.Unrolled.class.isAssignableFrom(clazz);
         this.profilers = ProfilerFactory.getSupportedInternal(options.getProfilers());
         this.profilersRev = new ArrayList<>(profilers);
         Collections.reverse(profilersRev);
@@ -279,7 +282,16 @@ class BenchmarkHandler {
     /**
      * Do required shutdown actions.
      */
+    /**
+     * @return true, if the generated benchmark has the unrolled measurement loops
+     */
+    public boolean hasUnrolledLoops() {
+        return unrolled;
+    }
+
     public void shutdown() {
+        WorkerThreads.clear();
+
         if (EXECUTOR_TYPE.shutdownForbidden() || (executor == null)) {
             return;
         }
@@ -308,6 +320,19 @@ class BenchmarkHandler {
      * @return IterationResult
      */
     public IterationResult runIteration(BenchmarkParams benchmarkParams, IterationParams params, boolean last) {
+        return runIteration(benchmarkParams, params, last, 1);
+    }
+
+    /**
+     * Runs an iteration on the handled benchmark.
+     *
+     * @param benchmarkParams Benchmark parameters
+     * @param params  Iteration parameters
+     * @param last    Should this iteration considered to be the last
+     * @param unroll  Number of @Benchmark invocations between the checks for the iteration end
+     * @return IterationResult
+     */
+    public IterationResult runIteration(BenchmarkParams benchmarkParams, IterationParams params, boolean last, int unroll) {
         int numThreads = benchmarkParams.getThreads();
         TimeValue runtime = params.getTime();
 
@@ -319,7 +344,7 @@ class BenchmarkHandler {
 
         InfraControl control = new InfraControl(benchmarkParams, params,
                 preSetupBarrier, preTearDownBarrier, last,
-                new Control());
+                new Control(), unroll);
 
         // preparing the worker runnables
         BenchmarkTask[] runners = new BenchmarkTask[numThreads];
@@ -342,6 +367,7 @@ class BenchmarkHandler {
 
         // wait for all workers to transit to measurement
         control.awaitWarmupReady();
+        WorkerThreads.announceMeasurementStarted();
 
         // wait for the iteration time to expire
         switch (benchmarkParams.getMode()) {
@@ -368,6 +394,7 @@ class BenchmarkHandler {
 
         // wait for all workers to transit to teardown
         control.awaitWarmdownReady();
+        WorkerThreads.announceMeasurementStopped();
 
         // Wait for the result, handling timeouts
         while (completed.size() < numThreads) {
@@ -417,8 +444,20 @@ class BenchmarkHandler {
             }
         }
 
-        IterationResult result = new IterationResult(benchmarkParams, params, new IterationResultMetaData(allOps, measuredOps));
+        long[] threadMeasuredOps = new long[numThreads];
+        for (BenchmarkTask task : runners) {
+            int idx = task.threadIndex;
+            if (idx >= 0 && idx < numThreads) {
+                threadMeasuredOps[idx] = task.measuredOps;
+            }
+        }
+
+        IterationResult result = new IterationResult(benchmarkParams, params, new IterationResultMetaData(allOps, measuredOps, threadMeasuredOps));
         result.addResults(iterationResults);
+        if (benchmarkParams.getMode() == Mode.Throughput && errors.isEmpty() &&
+                control.pipeline != null && control.pipeline.isDeclared()) {
+            result.addResults(PipelineBacklog.results(benchmarkParams, result));
+        }
 
         // profilers stop when after all threads are confirmed to be
         // finished to capture the edge behaviors; or, on a failure path
@@ -436,6 +475,8 @@ class BenchmarkHandler {
      */
     class BenchmarkTask implements Callable<BenchmarkTaskResult> {
         private volatile Thread runner;
+        private volatile int threadIndex = -1;
+        private volatile long measuredOps;
         private final InfraControl control;
 
         BenchmarkTask(InfraControl control) {
@@ -450,7 +491,12 @@ class BenchmarkHandler {
 
                 // go for the run
                 ThreadData td = threadData.get();
-                return (BenchmarkTaskResult) method.invoke(td.instance, control, td.params);
+                WorkerThreads.register(runner, td.params);
+                threadIndex = td.params.getThreadIndex();
+
+                BenchmarkTaskResult result = (BenchmarkTaskResult) method.invoke(td.instance, control, td.params);
+                measuredOps = result.getMeasuredOps();
+                return result;
             } catch (Throwable e) {
                 // about to fail the iteration;
 
@@ -28,6 +28,7 @@ import org.openjdk.jmh.runner.format.OutputFormat;
 import org.openjdk.jmh.util.FileUtils;
 
 import java.io.*;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -40,6 +41,11 @@ public class BenchmarkList extends AbstractResourceReader {
     /** Location of the pre-compiled list of micro benchmarks */
     public static final String BENCHMARK_LIST = "/META-INF/BenchmarkList";
 
+    static final String INDEX_SUFFIX = ".idx";
+
+    /** Location of the index for pre-compiled list, see {@link BenchmarkListIndex} */
+    public static final String BENCHMARK_LIST_INDEX = BENCHMARK_LIST + INDEX_SUFFIX;
+
     public static BenchmarkList defaultList() {
         return fromResource(BENCHMARK_LIST);
     }
@@ -75,6 +81,20 @@ public class BenchmarkList extends AbstractResourceReader {
         }
     }
 
+    /**
+     * Writes the index for the benchmark list with the same entries.
+     * Must be called with the same entries as {@link #writeBenchmarkList(OutputStream, Collection)}.
+     *
+     * @param stream stream to write to
+     * @param entries benchmark list entries
+     * @throws IOException if write fails
+     */
+    public static void writeBenchmarkListIndex(OutputStream stream, Collection<BenchmarkListEntry> entries) throws IOException {
+        try (OutputStream os = stream) {
+            BenchmarkListIndex.write(os, entries);
+        }
+    }
+
     private BenchmarkList(String file, String resource, String strings) {
         super(file, resource, strings);
     }
@@ -107,68 +127,33 @@ public class BenchmarkList extends AbstractResourceReader {
         }
 
         // compile all patterns
-        List<Pattern> includePatterns = new ArrayList<>(regexps.size());
+        List<NameMatcher> includePatterns = new ArrayList<>(regexps.size());
         for (String regexp : regexps) {
-            includePatterns.add(Pattern.compile(regexp));
+            includePatterns.add(NameMatcher.of(regexp));
         }
-        List<Pattern> excludePatterns = new ArrayList<>(excludes.size());
+        List<NameMatcher> excludePatterns = new ArrayList<>(excludes.size());
         for (String regexp : excludes) {
-            excludePatterns.add(Pattern.compile(regexp));
+            excludePatterns.add(NameMatcher.of(regexp));
         }
 
         // find all benchmarks containing pattern
         SortedSet<BenchmarkListEntry> result = new TreeSet<>();
         try {
-            for (Reader r : getReaders()) {
-                BufferedReader reader = null;
-                try {
-                    reader = new BufferedReader(r);
-
-                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                        if (line.startsWith("#")) {
-                            continue;
-                        }
-
-                        if (line.trim().isEmpty()) {
-                            continue;
-                        }
-
-                        BenchmarkListEntry br = new BenchmarkListEntry(line);
-
-                        for (Pattern pattern : includePatterns) {
-                            if (pattern.matcher(br.getUsername()).find()) {
-                                boolean exclude = false;
-
-                                // excludes override
-                                for (Pattern excludePattern : excludePatterns) {
-                                    if (excludePattern.matcher(br.getUsername()).find()) {
-                                        out.verbosePrintln("Excluding " + br.getUsername() + ", matches " + excludePattern);
-
-                                        exclude = true;
-                                        break;
-                                    }
-                                }
-
-                                if (!exclude) {
-                                    result.add(br);
-                                }
-                                break;
-                            } else {
-                                out.verbosePrintln("Excluding: " + br.getUsername() + ", does not match " + pattern);
-                            }
-                        }
-                    }
-                } finally {
-                    if (reader != null) {
-                        try {
-                            reader.close();
-                        } catch (IOException e) {
-                            // ignore
-                        }
+            List<URL> urls = getResourceURLs();
+            if (urls == null) {
+                for (Reader r : getReaders()) {
+                    findInList(out, r, includePatterns, excludePatterns, result);
+                }
+            } else {
+                for (URL url : urls) {
+                    BenchmarkListIndex index = BenchmarkListIndex.forList(url);
+                    if (index != null) {
+                        findInIndex(out, index, includePatterns, excludePatterns, result);
+                    } else {
+                        findInList(out, open(url), includePatterns, excludePatterns, result);
                     }
                 }
             }
-
         } catch (IOException ex) {
             throw new RuntimeException("Error reading benchmark list", ex);
         }
@@ -176,4 +161,158 @@ public class BenchmarkList extends AbstractResourceReader {
         return result;
     }
 
+    private static void findInList(OutputFormat out, Reader r, List<NameMatcher> includes, List<NameMatcher> excludes,
+                                   Set<BenchmarkListEntry> result) throws IOException {
+        try (BufferedReader reader = new BufferedReader(r)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                BenchmarkListEntry br = new BenchmarkListEntry(line);
+                if (accept(out, br.getUsername(), includes, excludes)) {
+                    result.add(br);
+                }
+            }
+        }
+    }
+
+    private static void findInIndex(OutputFormat out, BenchmarkListIndex index, List<NameMatcher> includes, List<NameMatcher> excludes,
+                                    Set<BenchmarkListEntry> result) {
+        for (int i = 0; i < index.size(); i++) {
+            if (accept(out, index.getUsername(i), includes, excludes)) {
+                result.add(index.getEntry(i));
+            }
+        }
+    }
+
+    private static boolean accept(OutputFormat out, String username, List<NameMatcher> includes, List<NameMatcher> excludes) {
+        for (NameMatcher pattern : includes) {
+            if (pattern.matches(username)) {
+                // excludes override
+                for (NameMatcher excludePattern : excludes) {
+                    if (excludePattern.matches(username)) {
+                        out.verbosePrintln("Excluding " + username + ", matches " + excludePattern);
+                        return false;
+                    }
+                }
+                return true;
+            } else {
+                out.verbosePrintln("Excluding: " + username + ", does not match " + pattern);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matches benchmark names against include/exclude regexps, the way {@link java.util.regex.Matcher#find()}
+     * does. The regexps that are the plain literals, optionally anchored, or surrounded by ".*", are matched
+     * with plain string operations; other regexps are matched by the regexp engine.
+     */
+    static final class NameMatcher {
+        private final String regexp;
+        private final Pattern pattern;
+        private final String literal;
+        private final boolean anchorStart;
+        private final boolean anchorEnd;
+
+        private NameMatcher(String regexp, Pattern pattern, String literal, boolean anchorStart, boolean anchorEnd) {
+            this.regexp = regexp;
+            this.pattern = pattern;
+            this.literal = literal;
+            this.anchorStart = anchorStart;
+            this.anchorEnd = anchorEnd;
+        }
+
+        static NameMatcher of(String regexp) {
+            // compile anyway, to report the malformed patterns early
+            Pattern pattern = Pattern.compile(regexp);
+
+            String p = regexp;
+            boolean start = false;
+            boolean end = false;
+            if (p.startsWith("^")) {
+                start = true;
+                p = p.substring(1);
+            }
+            if (p.endsWith("$") && !isEscaped(p, p.length() - 1)) {
+                end = true;
+                p = p.substring(0, p.length() - 1);
+            }
+            while (p.startsWith(".*")) {
+                start = false;
+                p = p.substring(2);
+            }
+            while (p.endsWith(".*") && !isEscaped(p, p.length() - 2)) {
+                end = false;
+                p = p.substring(0, p.length() - 2);
+            }
+
+            String literal = unescape(p);
+            if (literal == null) {
+                return new NameMatcher(regexp, pattern, null, false, false);
+            }
+            return new NameMatcher(regexp, null, literal, start, end);
+        }
+
+        private static boolean isEscaped(String s, int idx) {
+            int slashes = 0;
+            for (int i = idx - 1; i >= 0 && s.charAt(i) == '\\'; i--) {
+                slashes++;
+            }
+            return (slashes % 2) == 1;
+        }
+
+        /**
+         * @return the literal string the regexp matches, or null, if regexp is not a plain literal
+         */
+        private static String unescape(String s) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '\\') {
+                    if (i + 1 >= s.length()) {
+                        return null;
+                    }
+                    char n = s.charAt(++i);
+                    // escaped letters and digits are character classes, back references, and the like
+                    if (Character.isLetterOrDigit(n)) {
+                        return null;
+                    }
+                    sb.append(n);
+                } else if (".[]{}()*+?^$|".indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        boolean matches(String name) {
+            if (pattern != null) {
+                return pattern.matcher(name).find();
+            }
+            if (anchorStart && anchorEnd) {
+                return name.equals(literal);
+            }
+            if (anchorStart) {
+                return name.startsWith(literal);
+            }
+            if (anchorEnd) {
+                return name.endsWith(literal);
+            }
+            return name.contains(literal);
+        }
+
+        @Override
+        public String toString() {
+            return regexp;
+        }
+    }
+
 }
@@ -41,28 +41,33 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
     private final String generatedClassQName;
     private final String method;
     private final Mode mode;
-    private final int[] threadGroups;
-    private final Optional<Collection<String>> threadGroupLabels;
-    private final Optional<Integer> threads;
-    private final Optional<Integer> warmupIterations;
-    private final Optional<TimeValue> warmupTime;
-    private final Optional<Integer> warmupBatchSize;
-    private final Optional<Integer> measurementIterations;
-    private final Optional<TimeValue> measurementTime;
-    private final Optional<Integer> measurementBatchSize;
-    private final Optional<Integer> forks;
-    private final Optional<Integer> warmupForks;
-    private final Optional<String> jvm;
-    private final Optional<Collection<String>> jvmArgs;
-    private final Optional<Collection<String>> jvmArgsPrepend;
-    private final Optional<Collection<String>> jvmArgsAppend;
-    private final Optional<Map<String, String[]>> params;
-    private final Optional<TimeUnit> tu;
-    private final Optional<Integer> opsPerInvocation;
-    private final Optional<TimeValue> timeout;
+    private int[] threadGroups;
+    private Optional<Collection<String>> threadGroupLabels;
+    private Optional<Integer> threads;
+    private Optional<Integer> warmupIterations;
+    private Optional<TimeValue> warmupTime;
+    private Optional<Integer> warmupBatchSize;
+    private Optional<Integer> measurementIterations;
+    private Optional<TimeValue> measurementTime;
+    private Optional<Integer> measurementBatchSize;
+    private Optional<Integer> forks;
+    private Optional<Integer> warmupForks;
+    private Optional<String> jvm;
+    private Optional<Collection<String>> jvmArgs;
+    private Optional<Collection<String>> jvmArgsPrepend;
+    private Optional<Collection<String>> jvmArgsAppend;
+    private Optional<Map<String, String[]>> params;
+    private Optional<TimeUnit> tu;
+    private Optional<Integer> opsPerInvocation;
+    private Optional<TimeValue> timeout;
 
     private WorkloadParams workloadParams;
 
+    /**
+     * The line the rest of the fields are yet to be decoded from, or null, if they are decoded.
+     */
+    private String line;
+
     public BenchmarkListEntry(String userClassQName, String generatedClassQName, String method, Mode mode,
                               Optional<Integer> threads, int[] threadGroups, Optional<Collection<String>> threadGroupLabels,
                               Optional<Integer> warmupIterations, Optional<TimeValue> warmupTime, Optional<Integer> warmupBatchSize,
@@ -106,10 +111,41 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
             throw new IllegalStateException("Unable to parse the line: " + line);
         }
 
+        // Only decode the fields needed to identify and sort the entry,
+        // the rest is decoded on the first access.
         this.userClassQName         = reader.nextString();
         this.generatedClassQName    = reader.nextString();
         this.method                 = reader.nextString();
         this.mode                   = Mode.deepValueOf(reader.nextString());
+        this.line                   = line;
+    }
+
+    BenchmarkListEntry(String userClassQName, String generatedClassQName, String method, Mode mode, String line) {
+        this.workloadParams = new WorkloadParams();
+        this.userClassQName = userClassQName;
+        this.generatedClassQName = generatedClassQName;
+        this.method = method;
+        this.mode = mode;
+        this.line = line;
+    }
+
+    private synchronized void decode() {
+        if (line == null) {
+            return;
+        }
+
+        TestLineReader reader = new TestLineReader(line);
+
+        if (!reader.isCorrect()) {
+            throw new IllegalStateException("Unable to parse the line: " + line);
+        }
+
+        // skip the fields decoded already
+        reader.nextString();
+        reader.nextString();
+        reader.nextString();
+        reader.nextString();
+
         this.threads                = reader.nextOptionalInt();
         this.threadGroups           = reader.nextIntArray();
         this.threadGroupLabels      = reader.nextOptionalStringCollection();
@@ -129,9 +165,12 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
         this.tu                     = reader.nextOptionalTimeUnit();
         this.opsPerInvocation       = reader.nextOptionalInt();
         this.timeout                = reader.nextOptionalTimeValue();
+
+        line = null;
     }
 
     public String toLine() {
+        decode();
         TestLineWriter writer = new TestLineWriter();
 
         writer.putString(userClassQName);
@@ -162,6 +201,7 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
     }
 
     public BenchmarkListEntry cloneWith(Mode mode) {
+        decode();
         return new BenchmarkListEntry(userClassQName, generatedClassQName, method, mode,
                 threads, threadGroups, threadGroupLabels,
                 warmupIterations, warmupTime, warmupBatchSize,
@@ -173,6 +213,7 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
     }
 
     public BenchmarkListEntry cloneWith(WorkloadParams p) {
+        decode();
         BenchmarkListEntry br = new BenchmarkListEntry(userClassQName, generatedClassQName, method, mode,
                 threads, threadGroups, threadGroupLabels,
                 warmupIterations, warmupTime, warmupBatchSize,
@@ -244,15 +285,25 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
         return userClassQName;
     }
 
+    String getGeneratedClassQName() {
+        return generatedClassQName;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
     public Mode getMode() {
         return mode;
     }
 
     public int[] getThreadGroups() {
+        decode();
         return Arrays.copyOf(threadGroups, threadGroups.length);
     }
 
     public Optional<Collection<String>> getThreadGroupLabels() {
+        decode();
         return threadGroupLabels;
     }
 
@@ -262,70 +313,87 @@ public class BenchmarkListEntry implements Comparable<BenchmarkListEntry> {
     }
 
     public Optional<TimeValue> getWarmupTime() {
+        decode();
         return warmupTime;
     }
 
     public Optional<Integer> getWarmupIterations() {
+        decode();
         return warmupIterations;
     }
 
     public Optional<Integer> getWarmupBatchSize() {
+        decode();
         return warmupBatchSize;
     }
 
     public Optional<TimeValue> getMeasurementTime() {
+        decode();
         return measurementTime;
     }
 
     public Optional<Integer> getMeasurementIterations() {
+        decode();
         return measurementIterations;
     }
 
     public Optional<Integer> getMeasurementBatchSize() {
+        decode();
         return measurementBatchSize;
     }
 
     public Optional<Integer> getForks() {
+        decode();
         return forks;
     }
 
     public Optional<Integer> getWarmupForks() {
+        decode();
         return warmupForks;
     }
 
     public Optional<String> getJvm() {
+        decode();
         return jvm;
     }
 
     public Optional<Collection<String>> getJvmArgs() {
+        decode();
         return jvmArgs;
     }
 
     public Optional<Collection<String>> getJvmArgsAppend() {
+        decode();
         return jvmArgsAppend;
     }
 
     public Optional<Collection<String>> getJvmArgsPrepend() {
+        decode();
         return jvmArgsPrepend;
     }
 
     public Optional<Integer> getThreads() {
+        decode();
         return threads;
     }
 
     public Optional<Map<String, String[]>> getParams() {
+        decode();
         return params;
     }
 
     public Optional<TimeUnit> getTimeUnit() {
+        decode();
         return tu;
     }
 
     public Optional<Integer> getOperationsPerInvocation() {
+        decode();
         return opsPerInvocation;
     }
 
     public Optional<TimeValue> getTimeout() {
+        decode();
         return timeout;
     }
 
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.annotations.Mode;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Compact indexed form of the benchmark list.
+ *
+ * <p>The index carries the table of all class, method and mode names, and the entry
+ * table that refers to the names and to the entry line offsets in the benchmark list.
+ * This allows to match the benchmark names without parsing the entry lines at all,
+ * and to decode only the lines for the matching entries.</p>
+ *
+ * <p>The index is written next to the benchmark list, and it is only valid for that
+ * particular list: it carries the length and the checksum of the list. Build tools
+ * can merge the benchmark lists from several modules by concatenating them, and
+ * concatenate the indexes as well, or leave the index from only one of them. The reader
+ * therefore treats the index as a sequence of fragments, and matches every fragment
+ * against the next chunk of the list. The part of the list not covered by a matching
+ * fragment is indexed from the list lines themselves. When no fragment matches,
+ * the callers are expected to fall back to the list itself.</p>
+ */
+class BenchmarkListIndex {
+
+    private static final int MAGIC = 0x4A4D4858;
+    private static final int VERSION = 2;
+
+    private final String[] names;
+    private final int[] table;
+    private final byte[] list;
+
+    private BenchmarkListIndex(String[] names, int[] table, byte[] list) {
+        this.names = names;
+        this.table = table;
+        this.list = list;
+    }
+
+    /**
+     * Entry table layout: user class, generated class, method, mode name indices, then line offset and length.
+     */
+    private static final int ENTRY_SIZE = 6;
+
+    public int size() {
+        return table.length / ENTRY_SIZE;
+    }
+
+    public String getUsername(int idx) {
+        int base = idx * ENTRY_SIZE;
+        return names[table[base]] + "." + names[table[base + 2]];
+    }
+
+    public BenchmarkListEntry getEntry(int idx) {
+        int base = idx * ENTRY_SIZE;
+        return new BenchmarkListEntry(
+                names[table[base]],
+                names[table[base + 1]],
+                names[table[base + 2]],
+                Mode.deepValueOf(names[table[base + 3]]),
+                new String(list, table[base + 4], table[base + 5], StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the index for the benchmark list written by {@link BenchmarkList#writeBenchmarkList(OutputStream, Collection)}
+     * for the same entries.
+     *
+     * @param stream stream to write to
+     * @param entries entries
+     * @throws IOException if write fails
+     */
+    public static void write(OutputStream stream, Collection<BenchmarkListEntry> entries) throws IOException {
+        // PrintWriter.println() in writeBenchmarkList is using the same separator
+        byte[] separator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+        Map<String, Integer> nameIdx = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] table = new int[entries.size() * ENTRY_SIZE];
+        int listLength = 0;
+        CRC32 checksum = new CRC32();
+
+        int base = 0;
+        for (BenchmarkListEntry e : entries) {
+            byte[] line = e.toLine().getBytes(StandardCharsets.UTF_8);
+            checksum.update(line);
+            checksum.update(separator);
+            table[base]     = nameIndex(nameIdx, names, e.getUserClassQName());
+            table[base + 1] = nameIndex(nameIdx, names, e.getGeneratedClassQName());
+            table[base + 2] = nameIndex(nameIdx, names, e.getMethod());
+            table[base + 3] = nameIndex(nameIdx, names, e.getMode().toString());
+            table[base + 4] = listLength;
+            table[base + 5] = line.length;
+            listLength += line.length + separator.length;
+            base += ENTRY_SIZE;
+        }
+
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(stream));
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(listLength);
+        dos.writeLong(checksum.getValue());
+        dos.writeInt(names.size());
+        for (String name : names) {
+            dos.writeUTF(name);
+        }
+        dos.writeInt(entries.size());
+        for (int v : table) {
+            dos.writeInt(v);
+        }
+        dos.flush();
+    }
+
+    private static int nameIndex(Map<String, Integer> nameIdx, List<String> names, String name) {
+        Integer idx = nameIdx.get(name);
+        if (idx == null) {
+            idx = names.size();
+            names.add(name);
+            nameIdx.put(name, idx);
+        }
+        return idx;
+    }
+
+    /**
+     * Reads the index.
+     *
+     * @param stream stream to read from
+     * @param list the contents of the benchmark list this index is expected to describe
+     * @return index, or null, if index is not recognized, or none of its fragments describe the list
+     * @throws IOException if read fails
+     */
+    public static BenchmarkListIndex read(InputStream stream, byte[] list) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(stream));
+
+        Map<String, Integer> nameIdx = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        List<int[]> table = new ArrayList<>();
+
+        int offset = 0;
+        boolean matched = false;
+        try {
+            while (true) {
+                if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+                    break;
+                }
+                int length = dis.readInt();
+                long checksum = dis.readLong();
+
+                String[] fragNames = new String[dis.readInt()];
+                for (int i = 0; i < fragNames.length; i++) {
+                    fragNames[i] = dis.readUTF();
+                }
+
+                int[] fragTable = new int[dis.readInt() * ENTRY_SIZE];
+                for (int i = 0; i < fragTable.length; i++) {
+                    fragTable[i] = dis.readInt();
+                }
+
+                // Concatenation may leave the blank lines between the fragments.
+                while (offset < list.length && (list[offset] == '\n' || list[offset] == '\r')) {
+                    offset++;
+                }
+
+                if (!matches(list, offset, length, checksum)) {
+                    // The rest of the list is not aligned with the index anymore.
+                    break;
+                }
+
+                for (int base = 0; base < fragTable.length; base += ENTRY_SIZE) {
+                    table.add(new int[]{
+                            nameIndex(nameIdx, names, fragNames[fragTable[base]]),
+                            nameIndex(nameIdx, names, fragNames[fragTable[base + 1]]),
+                            nameIndex(nameIdx, names, fragNames[fragTable[base + 2]]),
+                            nameIndex(nameIdx, names, fragNames[fragTable[base + 3]]),
+                            offset + fragTable[base + 4],
+                            fragTable[base + 5],
+                    });
+                }
+                offset += length;
+                matched = true;
+            }
+        } catch (EOFException e) {
+            // no more fragments
+        }
+
+        if (!matched) {
+            return null;
+        }
+
+        indexLines(list, offset, nameIdx, names, table);
+
+        int[] flatTable = new int[table.size() * ENTRY_SIZE];
+        for (int i = 0; i < table.size(); i++) {
+            System.arraycopy(table.get(i), 0, flatTable, i * ENTRY_SIZE, ENTRY_SIZE);
+        }
+        return new BenchmarkListIndex(names.toArray(new String[0]), flatTable, list);
+    }
+
+    private static boolean matches(byte[] list, int offset, int length, long checksum) {
+        if (length < 0 || length > list.length - offset) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(list, offset, length);
+        return crc.getValue() == checksum;
+    }
+
+    /**
+     * Indexes the list lines past the given offset, skipping the comments and the blank lines,
+     * as {@link BenchmarkList} does when reading the list itself.
+     */
+    private static void indexLines(byte[] list, int offset, Map<String, Integer> nameIdx, List<String> names, List<int[]> table) {
+        int start = offset;
+        while (start < list.length) {
+            int end = start;
+            while (end < list.length && list[end] != '\n') {
+                end++;
+            }
+            int len = end - start;
+            if (len > 0 && list[start + len - 1] == '\r') {
+                len--;
+            }
+
+            String line = new String(list, start, len, StandardCharsets.UTF_8);
+            if (!line.startsWith("#") && !line.trim().isEmpty()) {
+                BenchmarkListEntry e = new BenchmarkListEntry(line);
+                table.add(new int[]{
+                        nameIndex(nameIdx, names, e.getUserClassQName()),
+                        nameIndex(nameIdx, names, e.getGeneratedClassQName()),
+                        nameIndex(nameIdx, names, e.getMethod()),
+                        nameIndex(nameIdx, names, e.getMode().toString()),
+                        start,
+                        len,
+                });
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Reads the index for the benchmark list at given URL.
+     *
+     * @param listURL benchmark list URL
+     * @return index, or null, if index is not available, or not consistent with the list
+     */
+    public static BenchmarkListIndex forList(URL listURL) {
+        try {
+            byte[] list;
+            try (InputStream is = listURL.openStream()) {
+                list = readFully(is);
+            }
+
+            URL indexURL = new URL(listURL.toString() + BenchmarkList.INDEX_SUFFIX);
+            try (InputStream is = indexURL.openStream()) {
+                return read(is, list);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[65536];
+        int read;
+        while ((read = is.read(buf)) != -1) {
+            bos.write(buf, 0, read);
+        }
+        return bos.toByteArray();
+    }
+
+}
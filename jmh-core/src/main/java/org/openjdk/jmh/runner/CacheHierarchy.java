@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Data cache hierarchy of the host, as reported by sysfs for the first CPU.
+ *
+ * <p>Used to generate the working set sizes for the cache sweep: every cache level
+ * gets the points at half its size, its size, and twice its size, so that the
+ * boundary is straddled from both sides; the last point is well beyond the last
+ * level cache, in DRAM. Instruction caches are ignored.</p>
+ */
+final class CacheHierarchy {
+
+    /**
+     * The last sweep point, relative to the last level cache size.
+     */
+    static final int DRAM_FACTOR = 4;
+
+    private static final Pattern INDEX_DIR = Pattern.compile("index[0-9]+");
+    private static final Pattern SIZE = Pattern.compile("([0-9]+)\\s*([KMG]?)");
+
+    private final SortedMap<Integer, Long> levels;
+
+    CacheHierarchy(SortedMap<Integer, Long> levels) {
+        this.levels = levels;
+    }
+
+    /**
+     * Reads the cache hierarchy from the sysfs tree.
+     *
+     * @param sysRoot sysfs root, usually "/sys"
+     * @return cache hierarchy, or null if sysfs does not describe the data caches
+     */
+    static CacheHierarchy read(File sysRoot) {
+        File[] dirs = new File(sysRoot, "devices/system/cpu/cpu0/cache").listFiles();
+        if (dirs == null) {
+            return null;
+        }
+
+        SortedMap<Integer, Long> levels = new TreeMap<>();
+        for (File d : dirs) {
+            if (!INDEX_DIR.matcher(d.getName()).matches()) {
+                continue;
+            }
+            String type = readLine(new File(d, "type"));
+            String level = readLine(new File(d, "level"));
+            long size = parseSize(readLine(new File(d, "size")));
+            if (type == null || level == null || size <= 0 || type.equals("Instruction")) {
+                continue;
+            }
+            try {
+                int l = Integer.parseInt(level);
+                Long prev = levels.get(l);
+                if (prev == null || prev < size) {
+                    levels.put(l, size);
+                }
+            } catch (NumberFormatException e) {
+                // skip
+            }
+        }
+
+        if (levels.isEmpty()) {
+            return null;
+        }
+        return new CacheHierarchy(levels);
+    }
+
+    /**
+     * Parses the sysfs cache size, e.g. "48K".
+     *
+     * @param size size string
+     * @return size in bytes, or -1 if size is not recognized
+     */
+    static long parseSize(String size) {
+        if (size == null) {
+            return -1;
+        }
+        Matcher m = SIZE.matcher(size.trim());
+        if (!m.matches()) {
+            return -1;
+        }
+        long v = Long.parseLong(m.group(1));
+        switch (m.group(2)) {
+            case "K":
+                return v * 1024;
+            case "M":
+                return v * 1024 * 1024;
+            case "G":
+                return v * 1024 * 1024 * 1024;
+            default:
+                return v;
+        }
+    }
+
+    /**
+     * @return cache sizes in bytes, keyed by cache level
+     */
+    public SortedMap<Integer, Long> getLevels() {
+        return Collections.unmodifiableSortedMap(levels);
+    }
+
+    /**
+     * @return working set sizes in bytes, in ascending order
+     */
+    public SortedSet<Long> sweepSizes() {
+        SortedSet<Long> sizes = new TreeSet<>();
+        for (long size : levels.values()) {
+            sizes.add(size / 2);
+            sizes.add(size);
+            sizes.add(size * 2);
+        }
+        sizes.add(levels.get(levels.lastKey()) * DRAM_FACTOR);
+        return sizes;
+    }
+
+    /**
+     * @param bytes working set size
+     * @return the smallest level the working set fits in, e.g. "L2"; "DRAM" if it fits no cache
+     */
+    public String levelOf(long bytes) {
+        for (Map.Entry<Integer, Long> e : levels.entrySet()) {
+            if (bytes <= e.getValue()) {
+                return "L" + e.getKey();
+            }
+        }
+        return "DRAM";
+    }
+
+    @Override
+    public String toString() {
+        List<String> ls = new ArrayList<>();
+        for (Map.Entry<Integer, Long> e : levels.entrySet()) {
+            ls.add("L" + e.getKey() + " " + formatSize(e.getValue()));
+        }
+        return Utils.join(ls, ", ");
+    }
+
+    /**
+     * @param bytes size in bytes
+     * @return human-readable size, e.g. "48K"
+     */
+    static String formatSize(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024 && bytes % (1024L * 1024 * 1024) == 0) {
+            return (bytes / (1024L * 1024 * 1024)) + "G";
+        }
+        if (bytes >= 1024L * 1024 && bytes % (1024L * 1024) == 0) {
+            return (bytes / (1024L * 1024)) + "M";
+        }
+        if (bytes >= 1024L && bytes % 1024L == 0) {
+            return (bytes / 1024L) + "K";
+        }
+        return String.valueOf(bytes);
+    }
+
+    private static String readLine(File file) {
+        try {
+            Collection<String> lines = FileUtils.readAllLines(file);
+            if (!lines.isEmpty()) {
+                return lines.iterator().next().trim();
+            }
+        } catch (IOException e) {
+            // fall through
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.util.HotspotPerfData;
+import org.openjdk.jmh.util.Utils;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Tracks JIT compiler activity in this VM.
+ *
+ * <p>The activity is detected through the total compilation time in {@link CompilationMXBean},
+ * and, if the HotSpot performance data is available, through compiler counters: compilations,
+ * OSR compilations, bailouts, and invalidations of compiled code that cause deoptimizations.</p>
+ */
+class CompilationActivity {
+
+    private static final String[] COUNTERS = {
+            "sun.ci.totalCompiles",
+            "sun.ci.osrCompiles",
+            "sun.ci.totalBailouts",
+            "sun.ci.totalInvalidates",
+    };
+
+    private final CompilationMXBean compilation;
+    private final ByteBuffer perfData;
+
+    private long lastTime;
+    private long lastEvents;
+
+    CompilationActivity() {
+        CompilationMXBean bean = ManagementFactory.getCompilationMXBean();
+        compilation = (bean != null && bean.isCompilationTimeMonitoringSupported()) ? bean : null;
+
+        ByteBuffer buf;
+        try {
+            buf = HotspotPerfData.map(HotspotPerfData.file(HotspotPerfData.defaultDirectory(), Utils.getPid()));
+            if (HotspotPerfData.decode(buf) == null) {
+                buf = null;
+            }
+        } catch (IOException | IllegalStateException e) {
+            buf = null;
+        }
+        perfData = buf;
+
+        lastTime = compilationTime();
+        lastEvents = compilationEvents();
+    }
+
+    /**
+     * @return true, if JIT activity can be detected at all
+     */
+    boolean isAvailable() {
+        return compilation != null || perfData != null;
+    }
+
+    /**
+     * @return true, if there was any JIT activity since the last call
+     */
+    boolean hadActivity() {
+        long time = compilationTime();
+        long events = compilationEvents();
+        boolean active = (time != lastTime) || (events != lastEvents);
+        lastTime = time;
+        lastEvents = events;
+        return active;
+    }
+
+    private long compilationTime() {
+        return (compilation != null) ? compilation.getTotalCompilationTime() : 0;
+    }
+
+    private long compilationEvents() {
+        if (perfData == null) {
+            return 0;
+        }
+        Map<String, HotspotPerfData.Counter> counters = HotspotPerfData.decode(perfData);
+        if (counters == null) {
+            return 0;
+        }
+        long sum = 0;
+        for (String name : COUNTERS) {
+            HotspotPerfData.Counter c = counters.get(name);
+            if (c != null) {
+                sum += c.getValue();
+            }
+        }
+        return sum;
+    }
+
+}
@@ -25,6 +25,7 @@
 package org.openjdk.jmh.runner;
 
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.options.TimeValue;
 import org.openjdk.jmh.runner.options.VerboseMode;
@@ -47,6 +48,17 @@ public class Defaults {
      */
     public static final int WARMUP_ITERATIONS_SINGLESHOT = 0;
 
+    /**
+     * Number of consecutive warmup iterations without JIT compilation events, after which
+     * the warmup is considered done; 0 means warmup runs the fixed number of iterations.
+     */
+    public static final int WARMUP_QUIET_ITERATIONS = 0;
+
+    /**
+     * Maximum number of warmup iterations, when warmup waits for JIT to go quiet.
+     */
+    public static final int WARMUP_QUIET_LIMIT = 100;
+
     /**
      * The batch size in warmup mode.
      */
@@ -92,6 +104,11 @@ public class Defaults {
      */
     public static final int WARMUP_FORKS = 0;
 
+    /**
+     * Minimal number of forks in every fork mode; 0 means no additional forks are made.
+     */
+    public static final int MIN_FORKS_PER_MODE = 0;
+
     /**
      * Should JMH fail on benchmark error?
      */
@@ -147,6 +164,11 @@ public class Defaults {
      */
     public static final TimeValue TIMEOUT = TimeValue.minutes(10);
 
+    /**
+     * Default estimator for the aggregated scores.
+     */
+    public static final ScoreEstimator SCORE_ESTIMATOR = ScoreEstimator.MEAN;
+
     /**
      * Default benchmarks to include.
      */
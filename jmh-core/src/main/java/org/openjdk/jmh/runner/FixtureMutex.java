@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Mutexes guarding the fixture methods of the shared states. The thread that
+ * acquires the mutex runs the fixture and releases the mutex; other threads
+ * wait for the release, bailing out if the benchmark is failing.
+ */
+public final class FixtureMutex {
+
+    private FixtureMutex() {
+        // prevent instantiation
+    }
+
+    /**
+     * Acquires the mutex, or waits until the other thread releases it.
+     *
+     * @param control infra control
+     * @param mutex mutex updater
+     * @param state state object
+     * @param <T> state object type
+     * @return true, if mutex is acquired, and caller should release it
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> boolean acquire(InfraControl control, AtomicIntegerFieldUpdater<T> mutex, T state) throws InterruptedException {
+        if (mutex.compareAndSet(state, 0, 1)) {
+            return true;
+        }
+        while (mutex.get(state) == 1) {
+            if (control.isFailing) throw new FailureAssistException();
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        return false;
+    }
+
+    /**
+     * Acquires the mutex, or waits until the other thread releases it, exponentially
+     * backing off while waiting. We don't need to actively busy-wait for Trial
+     * fixtures, they are way past the measurement window.
+     *
+     * @param control infra control
+     * @param mutex mutex updater
+     * @param state state object
+     * @param <T> state object type
+     * @return true, if mutex is acquired, and caller should release it
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> boolean acquireWithBackoff(InfraControl control, AtomicIntegerFieldUpdater<T> mutex, T state) throws InterruptedException {
+        if (mutex.compareAndSet(state, 0, 1)) {
+            return true;
+        }
+        long backoff = 1;
+        while (mutex.get(state) == 1) {
+            TimeUnit.MILLISECONDS.sleep(backoff);
+            backoff = Math.min(1024, backoff * 2);
+            if (control.isFailing) throw new FailureAssistException();
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        return false;
+    }
+
+}
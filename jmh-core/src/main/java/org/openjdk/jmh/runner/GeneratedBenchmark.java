@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.BenchmarkTaskResult;
+import org.openjdk.jmh.results.RawResults;
+
+/**
+ * Base class for the generated benchmark classes. Holds the per-thread
+ * infrastructure objects and the control flow that is the same for every
+ * benchmark, so that the generated code only carries the specialized parts.
+ *
+ * <p>Measurement loops are still generated for every benchmark: they should be
+ * compiled separately with the benchmark code inlined into them.</p>
+ */
+public abstract class GeneratedBenchmark {
+
+    boolean p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    boolean p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    boolean p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    boolean p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    boolean p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+    boolean p080, p081, p082, p083, p084, p085, p086, p087, p088, p089, p090, p091, p092, p093, p094, p095;
+    boolean p096, p097, p098, p099, p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111;
+    boolean p112, p113, p114, p115, p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127;
+    boolean p128, p129, p130, p131, p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143;
+    boolean p144, p145, p146, p147, p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159;
+    boolean p160, p161, p162, p163, p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175;
+    boolean p176, p177, p178, p179, p180, p181, p182, p183, p184, p185, p186, p187, p188, p189, p190, p191;
+    boolean p192, p193, p194, p195, p196, p197, p198, p199, p200, p201, p202, p203, p204, p205, p206, p207;
+    boolean p208, p209, p210, p211, p212, p213, p214, p215, p216, p217, p218, p219, p220, p221, p222, p223;
+    boolean p224, p225, p226, p227, p228, p229, p230, p231, p232, p233, p234, p235, p236, p237, p238, p239;
+    boolean p240, p241, p242, p243, p244, p245, p246, p247, p248, p249, p250, p251, p252, p253, p254, p255;
+    protected int startRndMask;
+
+    /**
+     * Marks the generated classes that carry the unrolled measurement loops.
+     *
+     * @see org.openjdk.jmh.annotations.UnrollLoops
+     */
+    public interface Unrolled {
+    }
+
+    protected BenchmarkParams benchmarkParams;
+    protected IterationParams iterationParams;
+    protected ThreadParams threadParams;
+    protected Blackhole blackhole;
+    protected Control notifyControl;
+
+    /**
+     * Captures the infrastructure objects for the current iteration.
+     *
+     * @param control infra control
+     * @param threadParams thread params
+     */
+    protected final void prepare(InfraControl control, ThreadParams threadParams) {
+        this.benchmarkParams = control.benchmarkParams;
+        this.iterationParams = control.iterationParams;
+        this.threadParams    = threadParams;
+        this.notifyControl   = control.notifyControl;
+        if (this.blackhole == null) {
+            this.blackhole = new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+        }
+    }
+
+    /**
+     * Finishes the iteration.
+     */
+    protected final void complete() {
+        this.blackhole.evaporate("Yes, I am Stephen Hawking, and know a thing or two about black holes.");
+    }
+
+    /**
+     * Builds the task result for the modes that count every @Benchmark invocation,
+     * and adjusts the operation counts in place.
+     *
+     * @param res raw results; measuredOps count the individual @Benchmark invocations
+     * @param batchSize batch size
+     * @param opsPerInv operations per invocation
+     * @return task result
+     */
+    protected static BenchmarkTaskResult invocationsResult(RawResults res, int batchSize, int opsPerInv) {
+        /*
+           Adjust the operation counts:
+              1) res.measuredOps counted the individual @Benchmark invocations. Therefore, we need
+                 to adjust for opsPerInv (pretending each @Benchmark invocation counts as $opsPerInv ops);
+                 and we need to adjust down for $batchSize (pretending we had the batched run, and $batchSize
+                 @Benchmark invocations counted as single op);
+              2) res.allOps counted the individual @Benchmark invocations as well; the same reasoning applies.
+
+           It's prudent to make the multiplication first to get more accuracy.
+         */
+        res.allOps += res.measuredOps;
+        res.allOps *= opsPerInv;
+        res.allOps /= batchSize;
+        res.measuredOps *= opsPerInv;
+        res.measuredOps /= batchSize;
+        return new BenchmarkTaskResult(res.allOps, res.measuredOps);
+    }
+
+    /**
+     * Builds the task result for the modes that count the batches,
+     * and adjusts the operation counts in place.
+     *
+     * @param res raw results; measuredOps count the batches
+     * @param batchSize batch size
+     * @param opsPerInv operations per invocation
+     * @return task result
+     */
+    protected static BenchmarkTaskResult batchesResult(RawResults res, int batchSize, long opsPerInv) {
+        /*
+           Adjust the operation counts:
+              1) res.measuredOps counted the batched @Benchmark invocations. Therefore, we need only
+                 to adjust for opsPerInv (pretending each @Benchmark invocation counts as $opsPerInv ops);
+              2) res.allOps counted the individual @Benchmark invocations; to it needs the adjustment for $batchSize.
+
+           It's prudent to make the multiplication first to get more accuracy.
+         */
+        res.allOps += res.measuredOps * batchSize;
+        res.allOps *= opsPerInv;
+        res.allOps /= batchSize;
+        res.measuredOps *= opsPerInv;
+        return new BenchmarkTaskResult(res.allOps, res.measuredOps);
+    }
+
+    /**
+     * Builds the task result for the single shot mode.
+     *
+     * @param opsPerInv operations per invocation
+     * @return task result
+     */
+    protected static BenchmarkTaskResult singleShotResult(int opsPerInv) {
+        /*
+         * Adjust total ops:
+         *   Single shot always does single op.  Therefore, we need to adjust for $opsPerInv (pretending each @Benchmark
+         *   invocation counts as $opsPerInv ops). We *don't need* to adjust down for $batchSize, because we always have
+         *   one "op".
+         */
+        long totalOps = opsPerInv;
+        return new BenchmarkTaskResult(totalOps, totalOps);
+    }
+
+}
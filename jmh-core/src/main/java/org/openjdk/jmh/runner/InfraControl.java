@@ -52,13 +52,14 @@ public class InfraControl extends InfraControlL4 {
         Utils.check(InfraControl.class, "warmupShouldWait", "warmdownShouldWait");
         Utils.check(InfraControl.class, "warmupDone", "warmdownDone");
         Utils.check(InfraControl.class, "benchmarkParams", "iterationParams");
+        Utils.check(InfraControl.class, "unroll", "pipeline");
         Utils.check(InfraControl.class, "shouldSynchIterations", "threads");
     }
 
     public InfraControl(BenchmarkParams benchmarkParams, IterationParams iterationParams,
                         CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration,
-                        Control notifyControl) {
-        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, notifyControl);
+                        Control notifyControl, int unroll) {
+        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, notifyControl, unroll);
     }
 
     /**
@@ -159,12 +160,23 @@ abstract class InfraControlL2 extends InfraControlL1 {
     public final IterationParams iterationParams;
     public final Control notifyControl;
 
+    /**
+     * Number of @Benchmark invocations between the {@link #isDone} checks
+     * in the measurement loop, for the modes that support unrolling.
+     */
+    public final int unroll;
+
+    /**
+     * Backlog between the pipeline stages, for @Group benchmarks; null otherwise.
+     */
+    public final PipelineBacklog pipeline;
+
     private final boolean shouldSynchIterations;
     private final int threads;
 
     public InfraControlL2(BenchmarkParams benchmarkParams, IterationParams iterationParams,
                           CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration,
-                          Control notifyControl) {
+                          Control notifyControl, int unroll) {
         warmupVisited = new AtomicInteger();
         warmdownVisited = new AtomicInteger();
 
@@ -184,6 +196,10 @@ abstract class InfraControlL2 extends InfraControlL1 {
         this.lastIteration = lastIteration;
         this.benchmarkParams = benchmarkParams;
         this.iterationParams = iterationParams;
+        this.unroll = unroll;
+
+        int subgroups = benchmarkParams.getThreadGroups().length;
+        this.pipeline = (subgroups > 1) ? new PipelineBacklog(subgroups) : null;
     }
 
     public void announceWarmupReady() {
@@ -263,8 +279,8 @@ abstract class InfraControlL3 extends InfraControlL2 {
 
     public InfraControlL3(BenchmarkParams benchmarkParams, IterationParams iterationParams,
                           CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration,
-                          Control notifyControl) {
-        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, notifyControl);
+                          Control notifyControl, int unroll) {
+        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, notifyControl, unroll);
     }
 }
 
@@ -273,8 +289,8 @@ abstract class InfraControlL4 extends InfraControlL3 {
 
     public InfraControlL4(BenchmarkParams benchmarkParams, IterationParams iterationParams,
                           CountDownLatch preSetup, CountDownLatch preTearDown, boolean lastIteration,
-                          Control notifyControl) {
-        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, notifyControl);
+                          Control notifyControl, int unroll) {
+        super(benchmarkParams, iterationParams, preSetup, preTearDown, lastIteration, notifyControl, unroll);
     }
 }
 
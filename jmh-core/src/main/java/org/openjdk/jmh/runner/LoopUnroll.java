@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calibrates the unroll factor of the measurement loop during warmup.
+ *
+ * <p>Warmup iterations alternate between the plain loop, which checks for the iteration
+ * end after every call, and the loop unrolled with the candidate factor. The candidate
+ * factor is picked so that one unrolled pass takes about {@link #TARGET_PASS_NS}. The best
+ * plain and the best unrolled warmup iterations decide: if the unrolled loop is faster,
+ * the difference is the loop overhead correction, and the candidate factor is used for
+ * measurement. Taking the minimums over all pairs keeps the earlier, less warmed up,
+ * plain iterations from inflating the correction. Each loop gets about a half of the
+ * warmup. The correction is only reported, it is not subtracted from the score.</p>
+ *
+ * <p>Only the benchmarks annotated with {@link org.openjdk.jmh.annotations.UnrollLoops}
+ * have the unrolled loops generated.</p>
+ */
+class LoopUnroll {
+
+    /**
+     * Desired duration of a single pass of the unrolled loop. The isDone check is
+     * amortized over this time, and the iteration end is overshot by at most this time.
+     */
+    static final double TARGET_PASS_NS = 64;
+
+    /**
+     * Maximum unroll factor.
+     */
+    static final int MAX_UNROLL = 256;
+
+    private final BenchmarkParams params;
+
+    private double plainNs = Double.NaN;
+    private double unrolledNs = Double.NaN;
+    private int candidate = 1;
+    private boolean lastUnrolled = true;
+
+    LoopUnroll(BenchmarkParams params) {
+        this.params = params;
+    }
+
+    static boolean isSupported(Mode mode) {
+        return mode == Mode.Throughput || mode == Mode.AverageTime;
+    }
+
+    /**
+     * @return unroll factor for the next warmup iteration
+     */
+    int nextWarmup() {
+        if (lastUnrolled || Double.isNaN(plainNs)) {
+            return 1;
+        }
+        int factor = factorFor(plainNs);
+        if (factor != candidate) {
+            // unrolled results for the other factor are not comparable
+            candidate = factor;
+            unrolledNs = Double.NaN;
+        }
+        return candidate;
+    }
+
+    /**
+     * Accepts the result of the warmup iteration.
+     *
+     * @param unroll unroll factor the iteration ran with
+     * @param ir iteration result
+     */
+    void accept(int unroll, IterationResult ir) {
+        double ns = nanosPerCall(ir);
+        if (unroll > 1) {
+            if (unroll == candidate) {
+                unrolledNs = min(unrolledNs, ns);
+            }
+            lastUnrolled = true;
+        } else {
+            plainNs = min(plainNs, ns);
+            lastUnrolled = false;
+        }
+    }
+
+    private static double min(double best, double ns) {
+        return (Double.isNaN(best) || ns < best) ? ns : best;
+    }
+
+    /**
+     * @return true, if there were both plain and unrolled warmup iterations
+     */
+    boolean isCalibrated() {
+        return !Double.isNaN(plainNs) && !Double.isNaN(unrolledNs);
+    }
+
+    /**
+     * @return unroll factor for the measurement
+     */
+    int getFactor() {
+        return (getOverhead() > 0) ? candidate : 1;
+    }
+
+    /**
+     * @return loop overhead, removed by unrolling, ns per call; 0, if unrolling does not help
+     */
+    double getOverhead() {
+        if (!isCalibrated()) {
+            return 0;
+        }
+        return Math.max(0, plainNs - unrolledNs);
+    }
+
+    /**
+     * @return duration of the call in the best plain warmup iteration, ns
+     */
+    double getPlainNanos() {
+        return plainNs;
+    }
+
+    /**
+     * @return secondary results that report the calibration
+     */
+    Collection<? extends Result> getResults() {
+        Collection<Result> results = new ArrayList<>();
+        results.add(new ScalarResult(Defaults.PREFIX + "unroll", getFactor(), "calls", AggregationPolicy.MAX));
+        results.add(new ScalarResult(Defaults.PREFIX + "unroll.overhead", getOverhead(), "ns/call", AggregationPolicy.AVG));
+        return results;
+    }
+
+    static int factorFor(double nsPerCall) {
+        if (!(nsPerCall > 0)) {
+            return 1;
+        }
+        int factor = 1;
+        while (factor < MAX_UNROLL && (factor * 2) * nsPerCall <= TARGET_PASS_NS) {
+            factor *= 2;
+        }
+        return factor;
+    }
+
+    /**
+     * Converts the primary score to the time of a single @Benchmark call in a single thread.
+     * The score counts batches as operations, and each call does opsPerInvocation operations.
+     */
+    private double nanosPerCall(IterationResult ir) {
+        double score = ir.getPrimaryResult().getScore();
+        double unitNs = TimeUnit.NANOSECONDS.convert(1, params.getTimeUnit());
+        double ns;
+        switch (params.getMode()) {
+            case Throughput:
+                // aggregated over the threads
+                ns = params.getThreads() * unitNs / score;
+                break;
+            case AverageTime:
+                ns = score * unitNs;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported mode: " + params.getMode());
+        }
+        return ns * params.getOpsPerInvocation() / ir.getParams().getBatchSize();
+    }
+
+}
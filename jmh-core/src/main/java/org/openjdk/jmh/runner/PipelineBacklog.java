@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Backlog between the stages of the {@link org.openjdk.jmh.annotations.GroupStage}
+ * pipeline. Subgroups are the stages, in the pipeline order.
+ *
+ * <p>Throttled stages count their operations here, and wait for the next stage to
+ * catch up when the backlog reaches the limit. After the iteration, the sustained
+ * end-to-end throughput and the backlog growth rates are derived from the subgroup
+ * scores.</p>
+ */
+public final class PipelineBacklog {
+
+    /**
+     * Counters are this many longs apart, to keep the stages from false sharing.
+     */
+    private static final int STRIDE = 16;
+
+    private final int stages;
+    private final AtomicLongArray ops;
+    private volatile boolean declared;
+
+    PipelineBacklog(int stages) {
+        this.stages = stages;
+        this.ops = new AtomicLongArray((stages + 1) * STRIDE);
+    }
+
+    /**
+     * Marks the benchmark as the pipeline.
+     */
+    public void declare() {
+        declared = true;
+    }
+
+    boolean isDeclared() {
+        return declared;
+    }
+
+    /**
+     * Waits until the backlog after the stage drops below the limit, or the iteration ends.
+     *
+     * @param stage stage index
+     * @param maxBacklog backlog limit
+     * @param control infra control
+     */
+    public void await(int stage, long maxBacklog, InfraControl control) {
+        if (stage + 1 >= stages) {
+            return;
+        }
+        int idx = (stage + 1) * STRIDE;
+        int nextIdx = (stage + 2) * STRIDE;
+        while (ops.get(idx) - ops.get(nextIdx) >= maxBacklog && !control.isDone) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Counts the operation of the stage.
+     *
+     * @param stage stage index
+     */
+    public void advance(int stage) {
+        ops.incrementAndGet((stage + 1) * STRIDE);
+    }
+
+    long getOps(int stage) {
+        return ops.get((stage + 1) * STRIDE);
+    }
+
+    static List<Result> results(BenchmarkParams benchmarkParams, IterationResult ir) {
+        return results(new ArrayList<>(benchmarkParams.getThreadGroupLabels()), ir.getSecondaryResults());
+    }
+
+    static List<Result> results(List<String> labels, Map<String, Result> subgroups) {
+        List<Result> results = new ArrayList<>();
+
+        List<Result> stages = new ArrayList<>();
+        for (String label : labels) {
+            Result r = subgroups.get(label);
+            if (r == null) {
+                return results;
+            }
+            stages.add(r);
+        }
+        if (stages.size() < 2) {
+            return results;
+        }
+
+        String unit = stages.get(0).getScoreUnit();
+
+        double endToEnd = Double.POSITIVE_INFINITY;
+        for (Result r : stages) {
+            endToEnd = Math.min(endToEnd, r.getScore());
+        }
+        results.add(new ScalarResult(Defaults.PREFIX + "pipeline", endToEnd, unit, AggregationPolicy.AVG));
+
+        for (int s = 0; s < stages.size() - 1; s++) {
+            double growth = stages.get(s).getScore() - stages.get(s + 1).getScore();
+            results.add(new ScalarResult(Defaults.PREFIX + "backlog." + labels.get(s), growth, unit, AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+}
@@ -28,6 +28,7 @@ import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalIterationProfiler;
 import org.openjdk.jmh.profile.ExternalProfiler;
 import org.openjdk.jmh.profile.ProfilerException;
 import org.openjdk.jmh.profile.ProfilerFactory;
@@ -35,6 +36,7 @@ import org.openjdk.jmh.results.*;
 import org.openjdk.jmh.results.format.ResultFormatFactory;
 import org.openjdk.jmh.runner.format.OutputFormat;
 import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.format.RunProgressListener;
 import org.openjdk.jmh.runner.link.BinaryLinkServer;
 import org.openjdk.jmh.runner.options.*;
 import org.openjdk.jmh.util.*;
@@ -68,6 +70,7 @@ public class Runner extends BaseRunner {
 
     private final BenchmarkList list;
     private int cpuCount;
+    private CacheHierarchy cacheHierarchy;
 
     /**
      * Create runner with the custom OutputFormat.
@@ -112,7 +115,17 @@ public class Runner extends BaseRunner {
             }
         }
 
-        return OutputFormatFactory.createFormatInstance(out, options.verbosity().orElse(Defaults.VERBOSITY));
+        OutputFormat format = OutputFormatFactory.createFormatInstance(out, options.verbosity().orElse(Defaults.VERBOSITY));
+
+        if (options.getMetricsPort().hasValue()) {
+            try {
+                format = OutputFormatFactory.createMetricsInstance(format, options.getMetricsPort().get());
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        return format;
     }
 
     /**
@@ -133,6 +146,12 @@ public class Runner extends BaseRunner {
      */
     public void listWithParams(CommandLineOptions options) {
         Set<BenchmarkListEntry> benchmarks = list.find(out, options.getIncludes(), options.getExcludes());
+        try {
+            readCacheHierarchy(options, benchmarks);
+        } catch (RunnerException e) {
+            out.println("ERROR: " + e.getMessage());
+            return;
+        }
         out.println("Benchmarks: ");
         for (BenchmarkListEntry benchmark : benchmarks) {
             out.println(benchmark.getUsername());
@@ -140,7 +159,7 @@ public class Runner extends BaseRunner {
             if (params.hasValue()) {
                 for (Map.Entry<String, String[]> e : params.get().entrySet()) {
                     String param = e.getKey();
-                    Collection<String> values = options.getParameter(param).orElse(Arrays.asList(e.getValue()));
+                    Collection<String> values = paramValues(options, param, e.getValue());
                     out.println("  param \"" + param + "\" = {" + Utils.join(values, ", ") + "}");
                 }
             }
@@ -303,6 +322,7 @@ public class Runner extends BaseRunner {
 
         // clone with all parameters
         {
+            readCacheHierarchy(options, benchmarks);
             List<BenchmarkListEntry> newBenchmarks = new ArrayList<>();
             for (BenchmarkListEntry br : benchmarks) {
                 if (br.getParams().hasValue()) {
@@ -319,6 +339,10 @@ public class Runner extends BaseRunner {
 
         Collection<RunResult> results = runBenchmarks(benchmarks);
 
+        if (cacheHierarchy != null) {
+            printCacheSweep(results);
+        }
+
         // If user requested the result file, write it out.
         if (resultFile != null) {
             ResultFormatFactory.getInstance(
@@ -502,7 +526,7 @@ public class Runner extends BaseRunner {
                 warmup, measurement, benchmark.getMode(), benchmark.getWorkloadParams(), timeUnit, opsPerInvocation,
                 jvm, jvmArgs,
                 jdkVersion, vmName, vmVersion, Version.getPlainVersion(),
-                timeout);
+                timeout, options.getScoreEstimator().orElse(Defaults.SCORE_ESTIMATOR));
     }
 
     private List<WorkloadParams> explodeAllParams(BenchmarkListEntry br) throws RunnerException {
@@ -510,8 +534,7 @@ public class Runner extends BaseRunner {
         List<WorkloadParams> ps = new ArrayList<>();
         for (Map.Entry<String, String[]> e : benchParams.entrySet()) {
             String k = e.getKey();
-            String[] vals = e.getValue();
-            Collection<String> values = options.getParameter(k).orElse(Arrays.asList(vals));
+            Collection<String> values = paramValues(options, k, e.getValue());
             if (values.isEmpty()) {
                 throw new RunnerException("Benchmark \"" + br.getUsername() +
                         "\" defines the parameter \"" + k + "\", but no default values.\n" +
@@ -542,6 +565,109 @@ public class Runner extends BaseRunner {
         return ps;
     }
 
+    private Collection<String> paramValues(Options opts, String param, String[] declared) {
+        if (cacheHierarchy != null && param.equals(opts.getCacheSweepParam().orElse(null))) {
+            List<String> sizes = new ArrayList<>();
+            for (long size : cacheHierarchy.sweepSizes()) {
+                sizes.add(String.valueOf(size));
+            }
+            return sizes;
+        }
+        return opts.getParameter(param).orElse(Arrays.asList(declared));
+    }
+
+    private void readCacheHierarchy(Options opts, Collection<BenchmarkListEntry> benchmarks) throws RunnerException {
+        if (!opts.getCacheSweepParam().hasValue()) {
+            return;
+        }
+
+        String param = opts.getCacheSweepParam().get();
+        if (opts.getParameter(param).hasValue()) {
+            throw new RunnerException("Parameter \"" + param + "\" is swept over the cache hierarchy, " +
+                    "and cannot be given with -p at the same time");
+        }
+
+        boolean declared = false;
+        for (BenchmarkListEntry br : benchmarks) {
+            Optional<Map<String, String[]>> params = br.getParams();
+            if (params.hasValue() && params.get().containsKey(param)) {
+                declared = true;
+                break;
+            }
+        }
+        if (!declared) {
+            throw new RunnerException("None of the benchmarks declare the parameter \"" + param + "\" " +
+                    "to sweep over the cache hierarchy");
+        }
+
+        cacheHierarchy = CacheHierarchy.read(new File("/sys"));
+        if (cacheHierarchy != null) {
+            out.println("# Cache sweep: parameter \"" + param + "\" sweeps over " + cacheHierarchy + ", and DRAM");
+        } else {
+            out.println("# Cache sweep: cache sizes are not available, parameter \"" + param + "\" keeps its values");
+        }
+        out.println("");
+    }
+
+    /**
+     * Prints the scores against the working set sizes, with the cache boundaries marked.
+     * Results that differ in anything but the swept parameter make separate curves.
+     */
+    private void printCacheSweep(Collection<RunResult> results) {
+        String param = options.getCacheSweepParam().get();
+
+        Map<String, SortedMap<Long, Result>> curves = new LinkedHashMap<>();
+        for (RunResult r : results) {
+            BenchmarkParams params = r.getParams();
+            long size;
+            try {
+                size = Long.parseLong(params.getParam(param));
+            } catch (NumberFormatException e) {
+                // no such parameter, or the value is not ours
+                continue;
+            }
+
+            List<String> others = new ArrayList<>();
+            for (String k : params.getParamsKeys()) {
+                if (!k.equals(param)) {
+                    others.add(k + " = " + params.getParam(k));
+                }
+            }
+            String key = params.getBenchmark() + ", " + params.getMode().shortLabel() +
+                    (others.isEmpty() ? "" : " (" + Utils.join(others, ", ") + ")");
+
+            SortedMap<Long, Result> curve = curves.get(key);
+            if (curve == null) {
+                curve = new TreeMap<>();
+                curves.put(key, curve);
+            }
+            curve.put(size, r.getPrimaryResult());
+        }
+
+        if (curves.isEmpty()) {
+            return;
+        }
+
+        out.println("");
+        out.println("Cache sweep over \"" + param + "\", working set in bytes (" + cacheHierarchy + "):");
+        for (Map.Entry<String, SortedMap<Long, Result>> c : curves.entrySet()) {
+            out.println("");
+            out.println("  " + c.getKey());
+            long prev = -1;
+            for (Map.Entry<Long, Result> e : c.getValue().entrySet()) {
+                long size = e.getKey();
+                for (Map.Entry<Integer, Long> l : cacheHierarchy.getLevels().entrySet()) {
+                    long boundary = l.getValue();
+                    if (prev != -1 && prev <= boundary && boundary < size) {
+                        out.println(String.format("    %8s  ---- L%d boundary ----", CacheHierarchy.formatSize(boundary), l.getKey()));
+                    }
+                }
+                out.println(String.format("    %8s  %-4s  %s", CacheHierarchy.formatSize(size), cacheHierarchy.levelOf(size), e.getValue()));
+                prev = size;
+            }
+        }
+    }
+
     private Collection<RunResult> runBenchmarks(SortedSet<BenchmarkListEntry> benchmarks) throws RunnerException {
         out.startRun();
 
@@ -614,6 +740,14 @@ public class Runner extends BaseRunner {
             List<ExternalProfiler> profilersRev = new ArrayList<>(profilers);
             Collections.reverse(profilersRev);
 
+            List<ExternalIterationProfiler> iterationProfilers = new ArrayList<>();
+            for (ExternalProfiler prof : profilers) {
+                if (prof instanceof ExternalIterationProfiler) {
+                    iterationProfilers.add((ExternalIterationProfiler) prof);
+                }
+            }
+            server.setIterationProfilers(iterationProfilers);
+
             boolean forcePrint = options.verbosity().orElse(Defaults.VERBOSITY).equalsOrHigherThan(VerboseMode.EXTRA);
             printOut = forcePrint || printOut;
             printErr = forcePrint || printErr;
@@ -625,8 +759,12 @@ public class Runner extends BaseRunner {
             int warmupForkCount = params.getWarmupForks();
             int totalForks = warmupForkCount + forkCount;
 
+            int minForksPerMode = options.getMinForksPerMode().orElse(Defaults.MIN_FORKS_PER_MODE);
+            int extraForks = 0;
+
             for (int i = 0; i < totalForks; i++) {
                 boolean warmupFork = (i < warmupForkCount);
+                boolean extraFork = (i >= warmupForkCount + forkCount);
                 List<String> forkedString  = getForkedMainCommand(params, profilers, server.getHost(), server.getPort());
 
                 etaBeforeBenchmark();
@@ -634,6 +772,10 @@ public class Runner extends BaseRunner {
                 if (warmupFork) {
                     out.verbosePrintln("Warmup forking using command: " + forkedString);
                     out.println("# Warmup Fork: " + (i + 1) + " of " + warmupForkCount);
+                } else if (extraFork) {
+                    out.verbosePrintln("Forking using command: " + forkedString);
+                    out.println("# Extra Fork: " + (i + 1 - warmupForkCount - forkCount) + " of at most " + forkCount +
+                            ", to get " + minForksPerMode + " forks in every fork mode");
                 } else {
                     out.verbosePrintln("Forking using command: " + forkedString);
                     out.println("# Fork: " + (i + 1 - warmupForkCount) + " of " + forkCount);
@@ -693,8 +835,19 @@ public class Runner extends BaseRunner {
                 // we know these are not needed anymore, proactively delete
                 stdOut.delete();
                 stdErr.delete();
+
+                if (i == totalForks - 1 && minForksPerMode > 0 && extraForks < forkCount) {
+                    ForkModes modes = ForkModes.of(params, results.get(params));
+                    if (modes.isMultiModal() && !modes.hasForksPerMode(minForksPerMode)) {
+                        etaExtraFork(params);
+                        totalForks++;
+                        extraForks++;
+                    }
+                }
             }
 
+            printForkModes(params, results.get(params));
+
             out.endBenchmark(new RunResult(params, results.get(params)).getAggregatedResult());
 
         } catch (IOException e) {
@@ -716,6 +869,27 @@ public class Runner extends BaseRunner {
         return results;
     }
 
+    private void printForkModes(BenchmarkParams params, Collection<BenchmarkResult> forkResults) {
+        ForkModes modes = ForkModes.of(params, forkResults);
+        if (!modes.isMultiModal()) {
+            return;
+        }
+
+        List<Integer> outliers = modes.getOutlierForks();
+
+        out.println("# Fork modes: primary scores split into " + modes.getModes().size() + " modes");
+        for (ForkModes.ForkMode mode : modes.getModes()) {
+            List<String> forks = new ArrayList<>();
+            for (int f : mode.getForks()) {
+                forks.add(String.valueOf(f + 1));
+            }
+            boolean outlier = mode.getForks().size() == 1 && outliers.contains(mode.getForks().get(0));
+            out.println("#   " + mode.getResult() + ", fork" + (forks.size() > 1 ? "s " : " ") +
+                    Utils.join(forks, ", ") + (outlier ? " (outlier)" : ""));
+        }
+        out.println("");
+    }
+
     private List<IterationResult> doFork(BinaryLinkServer reader, List<String> commandString,
                                                               File stdOut, File stdErr, boolean printOut, boolean printErr) {
         try (FileOutputStream fosErr = new FileOutputStream(stdErr);
@@ -740,6 +914,10 @@ public class Runner extends BaseRunner {
 
             int ecode = p.waitFor();
 
+            if (out instanceof RunProgressListener) {
+                ((RunProgressListener) out).forkExit(ecode);
+            }
+
             errDrainer.join();
             outDrainer.join();
 
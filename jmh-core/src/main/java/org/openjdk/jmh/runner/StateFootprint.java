@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.annotations.Level;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Measures the heap retained by {@link org.openjdk.jmh.annotations.State} objects
+ * after their {@link org.openjdk.jmh.annotations.Setup} helpers.
+ *
+ * <p>Generated code brackets the state instantiation and Trial/Iteration setup with
+ * {@link #beforeSetup()} and {@link #afterSetup(String, Level, long)}. When enabled,
+ * these force GC and sample the used heap; the difference is what the state retains.
+ * Measurements are serialized, so that concurrent setups in other threads do not
+ * pollute each other's numbers. When disabled, the hooks do nothing.</p>
+ */
+public final class StateFootprint {
+
+    /**
+     * Mark-compact collectors may leave some dead space uncompacted, and compact
+     * fully only every few full GCs (e.g. Serial does that every 4th time).
+     */
+    private static final int MIN_GC_ATTEMPTS = 4;
+    private static final int MAX_GC_ATTEMPTS = 10;
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static final List<Record> RECORDS = new ArrayList<>();
+    private static volatile boolean enabled;
+
+    private StateFootprint() {
+        // prevent instantiation
+    }
+
+    /**
+     * Called by generated code before the state setup.
+     * @return token to pass to {@link #afterSetup(String, Level, long)}
+     */
+    public static long beforeSetup() {
+        if (!enabled) {
+            return -1;
+        }
+        LOCK.lock();
+        return usedHeap();
+    }
+
+    /**
+     * Called by generated code after the state setup, even if it had failed.
+     * @param label state label
+     * @param level setup level
+     * @param before token from {@link #beforeSetup()}
+     */
+    public static void afterSetup(String label, Level level, long before) {
+        if (before == -1) {
+            return;
+        }
+        try {
+            long retained = usedHeap() - before;
+            synchronized (RECORDS) {
+                RECORDS.add(new Record(label, level, Math.max(0, retained)));
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Returns and forgets the footprints measured so far.
+     * @return footprint records, in order of measurement
+     */
+    public static List<Record> drain() {
+        synchronized (RECORDS) {
+            List<Record> result = new ArrayList<>(RECORDS);
+            RECORDS.clear();
+            return result;
+        }
+    }
+
+    /**
+     * Collects the garbage until the used heap stops shrinking.
+     */
+    private static long usedHeap() {
+        MemoryMXBean bean = ManagementFactory.getMemoryMXBean();
+        long min = Long.MAX_VALUE;
+        for (int c = 0; c < MAX_GC_ATTEMPTS; c++) {
+            System.gc();
+            long used = bean.getHeapMemoryUsage().getUsed();
+            if (c >= MIN_GC_ATTEMPTS && used >= min) {
+                break;
+            }
+            min = Math.min(min, used);
+        }
+        return min;
+    }
+
+    public static class Record {
+        private final String label;
+        private final Level level;
+        private final long bytes;
+
+        Record(String label, Level level, long bytes) {
+            this.label = label;
+            this.level = level;
+            this.bytes = bytes;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+}
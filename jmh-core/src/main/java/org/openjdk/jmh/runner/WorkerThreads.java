@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.util.Utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of the benchmark worker threads running in this VM.
+ *
+ * <p>Internal profilers may use this to target only the threads executing
+ * the benchmark code, instead of scanning every thread in the VM and guessing
+ * which of them belong to the harness. Worker threads are registered when they
+ * first pick up the benchmark task, and stay registered until the benchmark
+ * is finished in this VM.</p>
+ *
+ * <p>Profilers interested in the measured part of the iteration only may
+ * subscribe with {@link MeasurementListener}. With synchronized iterations,
+ * the listeners are notified when all workers had entered, and then left the
+ * measurement. Otherwise, the notifications mark the edges of the entire iteration.</p>
+ */
+public final class WorkerThreads {
+
+    /**
+     * Listener for the measurement window edges.
+     * The notifications come from the harness thread, not from the workers.
+     */
+    public interface MeasurementListener {
+
+        /**
+         * Called when all workers had started the measurement.
+         */
+        void measurementStarted();
+
+        /**
+         * Called when all workers had stopped the measurement.
+         */
+        void measurementStopped();
+    }
+
+    /**
+     * Snapshots the per-thread counters of the workers at the edges of measurement
+     * window, and reports the counter deltas per worker.
+     *
+     * <p>The per-thread counters are cumulative over the thread lifetime, and worker
+     * threads are pooled and reused across iterations. The worker that was not
+     * registered at the start of measurement (that can happen with unsynchronized
+     * iterations) has no start snapshot: its counters would carry everything the thread
+     * did before, setup included. Such workers are left out of {@link #getDeltas()}, and
+     * only counted as partial. Workers that had died in between, and workers with
+     * unavailable (negative) counters, are left out as well.</p>
+     */
+    public abstract static class MeasurementWindow implements MeasurementListener {
+        private final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+
+        private Map<Thread, long[]> start;
+        private Map<Thread, ThreadParams> workers;
+        private Map<Thread, long[]> stop;
+        private long startTime = -1;
+        private long stopTime = -1;
+        private long startUptime = -1;
+        private long stopUptime = -1;
+        private volatile boolean measuring;
+
+        /**
+         * Reads the counters of given threads.
+         *
+         * @param threads threads to read
+         * @return counters per thread; threads with no counters may be omitted
+         */
+        protected abstract Map<Thread, long[]> snapshot(Collection<Thread> threads);
+
+        @Override
+        public synchronized void measurementStarted() {
+            startTime = System.nanoTime();
+            startUptime = runtime.getUptime();
+            start = snapshot(getWorkers().keySet());
+            measuring = true;
+        }
+
+        @Override
+        public synchronized void measurementStopped() {
+            measuring = false;
+            stopTime = System.nanoTime();
+            stopUptime = runtime.getUptime();
+            workers = getWorkers();
+            stop = snapshot(workers.keySet());
+        }
+
+        /**
+         * @return true, if measurement window had started, and not yet stopped
+         */
+        public boolean isMeasuring() {
+            return measuring;
+        }
+
+        /**
+         * @return true, if both edges of measurement window were seen
+         */
+        public synchronized boolean isComplete() {
+            return start != null && stop != null;
+        }
+
+        /**
+         * @return measurement window duration, in ns
+         */
+        public synchronized long getDuration() {
+            return stopTime - startTime;
+        }
+
+        /**
+         * @return JVM uptime at the start of measurement, in ms
+         */
+        public synchronized long getStartUptime() {
+            return startUptime;
+        }
+
+        /**
+         * @return JVM uptime at the end of measurement, in ms
+         */
+        public synchronized long getStopUptime() {
+            return stopUptime;
+        }
+
+        /**
+         * @return counter deltas per worker thread in the measurement window,
+         *         for the workers seen at both edges
+         */
+        public synchronized Map<ThreadParams, long[]> getDeltas() {
+            Map<ThreadParams, long[]> result = new LinkedHashMap<>();
+            for (Map.Entry<Thread, ThreadParams> e : workers.entrySet()) {
+                long[] s = start.get(e.getKey());
+                long[] v = stop.get(e.getKey());
+                if (s == null || v == null || !isValid(s) || !isValid(v)) {
+                    continue;
+                }
+                long[] d = new long[v.length];
+                for (int i = 0; i < v.length; i++) {
+                    d[i] = v[i] - s[i];
+                }
+                result.put(e.getValue(), d);
+            }
+            return result;
+        }
+
+        /**
+         * @return number of workers registered after the start of measurement
+         */
+        public synchronized int getPartialWorkers() {
+            int count = 0;
+            for (Thread t : workers.keySet()) {
+                if (!start.containsKey(t)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private static boolean isValid(long[] vs) {
+            for (long v : vs) {
+                if (v < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final Map<Thread, ThreadParams> WORKERS = new HashMap<>();
+    private static final Map<Thread, Long> NATIVE_IDS = new HashMap<>();
+    private static final List<MeasurementListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private WorkerThreads() {
+        // prevent instantiation
+    }
+
+    /**
+     * Registers the worker. Should be called by the worker thread itself,
+     * so that its native thread ID can be resolved.
+     */
+    static synchronized void register(Thread thread, ThreadParams params) {
+        WORKERS.put(thread, params);
+        if (!NATIVE_IDS.containsKey(thread) && thread == Thread.currentThread()) {
+            NATIVE_IDS.put(thread, Utils.getNativeThreadId());
+        }
+    }
+
+    static synchronized void clear() {
+        WORKERS.clear();
+        NATIVE_IDS.clear();
+    }
+
+    static void announceMeasurementStarted() {
+        for (MeasurementListener l : LISTENERS) {
+            l.measurementStarted();
+        }
+    }
+
+    static void announceMeasurementStopped() {
+        for (MeasurementListener l : LISTENERS) {
+            l.measurementStopped();
+        }
+    }
+
+    /**
+     * Subscribes the listener for the measurement window edges.
+     *
+     * @param listener listener to add
+     */
+    public static void addListener(MeasurementListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Unsubscribes the listener.
+     *
+     * @param listener listener to remove
+     */
+    public static void removeListener(MeasurementListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Returns the snapshot of currently registered worker threads.
+     * Threads are ordered by their thread index in the benchmark.
+     *
+     * @return worker threads with their thread parameters
+     */
+    public static synchronized Map<Thread, ThreadParams> getWorkers() {
+        List<Map.Entry<Thread, ThreadParams>> entries = new ArrayList<>(WORKERS.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Thread, ThreadParams>>() {
+            @Override
+            public int compare(Map.Entry<Thread, ThreadParams> o1, Map.Entry<Thread, ThreadParams> o2) {
+                return Integer.compare(o1.getValue().getThreadIndex(), o2.getValue().getThreadIndex());
+            }
+        });
+
+        Map<Thread, ThreadParams> result = new LinkedHashMap<>();
+        for (Map.Entry<Thread, ThreadParams> e : entries) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the thread IDs of currently registered worker threads,
+     * in the same order as {@link #getWorkers()}.
+     *
+     * @return worker thread IDs
+     */
+    public static long[] getWorkerIds() {
+        Map<Thread, ThreadParams> workers = getWorkers();
+        long[] ids = new long[workers.size()];
+        int idx = 0;
+        for (Thread t : workers.keySet()) {
+            ids[idx++] = t.getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the OS-level thread IDs of currently registered worker threads,
+     * in the same order as {@link #getWorkers()}. Native IDs are only available
+     * on Linux; the threads with unknown native IDs have -1 in the array.
+     *
+     * @return native worker thread IDs
+     */
+    public static synchronized long[] getNativeWorkerIds() {
+        Map<Thread, ThreadParams> workers = getWorkers();
+        long[] ids = new long[workers.size()];
+        int idx = 0;
+        for (Thread t : workers.keySet()) {
+            Long id = NATIVE_IDS.get(t);
+            ids[idx++] = (id != null) ? id : -1;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the OS-level thread ID of the registered worker thread.
+     * Native IDs are only available on Linux.
+     *
+     * @param thread worker thread
+     * @return native thread ID, or -1 if unknown
+     */
+    public static synchronized long getNativeId(Thread thread) {
+        Long id = NATIVE_IDS.get(thread);
+        return (id != null) ? id : -1;
+    }
+
+}
@@ -26,6 +26,7 @@ package org.openjdk.jmh.runner.format;
 
 import org.openjdk.jmh.runner.options.VerboseMode;
 
+import java.io.IOException;
 import java.io.PrintStream;
 
 public class OutputFormatFactory {
@@ -49,4 +50,17 @@ public class OutputFormatFactory {
         }
     }
 
+    /**
+     * Factory method for OutputFormat instances that serve the live run metrics
+     * over HTTP, in Prometheus text format.
+     *
+     * @param delegate format to delegate the actual output to
+     * @param port     local port to listen on, 0 for any free port
+     * @return a new OutputFormat instance
+     * @throws IOException if the metrics server cannot be started
+     */
+    public static OutputFormat createMetricsInstance(OutputFormat delegate, int port) throws IOException {
+        return new PrometheusFormat(delegate, port);
+    }
+
 }
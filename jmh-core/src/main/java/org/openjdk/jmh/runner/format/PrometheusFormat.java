@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.format;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the live run metrics over HTTP on the loopback interface, in Prometheus
+ * text format, and delegates the actual output to another format.
+ *
+ * <p>"/metrics" has the gauges for the run progress, the current benchmark and
+ * iteration, the last iteration scores, including the secondary results from
+ * profilers, and the forked VM exit codes. "/history" has the last iteration
+ * scores, bounded in number, as the timestamped samples of the separate
+ * "jmh_iteration_score_history" metric, so that scraping both endpoints does
+ * not mix the timestamped and live samples of the same series. Iteration numbers restart
+ * in every forked VM, so the history samples are labeled with the fork ordinal
+ * within the benchmark, counting the warmup forks as well.</p>
+ *
+ * <p>Scores are captured when the iteration result arrives: the results are still
+ * used by the harness thread, and are not read from the server threads.</p>
+ */
+class PrometheusFormat implements OutputFormat, RunProgressListener {
+
+    /**
+     * How many iteration scores to keep in history.
+     */
+    static final int HISTORY_SIZE = 1000;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final OutputFormat delegate;
+    private final int historySize;
+    private final HttpServer server;
+
+    private final Deque<String> history;
+
+    private double partsDone;
+    private long etaNanos;
+    private boolean runComplete;
+    private int benchmarksComplete;
+
+    private String benchmarkLabels;
+    private IterationType iterationType;
+    private int iteration;
+    private int fork;
+    private Score primary;
+    private Map<String, Score> secondaries;
+
+    private int forks;
+    private int forksFailed;
+    private int lastExitCode;
+    private String lastForkLabels;
+
+    PrometheusFormat(OutputFormat delegate, int port) throws IOException {
+        this(delegate, port, HISTORY_SIZE);
+    }
+
+    PrometheusFormat(OutputFormat delegate, int port, int historySize) throws IOException {
+        this.delegate = delegate;
+        this.historySize = historySize;
+        this.history = new ArrayDeque<>();
+        this.etaNanos = -1;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", new Handler() {
+            @Override
+            String content() {
+                return metrics();
+            }
+        });
+        server.createContext("/history", new Handler() {
+            @Override
+            String content() {
+                return history();
+            }
+        });
+        startDaemon(server);
+
+        InetSocketAddress addr = server.getAddress();
+        delegate.println("# Metrics: http://" + addr.getAddress().getHostAddress() + ":" + addr.getPort() + "/metrics");
+        delegate.println("");
+    }
+
+    /**
+     * The server dispatcher thread inherits the daemon status from the thread that
+     * starts the server. Start it from the daemon thread, so that the endpoint
+     * never holds the VM up if the run fails before closing the format.
+     */
+    private static void startDaemon(final HttpServer server) throws IOException {
+        final RuntimeException[] failure = new RuntimeException[1];
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.start();
+                } catch (RuntimeException e) {
+                    failure[0] = e;
+                }
+            }
+        }, "jmh-metrics-starter");
+        t.setDaemon(true);
+        t.start();
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            server.stop(0);
+            throw new IOException("Interrupted while starting the metrics server", e);
+        }
+        if (failure[0] != null) {
+            throw new IOException("Cannot start the metrics server", failure[0]);
+        }
+    }
+
+    /**
+     * @return local port the metrics are served on
+     */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void runProgress(double partsDone, long etaNanos) {
+        synchronized (this) {
+            this.partsDone = partsDone;
+            this.etaNanos = etaNanos;
+        }
+    }
+
+    @Override
+    public void forkExit(int exitCode) {
+        synchronized (this) {
+            forks++;
+            if (exitCode != 0) {
+                forksFailed++;
+            }
+            lastExitCode = exitCode;
+            lastForkLabels = benchmarkLabels;
+            fork++;
+        }
+    }
+
+    @Override
+    public void startRun() {
+        delegate.startRun();
+    }
+
+    @Override
+    public void startBenchmark(BenchmarkParams benchParams) {
+        synchronized (this) {
+            benchmarkLabels = labels(benchParams);
+            iterationType = null;
+            iteration = 0;
+            fork = 1;
+            primary = null;
+            secondaries = null;
+        }
+        delegate.startBenchmark(benchParams);
+    }
+
+    @Override
+    public void iteration(BenchmarkParams benchParams, IterationParams params, int iteration) {
+        synchronized (this) {
+            this.iterationType = params.getType();
+            this.iteration = iteration;
+        }
+        delegate.iteration(benchParams, params, iteration);
+    }
+
+    @Override
+    public void iterationResult(BenchmarkParams benchParams, IterationParams params, int iteration, IterationResult data) {
+        synchronized (this) {
+            primary = new Score(data.getPrimaryResult());
+            secondaries = new TreeMap<>();
+            for (Map.Entry<String, Result> e : data.getSecondaryResults().entrySet()) {
+                secondaries.put(e.getKey(), new Score(e.getValue()));
+            }
+
+            history.addLast(labels(benchParams) + ",fork=\"" + fork + "\",phase=\"" + phase(params.getType()) + "\"" +
+                    ",iteration=\"" + iteration + "\",unit=\"" + escape(primary.unit) + "\"} " +
+                    value(primary.value) + " " + System.currentTimeMillis());
+            while (history.size() > historySize) {
+                history.removeFirst();
+            }
+        }
+        delegate.iterationResult(benchParams, params, iteration, data);
+    }
+
+    @Override
+    public void endBenchmark(BenchmarkResult result) {
+        synchronized (this) {
+            benchmarksComplete++;
+        }
+        delegate.endBenchmark(result);
+    }
+
+    @Override
+    public void endRun(Collection<RunResult> result) {
+        synchronized (this) {
+            runComplete = true;
+            partsDone = 1.0;
+            etaNanos = 0;
+        }
+        delegate.endRun(result);
+    }
+
+    /**
+     * @return current metrics, in Prometheus text format
+     */
+    synchronized String metrics() {
+        StringBuilder sb = new StringBuilder();
+
+        header(sb, "jmh_run_progress_ratio", "gauge", "Fraction of the run done.");
+        sb.append("jmh_run_progress_ratio ").append(value(partsDone)).append("\n");
+
+        if (etaNanos >= 0) {
+            header(sb, "jmh_run_eta_seconds", "gauge", "Estimated time to complete the run.");
+            sb.append("jmh_run_eta_seconds ").append(value(1.0D * etaNanos / TimeUnit.SECONDS.toNanos(1))).append("\n");
+        }
+
+        header(sb, "jmh_run_complete", "gauge", "Whether the run is complete.");
+        sb.append("jmh_run_complete ").append(runComplete ? 1 : 0).append("\n");
+
+        header(sb, "jmh_benchmarks_complete_total", "counter", "Benchmarks completed.");
+        sb.append("jmh_benchmarks_complete_total ").append(benchmarksComplete).append("\n");
+
+        if (benchmarkLabels != null && !runComplete) {
+            header(sb, "jmh_benchmark_info", "gauge", "Benchmark currently running.");
+            sb.append("jmh_benchmark_info").append(benchmarkLabels).append("} 1\n");
+        }
+
+        if (iterationType != null) {
+            header(sb, "jmh_iteration", "gauge", "Current iteration number.");
+            sb.append("jmh_iteration").append(benchmarkLabels)
+                    .append(",phase=\"").append(phase(iterationType)).append("\"} ")
+                    .append(iteration).append("\n");
+        }
+
+        if (primary != null) {
+            header(sb, "jmh_iteration_score", "gauge", "Primary score of the last iteration.");
+            sb.append("jmh_iteration_score").append(benchmarkLabels)
+                    .append(",unit=\"").append(escape(primary.unit)).append("\"} ")
+                    .append(value(primary.value)).append("\n");
+        }
+
+        if (secondaries != null && !secondaries.isEmpty()) {
+            header(sb, "jmh_iteration_secondary_score", "gauge", "Secondary scores of the last iteration.");
+            for (Map.Entry<String, Score> e : secondaries.entrySet()) {
+                sb.append("jmh_iteration_secondary_score").append(benchmarkLabels)
+                        .append(",label=\"").append(escape(e.getKey())).append("\"")
+                        .append(",unit=\"").append(escape(e.getValue().unit)).append("\"} ")
+                        .append(value(e.getValue().value)).append("\n");
+            }
+        }
+
+        header(sb, "jmh_forks_total", "counter", "Forked VMs exited.");
+        sb.append("jmh_forks_total ").append(forks).append("\n");
+
+        header(sb, "jmh_forks_failed_total", "counter", "Forked VMs exited with non-zero exit code.");
+        sb.append("jmh_forks_failed_total ").append(forksFailed).append("\n");
+
+        if (lastForkLabels != null) {
+            header(sb, "jmh_fork_exit_code", "gauge", "Exit code of the last forked VM.");
+            sb.append("jmh_fork_exit_code").append(lastForkLabels).append("} ").append(lastExitCode).append("\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return recent iteration scores, in Prometheus text format
+     */
+    synchronized String history() {
+        StringBuilder sb = new StringBuilder();
+        header(sb, "jmh_iteration_score_history", "gauge", "Primary scores of the recent iterations.");
+        for (String s : history) {
+            sb.append("jmh_iteration_score_history").append(s).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(name).append(" ").append(type).append("\n");
+    }
+
+    /**
+     * @return benchmark labels, with the closing brace omitted to allow more labels
+     */
+    private static String labels(BenchmarkParams params) {
+        StringBuilder ps = new StringBuilder();
+        for (String k : params.getParamsKeys()) {
+            if (ps.length() > 0) {
+                ps.append(",");
+            }
+            ps.append(k).append("=").append(params.getParam(k));
+        }
+        return "{benchmark=\"" + escape(params.getBenchmark()) + "\"" +
+                ",mode=\"" + params.getMode().shortLabel() + "\"" +
+                ",params=\"" + escape(ps.toString()) + "\"";
+    }
+
+    private static String phase(IterationType type) {
+        return (type == IterationType.WARMUP) ? "warmup" : "measurement";
+    }
+
+    static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    static String value(double v) {
+        if (Double.isNaN(v)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(v)) {
+            return (v > 0) ? "+Inf" : "-Inf";
+        }
+        return String.valueOf(v);
+    }
+
+    /**
+     * Score and unit of the result, as of the iteration end.
+     */
+    private static final class Score {
+        private final double value;
+        private final String unit;
+
+        Score(Result r) {
+            this.value = r.getScore();
+            this.unit = r.getScoreUnit();
+        }
+    }
+
+    private abstract static class Handler implements HttpHandler {
+        abstract String content();
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String method = exchange.getRequestMethod();
+                if (!method.equals("GET") && !method.equals("HEAD")) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = content().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                if (method.equals("HEAD")) {
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(body);
+                    }
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    /* ------------- RAW OUTPUT METHODS ------------------- */
+
+    @Override
+    public void print(String s) {
+        delegate.print(s);
+    }
+
+    @Override
+    public void println(String s) {
+        delegate.println(s);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delegate.close();
+    }
+
+    @Override
+    public void verbosePrintln(String s) {
+        delegate.verbosePrintln(s);
+    }
+
+    @Override
+    public void write(int b) {
+        delegate.write(b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        delegate.write(b);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.format;
+
+/**
+ * Receives the run progress the runners otherwise only print as text.
+ * {@link OutputFormat} implementations that need it in structured form implement this as well.
+ */
+public interface RunProgressListener {
+
+    /**
+     * Run progress, announced before every benchmark fork.
+     *
+     * @param partsDone fraction of the run done, 0..1
+     * @param etaNanos estimated time to complete the run, in nanoseconds
+     */
+    void runProgress(double partsDone, long etaNanos);
+
+    /**
+     * Forked VM for the current benchmark has exited.
+     *
+     * @param exitCode forked VM exit code
+     */
+    void forkExit(int exitCode);
+
+}
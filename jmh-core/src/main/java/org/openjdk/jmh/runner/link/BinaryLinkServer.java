@@ -24,6 +24,9 @@
  */
 package org.openjdk.jmh.runner.link;
 
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalIterationProfiler;
 import org.openjdk.jmh.results.BenchmarkResultMetaData;
 import org.openjdk.jmh.results.IterationResult;
 import org.openjdk.jmh.runner.ActionPlan;
@@ -77,6 +80,7 @@ public final class BinaryLinkServer {
     private final AtomicReference<BenchmarkException> exception;
     private final AtomicReference<ActionPlan> plan;
     private volatile long clientPid;
+    private volatile List<ExternalIterationProfiler> iterationProfilers;
 
     public BinaryLinkServer(Options opts, OutputFormat out) throws IOException {
         this.opts = opts;
@@ -204,6 +208,10 @@ public final class BinaryLinkServer {
         return clientPid;
     }
 
+    public void setIterationProfilers(List<ExternalIterationProfiler> profilers) {
+        iterationProfilers = profilers;
+    }
+
     private final class Acceptor extends Thread {
 
         private final ServerSocket server;
@@ -380,9 +388,27 @@ public final class BinaryLinkServer {
             }
 
             m.invoke(out, frame.args);
+            notifyProfilers(m, frame.args);
             return false;
         }
 
+        private void notifyProfilers(Method m, Object[] args) {
+            List<ExternalIterationProfiler> profilers = iterationProfilers;
+            if (profilers == null) {
+                return;
+            }
+            if (m.getName().equals("iteration")) {
+                for (ExternalIterationProfiler p : profilers) {
+                    p.iterationStarted((BenchmarkParams) args[0], (IterationParams) args[1], clientPid);
+                }
+            }
+            if (m.getName().equals("iterationResult")) {
+                for (ExternalIterationProfiler p : profilers) {
+                    p.iterationFinished((BenchmarkParams) args[0], (IterationParams) args[1], (IterationResult) args[3], clientPid);
+                }
+            }
+        }
+
         public void close() {
             try {
                 socket.close();
@@ -26,6 +26,7 @@ package org.openjdk.jmh.runner.options;
 
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.profile.Profiler;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.results.format.ResultFormatType;
 
 import java.util.concurrent.TimeUnit;
@@ -179,6 +180,38 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder warmupIterations(int value);
 
+    /**
+     * Keep doing warmup iterations until JIT goes quiet: there were no compilations,
+     * OSR compilations or deoptimizations for this many consecutive warmup iterations.
+     * The number of warmup iterations is then the minimum, and {@link #warmupQuietLimit(int)}
+     * is the maximum number of warmup iterations.
+     * @param value number of quiet iterations; 0, to disable
+     * @return builder
+     * @see org.openjdk.jmh.runner.Defaults#WARMUP_QUIET_ITERATIONS
+     */
+    ChainedOptionsBuilder warmupQuietIterations(int value);
+
+    /**
+     * Maximum number of warmup iterations, when warmup waits for JIT to go quiet.
+     * @param value maximum number of warmup iterations
+     * @return builder
+     * @see #warmupQuietIterations(int)
+     * @see org.openjdk.jmh.runner.Defaults#WARMUP_QUIET_LIMIT
+     */
+    ChainedOptionsBuilder warmupQuietLimit(int value);
+
+    /**
+     * Should unroll the measurement loops? The Throughput and AverageTime measurement
+     * loops then call the benchmark several times between the checks for the iteration
+     * end. The unroll factor is calibrated during warmup, and needs at least two warmup
+     * iterations. Only the benchmarks annotated with {@link org.openjdk.jmh.annotations.UnrollLoops}
+     * have the unrolled loops, and they are unrolled by default.
+     * @param value flag
+     * @return builder
+     * @see org.openjdk.jmh.annotations.UnrollLoops
+     */
+    ChainedOptionsBuilder unrollLoops(boolean value);
+
     /**
      * How large warmup batchSize should be?
      * @param value batch size
@@ -287,6 +320,16 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder warmupForks(int value);
 
+    /**
+     * Minimal number of forks in every fork mode. If forks settle in several
+     * modes, additional forks are made until every mode has this many forks.
+     * @param value minimal number of forks per mode; 0, to disable
+     * @return builder
+     * @see org.openjdk.jmh.results.ForkModes
+     * @see org.openjdk.jmh.runner.Defaults#MIN_FORKS_PER_MODE
+     */
+    ChainedOptionsBuilder minForksPerMode(int value);
+
     /**
      * Forked JVM to use.
      *
@@ -343,6 +386,31 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder param(String name, String... values);
 
+    /**
+     * Sweep the benchmark parameter over the cache hierarchy of the host.
+     * The parameter values are replaced with the working set sizes in bytes that
+     * straddle every data cache level, and reach into DRAM. Cache sizes are read
+     * from Linux sysfs; elsewhere, the parameter keeps its values. The parameter
+     * should be declared by the benchmarks, and should not be given with
+     * {@link #param(String, String...)} as well.
+     *
+     * @param name parameter
+     * @return builder
+     * @see org.openjdk.jmh.annotations.Param
+     */
+    ChainedOptionsBuilder cacheSweep(String name);
+
+    /**
+     * Serve the live run metrics over HTTP on the loopback interface, in
+     * Prometheus text format. The current benchmark, iteration scores, secondary
+     * results, run progress, and forked VM exit codes are at "/metrics", the
+     * recent iteration scores are at "/history".
+     *
+     * @param port local port, 0 to pick any free port
+     * @return builder
+     */
+    ChainedOptionsBuilder metricsPort(int port);
+
     /**
      * How long to wait for iteration execution?
      * @param value time
@@ -351,4 +419,15 @@ public interface ChainedOptionsBuilder {
      */
     ChainedOptionsBuilder timeout(TimeValue value);
 
+    /**
+     * Estimator for the scores aggregated over iterations. Robust estimators
+     * do not assume normally distributed scores, and are less sensitive to
+     * outlier iterations.
+     *
+     * @param estimator estimator to use
+     * @return builder
+     * @see org.openjdk.jmh.runner.Defaults#SCORE_ESTIMATOR
+     */
+    ChainedOptionsBuilder scoreEstimator(ScoreEstimator estimator);
+
 }
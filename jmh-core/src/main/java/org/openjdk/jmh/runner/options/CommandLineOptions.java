@@ -27,6 +27,7 @@ package org.openjdk.jmh.runner.options;
 import joptsimple.*;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.profile.ProfilerFactory;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Defaults;
 import org.openjdk.jmh.util.HashMultimap;
@@ -49,6 +50,9 @@ public class CommandLineOptions implements Options {
     private final Optional<TimeValue> runTime;
     private final Optional<Integer> batchSize;
     private final Optional<Integer> warmupIterations;
+    private final Optional<Integer> warmupQuietIterations;
+    private final Optional<Integer> warmupQuietLimit;
+    private final Optional<Boolean> unrollLoops;
     private final Optional<TimeValue> warmupTime;
     private final Optional<Integer> warmupBatchSize;
     private final List<Mode> benchMode = new ArrayList<>();
@@ -64,6 +68,7 @@ public class CommandLineOptions implements Options {
     private final List<String> regexps = new ArrayList<>();
     private final Optional<Integer> fork;
     private final Optional<Integer> warmupFork;
+    private final Optional<Integer> minForksPerMode;
     private final Optional<String> output;
     private final Optional<String> result;
     private final Optional<ResultFormatType> resultFormat;
@@ -75,6 +80,9 @@ public class CommandLineOptions implements Options {
     private final Optional<WarmupMode> warmupMode;
     private final List<String> warmupMicros = new ArrayList<>();
     private final Multimap<String, String> params = new HashMultimap<>();
+    private final Optional<String> cacheSweepParam;
+    private final Optional<Integer> metricsPort;
+    private final Optional<ScoreEstimator> scoreEstimator;
     private final boolean list;
     private final boolean listWithParams;
     private final boolean listResultFormats;
@@ -114,6 +122,25 @@ public class CommandLineOptions implements Options {
                 Defaults.WARMUP_ITERATIONS + " for all other modes)")
                 .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.NON_NEGATIVE).describedAs("int");
 
+        OptionSpec<Integer> optWarmupQuiet = parser.accepts("wq", "Keep doing warmup iterations until JIT is quiet: " +
+                "no compilations, OSR compilations or deoptimizations happen for this many consecutive warmup iterations. " +
+                "The number of warmup iterations is then the minimum. Use 0 to disable. " +
+                "(default: " + Defaults.WARMUP_QUIET_ITERATIONS + ")")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.NON_NEGATIVE).describedAs("int");
+
+        OptionSpec<Integer> optWarmupQuietLimit = parser.accepts("wql", "Maximum number of warmup iterations, " +
+                "when warmup waits for JIT to be quiet. " +
+                "(default: " + Defaults.WARMUP_QUIET_LIMIT + ")")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.POSITIVE).describedAs("int");
+
+        OptionSpec<Boolean> optUnroll = parser.accepts("ul", "Should JMH unroll the measurement loops? " +
+                "Throughput and AverageTime loops would then call the benchmark several times between the checks " +
+                "for the iteration end, lowering the loop overhead for very short benchmarks. The unroll factor is " +
+                "calibrated during warmup, and needs at least two warmup iterations. Only the benchmarks " +
+                "annotated with @UnrollLoops have the unrolled loops. " +
+                "(default: true for @UnrollLoops benchmarks)")
+                .withRequiredArg().ofType(Boolean.class).describedAs("bool");
+
         OptionSpec<Integer> optWarmupBatchSize = parser.accepts("wbs", "Warmup batch size: number of benchmark " +
                 "method calls per operation. Some benchmark modes may ignore this setting. " +
                 "(default: " + Defaults.WARMUP_BATCHSIZE + ")")
@@ -177,6 +204,12 @@ public class CommandLineOptions implements Options {
                 "(default: " + Defaults.WARMUP_FORKS + ")")
                 .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.NON_NEGATIVE).describedAs("int");
 
+        OptionSpec<Integer> optMinForksPerMode = parser.accepts("fpm", "Minimal number of forks per fork mode. " +
+                "If the forks settle in several distinct modes by their primary score, make additional forks, " +
+                "up to the number of measurement forks, until every mode has this many forks. Use 0 to disable. " +
+                "(default: " + Defaults.MIN_FORKS_PER_MODE + ")")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.NON_NEGATIVE).describedAs("int");
+
         OptionSpec<String> optOutput = parser.accepts("o", "Redirect human-readable output to a given file.")
                 .withRequiredArg().ofType(String.class).describedAs("filename");
 
@@ -242,6 +275,25 @@ public class CommandLineOptions implements Options {
                 "Parameter values should be separated with commas.")
                 .withRequiredArg().ofType(String.class).describedAs("param={v,}*");
 
+        OptionSpec<String> optCacheSweep = parser.accepts("cs", "Benchmark parameter to sweep over the cache " +
+                "hierarchy. Parameter values are replaced with working set sizes in bytes that straddle every data " +
+                "cache level of the host, and reach into DRAM; the scores are then summarized as the curve with " +
+                "cache boundaries marked. Cache sizes are read from Linux sysfs. The parameter should be declared by " +
+                "the benchmarks, and cannot be given with -p.")
+                .withRequiredArg().ofType(String.class).describedAs("param");
+
+        OptionSpec<Integer> optMetricsPort = parser.accepts("mp", "Serve the live run metrics over HTTP on the " +
+                "loopback interface, in Prometheus text format: the current benchmark, iteration scores, secondary " +
+                "results, run progress, and forked VM exit codes at /metrics, and the recent iteration scores at " +
+                "/history. Use 0 to pick any free port.")
+                .withRequiredArg().withValuesConvertedBy(IntegerValueConverter.NON_NEGATIVE).describedAs("port");
+
+        OptionSpec<String> optScoreEstimator = parser.accepts("se", "Estimator for the scores aggregated over " +
+                "iterations. Estimators are: " + ScoreEstimator.labels() + ". Robust estimators do not assume " +
+                "normally distributed scores. " +
+                "(default: " + Defaults.SCORE_ESTIMATOR.label() + ")")
+                .withRequiredArg().ofType(String.class).describedAs("estimator");
+
         OptionSpec<String> optWarmupBenchmarks = parser.accepts("wmb", "Warmup benchmarks to include in the run in " +
                 "addition to already selected by the primary filters. Harness will not measure these benchmarks, but " +
                 "only use them for the warmup.")
@@ -309,6 +361,16 @@ public class CommandLineOptions implements Options {
                 resultFormat = Optional.none();
             }
 
+            if (set.has(optScoreEstimator)) {
+                try {
+                    scoreEstimator = Optional.of(ScoreEstimator.fromLabel(optScoreEstimator.value(set)));
+                } catch (IllegalArgumentException iae) {
+                    throw new CommandLineOptionException(iae.getMessage(), iae);
+                }
+            } else {
+                scoreEstimator = Optional.none();
+            }
+
             help = set.has("h");
             list = set.has("l");
             listWithParams = set.has("lp");
@@ -319,6 +381,9 @@ public class CommandLineOptions implements Options {
             batchSize = toOptional(optMeasureBatchSize, set);
             runTime = toOptional(optMeasureTime, set);
             warmupIterations = toOptional(optWarmupCount, set);
+            warmupQuietIterations = toOptional(optWarmupQuiet, set);
+            warmupQuietLimit = toOptional(optWarmupQuietLimit, set);
+            unrollLoops = toOptional(optUnroll, set);
             warmupBatchSize = toOptional(optWarmupBatchSize, set);
             warmupTime = toOptional(optWarmupTime, set);
             timeout = toOptional(optTimeoutTime, set);
@@ -328,6 +393,7 @@ public class CommandLineOptions implements Options {
             failOnError = toOptional(optFOE, set);
             fork = toOptional(optForks, set);
             warmupFork = toOptional(optWarmupForks, set);
+            minForksPerMode = toOptional(optMinForksPerMode, set);
             output = toOptional(optOutput, set);
             result = toOptional(optOutputResults, set);
 
@@ -384,6 +450,11 @@ public class CommandLineOptions implements Options {
             }
 
             jvm = toOptional(optJvm, set);
+            cacheSweepParam = toOptional(optCacheSweep, set);
+            metricsPort = toOptional(optMetricsPort, set);
+            if (metricsPort.hasValue() && metricsPort.get() > 65535) {
+                throw new CommandLineOptionException("Metrics port should be at most 65535, but it is " + metricsPort.get());
+            }
 
             jvmArgs = treatQuoted(set, optJvmArgs);
             jvmArgsAppend = treatQuoted(set, optJvmArgsAppend);
@@ -399,6 +470,11 @@ public class CommandLineOptions implements Options {
                 }
             }
 
+            if (cacheSweepParam.hasValue() && getParameter(cacheSweepParam.get()).hasValue()) {
+                throw new CommandLineOptionException("Parameter \"" + cacheSweepParam.get() + "\" is swept over " +
+                        "the cache hierarchy, and cannot be given with -p at the same time");
+            }
+
         } catch (OptionException e) {
             String message = e.getMessage();
             Throwable cause = e.getCause();
@@ -543,6 +619,16 @@ public class CommandLineOptions implements Options {
         }
     }
 
+    @Override
+    public Optional<String> getCacheSweepParam() {
+        return cacheSweepParam;
+    }
+
+    @Override
+    public Optional<Integer> getMetricsPort() {
+        return metricsPort;
+    }
+
     @Override
     public Optional<Integer> getForkCount() {
         return fork;
@@ -553,6 +639,11 @@ public class CommandLineOptions implements Options {
         return warmupFork;
     }
 
+    @Override
+    public Optional<Integer> getMinForksPerMode() {
+        return minForksPerMode;
+    }
+
     @Override
     public Optional<String> getOutput() {
         return output;
@@ -593,6 +684,21 @@ public class CommandLineOptions implements Options {
         return warmupIterations;
     }
 
+    @Override
+    public Optional<Integer> getWarmupQuietIterations() {
+        return warmupQuietIterations;
+    }
+
+    @Override
+    public Optional<Integer> getWarmupQuietLimit() {
+        return warmupQuietLimit;
+    }
+
+    @Override
+    public Optional<Boolean> shouldUnrollLoops() {
+        return unrollLoops;
+    }
+
     @Override
     public Optional<Integer> getWarmupBatchSize() {
         return warmupBatchSize;
@@ -660,4 +766,9 @@ public class CommandLineOptions implements Options {
     public Optional<TimeValue> getTimeout() {
         return timeout;
     }
+
+    @Override
+    public Optional<ScoreEstimator> getScoreEstimator() {
+        return scoreEstimator;
+    }
 }
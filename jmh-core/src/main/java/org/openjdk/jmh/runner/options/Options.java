@@ -25,6 +25,7 @@
 package org.openjdk.jmh.runner.options;
 
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.util.Optional;
 
@@ -118,6 +119,24 @@ public interface Options extends Serializable {
      */
     Optional<Integer> getWarmupIterations();
 
+    /**
+     * Number of consecutive warmup iterations without JIT activity to end the warmup
+     * @return number of quiet iterations; 0, if warmup runs the fixed number of iterations
+     */
+    Optional<Integer> getWarmupQuietIterations();
+
+    /**
+     * Maximum number of warmup iterations, when warmup waits for JIT to go quiet
+     * @return maximum number of warmup iterations
+     */
+    Optional<Integer> getWarmupQuietLimit();
+
+    /**
+     * Should unroll the measurement loops, calibrating the unroll factor during warmup?
+     * @return should unroll?
+     */
+    Optional<Boolean> shouldUnrollLoops();
+
     /**
      * The duration for warmup iterations
      * @return duration
@@ -201,6 +220,13 @@ public interface Options extends Serializable {
      */
     Optional<Integer> getWarmupForkCount();
 
+    /**
+     * Minimal number of forks in every detected fork mode
+     * @return minimal fork count per mode; 0, to disable additional forks
+     * @see org.openjdk.jmh.results.ForkModes
+     */
+    Optional<Integer> getMinForksPerMode();
+
     /**
      * JVM executable to use for forks
      * @return path to JVM executable
@@ -238,10 +264,29 @@ public interface Options extends Serializable {
      */
     Optional<Collection<String>> getParameter(String name);
 
+    /**
+     * The parameter to sweep over the cache hierarchy.
+     * @return parameter name
+     * @see org.openjdk.jmh.annotations.Param
+     */
+    Optional<String> getCacheSweepParam();
+
+    /**
+     * Local port to serve the live run metrics on.
+     * @return port, 0 for any free port
+     */
+    Optional<Integer> getMetricsPort();
+
     /**
      * Timeout: how long to wait for an iteration to complete.
      * @return duration
      */
     Optional<TimeValue> getTimeout();
 
+    /**
+     * Estimator for the scores aggregated over iterations.
+     * @return estimator
+     */
+    Optional<ScoreEstimator> getScoreEstimator();
+
 }
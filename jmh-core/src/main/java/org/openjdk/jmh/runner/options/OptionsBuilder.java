@@ -27,6 +27,7 @@ package org.openjdk.jmh.runner.options;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.profile.Profiler;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.util.HashMultimap;
 import org.openjdk.jmh.util.Multimap;
@@ -354,6 +355,65 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<Integer> warmupQuietIterations = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder warmupQuietIterations(int value) {
+        checkGreaterOrEqual(value, 0, "Warmup quiet iterations");
+        this.warmupQuietIterations = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getWarmupQuietIterations() {
+        if (otherOptions != null) {
+            return warmupQuietIterations.orAnother(otherOptions.getWarmupQuietIterations());
+        } else {
+            return warmupQuietIterations;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
+    private Optional<Integer> warmupQuietLimit = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder warmupQuietLimit(int value) {
+        checkGreaterOrEqual(value, 1, "Warmup quiet limit");
+        this.warmupQuietLimit = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getWarmupQuietLimit() {
+        if (otherOptions != null) {
+            return warmupQuietLimit.orAnother(otherOptions.getWarmupQuietLimit());
+        } else {
+            return warmupQuietLimit;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
+    private Optional<Boolean> unrollLoops = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder unrollLoops(boolean value) {
+        this.unrollLoops = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Boolean> shouldUnrollLoops() {
+        if (otherOptions != null) {
+            return unrollLoops.orAnother(otherOptions.shouldUnrollLoops());
+        } else {
+            return unrollLoops;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<Integer> warmupBatchSize = Optional.none();
 
     @Override
@@ -590,6 +650,26 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<Integer> minForksPerMode = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder minForksPerMode(int value) {
+        checkGreaterOrEqual(value, 0, "Minimal forks per mode");
+        this.minForksPerMode = Optional.of(value);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getMinForksPerMode() {
+        if (otherOptions != null) {
+            return minForksPerMode.orAnother(otherOptions.getMinForksPerMode());
+        } else {
+            return minForksPerMode;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<String> jvmBinary = Optional.none();
 
     @Override
@@ -698,6 +778,45 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<String> cacheSweepParam = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder cacheSweep(String name) {
+        this.cacheSweepParam = Optional.of(name);
+        return this;
+    }
+
+    @Override
+    public Optional<String> getCacheSweepParam() {
+        if (otherOptions != null) {
+            return cacheSweepParam.orAnother(otherOptions.getCacheSweepParam());
+        } else {
+            return cacheSweepParam;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
+    private Optional<Integer> metricsPort = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder metricsPort(int port) {
+        checkGreaterOrEqual(port, 0, "Metrics port");
+        this.metricsPort = Optional.of(port);
+        return this;
+    }
+
+    @Override
+    public Optional<Integer> getMetricsPort() {
+        if (otherOptions != null) {
+            return metricsPort.orAnother(otherOptions.getMetricsPort());
+        } else {
+            return metricsPort;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
     private Optional<TimeValue> timeout = Optional.none();
 
     @Override
@@ -717,4 +836,23 @@ public class OptionsBuilder implements Options, ChainedOptionsBuilder {
 
     // ---------------------------------------------------------------------------
 
+    private Optional<ScoreEstimator> scoreEstimator = Optional.none();
+
+    @Override
+    public ChainedOptionsBuilder scoreEstimator(ScoreEstimator estimator) {
+        this.scoreEstimator = Optional.of(estimator);
+        return this;
+    }
+
+    @Override
+    public Optional<ScoreEstimator> getScoreEstimator() {
+        if (otherOptions != null) {
+            return scoreEstimator.orAnother(otherOptions.getScoreEstimator());
+        } else {
+            return scoreEstimator;
+        }
+    }
+
+    // ---------------------------------------------------------------------------
+
 }
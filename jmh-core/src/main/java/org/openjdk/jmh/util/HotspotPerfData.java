@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decoder for HotSpot performance data.
+ *
+ * <p>HotSpot publishes its performance counters (the ones jstat shows) in the
+ * memory-mapped hsperfdata_&lt;user&gt;/&lt;pid&gt; file. The file is readable from
+ * the same VM, and from any other process of the same user.</p>
+ */
+public class HotspotPerfData {
+
+    static final int MAGIC = 0xcafec0c0;
+
+    public static final int UNITS_NONE = 1;
+    public static final int UNITS_BYTES = 2;
+    public static final int UNITS_TICKS = 3;
+    public static final int UNITS_EVENTS = 4;
+
+    public static final int VARIABILITY_CONSTANT = 1;
+    public static final int VARIABILITY_MONOTONIC = 2;
+    public static final int VARIABILITY_VARIABLE = 3;
+
+    /**
+     * Name of the counter with the frequency of tick counters.
+     */
+    public static final String FREQUENCY_COUNTER = "sun.os.hrt.frequency";
+
+    private HotspotPerfData() {
+        // prevent instantiation
+    }
+
+    /**
+     * @return directory HotSpot puts hsperfdata_&lt;user&gt; directories in
+     */
+    public static String defaultDirectory() {
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (os.contains("windows") || os.contains("mac")) {
+            return System.getProperty("java.io.tmpdir");
+        }
+        return "/tmp";
+    }
+
+    /**
+     * @param dir directory with hsperfdata_&lt;user&gt; directories
+     * @param pid VM pid
+     * @return perf data file of the given VM
+     */
+    public static File file(String dir, long pid) {
+        return new File(new File(dir, "hsperfdata_" + System.getProperty("user.name")), String.valueOf(pid));
+    }
+
+    /**
+     * Maps the perf data file.
+     *
+     * @param file file to map
+     * @return mapped buffer
+     * @throws IOException if file cannot be mapped
+     */
+    public static ByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel ch = raf.getChannel()) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    /**
+     * Decodes the scalar long counters from the perf data buffer.
+     *
+     * @param buf buffer to decode
+     * @return counters by name; empty, if buffer is not yet accessible; null, if buffer is not recognized
+     */
+    public static Map<String, Counter> decode(ByteBuffer buf) {
+        ByteBuffer b = buf.duplicate();
+        if (b.limit() < 32 || b.order(ByteOrder.BIG_ENDIAN).getInt(0) != MAGIC) {
+            return null;
+        }
+
+        b.order((b.get(4) == 0) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+
+        int major = b.get(5);
+        if (major != 2) {
+            return null;
+        }
+
+        Map<String, Counter> result = new HashMap<>();
+        if (b.get(7) == 0) {
+            // Not yet accessible, the VM is still initializing.
+            return result;
+        }
+
+        int off = b.getInt(24);
+        int entries = b.getInt(28);
+        for (int e = 0; e < entries; e++) {
+            if (off < 0 || off + 20 > b.limit()) {
+                break;
+            }
+            int entryLength = b.getInt(off);
+            if (entryLength <= 0 || off + entryLength > b.limit()) {
+                break;
+            }
+
+            int nameOffset = b.getInt(off + 4);
+            int vectorLength = b.getInt(off + 8);
+            byte type = b.get(off + 12);
+            int unit = b.get(off + 14);
+            int variability = b.get(off + 15);
+            int dataOffset = b.getInt(off + 16);
+
+            if (vectorLength == 0 && type == 'J' && dataOffset + 8 <= entryLength) {
+                String name = readName(b, off + nameOffset, off + entryLength);
+                result.put(name, new Counter(b.getLong(off + dataOffset), unit, variability));
+            }
+
+            off += entryLength;
+        }
+        return result;
+    }
+
+    private static String readName(ByteBuffer b, int start, int limit) {
+        int end = start;
+        while (end < limit && b.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = b.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Scalar long counter.
+     */
+    public static class Counter {
+        private final long value;
+        private final int units;
+        private final int variability;
+
+        Counter(long value, int units, int variability) {
+            this.value = value;
+            this.units = units;
+            this.variability = variability;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public int getUnits() {
+            return units;
+        }
+
+        public int getVariability() {
+            return variability;
+        }
+    }
+
+}
@@ -24,8 +24,6 @@
  */
 package org.openjdk.jmh.util;
 
-import org.apache.commons.math3.stat.descriptive.rank.Percentile;
-
 import java.util.AbstractMap;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -41,6 +39,12 @@ public class ListStatistics extends AbstractStatistics {
     private double[] values;
     private int count;
 
+    /**
+     * Sorted copy of values; null when not computed yet. The copy is never modified
+     * after it is published, so that concurrent readers are safe once updates are done.
+     */
+    private transient volatile double[] sorted;
+
     public ListStatistics() {
         values = new double[0];
         count = 0;
@@ -66,6 +70,17 @@ public class ListStatistics extends AbstractStatistics {
         }
         values[count] = d;
         count++;
+        sorted = null;
+    }
+
+    private double[] sorted() {
+        double[] s = sorted;
+        if (s == null) {
+            s = Arrays.copyOf(values, count);
+            Arrays.sort(s);
+            sorted = s;
+        }
+        return s;
     }
 
     @Override
@@ -118,15 +133,29 @@ public class ListStatistics extends AbstractStatistics {
             return Double.NaN;
         }
 
+        if (rank < 0.0d || rank > 100.0d)
+            throw new IllegalArgumentException("Rank should be within [0; 100]");
+
         if (rank == 0) {
             return getMin();
         }
 
-        // trim
-        values = Arrays.copyOf(values, count);
+        double[] s = sorted();
+
+        // Same estimation as in commons-math Percentile
+        double pos = rank * (count + 1) / 100;
+        double floorPos = Math.floor(pos);
+
+        if (pos < 1) {
+            return s[0];
+        }
+        if (pos >= count) {
+            return s[count - 1];
+        }
 
-        Percentile p = new Percentile();
-        return p.evaluate(values, rank);
+        double lower = s[(int) floorPos - 1];
+        double upper = s[(int) floorPos];
+        return lower + (upper - lower) * (pos - floorPos);
     }
 
     @Override
@@ -135,8 +164,7 @@ public class ListStatistics extends AbstractStatistics {
             throw new IllegalArgumentException("Expected more than two levels");
         }
 
-        double[] vs = Arrays.copyOf(values, count);
-        Arrays.sort(vs);
+        double[] vs = sorted();
 
         int[] result = new int[levels.length - 1];
 
@@ -163,7 +191,8 @@ public class ListStatistics extends AbstractStatistics {
             double v = 0;
             double m = getMean();
             for (int i = 0; i < count; i++) {
-                v += Math.pow(values[i] - m, 2);
+                double d = values[i] - m;
+                v += d * d;
             }
             return v / (count - 1);
         } else {
@@ -26,27 +26,208 @@ package org.openjdk.jmh.util;
 
 import java.util.*;
 
+/**
+ * Calculate statistics over the weighted values.
+ *
+ * <p>Values and their counts are kept in primitive arrays. The pairs are appended
+ * as they come, and the copy sorted and merged by value is built lazily, when the
+ * order is first needed. The prefix sums over the counts are cached with it, so that
+ * every percentile query after that is a binary search.</p>
+ *
+ * <p>Updates are not thread-safe. Once updates are done, the instance is safe for
+ * concurrent readers: the getters never modify the appended pairs, and the sorted
+ * copy is published in one go.</p>
+ */
 public class MultisetStatistics extends AbstractStatistics {
-    private static final long serialVersionUID = -4401871054963903938L;
+    private static final long serialVersionUID = -4401871054963903939L;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private double[] values;
+    private long[] counts;
+    private int size;
+    private long n;
+    private boolean normalized;
+    private boolean unitCounts;
+
+    /**
+     * Sorted and merged pairs; null when not computed yet.
+     */
+    private transient volatile Sorted sorted;
+
+    /**
+     * Pairs sorted by value, with duplicates merged and empty counts dropped,
+     * along with the prefix sums over the counts. Never modified after construction.
+     */
+    private static final class Sorted {
+        final double[] values;
+        final long[] counts;
+        final long[] prefix;
+        final int size;
 
-    private final Multiset<Double> values;
+        Sorted(double[] values, long[] counts, int size) {
+            this.values = values;
+            this.counts = counts;
+            this.size = size;
+            this.prefix = new long[size];
+            long cur = 0;
+            for (int i = 0; i < size; i++) {
+                cur += counts[i];
+                prefix[i] = cur;
+            }
+        }
+    }
 
     public MultisetStatistics() {
-        values = new TreeMultiset<>();
+        values = new double[0];
+        counts = new long[0];
+        normalized = true;
+        unitCounts = true;
     }
 
     public void addValue(double d, long count) {
-        values.add(d, count);
+        if (count == 0) {
+            return;
+        }
+
+        adoptSorted();
+        n += count;
+
+        if (size > 0 && Double.compare(values[size - 1], d) == 0) {
+            unitCounts = false;
+            counts[size - 1] += count;
+            if (counts[size - 1] == 0) {
+                size--;
+            }
+            return;
+        }
+
+        if (size >= values.length) {
+            int newLength = Math.max(16, values.length << 1);
+            values = Arrays.copyOf(values, newLength);
+            counts = Arrays.copyOf(counts, newLength);
+        }
+
+        if (size > 0 && Double.compare(values[size - 1], d) > 0) {
+            normalized = false;
+        }
+
+        values[size] = d;
+        counts[size] = count;
+        size++;
+        unitCounts &= (count == 1);
+    }
+
+    /**
+     * Replaces the appended pairs with the sorted ones before the update, if the
+     * sorted copy is already there, so that the next sort starts from the sorted
+     * prefix. The sorted copy is never modified: readers may still hold it.
+     */
+    private void adoptSorted() {
+        Sorted ss = sorted;
+        sorted = null;
+        if (ss == null || normalized) {
+            return;
+        }
+        int length = Math.max(16, ss.size);
+        values = Arrays.copyOf(ss.values, length);
+        counts = Arrays.copyOf(ss.counts, length);
+        size = ss.size;
+        normalized = true;
+        unitCounts = false;
+    }
+
+    /**
+     * @return pairs sorted by value, with duplicates merged and empty counts dropped
+     */
+    private Sorted sorted() {
+        Sorted ss = sorted;
+        if (ss != null) {
+            return ss;
+        }
+
+        double[] vs = Arrays.copyOf(values, size);
+        long[] cs;
+        if (normalized) {
+            cs = Arrays.copyOf(counts, size);
+        } else if (unitCounts) {
+            // counts are all the same, no need to move them along
+            Arrays.sort(vs);
+            cs = new long[size];
+            Arrays.fill(cs, 1);
+        } else {
+            cs = Arrays.copyOf(counts, size);
+            mergeSort(vs, cs, 0, size, new double[size], new long[size]);
+        }
+
+        int w = 0;
+        for (int r = 0; r < size; r++) {
+            if (w > 0 && Double.compare(vs[w - 1], vs[r]) == 0) {
+                cs[w - 1] += cs[r];
+            } else {
+                vs[w] = vs[r];
+                cs[w] = cs[r];
+                w++;
+            }
+            if (cs[w - 1] == 0) {
+                w--;
+            }
+        }
+
+        ss = new Sorted(vs, cs, w);
+        sorted = ss;
+        return ss;
+    }
+
+    private static void mergeSort(double[] vs, long[] cs, int from, int to, double[] tmpV, long[] tmpC) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                double v = vs[i];
+                long c = cs[i];
+                int j = i - 1;
+                while (j >= from && Double.compare(vs[j], v) > 0) {
+                    vs[j + 1] = vs[j];
+                    cs[j + 1] = cs[j];
+                    j--;
+                }
+                vs[j + 1] = v;
+                cs[j + 1] = c;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(vs, cs, from, mid, tmpV, tmpC);
+        mergeSort(vs, cs, mid, to, tmpV, tmpC);
+
+        if (Double.compare(vs[mid - 1], vs[mid]) <= 0) {
+            // already in order
+            return;
+        }
+
+        System.arraycopy(vs, from, tmpV, from, to - from);
+        System.arraycopy(cs, from, tmpC, from, to - from);
+
+        int l = from;
+        int r = mid;
+        for (int i = from; i < to; i++) {
+            if (r >= to || (l < mid && Double.compare(tmpV[l], tmpV[r]) <= 0)) {
+                vs[i] = tmpV[l];
+                cs[i] = tmpC[l];
+                l++;
+            } else {
+                vs[i] = tmpV[r];
+                cs[i] = tmpC[r];
+                r++;
+            }
+        }
     }
 
     @Override
     public double getMax() {
-        if (!values.isEmpty()) {
-            double max = Double.NEGATIVE_INFINITY;
-            for (double d : values.keys()) {
-                max = Math.max(max, d);
-            }
-            return max;
+        Sorted ss = sorted();
+        if (ss.size > 0) {
+            return ss.values[ss.size - 1];
         } else {
             return Double.NaN;
         }
@@ -54,12 +235,9 @@ public class MultisetStatistics extends AbstractStatistics {
 
     @Override
     public double getMin() {
-        if (!values.isEmpty()) {
-            double min = Double.POSITIVE_INFINITY;
-            for (double d : values.keys()) {
-                min = Math.min(min, d);
-            }
-            return min;
+        Sorted ss = sorted();
+        if (ss.size > 0) {
+            return ss.values[0];
         } else {
             return Double.NaN;
         }
@@ -67,15 +245,17 @@ public class MultisetStatistics extends AbstractStatistics {
 
     @Override
     public long getN() {
-        return values.size();
+        return n;
     }
 
     @Override
     public double getSum() {
-        if (!values.isEmpty()) {
+        if (size > 0) {
+            // sum in value order, for the result not to depend on the insertion order
+            Sorted ss = sorted();
             double sum = 0;
-            for (double d : values.keys()) {
-                sum += d * values.count(d);
+            for (int i = 0; i < ss.size; i++) {
+                sum += ss.values[i] * ss.counts[i];
             }
             return sum;
         } else {
@@ -83,13 +263,26 @@ public class MultisetStatistics extends AbstractStatistics {
         }
     }
 
+    /**
+     * @param index 1-based index in the sorted sequence of values
+     * @return value at given index
+     */
     private double get(long index) {
-        long cur = 0;
-        for (double d : values.keys()) {
-            cur += values.count(d);
-            if (cur >= index) return d;
+        Sorted ss = sorted();
+        long[] p = ss.prefix;
+
+        // find the first pair that covers the index
+        int lo = 0;
+        int hi = ss.size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (p[mid] < index) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
         }
-        return getMax();
+        return (lo < ss.size) ? ss.values[lo] : getMax();
     }
 
     @Override
@@ -101,7 +294,7 @@ public class MultisetStatistics extends AbstractStatistics {
             return getMin();
         }
 
-        double pos = rank * (values.size() + 1) / 100;
+        double pos = rank * (n + 1) / 100;
         double floorPos = Math.floor(pos);
 
         double flooredValue = get((long) floorPos);
@@ -113,10 +306,12 @@ public class MultisetStatistics extends AbstractStatistics {
     @Override
     public double getVariance() {
         if (getN() > 0) {
+            Sorted ss = sorted();
             double v = 0;
             double m = getMean();
-            for (double d : values.keys()) {
-                v += Math.pow(d - m, 2) * values.count(d);
+            for (int i = 0; i < ss.size; i++) {
+                double d = ss.values[i] - m;
+                v += d * d * ss.counts[i];
             }
             return v / (getN() - 1);
         } else {
@@ -130,18 +325,18 @@ public class MultisetStatistics extends AbstractStatistics {
             throw new IllegalArgumentException("Expected more than two levels");
         }
 
-        List<Double> vs = new ArrayList<>(values.keys());
-        Collections.sort(vs);
+        Sorted ss = sorted();
 
         int[] result = new int[levels.length - 1];
 
         int c = 0;
-        values: for (double v : vs) {
+        values: for (int i = 0; i < ss.size; i++) {
+            double v = ss.values[i];
             while (levels[c] > v || v >= levels[c + 1]) {
                 c++;
                 if (c > levels.length - 2) break values;
             }
-            result[c] += values.count(v);
+            result[c] += ss.counts[i];
         }
 
         return result;
@@ -149,6 +344,29 @@ public class MultisetStatistics extends AbstractStatistics {
 
     @Override
     public Iterator<Map.Entry<Double, Long>> getRawData() {
-        return values.entrySet().iterator();
+        final Sorted ss = sorted();
+        return new Iterator<Map.Entry<Double, Long>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < ss.size;
+            }
+
+            @Override
+            public Map.Entry<Double, Long> next() {
+                if (index >= ss.size) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<Double, Long> e = new AbstractMap.SimpleImmutableEntry<>(ss.values[index], ss.counts[index]);
+                index++;
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Element cannot be removed.");
+            }
+        };
     }
 }
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.util;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Location estimates and confidence intervals that do not assume the normal
+ * distribution of the values: bootstrap, median, Hodges-Lehmann, trimmed mean.
+ *
+ * <p>All methods work with the weighted values, so that large {@link MultisetStatistics}
+ * (e.g. the SampleTime histograms) are handled without expanding them.</p>
+ */
+public final class RobustStatistics {
+
+    /**
+     * Bootstrap rounds.
+     */
+    public static final int BOOTSTRAP_ROUNDS = 10000;
+
+    /**
+     * Maximum size of bootstrap resample. Larger samples are resampled m-out-of-n,
+     * with the spread rescaled back to the original sample size.
+     */
+    private static final int BOOTSTRAP_MAX_RESAMPLE = 1000;
+
+    /**
+     * Bootstrap work is split in this many chunks; fixed so that the results
+     * do not depend on the number of available CPUs.
+     */
+    private static final int BOOTSTRAP_CHUNKS = 16;
+
+    /**
+     * Do not bother with parallel bootstrap below this number of draws.
+     */
+    private static final long BOOTSTRAP_PARALLEL_THRESHOLD = 1000000;
+
+    /**
+     * Maximum sample size for exact Walsh averages. Larger samples are compressed
+     * to this many quantiles, with the spread rescaled back to the original sample size.
+     */
+    private static final int WALSH_MAX_SAMPLE = 1000;
+
+    private RobustStatistics() {
+        // prevent instantiation
+    }
+
+    /**
+     * Bootstrap percentile interval for the mean.
+     *
+     * @param s statistics
+     * @param confidence confidence level
+     * @param rounds number of bootstrap rounds
+     * @return confidence interval; NaNs if not available
+     */
+    public static double[] getBootstrapMeanIntervalAt(Statistics s, double confidence, int rounds) {
+        Weighted w = Weighted.of(s);
+        if (w.n <= 2) {
+            return nans();
+        }
+
+        double mean = s.getMean();
+        int m = (int) Math.min(w.n, BOOTSTRAP_MAX_RESAMPLE);
+        double[] means = new double[rounds];
+
+        int chunks = Math.min(BOOTSTRAP_CHUNKS, rounds);
+        List<BootstrapTask> tasks = new ArrayList<>();
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) rounds * c / chunks);
+            int to = (int) ((long) rounds * (c + 1) / chunks);
+            tasks.add(new BootstrapTask(w, m, means, from, to, 0x5DEECE66DL + c));
+        }
+
+        if ((long) rounds * m < BOOTSTRAP_PARALLEL_THRESHOLD) {
+            for (BootstrapTask t : tasks) {
+                t.call();
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(
+                    Math.min(chunks, Runtime.getRuntime().availableProcessors()),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "jmh-bootstrap");
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+            try {
+                for (Future<Void> f : pool.invokeAll(tasks)) {
+                    f.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        Arrays.sort(means);
+
+        double alpha = 1 - confidence;
+        int lo = (int) Math.floor(alpha / 2 * rounds);
+        int hi = (int) Math.ceil((1 - alpha / 2) * rounds) - 1;
+        lo = Math.max(0, Math.min(rounds - 1, lo));
+        hi = Math.max(0, Math.min(rounds - 1, hi));
+
+        double scale = Math.sqrt(1.0 * m / w.n);
+        return new double[] {
+                mean + (means[lo] - mean) * scale,
+                mean + (means[hi] - mean) * scale,
+        };
+    }
+
+    /**
+     * Distribution-free interval for the median, built from the order statistics.
+     * Uses the normal approximation of the binomial distribution of ranks.
+     *
+     * @param s statistics
+     * @param confidence confidence level
+     * @return confidence interval; NaNs if not available
+     */
+    public static double[] getMedianIntervalAt(Statistics s, double confidence) {
+        Weighted w = Weighted.of(s);
+        if (w.n <= 2) {
+            return nans();
+        }
+
+        double z = normalQuantile(confidence);
+        double spread = z * Math.sqrt(w.n) / 2;
+        long lo = (long) Math.floor(w.n / 2.0 - spread);
+        long hi = (long) Math.ceil(1 + w.n / 2.0 + spread);
+
+        return new double[] {
+                w.valueAtRank(Math.max(1, lo)),
+                w.valueAtRank(Math.min(w.n, hi)),
+        };
+    }
+
+    /**
+     * Hodges-Lehmann location estimate: the median of all pairwise (Walsh) averages.
+     *
+     * @param s statistics
+     * @return estimate; NaN if not available
+     */
+    public static double getHodgesLehmann(Statistics s) {
+        Weighted w = Weighted.of(s);
+        if (w.n == 0) {
+            return Double.NaN;
+        }
+        double[] walsh = walshAverages(w);
+        return medianSorted(walsh);
+    }
+
+    /**
+     * Hodges-Lehmann interval: the order statistics of Walsh averages, as given by
+     * the Wilcoxon signed-rank distribution (normal approximation).
+     *
+     * @param s statistics
+     * @param confidence confidence level
+     * @return confidence interval; NaNs if not available
+     */
+    public static double[] getHodgesLehmannIntervalAt(Statistics s, double confidence) {
+        Weighted w = Weighted.of(s);
+        if (w.n <= 2) {
+            return nans();
+        }
+
+        double[] walsh = walshAverages(w);
+        long m = Math.min(w.n, WALSH_MAX_SAMPLE);
+        int total = walsh.length;
+
+        double z = normalQuantile(confidence);
+        long k = (long) Math.floor(total / 2.0 - z * Math.sqrt(m * (m + 1) * (2 * m + 1) / 24.0));
+        int lo = (int) Math.max(0, k - 1);
+        int hi = (int) Math.min(total - 1, total - k);
+
+        double est = medianSorted(walsh);
+        double scale = Math.sqrt(1.0 * m / w.n);
+        return new double[] {
+                est + (walsh[lo] - est) * scale,
+                est + (walsh[hi] - est) * scale,
+        };
+    }
+
+    /**
+     * Trimmed mean.
+     *
+     * @param s statistics
+     * @param trim fraction to trim from each side, [0; 0.5)
+     * @return trimmed mean; NaN if not available
+     */
+    public static double getTrimmedMean(Statistics s, double trim) {
+        checkTrim(trim);
+        Weighted w = Weighted.of(s);
+        if (w.n == 0) {
+            return Double.NaN;
+        }
+        long g = (long) Math.floor(trim * w.n);
+        return w.sumRanks(g + 1, w.n - g) / (w.n - 2 * g);
+    }
+
+    /**
+     * Yuen's interval for the trimmed mean, based on the winsorized variance.
+     *
+     * @param s statistics
+     * @param trim fraction to trim from each side, [0; 0.5)
+     * @param confidence confidence level
+     * @return confidence interval; NaNs if not available
+     */
+    public static double[] getTrimmedMeanIntervalAt(Statistics s, double trim, double confidence) {
+        checkTrim(trim);
+        Weighted w = Weighted.of(s);
+        long g = (long) Math.floor(trim * w.n);
+        long h = w.n - 2 * g;
+        if (w.n <= 2 || h < 2) {
+            return nans();
+        }
+
+        double tmean = w.sumRanks(g + 1, w.n - g) / h;
+
+        // winsorize: the trimmed tails are replaced with the extreme remaining values
+        double low = w.valueAtRank(g + 1);
+        double high = w.valueAtRank(w.n - g);
+        double wmean = (g * low + w.sumRanks(g + 1, w.n - g) + g * high) / w.n;
+
+        double wvar = g * (low - wmean) * (low - wmean) + g * (high - wmean) * (high - wmean);
+        long rank = 0;
+        for (int i = 0; i < w.size; i++) {
+            long from = Math.max(rank + 1, g + 1);
+            long to = Math.min(rank + w.counts[i], w.n - g);
+            if (from <= to) {
+                double d = w.values[i] - wmean;
+                wvar += d * d * (to - from + 1);
+            }
+            rank += w.counts[i];
+        }
+        wvar /= (w.n - 1);
+
+        double se = Math.sqrt(wvar) / ((1 - 2 * trim) * Math.sqrt(w.n));
+        TDistribution tDist = new TDistribution(h - 1);
+        double a = tDist.inverseCumulativeProbability(1 - (1 - confidence) / 2);
+        return new double[] {tmean - a * se, tmean + a * se};
+    }
+
+    private static void checkTrim(double trim) {
+        if (trim < 0 || trim >= 0.5) {
+            throw new IllegalArgumentException("Trim fraction should be within [0; 0.5)");
+        }
+    }
+
+    private static double normalQuantile(double confidence) {
+        return new NormalDistribution().inverseCumulativeProbability(1 - (1 - confidence) / 2);
+    }
+
+    private static double[] nans() {
+        return new double[] {Double.NaN, Double.NaN};
+    }
+
+    /**
+     * Computes the sorted Walsh averages, compressing the sample to
+     * {@link #WALSH_MAX_SAMPLE} quantiles if needed.
+     */
+    private static double[] walshAverages(Weighted w) {
+        int m = (int) Math.min(w.n, WALSH_MAX_SAMPLE);
+        double[] xs = new double[m];
+        for (int i = 0; i < m; i++) {
+            long rank = (m == w.n) ? i + 1 : (long) Math.ceil((i + 0.5) * w.n / m);
+            xs[i] = w.valueAtRank(Math.max(1, Math.min(w.n, rank)));
+        }
+
+        double[] walsh = new double[m * (m + 1) / 2];
+        int idx = 0;
+        for (int i = 0; i < m; i++) {
+            for (int j = i; j < m; j++) {
+                walsh[idx++] = (xs[i] + xs[j]) / 2;
+            }
+        }
+        Arrays.sort(walsh);
+        return walsh;
+    }
+
+    private static double medianSorted(double[] sorted) {
+        int len = sorted.length;
+        if ((len & 1) == 1) {
+            return sorted[len / 2];
+        } else {
+            return (sorted[len / 2 - 1] + sorted[len / 2]) / 2;
+        }
+    }
+
+    /**
+     * Computes the means of bootstrap resamples for the given range of rounds.
+     */
+    private static class BootstrapTask implements Callable<Void> {
+        private final Weighted w;
+        private final int m;
+        private final double[] means;
+        private final int from;
+        private final int to;
+        private final long seed;
+
+        BootstrapTask(Weighted w, int m, double[] means, int from, int to, long seed) {
+            this.w = w;
+            this.m = m;
+            this.means = means;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        public Void call() {
+            Random r = new Random(seed);
+            for (int i = from; i < to; i++) {
+                double sum = 0;
+                for (int d = 0; d < m; d++) {
+                    sum += w.valueAtRank(1 + (long) (r.nextDouble() * w.n));
+                }
+                means[i] = sum / m;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Sorted distinct values with their counts.
+     */
+    private static class Weighted {
+        final double[] values;
+        final long[] counts;
+        final long[] prefix;
+        final int size;
+        final long n;
+
+        private Weighted(double[] values, long[] counts, int size) {
+            this.values = values;
+            this.counts = counts;
+            this.size = size;
+            this.prefix = new long[size];
+            long cur = 0;
+            for (int i = 0; i < size; i++) {
+                cur += counts[i];
+                prefix[i] = cur;
+            }
+            this.n = cur;
+        }
+
+        static Weighted of(Statistics s) {
+            List<Map.Entry<Double, Long>> entries = new ArrayList<>();
+            Iterator<Map.Entry<Double, Long>> it = s.getRawData();
+            boolean sorted = true;
+            double last = Double.NEGATIVE_INFINITY;
+            while (it.hasNext()) {
+                Map.Entry<Double, Long> e = it.next();
+                if (e.getValue() <= 0) continue;
+                sorted &= (Double.compare(last, e.getKey()) <= 0);
+                last = e.getKey();
+                entries.add(e);
+            }
+
+            if (!sorted) {
+                Collections.sort(entries, new Comparator<Map.Entry<Double, Long>>() {
+                    @Override
+                    public int compare(Map.Entry<Double, Long> o1, Map.Entry<Double, Long> o2) {
+                        return Double.compare(o1.getKey(), o2.getKey());
+                    }
+                });
+            }
+
+            double[] values = new double[entries.size()];
+            long[] counts = new long[entries.size()];
+            int size = 0;
+            for (Map.Entry<Double, Long> e : entries) {
+                if (size > 0 && Double.compare(values[size - 1], e.getKey()) == 0) {
+                    counts[size - 1] += e.getValue();
+                } else {
+                    values[size] = e.getKey();
+                    counts[size] = e.getValue();
+                    size++;
+                }
+            }
+            return new Weighted(values, counts, size);
+        }
+
+        /**
+         * @param rank 1-based rank
+         * @return value at given rank in the sorted sequence
+         */
+        double valueAtRank(long rank) {
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prefix[mid] < rank) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return values[Math.min(lo, size - 1)];
+        }
+
+        /**
+         * @param from 1-based rank, inclusive
+         * @param to 1-based rank, inclusive
+         * @return sum of values within the ranks
+         */
+        double sumRanks(long from, long to) {
+            double sum = 0;
+            long rank = 0;
+            for (int i = 0; i < size; i++) {
+                long f = Math.max(rank + 1, from);
+                long t = Math.min(rank + counts[i], to);
+                if (f <= t) {
+                    sum += values[i] * (t - f + 1);
+                }
+                rank += counts[i];
+            }
+            return sum;
+        }
+    }
+
+}
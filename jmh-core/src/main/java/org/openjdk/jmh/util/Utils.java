@@ -416,6 +416,24 @@ public class Utils {
         throw new IllegalStateException("Unsupported PID format: " + name);
     }
 
+    /**
+     * Gets the OS-level ID of the current thread. Only Linux is supported,
+     * where the ID is resolved through /proc/thread-self.
+     *
+     * @return native thread ID, or -1 if it is not available.
+     */
+    public static long getNativeThreadId() {
+        try {
+            File self = new File("/proc/thread-self");
+            if (self.exists()) {
+                return Long.parseLong(self.getCanonicalFile().getName());
+            }
+        } catch (IOException | NumberFormatException e) {
+            // fall through
+        }
+        return -1;
+    }
+
     public static Collection<String> tryWith(String... cmd) {
         Collection<String> messages = new ArrayList<>();
         try {
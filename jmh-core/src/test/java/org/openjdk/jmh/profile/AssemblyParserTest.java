@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Interval;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AssemblyParserTest {
+
+    private static File makeLog() throws IOException {
+        File file = FileUtils.tempFile("hslog");
+        FileUtils.writeLines(file, Arrays.asList(
+                "<writer thread='1'>",
+                "<nmethod compile_id='42' compiler='C2' level='4' entry='0x0000000000001000' size='32' method='org/sample/Foo bar ()V' bytes='11'/>",
+                "<writer thread='2'>",
+                "----------------------------------------------------------------------",
+                "invokehandle  233 invokehandle  [0x0000000000002000, 0x0000000000002100]  256 bytes",
+                "",
+                "  0x0000000000002000: mov    %eax,-0x14000(%rsp)",
+                "  0x0000000000002004: jmp    0x0000000000002000",
+                "<writer thread='1'>",
+                "[Entry Point]",
+                "  0x0000000000001000: push   %rbp",
+                "  0x0000000000001001: ret"
+        ));
+        return file;
+    }
+
+    @Test
+    public void indexResolvesMethods() throws IOException {
+        File log = makeLog();
+        try {
+            AssemblyParser parser = new AssemblyParser(log, true);
+            parser.index();
+
+            Assert.assertEquals(4, parser.getAddressLines());
+            Assert.assertEquals("interpreter", parser.getMethods().get(0x2004).source());
+            Assert.assertEquals("org.sample.Foo::bar, version 42", parser.getMethods().get(0x1001).name());
+        } finally {
+            log.delete();
+        }
+    }
+
+    @Test
+    public void decodeEverything() throws IOException {
+        File log = makeLog();
+        try {
+            AssemblyParser parser = new AssemblyParser(log, true);
+            parser.index();
+
+            AbstractPerfAsmProfiler.Assembly asm = parser.decode(null, 2);
+            Assert.assertEquals(4, asm.size());
+
+            // lines are grouped by writer threads, in order of appearance
+            Assert.assertEquals("<nmethod compile_id='42' compiler='C2' level='4' entry='0x0000000000001000' size='32' method='org/sample/Foo bar ()V' bytes='11'/>",
+                    asm.lines.get(0).code);
+            Assert.assertEquals(Long.valueOf(0x1000), asm.lines.get(2).addr);
+            Assert.assertTrue(asm.intervals.contains(new Interval(0x2004, 0x2000)));
+        } finally {
+            log.delete();
+        }
+    }
+
+    @Test
+    public void decodeOnlyHot() throws IOException {
+        File log = makeLog();
+        try {
+            AssemblyParser parser = new AssemblyParser(log, false);
+            parser.index();
+
+            AbstractPerfAsmProfiler.Assembly asm = parser.decode(Collections.singleton(new Interval(0x2000, 0x2004)), 2);
+            Assert.assertEquals(2, asm.size());
+            Assert.assertFalse(asm.getLines(0x2000, 0x2004, 10).isEmpty());
+            Assert.assertTrue(asm.getLines(0x1000, 0x1001, 10).isEmpty());
+            Assert.assertTrue(asm.intervals.isEmpty());
+        } finally {
+            log.delete();
+        }
+    }
+
+    @Test
+    public void missingLog() {
+        AssemblyParser parser = new AssemblyParser(new File("does-not-exist.log"), false);
+        parser.index();
+        Assert.assertEquals(0, parser.getAddressLines());
+        Assert.assertEquals(0, parser.decode(null, 2).size());
+    }
+
+    @Test
+    public void parseAddress() {
+        Assert.assertEquals(0x7f26f51fb640L, AssemblyParser.parseAddress("0x00007f26f51fb640:"));
+        Assert.assertEquals(0xffffffff81000000L, AssemblyParser.parseAddress("0xffffffff81000000"));
+        Assert.assertEquals(0L, AssemblyParser.parseAddress("0x0"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseAddressTooLong() {
+        AssemblyParser.parseAddress("0x1ffffffff81000000");
+    }
+
+}
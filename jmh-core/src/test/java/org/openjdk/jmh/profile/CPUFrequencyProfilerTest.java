@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CPUFrequencyProfilerTest {
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jmh-sysfs").toFile();
+        write("devices/system/cpu/cpu0/cpufreq/scaling_cur_freq", "2000000");
+        write("devices/system/cpu/cpu0/thermal_throttle/core_throttle_count", "5");
+        write("devices/system/cpu/cpu0/thermal_throttle/package_throttle_count", "7");
+        write("devices/system/cpu/cpu1/cpufreq/scaling_cur_freq", "3000000");
+        write("devices/system/cpu/cpu1/thermal_throttle/core_throttle_count", "0");
+        write("devices/system/cpu/cpu1/thermal_throttle/package_throttle_count", "7");
+        write("devices/system/cpu/cpufreq/policy0/scaling_cur_freq", "42");
+        write("class/thermal/thermal_zone0/temp", "55000");
+        write("class/thermal/thermal_zone0/trip_point_0_type", "passive");
+        write("class/thermal/thermal_zone0/trip_point_0_temp", "90000");
+        write("class/thermal/thermal_zone0/trip_point_1_type", "critical");
+        write("class/thermal/thermal_zone0/trip_point_1_temp", "50000");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        delete(root);
+    }
+
+    private void write(String path, String value) throws IOException {
+        File f = new File(root, path);
+        f.getParentFile().mkdirs();
+        FileUtils.writeLines(f, Collections.singleton(value));
+    }
+
+    private static void delete(File f) {
+        File[] fs = f.listFiles();
+        if (fs != null) {
+            for (File c : fs) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    private Map<String, Double> run(Runnable duringIteration) throws ProfilerException {
+        CPUFrequencyProfiler prof = new CPUFrequencyProfiler("root=" + root.getAbsolutePath());
+        prof.beforeIteration(null, null);
+        duringIteration.run();
+        Map<String, Double> map = new HashMap<>();
+        for (Result r : prof.afterIteration(null, null, null)) {
+            map.put(r.getLabel().substring(Defaults.PREFIX.length()), r.getScore());
+        }
+        return map;
+    }
+
+    @Test
+    public void testNotThrottled() throws ProfilerException {
+        Map<String, Double> r = run(new Runnable() {
+            @Override
+            public void run() {
+                // do nothing
+            }
+        });
+        Assert.assertEquals(2500D, r.get("cpu.freq.avg"), 1e-9);
+        Assert.assertEquals(2000D, r.get("cpu.freq.min"), 1e-9);
+        Assert.assertEquals(55D, r.get("cpu.temp.max"), 1e-9);
+        Assert.assertEquals(0D, r.get("cpu.throttle.events"), 1e-9);
+        Assert.assertEquals(0D, r.get("cpu.throttled"), 1e-9);
+    }
+
+    @Test
+    public void testThrottleCounters() throws ProfilerException {
+        Map<String, Double> r = run(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write("devices/system/cpu/cpu1/thermal_throttle/core_throttle_count", "3");
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        Assert.assertEquals(3D, r.get("cpu.throttle.events"), 1e-9);
+        Assert.assertEquals(1D, r.get("cpu.throttled"), 1e-9);
+    }
+
+    @Test
+    public void testPassiveTrip() throws ProfilerException {
+        Map<String, Double> r = run(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write("class/thermal/thermal_zone0/temp", "95000");
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        Assert.assertEquals(95D, r.get("cpu.temp.max"), 1e-9);
+        Assert.assertEquals(0D, r.get("cpu.throttle.events"), 1e-9);
+        Assert.assertEquals(1D, r.get("cpu.throttled"), 1e-9);
+    }
+
+    @Test(expected = ProfilerException.class)
+    public void testNoCpufreq() throws ProfilerException {
+        new CPUFrequencyProfiler("root=" + new File(root, "nonexistent").getAbsolutePath());
+    }
+
+    @Test
+    public void testLastCpu() throws IOException {
+        write("stat", "1234 (jmh worker) 1) S 1 1234 1234 0 -1 4194368 97 0 0 0 0 0 0 0 20 0 1 0 " +
+                "12345 0 0 18446744073709551615 0 0 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0");
+        Assert.assertEquals(3, CPUFrequencyProfiler.readLastCpu(new File(root, "stat")));
+        Assert.assertEquals(-1, CPUFrequencyProfiler.readLastCpu(new File(root, "nonexistent")));
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.HotspotPerfData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+
+public class HotspotPerfDataProfilerTest {
+
+    private static final long PID = 4242;
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jmh-hsperfdata").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        delete(root);
+    }
+
+    private static void delete(File f) {
+        File[] fs = f.listFiles();
+        if (fs != null) {
+            for (File c : fs) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    private Collection<? extends Result> trial() throws ProfilerException {
+        HotspotPerfDataProfiler prof = new HotspotPerfDataProfiler("dir=" + root.getAbsolutePath());
+        IterationParams ip = new IterationParams(IterationType.MEASUREMENT, 2, TimeValue.seconds(1), 1);
+        prof.beforeTrial(null);
+        for (int c = 0; c < 2; c++) {
+            prof.iterationStarted(null, ip, PID);
+            prof.iterationFinished(null, ip, null, PID);
+        }
+        return prof.afterTrial(null, PID, null, null);
+    }
+
+    private static String reason(Collection<? extends Result> results) {
+        Assert.assertEquals(1, results.size());
+        Result r = results.iterator().next();
+        Assert.assertTrue(r instanceof HotspotPerfDataProfiler.FailureResult);
+        return r.extendedInfo();
+    }
+
+    @Test
+    public void testNoPerfData() throws Exception {
+        String reason = reason(trial());
+        Assert.assertTrue(reason, reason.contains("Cannot read " + HotspotPerfData.file(root.getAbsolutePath(), PID)));
+    }
+
+    @Test
+    public void testUnknownFormat() throws Exception {
+        File file = HotspotPerfData.file(root.getAbsolutePath(), PID);
+        file.getParentFile().mkdirs();
+        FileUtils.writeLines(file, Collections.singleton("not a perf data file"));
+
+        String reason = reason(trial());
+        Assert.assertTrue(reason, reason.contains("Unknown perf data format in " + file));
+    }
+
+}
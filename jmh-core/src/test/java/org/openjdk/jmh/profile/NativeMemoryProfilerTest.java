@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016, Red Hat Inc.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class NativeMemoryProfilerTest {
+
+    @Test
+    public void parseJDK8() {
+        Map<String, Long> diff = NativeMemoryProfiler.parseDiff(Arrays.asList(
+                "12345:",
+                "",
+                "Native Memory Tracking:",
+                "",
+                "Total: reserved=1459243KB +2KB, committed=163787KB +2050KB",
+                "",
+                "-                 Java Heap (reserved=262144KB, committed=16384KB)",
+                "                            (mmap: reserved=262144KB, committed=16384KB)",
+                "",
+                "-                     Class (reserved=1083543KB +1KB, committed=36375KB +1KB)",
+                "                            (classes #5967 +3)",
+                "",
+                "-                    Thread (reserved=21599KB -1029KB, committed=21599KB -1029KB)",
+                "                            (thread #21 -1)",
+                "",
+                "-                  Internal (reserved=3078KB +3078KB, committed=3078KB +3078KB)",
+                "                            (malloc=3078KB +3078KB #1 +1)"
+        ));
+
+        Assert.assertEquals(Long.valueOf(2050), diff.get("total"));
+        Assert.assertEquals(Long.valueOf(0), diff.get("java_heap"));
+        Assert.assertEquals(Long.valueOf(1), diff.get("class"));
+        Assert.assertEquals(Long.valueOf(-1029), diff.get("thread"));
+        Assert.assertEquals(Long.valueOf(3078), diff.get("internal"));
+        Assert.assertEquals(5, diff.size());
+    }
+
+    @Test
+    public void parseJDK17() {
+        Map<String, Long> diff = NativeMemoryProfiler.parseDiff(Arrays.asList(
+                "Native Memory Tracking:",
+                "",
+                "(Omitting categories weighting less than 1KB)",
+                "",
+                "Total: reserved=5701754KB +2107KB, committed=337138KB +2171KB",
+                "       malloc: 20702KB +2103KB #120190 +1032",
+                "       mmap:   reserved=5681052KB +4KB, committed=316436KB +68KB",
+                "",
+                "-                      Other (reserved=2050KB +2048KB, committed=2050KB +2048KB)",
+                "                            (malloc=2050KB +2048KB #4 +2)",
+                "",
+                "-                Arena Chunk (reserved=181KB -30KB, committed=181KB -30KB)"
+        ));
+
+        Assert.assertEquals(Long.valueOf(2171), diff.get("total"));
+        Assert.assertEquals(Long.valueOf(2048), diff.get("other"));
+        Assert.assertEquals(Long.valueOf(-30), diff.get("arena_chunk"));
+        Assert.assertEquals(3, diff.size());
+    }
+
+    @Test
+    public void parseGarbage() {
+        Assert.assertTrue(NativeMemoryProfiler.parseDiff(Arrays.asList(
+                "12345:",
+                "Native memory tracking is not enabled")).isEmpty());
+    }
+
+}
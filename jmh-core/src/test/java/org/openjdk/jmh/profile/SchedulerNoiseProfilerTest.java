@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SchedulerNoiseProfilerTest {
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jmh-procfs").toFile();
+        snapshot(100, 0, 1, 1000, 10, 20, 5);
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    private void snapshot(long user, long steal, int running, long interrupts, long vol, long invol, long timer) throws IOException {
+        write("stat",
+                "cpu  " + user + " 0 0 " + user + " 0 0 0 " + steal + " 0 0",
+                "cpu0 " + user / 2 + " 0 0 " + user / 2 + " 0 0 0 " + steal / 2 + " 0 0",
+                "cpu1 " + user / 2 + " 0 0 " + user / 2 + " 0 0 0 " + steal / 2 + " 0 0",
+                "intr 12345",
+                "procs_running " + running,
+                "procs_blocked 0");
+        write("loadavg", "1.50 1.10 1.00 " + running + "/73 7859");
+        write("self/status",
+                "Name:\tjava",
+                "State:\tS (sleeping)",
+                "voluntary_ctxt_switches:\t" + vol,
+                "nonvoluntary_ctxt_switches:\t" + invol);
+        write("interrupts",
+                "           CPU0       CPU1",
+                "  0:         " + interrupts + "          0   IO-APIC   2-edge      timer",
+                " 24:          1          2   IO-APIC   5-edge      ACPI:Ged",
+                "LOC:    " + timer + "    " + timer + "   Local timer interrupts",
+                "ERR:          0");
+    }
+
+    private void write(String path, String... lines) throws IOException {
+        File f = new File(root, path);
+        f.getParentFile().mkdirs();
+        FileUtils.writeLines(f, Arrays.asList(lines));
+    }
+
+    private static void delete(File f) {
+        File[] fs = f.listFiles();
+        if (fs != null) {
+            for (File c : fs) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    private Map<String, Double> results(SchedulerNoiseProfiler prof) {
+        Map<String, Double> map = new HashMap<>();
+        for (Result r : prof.afterIteration(null, null, null)) {
+            map.put(r.getLabel().substring(Defaults.PREFIX.length()), r.getScore());
+        }
+        return map;
+    }
+
+    @Test
+    public void testQuiet() throws Exception {
+        SchedulerNoiseProfiler prof = new SchedulerNoiseProfiler("root=" + root.getAbsolutePath());
+        prof.beforeIteration(null, null);
+        snapshot(1100, 0, 2, 1500, 15, 21, 105);
+        Map<String, Double> r = results(prof);
+
+        Assert.assertEquals(5D, r.get("sched.cs.vol"), 0);
+        Assert.assertEquals(1D, r.get("sched.cs.invol"), 0);
+        Assert.assertEquals(0D, r.get("sched.steal"), 0);
+        Assert.assertEquals(2D, r.get("sched.runnable"), 0);
+        Assert.assertEquals(1.5D, r.get("sched.loadavg"), 0);
+        Assert.assertEquals(700D, r.get("sched.interrupts"), 0);
+        Assert.assertEquals(0D, r.get("sched.interfered"), 0);
+    }
+
+    @Test
+    public void testSteal() throws Exception {
+        SchedulerNoiseProfiler prof = new SchedulerNoiseProfiler("root=" + root.getAbsolutePath());
+        prof.beforeIteration(null, null);
+        snapshot(1100, 100, 1, 1000, 10, 20, 5);
+        Map<String, Double> r = results(prof);
+
+        Assert.assertEquals(100D * 100 / 2100, r.get("sched.steal"), 1e-9);
+        Assert.assertEquals(1D, r.get("sched.interfered"), 0);
+    }
+
+    @Test
+    public void testOversubscribed() throws Exception {
+        SchedulerNoiseProfiler prof = new SchedulerNoiseProfiler("root=" + root.getAbsolutePath());
+        prof.beforeIteration(null, null);
+        snapshot(1100, 0, 3, 1000, 10, 20, 5);
+        Map<String, Double> r = results(prof);
+
+        Assert.assertEquals(3D, r.get("sched.runnable"), 0);
+        Assert.assertEquals(1D, r.get("sched.interfered"), 0);
+    }
+
+    @Test(expected = ProfilerException.class)
+    public void testNoProcfs() throws ProfilerException {
+        new SchedulerNoiseProfiler("root=" + new File(root, "nonexistent").getAbsolutePath());
+    }
+
+    @Test
+    public void testRealProcfs() throws Exception {
+        SchedulerNoiseProfiler prof;
+        try {
+            prof = new SchedulerNoiseProfiler("");
+        } catch (ProfilerException e) {
+            // not Linux
+            return;
+        }
+        prof.beforeIteration(null, null);
+        Map<String, Double> r = results(prof);
+        Assert.assertTrue(r.get("sched.cs.vol") >= 0);
+        Assert.assertTrue(r.get("sched.interrupts") >= 0);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020, Red Hat Inc. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class StackProfilerTest {
+
+    private static final StackTraceElement[] STACK = new StackTraceElement[] {
+            new StackTraceElement("org.sample.Inner", "leaf", "Inner.java", 42),
+            new StackTraceElement("org.sample.Middle", "call", "Middle.java", 13),
+            new StackTraceElement("java.lang.Thread", "run", "Thread.java", 748),
+    };
+
+    @Test
+    public void collapseOrdersFromRoot() {
+        Assert.assertEquals("java.lang.Thread.run;org.sample.Middle.call;org.sample.Inner.leaf",
+                StackProfiler.collapse(STACK, false));
+    }
+
+    @Test
+    public void collapseWithLines() {
+        Assert.assertEquals("java.lang.Thread.run:748;org.sample.Middle.call:13;org.sample.Inner.leaf:42",
+                StackProfiler.collapse(STACK, true));
+    }
+
+    @Test
+    public void collapseEmpty() {
+        Assert.assertEquals("<empty>", StackProfiler.collapse(new StackTraceElement[0], false));
+    }
+
+}
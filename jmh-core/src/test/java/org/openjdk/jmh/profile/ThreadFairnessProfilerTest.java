@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.profile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.Result;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ThreadFairnessProfilerTest {
+
+    private static Map<String, Double> results(long[] ops, int[] groups, List<String> labels) {
+        Map<String, Double> map = new HashMap<>();
+        for (Result r : ThreadFairnessProfiler.results(ops, groups, labels)) {
+            map.put(r.getLabel().substring(Defaults.PREFIX.length()), r.getScore());
+        }
+        return map;
+    }
+
+    @Test
+    public void testSingleThread() {
+        Assert.assertTrue(results(new long[]{42}, new int[]{1}, Collections.<String>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testFair() {
+        Map<String, Double> r = results(new long[]{100, 100, 100, 100}, new int[]{1}, Collections.<String>emptyList());
+        Assert.assertEquals(100, r.get("threads.ops.min"), 0);
+        Assert.assertEquals(100, r.get("threads.ops.max"), 0);
+        Assert.assertEquals(0, r.get("threads.ops.cv"), 1e-9);
+        Assert.assertEquals(1.0, r.get("threads.fairness"), 1e-9);
+        Assert.assertEquals(4, r.size());
+    }
+
+    @Test
+    public void testStarved() {
+        Map<String, Double> r = results(new long[]{200, 0, 200, 0}, new int[]{1}, Collections.<String>emptyList());
+        Assert.assertEquals(0, r.get("threads.ops.min"), 0);
+        Assert.assertEquals(200, r.get("threads.ops.max"), 0);
+        Assert.assertEquals(100, r.get("threads.ops.cv"), 1e-9);
+        Assert.assertEquals(0.5, r.get("threads.fairness"), 1e-9);
+    }
+
+    @Test
+    public void testSingleWorker() {
+        Map<String, Double> r = results(new long[]{300, 0, 0}, new int[]{1}, Collections.<String>emptyList());
+        Assert.assertEquals(1.0 / 3, r.get("threads.fairness"), 1e-9);
+    }
+
+    @Test
+    public void testNoOps() {
+        Map<String, Double> r = results(new long[]{0, 0}, new int[]{1}, Collections.<String>emptyList());
+        Assert.assertTrue(Double.isNaN(r.get("threads.ops.cv")));
+        Assert.assertTrue(Double.isNaN(r.get("threads.fairness")));
+    }
+
+    @Test
+    public void testSubgroups() {
+        // two groups of (reader x2, writer x1): threads 0,1 and 3,4 are readers; 2 and 5 are writers
+        Map<String, Double> r = results(new long[]{10, 30, 5, 10, 30, 15}, new int[]{2, 1}, Arrays.asList("reader", "writer"));
+
+        Assert.assertEquals(5, r.get("threads.ops.min"), 0);
+        Assert.assertEquals(30, r.get("threads.ops.max"), 0);
+
+        Assert.assertEquals(10, r.get("threads.ops.min.reader"), 0);
+        Assert.assertEquals(30, r.get("threads.ops.max.reader"), 0);
+        Assert.assertEquals(50, r.get("threads.ops.cv.reader"), 1e-9);
+        Assert.assertEquals(0.8, r.get("threads.fairness.reader"), 1e-9);
+
+        Assert.assertEquals(5, r.get("threads.ops.min.writer"), 0);
+        Assert.assertEquals(15, r.get("threads.ops.max.writer"), 0);
+        Assert.assertEquals(0.8, r.get("threads.fairness.writer"), 1e-9);
+    }
+
+    @Test
+    public void testLoneSubgroupThreadSkipped() {
+        Map<String, Double> r = results(new long[]{10, 20, 5}, new int[]{2, 1}, Arrays.asList("reader", "writer"));
+        Assert.assertTrue(r.containsKey("threads.fairness.reader"));
+        Assert.assertFalse(r.containsKey("threads.fairness.writer"));
+    }
+
+}
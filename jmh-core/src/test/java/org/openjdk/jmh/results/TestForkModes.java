@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.results;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Utils;
+import org.openjdk.jmh.util.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ForkModes
+ */
+public class TestForkModes {
+
+    private static final BenchmarkParams PARAMS = new BenchmarkParams("blah", "blah", false,
+            1, new int[]{1}, Collections.<String>emptyList(),
+            5, 0,
+            new IterationParams(IterationType.WARMUP, 1, TimeValue.seconds(1), 1),
+            new IterationParams(IterationType.MEASUREMENT, 3, TimeValue.seconds(1), 1),
+            Mode.AverageTime, null, TimeUnit.NANOSECONDS, 1,
+            Utils.getCurrentJvm(), Collections.<String>emptyList(),
+            System.getProperty("java.version"), System.getProperty("java.vm.name"), System.getProperty("java.vm.version"), Version.getPlainVersion(),
+            TimeValue.days(1));
+
+    private static BenchmarkResult fork(double... scores) {
+        Collection<IterationResult> irs = new ArrayList<>();
+        for (double s : scores) {
+            IterationResult ir = new IterationResult(PARAMS, PARAMS.getMeasurement(), null);
+            ir.addResult(new AverageTimeResult(ResultRole.PRIMARY, "test", 1000, (long) (s * 1000), TimeUnit.NANOSECONDS));
+            irs.add(ir);
+        }
+        return new BenchmarkResult(PARAMS, irs);
+    }
+
+    @Test
+    public void testBimodal() {
+        List<BenchmarkResult> forks = Arrays.asList(
+                fork(12.0, 12.1, 11.9),
+                fork(19.0, 19.1, 18.9),
+                fork(12.1, 12.0, 12.2),
+                fork(11.9, 12.0, 12.1),
+                fork(19.2, 19.0, 19.1)
+        );
+
+        ForkModes modes = ForkModes.of(PARAMS, forks);
+        assertTrue(modes.isMultiModal());
+        assertEquals(2, modes.getModes().size());
+
+        ForkModes.ForkMode fast = modes.getModes().get(0);
+        ForkModes.ForkMode slow = modes.getModes().get(1);
+        assertEquals(Arrays.asList(0, 2, 3), fast.getForks());
+        assertEquals(Arrays.asList(1, 4), slow.getForks());
+        assertEquals(12.03, fast.getResult().getScore(), 0.01);
+        assertEquals(19.05, slow.getResult().getScore(), 0.01);
+
+        assertTrue(modes.getOutlierForks().isEmpty());
+        assertTrue(modes.hasForksPerMode(2));
+        assertFalse(modes.hasForksPerMode(3));
+    }
+
+    @Test
+    public void testUnimodal() {
+        List<BenchmarkResult> forks = Arrays.asList(
+                fork(12.0, 12.4, 11.6),
+                fork(12.3, 12.1, 12.5),
+                fork(11.8, 11.7, 12.2),
+                fork(12.2, 12.6, 11.9),
+                fork(11.9, 12.0, 12.4)
+        );
+
+        ForkModes modes = ForkModes.of(PARAMS, forks);
+        assertFalse(modes.isMultiModal());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), modes.getModes().get(0).getForks());
+        assertTrue(modes.getOutlierForks().isEmpty());
+    }
+
+    @Test
+    public void testNoisyForksStayTogether() {
+        List<BenchmarkResult> forks = Arrays.asList(
+                fork(10, 14, 12),
+                fork(13, 17, 15),
+                fork(9, 13, 11)
+        );
+
+        ForkModes modes = ForkModes.of(PARAMS, forks);
+        assertFalse(modes.isMultiModal());
+    }
+
+    @Test
+    public void testOutlierFork() {
+        List<BenchmarkResult> forks = Arrays.asList(
+                fork(12.0, 12.1, 11.9),
+                fork(12.1, 12.0, 12.2),
+                fork(25.0, 25.1, 24.9),
+                fork(11.9, 12.0, 12.1)
+        );
+
+        ForkModes modes = ForkModes.of(PARAMS, forks);
+        assertTrue(modes.isMultiModal());
+        assertEquals(Collections.singletonList(2), modes.getOutlierForks());
+    }
+
+    @Test
+    public void testSingleFork() {
+        ForkModes modes = ForkModes.of(PARAMS, Collections.singletonList(fork(12.0, 12.1, 11.9)));
+        assertFalse(modes.isMultiModal());
+        assertTrue(modes.getOutlierForks().isEmpty());
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.results.Defaults;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.results.ThroughputResult;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class PipelineBacklogTest {
+
+    private static Map<String, Double> results(List<String> labels, Map<String, Result> subgroups) {
+        Map<String, Double> map = new HashMap<>();
+        for (Result r : PipelineBacklog.results(labels, subgroups)) {
+            map.put(r.getLabel().substring(Defaults.PREFIX.length()), r.getScore());
+        }
+        return map;
+    }
+
+    private static Result thrpt(String label, long ops) {
+        return new ThroughputResult(ResultRole.SECONDARY, label, ops, TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testProducerOutruns() {
+        Map<String, Result> sg = new HashMap<>();
+        sg.put("put", thrpt("put", 200));
+        sg.put("take", thrpt("take", 150));
+
+        Map<String, Double> r = results(Arrays.asList("put", "take"), sg);
+        Assert.assertEquals(150, r.get("pipeline"), 1e-9);
+        Assert.assertEquals(50, r.get("backlog.put"), 1e-9);
+        Assert.assertEquals(2, r.size());
+    }
+
+    @Test
+    public void testSlowMiddleStage() {
+        Map<String, Result> sg = new HashMap<>();
+        sg.put("a", thrpt("a", 100));
+        sg.put("b", thrpt("b", 40));
+        sg.put("c", thrpt("c", 60));
+
+        Map<String, Double> r = results(Arrays.asList("a", "b", "c"), sg);
+        Assert.assertEquals(40, r.get("pipeline"), 1e-9);
+        Assert.assertEquals(60, r.get("backlog.a"), 1e-9);
+        Assert.assertEquals(-20, r.get("backlog.b"), 1e-9);
+        Assert.assertEquals(3, r.size());
+    }
+
+    @Test
+    public void testMissingStage() {
+        Map<String, Result> sg = new HashMap<>();
+        sg.put("put", thrpt("put", 200));
+
+        Assert.assertTrue(results(Arrays.asList("put", "take"), sg).isEmpty());
+    }
+
+    @Test
+    public void testCounters() {
+        PipelineBacklog pb = new PipelineBacklog(2);
+        Assert.assertFalse(pb.isDeclared());
+        pb.declare();
+        Assert.assertTrue(pb.isDeclared());
+
+        pb.advance(0);
+        pb.advance(0);
+        pb.advance(1);
+        Assert.assertEquals(2, pb.getOps(0));
+        Assert.assertEquals(1, pb.getOps(1));
+
+        // the last stage never waits
+        pb.await(1, 1, null);
+    }
+
+}
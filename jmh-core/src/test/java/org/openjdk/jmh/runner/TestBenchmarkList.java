@@ -35,6 +35,7 @@ import org.openjdk.jmh.util.Optional;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -312,4 +313,28 @@ public class TestBenchmarkList {
         BenchmarkListEntry first = micros.iterator().next();
         assertTrue("oracle.micro.benchmarks.api.java.util.concurrent.GeneratedMaps.testConcurrentHashMap".equals(first.getUsername()));
     }
+
+    @Test
+    public void testNameMatcherAgreesWithRegexp() throws Exception {
+        String[] names = {
+                "org.openjdk.jmh.runner.TestMicro.dummy",
+                "org.openjdk.jmh.runner.TestMicro.dummyWarmThroughput",
+                "oracle.micro.benchmarks.app.jbb05.GeneratedSPECjbb2005HashMap.jbb2005HashMapGetIntThroughput",
+                "some$Nested.test",
+        };
+        String[] regexps = {
+                "", ".*", "^.*", "dummy", "^org", "dummy$", "^org\\.openjdk.*\\.dummy$", ".*Hash.*",
+                "jbb05.GeneratedSPECjbb2005HashMap", "TestMicro\\.dummy", "^org.openjdk.jmh.runner.TestMicro.dummy$",
+                "some\\$Nested", "\\w+\\.test", "dummy|Hash", "Test.*\\.dummy", "dummy\\.*", "^$",
+        };
+        for (String regexp : regexps) {
+            BenchmarkList.NameMatcher matcher = BenchmarkList.NameMatcher.of(regexp);
+            for (String name : names) {
+                assertEquals(regexp + " vs " + name,
+                        Pattern.compile(regexp).matcher(name).find(),
+                        matcher.matches(name));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.runner.format.OutputFormat;
+import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.openjdk.jmh.util.FileUtils;
+import org.openjdk.jmh.util.Optional;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestBenchmarkListIndex {
+
+    private static BenchmarkListEntry stub(String userClassQName, String method, Mode mode, int forks) {
+        return new BenchmarkListEntry(
+                userClassQName,
+                userClassQName + "_generated",
+                method,
+                mode,
+                Optional.<Integer>none(),
+                new int[]{1},
+                Optional.<Collection<String>>none(),
+                Optional.<Integer>none(),
+                Optional.<TimeValue>none(),
+                Optional.<Integer>none(),
+                Optional.<Integer>none(),
+                Optional.<TimeValue>none(),
+                Optional.<Integer>none(),
+                Optional.of(forks),
+                Optional.<Integer>none(),
+                Optional.<String>none(),
+                Optional.<Collection<String>>none(),
+                Optional.<Collection<String>>none(),
+                Optional.<Collection<String>>none(),
+                Optional.<Map<String, String[]>>none(),
+                Optional.<TimeUnit>none(),
+                Optional.<Integer>none(),
+                Optional.<TimeValue>none()
+        );
+    }
+
+    private static List<BenchmarkListEntry> entries() {
+        List<BenchmarkListEntry> entries = new ArrayList<>();
+        entries.add(stub("org.openjdk.Maps", "hashMap", Mode.Throughput, 1));
+        entries.add(stub("org.openjdk.Maps", "treeMap", Mode.AverageTime, 2));
+        entries.add(stub("org.openjdk.Lists", "arrayList", Mode.SampleTime, 3));
+        entries.add(stub("org.openjdk.Тест", "кириллица", Mode.SingleShotTime, 4));
+        return entries;
+    }
+
+    private static File tempDir() throws IOException {
+        File dir = new File(FileUtils.tempFile("index").getParentFile(), "jmh-index-" + System.nanoTime());
+        assertTrue(dir.mkdirs());
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static File write(File dir, Collection<BenchmarkListEntry> entries, boolean index) throws IOException {
+        File list = new File(dir, "BenchmarkList");
+        list.deleteOnExit();
+        BenchmarkList.writeBenchmarkList(new FileOutputStream(list), entries);
+        if (index) {
+            File idx = new File(dir, "BenchmarkList.idx");
+            idx.deleteOnExit();
+            BenchmarkList.writeBenchmarkListIndex(new FileOutputStream(idx), entries);
+        }
+        return list;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File dir = tempDir();
+
+        List<BenchmarkListEntry> entries = entries();
+        File list = write(dir, entries, true);
+
+        BenchmarkListIndex index = BenchmarkListIndex.forList(list.toURI().toURL());
+        assertNotNull(index);
+        assertEquals(entries.size(), index.size());
+
+        for (int i = 0; i < index.size(); i++) {
+            BenchmarkListEntry expected = entries.get(i);
+            BenchmarkListEntry actual = index.getEntry(i);
+            assertEquals(expected.getUsername(), index.getUsername(i));
+            assertEquals(expected, actual);
+            assertEquals(expected.toLine(), actual.toLine());
+            assertEquals(expected.getForks(), actual.getForks());
+        }
+    }
+
+    @Test
+    public void testStaleIndex() throws IOException {
+        File dir = tempDir();
+
+        List<BenchmarkListEntry> entries = entries();
+        File list = write(dir, entries, true);
+
+        // list is overwritten, e.g. merged with another list, but index is not
+        write(dir, entries.subList(0, 2), false);
+
+        assertNull(BenchmarkListIndex.forList(list.toURI().toURL()));
+    }
+
+    @Test
+    public void testStaleIndexSameLength() throws IOException {
+        File dir = tempDir();
+
+        List<BenchmarkListEntry> entries = entries();
+        File list = write(dir, entries, true);
+
+        // same number of bytes, but the other entries
+        List<BenchmarkListEntry> others = new ArrayList<>();
+        others.add(stub("org.openjdk.Maps", "hashMap", Mode.Throughput, 5));
+        others.addAll(entries.subList(1, entries.size()));
+        write(dir, others, false);
+
+        assertNull(BenchmarkListIndex.forList(list.toURI().toURL()));
+    }
+
+    private static byte[] listBytes(Collection<BenchmarkListEntry> entries) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        BenchmarkList.writeBenchmarkList(bos, entries);
+        return bos.toByteArray();
+    }
+
+    private static byte[] indexBytes(Collection<BenchmarkListEntry> entries) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        BenchmarkList.writeBenchmarkListIndex(bos, entries);
+        return bos.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (byte[] p : parts) {
+            bos.write(p);
+        }
+        return bos.toByteArray();
+    }
+
+    private static void assertEntries(List<BenchmarkListEntry> expected, BenchmarkListIndex index) {
+        assertNotNull(index);
+        assertEquals(expected.size(), index.size());
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(expected.get(i).getUsername(), index.getUsername(i));
+            assertEquals(expected.get(i).toLine(), index.getEntry(i).toLine());
+        }
+    }
+
+    @Test
+    public void testMergedIndexes() throws IOException {
+        List<BenchmarkListEntry> first = entries().subList(0, 2);
+        List<BenchmarkListEntry> second = entries().subList(2, 4);
+
+        byte[] list = concat(listBytes(first), listBytes(second));
+        byte[] idx = concat(indexBytes(first), indexBytes(second));
+
+        assertEntries(entries(), BenchmarkListIndex.read(new ByteArrayInputStream(idx), list));
+    }
+
+    @Test
+    public void testMergedPartialIndex() throws IOException {
+        List<BenchmarkListEntry> first = entries().subList(0, 2);
+        List<BenchmarkListEntry> second = entries().subList(2, 4);
+
+        // the second fragment has no index, and is separated by a blank line
+        byte[] list = concat(listBytes(first), System.lineSeparator().getBytes("UTF-8"), listBytes(second));
+        byte[] idx = indexBytes(first);
+
+        assertEntries(entries(), BenchmarkListIndex.read(new ByteArrayInputStream(idx), list));
+    }
+
+    @Test
+    public void testMergedIndexFromOtherModule() throws IOException {
+        List<BenchmarkListEntry> first = entries().subList(0, 2);
+        List<BenchmarkListEntry> second = entries().subList(2, 4);
+
+        // only the index of the second fragment survived the merge
+        byte[] list = concat(listBytes(first), listBytes(second));
+        byte[] idx = indexBytes(second);
+
+        assertNull(BenchmarkListIndex.read(new ByteArrayInputStream(idx), list));
+    }
+
+    @Test
+    public void testNoIndex() throws IOException {
+        File dir = tempDir();
+
+        File list = write(dir, entries(), false);
+        assertNull(BenchmarkListIndex.forList(list.toURI().toURL()));
+    }
+
+    @Test
+    public void testLazyEntry() {
+        BenchmarkListEntry expected = stub("org.openjdk.Maps", "hashMap", Mode.Throughput, 5);
+        BenchmarkListEntry lazy = new BenchmarkListEntry(expected.toLine());
+        assertEquals(expected.getUsername(), lazy.getUsername());
+        assertEquals(expected.getMode(), lazy.getMode());
+        assertEquals(Integer.valueOf(5), lazy.getForks().get());
+        assertEquals(expected.toLine(), lazy.toLine());
+        assertEquals(expected.cloneWith(Mode.AverageTime).toLine(), lazy.cloneWith(Mode.AverageTime).toLine());
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jmh.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class TestCacheHierarchy {
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jmh-sysfs").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    private void index(int idx, int level, String type, String size) throws IOException {
+        write("devices/system/cpu/cpu0/cache/index" + idx + "/level", String.valueOf(level));
+        write("devices/system/cpu/cpu0/cache/index" + idx + "/type", type);
+        write("devices/system/cpu/cpu0/cache/index" + idx + "/size", size);
+    }
+
+    private void write(String path, String value) throws IOException {
+        File f = new File(root, path);
+        f.getParentFile().mkdirs();
+        FileUtils.writeLines(f, Collections.singleton(value));
+    }
+
+    private static void delete(File f) {
+        File[] fs = f.listFiles();
+        if (fs != null) {
+            for (File c : fs) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        index(0, 1, "Data", "48K");
+        index(1, 1, "Instruction", "32K");
+        index(2, 2, "Unified", "2048K");
+        index(3, 3, "Unified", "32M");
+
+        CacheHierarchy ch = CacheHierarchy.read(root);
+        Assert.assertNotNull(ch);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(ch.getLevels().keySet()));
+        Assert.assertEquals(Arrays.asList(48L * 1024, 2048L * 1024, 32L * 1024 * 1024), new ArrayList<>(ch.getLevels().values()));
+        Assert.assertEquals("L1 48K, L2 2M, L3 32M", ch.toString());
+    }
+
+    @Test
+    public void testReadMissing() throws IOException {
+        Assert.assertNull(CacheHierarchy.read(root));
+
+        index(0, 1, "Instruction", "32K");
+        Assert.assertNull(CacheHierarchy.read(root));
+    }
+
+    @Test
+    public void testSweep() throws IOException {
+        index(0, 1, "Data", "32K");
+        index(1, 2, "Unified", "64K");
+        index(2, 3, "Unified", "1M");
+
+        CacheHierarchy ch = CacheHierarchy.read(root);
+        Assert.assertNotNull(ch);
+        Assert.assertEquals(Arrays.asList(
+                    16L * 1024, 32L * 1024, 64L * 1024, 128L * 1024,
+                    512L * 1024, 1024L * 1024, 2048L * 1024, 4096L * 1024),
+                new ArrayList<>(ch.sweepSizes()));
+
+        Assert.assertEquals("L1", ch.levelOf(16 * 1024));
+        Assert.assertEquals("L1", ch.levelOf(32 * 1024));
+        Assert.assertEquals("L2", ch.levelOf(32 * 1024 + 1));
+        Assert.assertEquals("L3", ch.levelOf(1024 * 1024));
+        Assert.assertEquals("DRAM", ch.levelOf(2048 * 1024));
+    }
+
+    @Test
+    public void testParseSize() {
+        Assert.assertEquals(48 * 1024, CacheHierarchy.parseSize("48K"));
+        Assert.assertEquals(30 * 1024 * 1024, CacheHierarchy.parseSize("30M"));
+        Assert.assertEquals(512, CacheHierarchy.parseSize("512"));
+        Assert.assertEquals(-1, CacheHierarchy.parseSize("large"));
+        Assert.assertEquals(-1, CacheHierarchy.parseSize(null));
+    }
+
+    @Test
+    public void testFormatSize() {
+        Assert.assertEquals("24K", CacheHierarchy.formatSize(24 * 1024));
+        Assert.assertEquals("1M", CacheHierarchy.formatSize(1024 * 1024));
+        Assert.assertEquals("1536K", CacheHierarchy.formatSize(1536 * 1024));
+        Assert.assertEquals("1000", CacheHierarchy.formatSize(1000));
+    }
+
+}
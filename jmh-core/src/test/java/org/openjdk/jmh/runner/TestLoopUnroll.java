@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.AverageTimeResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.IterationResultMetaData;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Utils;
+import org.openjdk.jmh.util.Version;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class TestLoopUnroll {
+
+    @Test
+    public void testFactorFor() {
+        Assert.assertEquals(LoopUnroll.MAX_UNROLL, LoopUnroll.factorFor(0.1));
+        Assert.assertEquals(128, LoopUnroll.factorFor(0.5));
+        Assert.assertEquals(64, LoopUnroll.factorFor(1));
+        Assert.assertEquals(32, LoopUnroll.factorFor(1.5));
+        Assert.assertEquals(2, LoopUnroll.factorFor(30));
+        Assert.assertEquals(1, LoopUnroll.factorFor(40));
+        Assert.assertEquals(1, LoopUnroll.factorFor(1000));
+    }
+
+    @Test
+    public void testFactorForBogus() {
+        Assert.assertEquals(1, LoopUnroll.factorFor(0));
+        Assert.assertEquals(1, LoopUnroll.factorFor(Double.NaN));
+        Assert.assertEquals(1, LoopUnroll.factorFor(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testSupported() {
+        Assert.assertTrue(LoopUnroll.isSupported(Mode.Throughput));
+        Assert.assertTrue(LoopUnroll.isSupported(Mode.AverageTime));
+        Assert.assertFalse(LoopUnroll.isSupported(Mode.SampleTime));
+        Assert.assertFalse(LoopUnroll.isSupported(Mode.SingleShotTime));
+    }
+
+    @Test
+    public void testMinimumOverPairs() {
+        LoopUnroll unroll = new LoopUnroll(params(1));
+
+        Assert.assertEquals(1, unroll.nextWarmup());
+        unroll.accept(1, result(1, 12));
+        Assert.assertEquals(4, unroll.nextWarmup());
+        unroll.accept(4, result(1, 8));
+        Assert.assertEquals(1, unroll.nextWarmup());
+        unroll.accept(1, result(1, 9));
+        Assert.assertEquals(4, unroll.nextWarmup());
+        unroll.accept(4, result(1, 8.5));
+
+        Assert.assertTrue(unroll.isCalibrated());
+        Assert.assertEquals(4, unroll.getFactor());
+        Assert.assertEquals(9, unroll.getPlainNanos(), 0.001);
+        Assert.assertEquals(1, unroll.getOverhead(), 0.001);
+    }
+
+    @Test
+    public void testFactorChange() {
+        LoopUnroll unroll = new LoopUnroll(params(1));
+
+        Assert.assertEquals(1, unroll.nextWarmup());
+        unroll.accept(1, result(1, 12));
+        Assert.assertEquals(4, unroll.nextWarmup());
+        unroll.accept(4, result(1, 8));
+        Assert.assertEquals(1, unroll.nextWarmup());
+        unroll.accept(1, result(1, 5));
+        Assert.assertEquals(8, unroll.nextWarmup());
+
+        // unrolled result for the old factor is dropped
+        Assert.assertFalse(unroll.isCalibrated());
+        unroll.accept(8, result(1, 4));
+        Assert.assertTrue(unroll.isCalibrated());
+        Assert.assertEquals(8, unroll.getFactor());
+        Assert.assertEquals(1, unroll.getOverhead(), 0.001);
+    }
+
+    @Test
+    public void testBatchSize() {
+        LoopUnroll unroll = new LoopUnroll(params(10));
+
+        unroll.nextWarmup();
+        unroll.accept(1, result(10, 120));
+        Assert.assertEquals(12, unroll.getPlainNanos(), 0.001);
+        Assert.assertEquals(4, unroll.nextWarmup());
+    }
+
+    private static BenchmarkParams params(int batchSize) {
+        return new BenchmarkParams("Foo", "bar", false,
+                1, new int[]{1}, Collections.<String>emptyList(),
+                1, 1,
+                new IterationParams(IterationType.WARMUP,      1, TimeValue.seconds(1), batchSize),
+                new IterationParams(IterationType.MEASUREMENT, 1, TimeValue.seconds(1), batchSize),
+                Mode.AverageTime, null, TimeUnit.NANOSECONDS, 1,
+                Utils.getCurrentJvm(), Collections.<String>emptyList(),
+                System.getProperty("java.version"), System.getProperty("java.vm.name"), System.getProperty("java.vm.version"), Version.getPlainVersion(),
+                TimeValue.days(1));
+    }
+
+    private static IterationResult result(int batchSize, double nsPerOp) {
+        BenchmarkParams bp = params(batchSize);
+        IterationResult ir = new IterationResult(bp, bp.getWarmup(), new IterationResultMetaData(1000, 1000));
+        ir.addResult(new AverageTimeResult(ResultRole.PRIMARY, "bar", 1000, (long) (nsPerOp * 1000), TimeUnit.NANOSECONDS));
+        return ir;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.*;
+
+public class TestMeasurementWindow {
+
+    /**
+     * Counters are set by the test, per thread.
+     */
+    private static class CounterWindow extends WorkerThreads.MeasurementWindow {
+        final Map<Thread, Long> counters = new HashMap<>();
+
+        @Override
+        protected Map<Thread, long[]> snapshot(Collection<Thread> threads) {
+            Map<Thread, long[]> result = new HashMap<>();
+            for (Thread t : threads) {
+                Long v = counters.get(t);
+                if (v != null) {
+                    result.put(t, new long[]{v});
+                }
+            }
+            return result;
+        }
+    }
+
+    private static ThreadParams params(int idx) {
+        return new ThreadParams(idx, 2, 0, 1, 0, 1, idx, 2, idx, 2);
+    }
+
+    private static Map<Integer, Long> byIndex(Map<ThreadParams, long[]> deltas) {
+        Map<Integer, Long> result = new HashMap<>();
+        for (Map.Entry<ThreadParams, long[]> e : deltas.entrySet()) {
+            result.put(e.getKey().getThreadIndex(), e.getValue()[0]);
+        }
+        return result;
+    }
+
+    @After
+    public void tearDown() {
+        WorkerThreads.clear();
+    }
+
+    @Test
+    public void testDeltas() {
+        Thread t0 = new Thread();
+        Thread t1 = new Thread();
+        WorkerThreads.register(t0, params(0));
+        WorkerThreads.register(t1, params(1));
+
+        CounterWindow w = new CounterWindow();
+        w.counters.put(t0, 100L);
+        w.counters.put(t1, 1000L);
+        w.measurementStarted();
+        Assert.assertTrue(w.isMeasuring());
+
+        w.counters.put(t0, 150L);
+        w.counters.put(t1, 1300L);
+        w.measurementStopped();
+
+        Assert.assertFalse(w.isMeasuring());
+        Assert.assertTrue(w.isComplete());
+        Assert.assertEquals(0, w.getPartialWorkers());
+
+        Map<Integer, Long> deltas = byIndex(w.getDeltas());
+        Assert.assertEquals(2, deltas.size());
+        Assert.assertEquals(50L, (long) deltas.get(0));
+        Assert.assertEquals(300L, (long) deltas.get(1));
+    }
+
+    @Test
+    public void testLateWorkerExcluded() {
+        Thread t0 = new Thread();
+        Thread t1 = new Thread();
+        WorkerThreads.register(t0, params(0));
+
+        CounterWindow w = new CounterWindow();
+        w.counters.put(t0, 100L);
+        w.counters.put(t1, 1000000L);
+        w.measurementStarted();
+
+        // pooled worker joins in the middle, its counter has the entire history
+        WorkerThreads.register(t1, params(1));
+        w.counters.put(t0, 150L);
+        w.counters.put(t1, 1000010L);
+        w.measurementStopped();
+
+        Assert.assertEquals(1, w.getPartialWorkers());
+        Map<Integer, Long> deltas = byIndex(w.getDeltas());
+        Assert.assertEquals(1, deltas.size());
+        Assert.assertEquals(50L, (long) deltas.get(0));
+        Assert.assertFalse(deltas.containsKey(1));
+    }
+
+    @Test
+    public void testUnavailableCounters() {
+        Thread t0 = new Thread();
+        Thread t1 = new Thread();
+        WorkerThreads.register(t0, params(0));
+        WorkerThreads.register(t1, params(1));
+
+        CounterWindow w = new CounterWindow();
+        w.counters.put(t0, -1L);
+        w.counters.put(t1, 10L);
+        w.measurementStarted();
+
+        w.counters.remove(t1);
+        w.measurementStopped();
+
+        Assert.assertEquals(0, w.getPartialWorkers());
+        Assert.assertTrue(w.getDeltas().isEmpty());
+    }
+
+    @Test
+    public void testIncomplete() {
+        CounterWindow w = new CounterWindow();
+        Assert.assertFalse(w.isComplete());
+        w.measurementStarted();
+        Assert.assertFalse(w.isComplete());
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.runner.format;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.ResultRole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.ThroughputResult;
+import org.openjdk.jmh.runner.IterationType;
+import org.openjdk.jmh.runner.WorkloadParams;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class TestPrometheusFormat {
+
+    private PrometheusFormat format;
+    private BenchmarkParams params;
+
+    @Before
+    public void setUp() throws Exception {
+        PrintStream ps = new PrintStream(new ByteArrayOutputStream());
+        format = new PrometheusFormat(new SilentFormat(ps, VerboseMode.SILENT), 0, 3);
+
+        WorkloadParams ps1 = new WorkloadParams();
+        ps1.put("size", "10", 0);
+        params = new BenchmarkParams("bench.Test.test", "bench.generated.Test_test", false,
+                1, new int[]{1}, Collections.<String>emptyList(),
+                1, 0,
+                new IterationParams(IterationType.WARMUP, 1, TimeValue.seconds(1), 1),
+                new IterationParams(IterationType.MEASUREMENT, 5, TimeValue.seconds(1), 1),
+                Mode.Throughput, ps1, TimeUnit.SECONDS, 1,
+                "java", Collections.<String>emptyList(),
+                "1.8", "VM", "1.0", "1.0",
+                TimeValue.minutes(10));
+    }
+
+    @After
+    public void tearDown() {
+        format.close();
+    }
+
+    private void iteration(int n, long ops) {
+        IterationParams ip = params.getMeasurement();
+        format.iteration(params, ip, n);
+        IterationResult r = new IterationResult(params, ip, null);
+        r.addResult(new ThroughputResult(ResultRole.PRIMARY, "test", ops, TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS));
+        r.addResult(new ThroughputResult(ResultRole.SECONDARY, "·gc.alloc", 2 * ops, TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS));
+        format.iterationResult(params, ip, n, r);
+    }
+
+    @Test
+    public void testMetrics() {
+        format.startRun();
+        format.runProgress(0.25, TimeUnit.SECONDS.toNanos(30));
+        format.startBenchmark(params);
+        iteration(1, 100);
+        format.forkExit(1);
+
+        String m = format.metrics();
+        String labels = "{benchmark=\"bench.Test.test\",mode=\"thrpt\",params=\"size=10\"";
+        Assert.assertTrue(m, m.contains("jmh_run_progress_ratio 0.25\n"));
+        Assert.assertTrue(m, m.contains("jmh_run_eta_seconds 30.0\n"));
+        Assert.assertTrue(m, m.contains("jmh_run_complete 0\n"));
+        Assert.assertTrue(m, m.contains("jmh_benchmark_info" + labels + "} 1\n"));
+        Assert.assertTrue(m, m.contains("jmh_iteration" + labels + ",phase=\"measurement\"} 1\n"));
+        Assert.assertTrue(m, m.contains("jmh_iteration_score" + labels + ",unit=\"ops/s\"} 100.0\n"));
+        Assert.assertTrue(m, m.contains("jmh_iteration_secondary_score" + labels + ",label=\"·gc.alloc\",unit=\"ops/s\"} 200.0\n"));
+        Assert.assertTrue(m, m.contains("jmh_forks_total 1\n"));
+        Assert.assertTrue(m, m.contains("jmh_forks_failed_total 1\n"));
+        Assert.assertTrue(m, m.contains("jmh_fork_exit_code" + labels + "} 1\n"));
+
+        format.endRun(Collections.<RunResult>emptyList());
+        m = format.metrics();
+        Assert.assertTrue(m, m.contains("jmh_run_complete 1\n"));
+        Assert.assertTrue(m, m.contains("jmh_run_progress_ratio 1.0\n"));
+        Assert.assertFalse(m, m.contains("jmh_benchmark_info"));
+    }
+
+    @Test
+    public void testHistoryBounded() {
+        format.startBenchmark(params);
+        for (int i = 1; i <= 5; i++) {
+            iteration(i, 100 * i);
+        }
+
+        String h = format.history();
+        Assert.assertFalse(h, h.contains("iteration=\"2\""));
+        Assert.assertFalse(h, h.contains("jmh_iteration_score{"));
+        Assert.assertTrue(h, h.contains("# TYPE jmh_iteration_score_history gauge\n"));
+        Assert.assertTrue(h, h.contains("jmh_iteration_score_history{benchmark=\"bench.Test.test\",mode=\"thrpt\",params=\"size=10\",fork=\"1\""));
+        Assert.assertTrue(h, h.contains("iteration=\"3\",unit=\"ops/s\"} 300.0 "));
+        Assert.assertTrue(h, h.contains("iteration=\"4\",unit=\"ops/s\"} 400.0 "));
+        Assert.assertTrue(h, h.contains("iteration=\"5\",unit=\"ops/s\"} 500.0 "));
+    }
+
+    @Test
+    public void testHistoryForks() {
+        format.startBenchmark(params);
+        iteration(1, 100);
+        format.forkExit(0);
+        iteration(1, 200);
+
+        String h = format.history();
+        Assert.assertTrue(h, h.contains(",fork=\"1\",phase=\"measurement\",iteration=\"1\",unit=\"ops/s\"} 100.0 "));
+        Assert.assertTrue(h, h.contains(",fork=\"2\",phase=\"measurement\",iteration=\"1\",unit=\"ops/s\"} 200.0 "));
+
+        format.startBenchmark(params);
+        iteration(1, 300);
+        h = format.history();
+        Assert.assertTrue(h, h.contains(",fork=\"1\",phase=\"measurement\",iteration=\"1\",unit=\"ops/s\"} 300.0 "));
+    }
+
+    @Test
+    public void testEscape() {
+        Assert.assertEquals("a\\\"b\\\\c\\nd", PrometheusFormat.escape("a\"b\\c\nd"));
+        Assert.assertEquals("+Inf", PrometheusFormat.value(Double.POSITIVE_INFINITY));
+        Assert.assertEquals("NaN", PrometheusFormat.value(Double.NaN));
+    }
+
+    @Test
+    public void testServe() throws Exception {
+        format.startBenchmark(params);
+        iteration(1, 100);
+
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + format.getPort() + "/metrics").openConnection();
+        try {
+            Assert.assertEquals(200, conn.getResponseCode());
+            Assert.assertTrue(conn.getContentType(), conn.getContentType().startsWith("text/plain"));
+            String body;
+            try (InputStream is = conn.getInputStream()) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                int read;
+                while ((read = is.read(buf)) != -1) {
+                    bos.write(buf, 0, read);
+                }
+                body = bos.toString("UTF-8");
+            }
+            Assert.assertEquals(format.metrics(), body);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+}
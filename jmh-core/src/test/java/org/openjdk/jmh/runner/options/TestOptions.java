@@ -29,6 +29,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.results.ScoreEstimator;
 import org.openjdk.jmh.results.format.ResultFormatType;
 
 import java.io.ByteArrayOutputStream;
@@ -382,6 +383,42 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getWarmupIterations(), EMPTY_CMDLINE.getWarmupIterations());
     }
 
+    @Test
+    public void testWarmupQuietIterations() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-wq", "3");
+        Options builder = new OptionsBuilder().warmupQuietIterations(3).build();
+        Assert.assertEquals(builder.getWarmupQuietIterations(), cmdLine.getWarmupQuietIterations());
+    }
+
+    @Test
+    public void testWarmupQuietIterations_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getWarmupQuietIterations(), EMPTY_CMDLINE.getWarmupQuietIterations());
+    }
+
+    @Test
+    public void testWarmupQuietLimit() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-wql", "50");
+        Options builder = new OptionsBuilder().warmupQuietLimit(50).build();
+        Assert.assertEquals(builder.getWarmupQuietLimit(), cmdLine.getWarmupQuietLimit());
+    }
+
+    @Test
+    public void testWarmupQuietLimit_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getWarmupQuietLimit(), EMPTY_CMDLINE.getWarmupQuietLimit());
+    }
+
+    @Test
+    public void testUnrollLoops() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-ul", "true");
+        Options builder = new OptionsBuilder().unrollLoops(true).build();
+        Assert.assertEquals(builder.shouldUnrollLoops(), cmdLine.shouldUnrollLoops());
+    }
+
+    @Test
+    public void testUnrollLoops_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.shouldUnrollLoops(), EMPTY_CMDLINE.shouldUnrollLoops());
+    }
+
     @Test
     public void testWarmupIterations_Zero() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("-wi", "0");
@@ -592,6 +629,18 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getWarmupForkCount(), EMPTY_CMDLINE.getWarmupForkCount());
     }
 
+    @Test
+    public void testMinForksPerMode() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-fpm", "3");
+        Options builder = new OptionsBuilder().minForksPerMode(3).build();
+        Assert.assertEquals(builder.getMinForksPerMode(), cmdLine.getMinForksPerMode());
+    }
+
+    @Test
+    public void testMinForksPerMode_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getMinForksPerMode(), EMPTY_CMDLINE.getMinForksPerMode());
+    }
+
     @Test
     public void testWarmupFork_MinusOne() throws Exception {
         try {
@@ -612,6 +661,50 @@ public class TestOptions {
         }
     }
 
+    @Test
+    public void testCacheSweep() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-cs", "size");
+        Options builder = new OptionsBuilder().cacheSweep("size").build();
+        Assert.assertEquals(builder.getCacheSweepParam(), cmdLine.getCacheSweepParam());
+    }
+
+    @Test
+    public void testCacheSweep_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getCacheSweepParam(), EMPTY_CMDLINE.getCacheSweepParam());
+    }
+
+    @Test
+    public void testCacheSweep_WithParam() throws Exception {
+        try {
+            new CommandLineOptions("-cs", "size", "-p", "size=1,2");
+            Assert.fail();
+        } catch (CommandLineOptionException e) {
+            Assert.assertEquals("Parameter \"size\" is swept over the cache hierarchy, and cannot be given with -p at the same time", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMetricsPort() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-mp", "9999");
+        Options builder = new OptionsBuilder().metricsPort(9999).build();
+        Assert.assertEquals(builder.getMetricsPort(), cmdLine.getMetricsPort());
+    }
+
+    @Test
+    public void testMetricsPort_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getMetricsPort(), EMPTY_CMDLINE.getMetricsPort());
+    }
+
+    @Test
+    public void testMetricsPort_OutOfRange() throws Exception {
+        try {
+            new CommandLineOptions("-mp", "65536");
+            Assert.fail();
+        } catch (CommandLineOptionException e) {
+            Assert.assertEquals("Metrics port should be at most 65535, but it is 65536", e.getMessage());
+        }
+    }
+
     @Test
     public void testJvm() throws Exception {
         CommandLineOptions cmdLine = new CommandLineOptions("--jvm", "sample.jar");
@@ -773,4 +866,26 @@ public class TestOptions {
         Assert.assertEquals(EMPTY_BUILDER.getTimeout(), EMPTY_CMDLINE.getTimeout());
     }
 
+    @Test
+    public void testScoreEstimator() throws Exception {
+        CommandLineOptions cmdLine = new CommandLineOptions("-se", "hl");
+        Options builder = new OptionsBuilder().scoreEstimator(ScoreEstimator.HODGES_LEHMANN).build();
+        Assert.assertEquals(builder.getScoreEstimator(), cmdLine.getScoreEstimator());
+    }
+
+    @Test
+    public void testScoreEstimator_Default() throws Exception {
+        Assert.assertEquals(EMPTY_BUILDER.getScoreEstimator(), EMPTY_CMDLINE.getScoreEstimator());
+    }
+
+    @Test
+    public void testScoreEstimator_Unknown() throws Exception {
+        try {
+            new CommandLineOptions("-se", "mode");
+            Assert.fail();
+        } catch (CommandLineOptionException e) {
+            Assert.assertEquals("Unknown score estimator: mode, known estimators: " + ScoreEstimator.labels(), e.getMessage());
+        }
+    }
+
 }
@@ -166,6 +166,69 @@ public class TestParentOptions {
         Assert.assertEquals(false, builder.shouldDoGC().get());
     }
 
+    @Test
+    public void testUnrollLoops_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.shouldUnrollLoops().hasValue());
+    }
+
+    @Test
+    public void testUnrollLoops_Parent() throws Exception {
+        Options parent = new OptionsBuilder().unrollLoops(true).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(true, builder.shouldUnrollLoops().get());
+    }
+
+    @Test
+    public void testUnrollLoops_Merge() throws Exception {
+        Options parent = new OptionsBuilder().unrollLoops(true).build();
+        Options builder = new OptionsBuilder().parent(parent).unrollLoops(false).build();
+        Assert.assertEquals(false, builder.shouldUnrollLoops().get());
+    }
+
+    @Test
+    public void testCacheSweep_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getCacheSweepParam().hasValue());
+    }
+
+    @Test
+    public void testCacheSweep_Parent() throws Exception {
+        Options parent = new OptionsBuilder().cacheSweep("size").build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals("size", builder.getCacheSweepParam().get());
+    }
+
+    @Test
+    public void testCacheSweep_Merge() throws Exception {
+        Options parent = new OptionsBuilder().cacheSweep("size").build();
+        Options builder = new OptionsBuilder().parent(parent).cacheSweep("length").build();
+        Assert.assertEquals("length", builder.getCacheSweepParam().get());
+    }
+
+    @Test
+    public void testMetricsPort_Empty() throws Exception {
+        Options parent = new OptionsBuilder().build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertFalse(builder.getMetricsPort().hasValue());
+    }
+
+    @Test
+    public void testMetricsPort_Parent() throws Exception {
+        Options parent = new OptionsBuilder().metricsPort(9999).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(9999, (int) builder.getMetricsPort().get());
+    }
+
+    @Test
+    public void testMetricsPort_Merge() throws Exception {
+        Options parent = new OptionsBuilder().metricsPort(9999).build();
+        Options builder = new OptionsBuilder().parent(parent).metricsPort(8888).build();
+        Assert.assertEquals(8888, (int) builder.getMetricsPort().get());
+    }
+
     @Test
     public void testJVM_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -523,6 +586,20 @@ public class TestParentOptions {
         Assert.assertEquals(Integer.valueOf(84), builder.getWarmupForkCount().get());
     }
 
+    @Test
+    public void testMinForksPerMode_Parent() throws Exception {
+        Options parent = new OptionsBuilder().minForksPerMode(42).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Integer.valueOf(42), builder.getMinForksPerMode().get());
+    }
+
+    @Test
+    public void testMinForksPerMode_Merge() throws Exception {
+        Options parent = new OptionsBuilder().minForksPerMode(42).build();
+        Options builder = new OptionsBuilder().parent(parent).minForksPerMode(84).build();
+        Assert.assertEquals(Integer.valueOf(84), builder.getMinForksPerMode().get());
+    }
+
     @Test
     public void testWarmupIters_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
@@ -544,6 +621,22 @@ public class TestParentOptions {
         Assert.assertEquals(Integer.valueOf(84), builder.getWarmupIterations().get());
     }
 
+    @Test
+    public void testWarmupQuietIters_Parent() throws Exception {
+        Options parent = new OptionsBuilder().warmupQuietIterations(3).warmupQuietLimit(42).build();
+        Options builder = new OptionsBuilder().parent(parent).build();
+        Assert.assertEquals(Integer.valueOf(3), builder.getWarmupQuietIterations().get());
+        Assert.assertEquals(Integer.valueOf(42), builder.getWarmupQuietLimit().get());
+    }
+
+    @Test
+    public void testWarmupQuietIters_Merged() throws Exception {
+        Options parent = new OptionsBuilder().warmupQuietIterations(3).warmupQuietLimit(42).build();
+        Options builder = new OptionsBuilder().parent(parent).warmupQuietIterations(5).warmupQuietLimit(84).build();
+        Assert.assertEquals(Integer.valueOf(5), builder.getWarmupQuietIterations().get());
+        Assert.assertEquals(Integer.valueOf(84), builder.getWarmupQuietLimit().get());
+    }
+
     @Test
     public void testWarmupTime_Empty() throws Exception {
         Options parent = new OptionsBuilder().build();
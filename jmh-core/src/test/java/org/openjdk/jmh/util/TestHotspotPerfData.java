@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.util;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class TestHotspotPerfData {
+
+    private static final int PROLOGUE_SIZE = 32;
+
+    private static ByteBuffer buffer(ByteOrder order, boolean accessible) {
+        ByteBuffer b = ByteBuffer.allocate(256);
+        b.order(ByteOrder.BIG_ENDIAN).putInt(0, HotspotPerfData.MAGIC);
+        b.order(order);
+        b.put(4, (byte) (order == ByteOrder.BIG_ENDIAN ? 0 : 1));
+        b.put(5, (byte) 2);
+        b.put(6, (byte) 0);
+        b.put(7, (byte) (accessible ? 1 : 0));
+        b.putInt(24, PROLOGUE_SIZE);
+        b.putInt(28, 3);
+
+        int off = PROLOGUE_SIZE;
+        off = entry(b, off, "sun.gc.collector.0.invocations", 'J', 0, HotspotPerfData.UNITS_EVENTS, 42);
+        off = entry(b, off, "java.property.java.vm.name", 'B', 8, 5, 0);
+        entry(b, off, "sun.os.hrt.frequency", 'J', 0, 6, 1_000_000_000L);
+        return b;
+    }
+
+    private static int entry(ByteBuffer b, int off, String name, char type, int vectorLength, int units, long value) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        int nameOffset = 20;
+        int dataOffset = (nameOffset + nameBytes.length + 1 + 7) & ~7;
+        int length = dataOffset + 8;
+
+        b.putInt(off, length);
+        b.putInt(off + 4, nameOffset);
+        b.putInt(off + 8, vectorLength);
+        b.put(off + 12, (byte) type);
+        b.put(off + 13, (byte) 0);
+        b.put(off + 14, (byte) units);
+        b.put(off + 15, (byte) HotspotPerfData.VARIABILITY_MONOTONIC);
+        b.putInt(off + 16, dataOffset);
+        for (int i = 0; i < nameBytes.length; i++) {
+            b.put(off + nameOffset + i, nameBytes[i]);
+        }
+        b.putLong(off + dataOffset, value);
+        return off + length;
+    }
+
+    private static void check(ByteOrder order) {
+        Map<String, HotspotPerfData.Counter> counters = HotspotPerfData.decode(buffer(order, true));
+        Assert.assertNotNull(counters);
+        Assert.assertEquals(2, counters.size());
+        Assert.assertEquals(42, counters.get("sun.gc.collector.0.invocations").getValue());
+        Assert.assertEquals(HotspotPerfData.UNITS_EVENTS, counters.get("sun.gc.collector.0.invocations").getUnits());
+        Assert.assertEquals(1_000_000_000L, counters.get("sun.os.hrt.frequency").getValue());
+    }
+
+    @Test
+    public void testLittleEndian() {
+        check(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void testBigEndian() {
+        check(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testNotAccessible() {
+        Map<String, HotspotPerfData.Counter> counters = HotspotPerfData.decode(buffer(ByteOrder.LITTLE_ENDIAN, false));
+        Assert.assertNotNull(counters);
+        Assert.assertTrue(counters.isEmpty());
+    }
+
+    @Test
+    public void testGarbage() {
+        Assert.assertNull(HotspotPerfData.decode(ByteBuffer.allocate(256)));
+        Assert.assertNull(HotspotPerfData.decode(ByteBuffer.allocate(4)));
+    }
+
+    @Test
+    public void testCurrentVM() throws IOException {
+        File file = HotspotPerfData.file(HotspotPerfData.defaultDirectory(), Utils.getPid());
+        if (!file.exists()) {
+            // perf data is not shared, or this is not HotSpot
+            return;
+        }
+
+        Map<String, HotspotPerfData.Counter> counters = HotspotPerfData.decode(HotspotPerfData.map(file));
+        Assert.assertNotNull(counters);
+        Assert.assertTrue(counters.containsKey("sun.os.hrt.frequency"));
+        Assert.assertTrue(counters.get("java.cls.loadedClasses").getValue() > 0);
+    }
+
+}
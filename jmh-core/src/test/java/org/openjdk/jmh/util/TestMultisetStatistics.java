@@ -28,9 +28,12 @@ import junit.framework.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.AbstractMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 /**
  * Tests for Statistics
@@ -171,6 +174,33 @@ public class TestMultisetStatistics {
         assertEquals(expResult, result);
     }
 
+    @Test
+    public void testUpdateAfterRead() {
+        MultisetStatistics s = new MultisetStatistics();
+        s.addValue(3, 1);
+        s.addValue(1, 2);
+        s.addValue(3, 1);
+        s.addValue(2, 1);
+
+        Iterator<Map.Entry<Double, Long>> it = s.getRawData();
+        assertEquals(3.0, s.getMax(), 0.0);
+
+        s.addValue(0, 1);
+        s.addValue(3, 1);
+
+        // the iterator taken before the update still sees the old data
+        assertEquals(new AbstractMap.SimpleImmutableEntry<>(1.0, 2L), it.next());
+        assertEquals(new AbstractMap.SimpleImmutableEntry<>(2.0, 1L), it.next());
+        assertEquals(new AbstractMap.SimpleImmutableEntry<>(3.0, 2L), it.next());
+        assertFalse(it.hasNext());
+
+        assertEquals(7, s.getN());
+        assertEquals(0.0, s.getMin(), 0.0);
+        assertEquals(3.0, s.getMax(), 0.0);
+        assertEquals(13.0, s.getSum(), 0.0);
+        assertEquals(2.0, s.getPercentile(50), 0.0);
+    }
+
     @Test
     public strictfp void testSignificant_Always() {
         MultisetStatistics s1 = new MultisetStatistics();
@@ -433,4 +463,79 @@ public class TestMultisetStatistics {
         Assert.assertEquals(itemCount, 10);
     }
 
+    /**
+     * Values coming out of order, and with duplicates, should be the same
+     * as the values coming in order.
+     */
+    @Test
+    public strictfp void testUnorderedDuplicates() {
+        MultisetStatistics ordered = new MultisetStatistics();
+        MultisetStatistics unordered = new MultisetStatistics();
+        for (int c = 1; c <= 100; c++) {
+            ordered.addValue(c, 3);
+        }
+        for (int r = 0; r < 3; r++) {
+            for (int c = 100; c >= 1; c--) {
+                unordered.addValue(c, 1);
+            }
+        }
+
+        assertEquals(ordered.getN(), unordered.getN());
+        assertEquals(ordered.getMin(), unordered.getMin(), 0.0);
+        assertEquals(ordered.getMax(), unordered.getMax(), 0.0);
+        assertEquals(ordered.getSum(), unordered.getSum(), 0.0);
+        assertEquals(ordered.getVariance(), unordered.getVariance(), 1e-9);
+        for (double p : new double[] {1, 10, 33, 50, 90, 99, 99.9, 100}) {
+            assertEquals("p" + p, ordered.getPercentile(p), unordered.getPercentile(p), 0.0);
+        }
+
+        int itemCount = 0;
+        for (Map.Entry<Double, Long> entry : Utils.adaptForLoop(unordered.getRawData())) {
+            itemCount++;
+            assertEquals((double) itemCount, entry.getKey(), 0.0);
+            assertEquals(3L, entry.getValue().longValue());
+        }
+        assertEquals(100, itemCount);
+    }
+
+    /**
+     * Adding values after the percentile query should invalidate the cached state.
+     */
+    @Test
+    public strictfp void testAddAfterPercentile() {
+        MultisetStatistics s = new MultisetStatistics();
+        s.addValue(10, 1);
+        s.addValue(20, 1);
+        assertEquals(20, s.getPercentile(100), 0.0);
+
+        s.addValue(5, 1);
+        s.addValue(30, 1);
+        assertEquals(4, s.getN());
+        assertEquals(5, s.getPercentile(0), 0.0);
+        assertEquals(30, s.getPercentile(100), 0.0);
+        assertEquals(15, s.getPercentile(50), 0.0);
+    }
+
+    /**
+     * Should be the same as the list of all the values.
+     */
+    @Test
+    public strictfp void testPercentileMatchesList() {
+        MultisetStatistics ms = new MultisetStatistics();
+        ListStatistics ls = new ListStatistics();
+        java.util.Random r = new java.util.Random(42);
+        for (int c = 0; c < 1000; c++) {
+            int v = r.nextInt(50);
+            int cnt = 1 + r.nextInt(5);
+            ms.addValue(v, cnt);
+            for (int i = 0; i < cnt; i++) {
+                ls.addValue(v);
+            }
+        }
+
+        for (double p : new double[] {0, 0.1, 1, 25, 50, 75, 90, 99, 99.99, 100}) {
+            assertEquals("p" + p, ls.getPercentile(p), ms.getPercentile(p), 1e-9);
+        }
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for RobustStatistics
+ */
+public class TestRobustStatistics {
+
+    private static ListStatistics withOutlier() {
+        ListStatistics s = new ListStatistics();
+        for (int i = 1; i <= 19; i++) {
+            s.addValue(100 + i);
+        }
+        s.addValue(10000);
+        return s;
+    }
+
+    private static void assertContains(double[] interval, double v) {
+        assertTrue("Interval [" + interval[0] + ", " + interval[1] + "] should contain " + v,
+                interval[0] <= v && v <= interval[1]);
+    }
+
+    @Test
+    public void testTrimmedMean() {
+        ListStatistics s = new ListStatistics();
+        for (int i = 1; i <= 10; i++) {
+            s.addValue(i);
+        }
+        assertEquals(5.5, RobustStatistics.getTrimmedMean(s, 0.1), 1e-9);
+        assertEquals(s.getMean(), RobustStatistics.getTrimmedMean(s, 0), 1e-9);
+    }
+
+    @Test
+    public void testRobustAgainstOutlier() {
+        ListStatistics s = withOutlier();
+
+        double hl = RobustStatistics.getHodgesLehmann(s);
+        double trimmed = RobustStatistics.getTrimmedMean(s, 0.1);
+        assertTrue(hl > 101 && hl < 120);
+        assertTrue(trimmed > 101 && trimmed < 120);
+        assertTrue(s.getMean() > 500);
+
+        assertContains(RobustStatistics.getMedianIntervalAt(s, 0.99), s.getPercentile(50));
+        assertContains(RobustStatistics.getHodgesLehmannIntervalAt(s, 0.99), hl);
+        assertContains(RobustStatistics.getTrimmedMeanIntervalAt(s, 0.1, 0.99), trimmed);
+
+        double[] median = RobustStatistics.getMedianIntervalAt(s, 0.99);
+        assertTrue(median[1] < 200);
+    }
+
+    @Test
+    public void testHodgesLehmannSymmetric() {
+        ListStatistics s = new ListStatistics();
+        for (int i = 1; i <= 9; i++) {
+            s.addValue(i);
+        }
+        assertEquals(5, RobustStatistics.getHodgesLehmann(s), 1e-9);
+    }
+
+    @Test
+    public void testBootstrapDeterministic() {
+        ListStatistics s = withOutlier();
+        double[] i1 = RobustStatistics.getBootstrapMeanIntervalAt(s, 0.999, RobustStatistics.BOOTSTRAP_ROUNDS);
+        double[] i2 = RobustStatistics.getBootstrapMeanIntervalAt(s, 0.999, RobustStatistics.BOOTSTRAP_ROUNDS);
+        assertArrayEquals(i1, i2, 0);
+        assertContains(i1, s.getMean());
+    }
+
+    @Test
+    public void testListAndMultisetAgree() {
+        ListStatistics ls = new ListStatistics();
+        MultisetStatistics ms = new MultisetStatistics();
+        for (int i = 0; i < 200; i++) {
+            int v = (i * 37) % 11;
+            ls.addValue(v);
+            ms.addValue(v, 1);
+        }
+
+        assertEquals(RobustStatistics.getHodgesLehmann(ls), RobustStatistics.getHodgesLehmann(ms), 1e-9);
+        assertEquals(RobustStatistics.getTrimmedMean(ls, 0.1), RobustStatistics.getTrimmedMean(ms, 0.1), 1e-9);
+        assertArrayEquals(RobustStatistics.getMedianIntervalAt(ls, 0.99), RobustStatistics.getMedianIntervalAt(ms, 0.99), 1e-9);
+        assertArrayEquals(RobustStatistics.getTrimmedMeanIntervalAt(ls, 0.1, 0.99),
+                RobustStatistics.getTrimmedMeanIntervalAt(ms, 0.1, 0.99), 1e-9);
+    }
+
+    @Test
+    public void testLargeMultiset() {
+        MultisetStatistics ms = new MultisetStatistics();
+        for (int i = 0; i < 1000; i++) {
+            ms.addValue(i, 10000);
+        }
+
+        double[] bootstrap = RobustStatistics.getBootstrapMeanIntervalAt(ms, 0.999, RobustStatistics.BOOTSTRAP_ROUNDS);
+        assertContains(bootstrap, ms.getMean());
+        assertTrue(bootstrap[1] - bootstrap[0] < 10);
+
+        assertEquals(499.5, RobustStatistics.getHodgesLehmann(ms), 1);
+        assertContains(RobustStatistics.getHodgesLehmannIntervalAt(ms, 0.999), 499.5);
+    }
+
+}
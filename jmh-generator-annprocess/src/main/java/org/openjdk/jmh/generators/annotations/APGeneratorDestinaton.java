@@ -24,17 +24,19 @@
  */
 package org.openjdk.jmh.generators.annotations;
 
-import org.openjdk.jmh.generators.core.GeneratorDestination;
 import org.openjdk.jmh.generators.core.MetadataInfo;
+import org.openjdk.jmh.generators.core.OriginatingGeneratorDestination;
 import org.openjdk.jmh.util.Utils;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
 import javax.tools.StandardLocation;
 import java.io.*;
 
-public class APGeneratorDestinaton implements GeneratorDestination {
+public class APGeneratorDestinaton implements OriginatingGeneratorDestination {
 
     private final ProcessingEnvironment processingEnv;
 
@@ -47,6 +49,12 @@ public class APGeneratorDestinaton implements GeneratorDestination {
         return processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourcePath).openOutputStream();
     }
 
+    @Override
+    public OutputStream newResource(String resourcePath, String originatingClassName) throws IOException {
+        return processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourcePath,
+                originatingElements(originatingClassName)).openOutputStream();
+    }
+
     @Override
     public InputStream getResource(String resourcePath) throws IOException {
         return processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resourcePath).openInputStream();
@@ -57,6 +65,16 @@ public class APGeneratorDestinaton implements GeneratorDestination {
         return processingEnv.getFiler().createSourceFile(className).openWriter();
     }
 
+    @Override
+    public Writer newClass(String className, String originatingClassName) throws IOException {
+        return processingEnv.getFiler().createSourceFile(className, originatingElements(originatingClassName)).openWriter();
+    }
+
+    private Element[] originatingElements(String className) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+        return (element != null) ? new Element[]{element} : new Element[0];
+    }
+
     @Override
     public void printError(String message) {
         processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
@@ -28,11 +28,23 @@ import org.objectweb.asm.ClassReader;
 import org.openjdk.jmh.generators.core.ClassInfo;
 import org.openjdk.jmh.generators.core.GeneratorSource;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public class ASMGeneratorSource implements GeneratorSource {
 
@@ -42,10 +54,125 @@ public class ASMGeneratorSource implements GeneratorSource {
         this.classInfos = new ClassInfoRepo();
     }
 
-    public void processClasses(Collection<File> classFiles)  throws IOException {
-        for (File f : classFiles) {
-            processClass(f);
+    /**
+     * Processes the class files in parallel. Class files are pre-scanned first,
+     * and only the classes that reference JMH annotations, or inherit from such
+     * classes, are parsed and offered to the generator. Other classes are still
+     * resolvable with {@link #resolveClass(String)}, through the context class loader.
+     *
+     * @param classFiles class files to process
+     * @throws IOException if class files cannot be read
+     */
+    public void processClasses(Collection<File> classFiles) throws IOException {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "jmh-asm-scanner");
+                        t.setDaemon(true);
+                        t.setContextClassLoader(cl);
+                        return t;
+                    }
+                });
+
+        try {
+            List<Callable<ScannedClass>> scans = new ArrayList<>();
+            for (final File f : classFiles) {
+                scans.add(new Callable<ScannedClass>() {
+                    @Override
+                    public ScannedClass call() throws IOException {
+                        return ScannedClass.of(f);
+                    }
+                });
+            }
+
+            Map<String, ScannedClass> scanned = new HashMap<>();
+            for (ScannedClass sc : invokeAll(pool, scans)) {
+                scanned.put(sc.summary.getName(), sc);
+            }
+
+            Map<String, Boolean> selected = new HashMap<>();
+            List<Callable<Void>> parses = new ArrayList<>();
+            for (final ScannedClass sc : scanned.values()) {
+                if (isSelected(sc.summary.getName(), scanned, selected, cl)) {
+                    parses.add(new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            processClass(sc.getBytes());
+                            return null;
+                        }
+                    });
+                }
+            }
+            invokeAll(pool, parses);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService pool, List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> f : pool.invokeAll(tasks)) {
+                results.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    /**
+     * Benchmarks can be declared in superclasses, and then the subclass without
+     * any JMH annotations still has the benchmarks. Walk up the hierarchy, looking
+     * into the class files outside the processed set as well.
+     */
+    private static boolean isSelected(String name, Map<String, ScannedClass> scanned,
+                                      Map<String, Boolean> selected, ClassLoader cl) throws IOException {
+        if (name == null || name.startsWith("java/")) {
+            return false;
+        }
+
+        Boolean known = selected.get(name);
+        if (known != null) {
+            return known;
+        }
+
+        ClassFileSummary summary = null;
+        ScannedClass sc = scanned.get(name);
+        if (sc != null) {
+            summary = sc.summary;
+        } else if (cl != null) {
+            try (InputStream is = cl.getResourceAsStream(name + ".class")) {
+                summary = (is != null) ? ClassFileSummary.of(readAll(is)) : null;
+            }
+        }
+
+        boolean result = (summary != null) &&
+                (summary.hasJmhAnnotations() || isSelected(summary.getSuperName(), scanned, selected, cl));
+        selected.put(name, result);
+        return result;
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int read;
+        while ((read = is.read(buf)) != -1) {
+            bos.write(buf, 0, read);
         }
+        return bos.toByteArray();
     }
 
     public void processClass(File classFile) throws IOException {
@@ -55,8 +182,15 @@ public class ASMGeneratorSource implements GeneratorSource {
     }
 
     public void processClass(InputStream stream) throws IOException {
+        processClass(new ClassReader(stream));
+    }
+
+    private void processClass(byte[] classBytes) {
+        processClass(new ClassReader(classBytes));
+    }
+
+    private void processClass(ClassReader reader) {
         final ASMClassInfo ci = new ASMClassInfo(classInfos);
-        ClassReader reader = new ClassReader(stream);
         reader.accept(ci, 0);
         classInfos.put(ci.getIdName(), ci);
     }
@@ -71,4 +205,28 @@ public class ASMGeneratorSource implements GeneratorSource {
         return classInfos.get(className);
     }
 
+    private static class ScannedClass {
+        private final File file;
+        private final ClassFileSummary summary;
+
+        // Retained only for the classes that are likely to be parsed later
+        private final byte[] bytes;
+
+        private ScannedClass(File file, ClassFileSummary summary, byte[] bytes) {
+            this.file = file;
+            this.summary = summary;
+            this.bytes = bytes;
+        }
+
+        static ScannedClass of(File file) throws IOException {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            ClassFileSummary summary = ClassFileSummary.of(bytes);
+            return new ScannedClass(file, summary, summary.hasJmhAnnotations() ? bytes : null);
+        }
+
+        byte[] getBytes() throws IOException {
+            return (bytes != null) ? bytes : Files.readAllBytes(file.toPath());
+        }
+    }
+
 }
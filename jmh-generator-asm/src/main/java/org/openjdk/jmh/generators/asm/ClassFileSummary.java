@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.objectweb.asm.ClassReader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Quick look into the class file, without parsing it in full. ClassReader
+ * only indexes the constant pool when constructed, and that is enough to get
+ * the class names and to tell if any JMH annotation is referenced from the class.
+ */
+class ClassFileSummary {
+
+    private static final byte[] JMH_ANNOTATION_PREFIX = "Lorg/openjdk/jmh/annotations/".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Enums from the annotations package. These are referenced on their own
+     * by the code that merely uses them, and they only come along with the
+     * actual annotation descriptors in benchmark classes.
+     */
+    private static final byte[][] JMH_ENUMS = {
+            "Lorg/openjdk/jmh/annotations/Level;".getBytes(StandardCharsets.UTF_8),
+            "Lorg/openjdk/jmh/annotations/Mode;".getBytes(StandardCharsets.UTF_8),
+            "Lorg/openjdk/jmh/annotations/Scope;".getBytes(StandardCharsets.UTF_8),
+    };
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private final String name;
+    private final String superName;
+    private final boolean hasJmhAnnotations;
+
+    private ClassFileSummary(String name, String superName, boolean hasJmhAnnotations) {
+        this.name = name;
+        this.superName = superName;
+        this.hasJmhAnnotations = hasJmhAnnotations;
+    }
+
+    public static ClassFileSummary of(byte[] classBytes) {
+        ClassReader reader = new ClassReader(classBytes);
+        return new ClassFileSummary(reader.getClassName(), reader.getSuperName(), hasJmhAnnotations(reader));
+    }
+
+    private static boolean hasJmhAnnotations(ClassReader reader) {
+        byte[] b = reader.b;
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+
+            // Second slots of long/double constants are not indexed
+            if (offset == 0 || b[offset - 1] != CONSTANT_UTF8) {
+                continue;
+            }
+
+            int len = reader.readUnsignedShort(offset);
+            if (len >= JMH_ANNOTATION_PREFIX.length && startsWith(b, offset + 2, JMH_ANNOTATION_PREFIX)
+                    && !isEnum(b, offset + 2, len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEnum(byte[] b, int offset, int len) {
+        for (byte[] e : JMH_ENUMS) {
+            if (len == e.length && startsWith(b, offset, e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] b, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return internal name of the class
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return internal name of the superclass, null for java.lang.Object
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * @return true, if class references any JMH annotation
+     */
+    public boolean hasJmhAnnotations() {
+        return hasJmhAnnotations;
+    }
+
+}
@@ -28,12 +28,12 @@ import org.openjdk.jmh.generators.core.ClassInfo;
 import org.openjdk.jmh.generators.reflection.RFGeneratorSource;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 class ClassInfoRepo {
 
-    private final Map<String, ClassInfo> map = new HashMap<>();
+    private final Map<String, ClassInfo> map = new ConcurrentHashMap<>();
 
     public ClassInfo get(String desc) {
         desc = desc.replace('/', '.');
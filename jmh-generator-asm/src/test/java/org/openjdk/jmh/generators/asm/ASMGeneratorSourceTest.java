@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.openjdk.jmh.generators.asm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.generators.core.ClassInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class ASMGeneratorSourceTest {
+
+    public static class InheritedBase {
+        @Benchmark
+        public void bench() {
+            // do nothing
+        }
+    }
+
+    public static class Inherited extends InheritedBase {
+        // benchmarks are inherited
+    }
+
+    public static class ModeReference {
+        public Mode mode() {
+            return Mode.Throughput;
+        }
+    }
+
+    @BenchmarkMode(Mode.AverageTime)
+    public static class ModeAnnotated {
+        // only the class-level annotation
+    }
+
+    @Test
+    public void testSummaryAnnotated() throws IOException {
+        Assert.assertTrue(summary(InheritedBase.class).hasJmhAnnotations());
+        Assert.assertTrue(summary(ModeAnnotated.class).hasJmhAnnotations());
+    }
+
+    @Test
+    public void testSummaryNotAnnotated() throws IOException {
+        Assert.assertFalse(summary(Inherited.class).hasJmhAnnotations());
+        Assert.assertFalse(summary(ModeReference.class).hasJmhAnnotations());
+    }
+
+    @Test
+    public void testSummaryNames() throws IOException {
+        ClassFileSummary s = summary(Inherited.class);
+        Assert.assertEquals(internalName(Inherited.class), s.getName());
+        Assert.assertEquals(internalName(InheritedBase.class), s.getSuperName());
+    }
+
+    @Test
+    public void testModeReferenceNotSelected() throws IOException {
+        Assert.assertEquals(Collections.<String>emptySet(),
+                process(null, ModeReference.class));
+        Assert.assertEquals(Collections.singleton(ModeAnnotated.class.getCanonicalName()),
+                process(null, ModeAnnotated.class, ModeReference.class));
+    }
+
+    @Test
+    public void testSuperclassInJar() throws IOException {
+        File jar = File.createTempFile("jmh-asm", ".jar");
+        try {
+            try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+                jos.putNextEntry(new JarEntry(internalName(InheritedBase.class) + ".class"));
+                jos.write(bytes(InheritedBase.class));
+                jos.closeEntry();
+            }
+
+            // Superclass is only visible through the jar, not through the parent loaders
+            Assert.assertEquals(Collections.singleton(Inherited.class.getCanonicalName()),
+                    process(new URL[]{jar.toURI().toURL()}, Inherited.class));
+            Assert.assertEquals(Collections.<String>emptySet(),
+                    process(new URL[0], Inherited.class));
+        } finally {
+            jar.delete();
+        }
+    }
+
+    private static Set<String> process(URL[] classPath, Class<?>... classes) throws IOException {
+        Thread t = Thread.currentThread();
+        ClassLoader prev = t.getContextClassLoader();
+        if (classPath != null) {
+            t.setContextClassLoader(new URLClassLoader(classPath, null));
+        }
+        try {
+            Set<File> files = new HashSet<>();
+            for (Class<?> c : classes) {
+                files.add(classFile(c));
+            }
+
+            ASMGeneratorSource source = new ASMGeneratorSource();
+            source.processClasses(files);
+
+            Set<String> names = new HashSet<>();
+            for (ClassInfo ci : source.getClasses()) {
+                names.add(ci.getQualifiedName());
+            }
+            return names;
+        } finally {
+            t.setContextClassLoader(prev);
+        }
+    }
+
+    private static ClassFileSummary summary(Class<?> klass) throws IOException {
+        return ClassFileSummary.of(bytes(klass));
+    }
+
+    private static byte[] bytes(Class<?> klass) throws IOException {
+        return Files.readAllBytes(classFile(klass).toPath());
+    }
+
+    private static File classFile(Class<?> klass) throws IOException {
+        String name = klass.getName();
+        try {
+            return new File(klass.getResource(name.substring(name.lastIndexOf('.') + 1) + ".class").toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String internalName(Class<?> klass) {
+        return klass.getName().replace('.', '/');
+    }
+
+}